@@ -19,6 +19,7 @@ package org.dromara.maxkey.authn;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.UnaryOperator;
 
 import org.dromara.maxkey.authn.session.Session;
 import org.dromara.maxkey.entity.idm.UserInfo;
@@ -28,8 +29,20 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 public class SignPrincipal implements  UserDetails {
     private static final long serialVersionUID = -110742975439268030L;
+    
     UserInfo userInfo;
     
+    /**
+     * false when the profile is loaded on first getUserInfo
+     */
+    boolean profileLoaded = true;
+    
+    /**
+     * loads the profile columns into the userInfo , sign-on only loads the authentication columns ,
+     * bound by the session manager and not serialized with the session
+     */
+    transient UnaryOperator<UserInfo> profileLoader;
+    
     UserDetails userDetails;
     
     String sessionId;
@@ -87,9 +100,44 @@ public class SignPrincipal implements  UserDetails {
         this.authenticated = true;
     }
 
+    /**
+     * @return userInfo with profile , the profile is loaded on first access
+     */
     public UserInfo getUserInfo() {
+        if(!profileLoaded) {
+            loadProfile();
+        }
+        return userInfo;
+    }
+    
+    /**
+     * @return userInfo with the authentication columns , the profile is not loaded
+     */
+    public UserInfo getAuthnUserInfo() {
         return userInfo;
     }
+    
+    synchronized void loadProfile() {
+        if(!profileLoaded && userInfo != null) {
+            if(profileLoader == null) {
+                throw new IllegalStateException("profile loader of " + userInfo.getUsername() + " is not bound");
+            }
+            profileLoader.apply(userInfo);
+            profileLoaded = true;
+        }
+    }
+    
+    public boolean isProfileLoaded() {
+        return profileLoaded;
+    }
+    
+    public void setProfileLoaded(boolean profileLoaded) {
+        this.profileLoaded = profileLoaded;
+    }
+    
+    public void setProfileLoader(UnaryOperator<UserInfo> profileLoader) {
+        this.profileLoader = profileLoader;
+    }
 
     public void setUserInfo(UserInfo userInfo) {
         this.userInfo = userInfo;
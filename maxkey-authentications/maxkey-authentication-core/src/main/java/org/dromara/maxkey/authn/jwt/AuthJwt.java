@@ -90,13 +90,13 @@ public class AuthJwt implements Serializable {
 		this.refreshToken = refreshToken;
 		
 		this.ticket = principal.getSessionId();
-		this.id = principal.getUserInfo().getId();
-		this.username = principal.getUserInfo().getUsername();
+		this.id = principal.getAuthnUserInfo().getId();
+		this.username = principal.getAuthnUserInfo().getUsername();
 		this.name = this.username;
-		this.displayName = principal.getUserInfo().getDisplayName();
-		this.email = principal.getUserInfo().getEmail();
-		this.instId = principal.getUserInfo().getInstId();
-		this.instName = principal.getUserInfo().getInstName();
+		this.displayName = principal.getAuthnUserInfo().getDisplayName();
+		this.email = principal.getAuthnUserInfo().getEmail();
+		this.instId = principal.getAuthnUserInfo().getInstId();
+		this.instName = principal.getAuthnUserInfo().getInstName();
 		
 		this.authorities = new ArrayList<String>();
 		for(GrantedAuthority grantedAuthority :authentication.getAuthorities()) {
@@ -17,8 +17,13 @@
 
 package org.dromara.maxkey.authn.jwt;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
 import org.dromara.maxkey.authn.SignPrincipal;
@@ -31,6 +36,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jwt.JWTClaimsSet;
@@ -39,8 +47,18 @@ import com.nimbusds.jwt.SignedJWT;
 public class AuthJwtService {
 	private static final  Logger _logger = LoggerFactory.getLogger(AuthJwtService.class);
 	
+	public static final int VERIFIED_CLAIMS_CACHE_SIZE = 100000;
+	
 	HMAC512Service hmac512Service;
 	
+	/**
+	 * token digest to verified claims
+	 */
+	Cache<String, JWTClaimsSet> verifiedClaimsCache = Caffeine.newBuilder()
+			.maximumSize(VERIFIED_CLAIMS_CACHE_SIZE)
+			.expireAfter(new ClaimsExpiry())
+			.build();
+	
 	/**
 	 * JWT with Authentication
 	 * @param authentication
@@ -48,7 +66,7 @@ public class AuthJwtService {
 	 */
 	public String genJwt(Authentication authentication,String issuer,int expires) {
 		SignPrincipal principal = ((SignPrincipal)authentication.getPrincipal());
-		UserInfo userInfo = principal.getUserInfo();
+		UserInfo userInfo = principal.getAuthnUserInfo();
 		DateTime currentDateTime = DateTime.now();
 		String subject = principal.getUsername();
 		Date expirationTime = currentDateTime.plusSeconds(expires).toDate();
@@ -120,27 +138,52 @@ public class AuthJwtService {
 	 * @return true or false
 	 */
 	public boolean validateJwtToken(String authToken) {
-		if(StringUtils.isNotBlank(authToken)) {
-			try {
-				JWTClaimsSet claims = resolve(authToken);
-				boolean isExpiration = claims.getExpirationTime().after(DateTime.now().toDate());
-				boolean isVerify = hmac512Service.verify(authToken);
-				_logger.debug("JWT Validate {} " , isVerify && isExpiration);
-				
-				if(!(isVerify && isExpiration)) {
-					_logger.debug("HMAC Verify {} , now {} , ExpirationTime {} , is not Expiration : {}" , 
-						isVerify,DateTime.now().toDate(),claims.getExpirationTime(),isExpiration);
-				}
-				return isVerify && isExpiration;
-			} catch (ParseException e) {
-				_logger.error("authToken {}",authToken);
-				_logger.error("ParseException ",e);
+		return verifyJwtToken(authToken) != null;
+	}
+	
+	/**
+	 * parse once , verify with HMAC512 and check ExpirationTime ,
+	 * verified claims are cached by token digest until the token expires
+	 * 
+	 * @param authToken
+	 * @return verified claims or null
+	 */
+	public JWTClaimsSet verifyJwtToken(String authToken) {
+		if(StringUtils.isBlank(authToken)) {
+			return null;
+		}
+		String digest = digest(authToken);
+		JWTClaimsSet claims = verifiedClaimsCache.getIfPresent(digest);
+		if(claims != null) {
+			return claims;
+		}
+		try {
+			SignedJWT signedJWT = SignedJWT.parse(authToken);
+			claims = signedJWT.getJWTClaimsSet();
+			Date now = new Date();
+			boolean isExpiration = claims.getExpirationTime() != null && claims.getExpirationTime().after(now);
+			boolean isVerify = isExpiration && hmac512Service.verify(signedJWT);
+			_logger.debug("JWT Validate {} " , isVerify && isExpiration);
+			
+			if(!(isVerify && isExpiration)) {
+				_logger.debug("HMAC Verify {} , now {} , ExpirationTime {} , is not Expiration : {}" , 
+					isVerify,now,claims.getExpirationTime(),isExpiration);
+				return null;
 			}
+			verifiedClaimsCache.put(digest, claims);
+			return claims;
+		} catch (ParseException e) {
+			_logger.error("authToken {}",authToken);
+			_logger.error("ParseException ",e);
 		}
-		return false;
+		return null;
 	}
 	
 	public  JWTClaimsSet resolve(String authToken) throws ParseException {
+		JWTClaimsSet claims = verifiedClaimsCache.getIfPresent(digest(authToken));
+		if(claims != null) {
+			return claims;
+		}
 		SignedJWT signedJWT = SignedJWT.parse(authToken);
 		_logger.trace("jwt Claims : {}" , signedJWT.getJWTClaimsSet());
 		return signedJWT.getJWTClaimsSet();
@@ -150,4 +193,37 @@ public class AuthJwtService {
 		JWTClaimsSet claims = resolve(authToken); 
 		return claims.getJWTID();
 	}
+	
+	static String digest(String authToken) {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			return Base64.getEncoder().encodeToString(
+					messageDigest.digest(authToken.getBytes(StandardCharsets.US_ASCII)));
+		} catch (NoSuchAlgorithmException e) {
+			//SHA-256 is required on every java platform
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * expire the entry at the token ExpirationTime
+	 */
+	static class ClaimsExpiry implements Expiry<String, JWTClaimsSet> {
+
+		@Override
+		public long expireAfterCreate(String key, JWTClaimsSet claims, long currentTime) {
+			long millis = claims.getExpirationTime().getTime() - System.currentTimeMillis();
+			return TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, JWTClaimsSet claims, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+
+		@Override
+		public long expireAfterRead(String key, JWTClaimsSet claims, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
 }
@@ -23,10 +23,20 @@ import java.util.List;
 import org.dromara.maxkey.entity.history.HistoryLogin;
 import org.dromara.maxkey.persistence.redis.RedisConnection;
 import org.dromara.maxkey.persistence.redis.RedisConnectionFactory;
+import org.dromara.maxkey.util.ObjectTransformer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.params.SetParams;
 
+/**
+ * Redis Session Manager<br>
+ * the session payload (authentication , user , apps) is stored once in MXK_SESSION_{id} ,
+ * the mutable last access time is stored in MXK_SESSION_ACCESS_{id} ,
+ * refresh only rewrites the access key and EXPIREs the payload key .
+ */
 public class RedisSessionManager implements SessionManager {
     private static final Logger _logger = LoggerFactory.getLogger(RedisSessionManager.class);
 	
@@ -36,10 +46,16 @@ public class RedisSessionManager implements SessionManager {
 	
 	public static String PREFIX="MXK_SESSION_";
 	
+	public static String ACCESS_PREFIX="MXK_SESSION_ACCESS_";
+	
 	public String getKey(String sessionId) {
 		return PREFIX + sessionId;
 	}
 	
+	public String getAccessKey(String sessionId) {
+		return ACCESS_PREFIX + sessionId;
+	}
+	
 	/**
 	 * @param connectionFactory
 	 */
@@ -66,30 +82,97 @@ public class RedisSessionManager implements SessionManager {
 	public void create(String sessionId, Session session) {
 		_logger.debug("store session key {} .",sessionId);
 		session.setExpiredTime(session.getLastAccessTime().plusSeconds(validitySeconds));
-		RedisConnection conn = connectionFactory.getConnection();
-		_logger.trace("store session {} ...",sessionId);
-		conn.setexObject( getKey(sessionId), validitySeconds, session);
-		_logger.debug("store session {} successful .",sessionId);
-		_logger.trace("close conn ...");
-		conn.close();
-		_logger.trace("close conn successful .");
+		try (RedisConnection conn = connectionFactory.getConnection()){
+			_logger.trace("store session {} ...",sessionId);
+			conn.openPipeline();
+			conn.setexObject( getKey(sessionId), validitySeconds, session);
+			conn.setex(getAccessKey(sessionId), validitySeconds, session.getLastAccessTime().toString());
+			conn.closePipeline();
+			_logger.debug("store session {} successful .",sessionId);
+		}
+	}
+
+	/**
+	 * rewrite the payload of an existing session , the expiry is kept and a removed session is not stored again
+	 * @param sessionId
+	 * @param session
+	 * @return false if the session not exists
+	 */
+	public boolean update(String sessionId, Session session) {
+		try (RedisConnection conn = connectionFactory.getConnection()){
+			String result = conn.getConn().set(
+					RedisConnection.keyBytes(getKey(sessionId)),
+					ObjectTransformer.serializeBytes(session),
+					SetParams.setParams().xx().keepttl());
+			return result != null;
+		}
 	}
 
 	@Override
 	public Session remove(String sessionId) {
-		RedisConnection conn=connectionFactory.getConnection();
-		Session ticket = conn.getObject(getKey(sessionId));
-		conn.delete(getKey(sessionId));
-		conn.close();
-		return ticket;
+		try (RedisConnection conn=connectionFactory.getConnection()){
+			Session session = conn.getdelObject(getKey(sessionId));
+			conn.delete(getAccessKey(sessionId));
+			return session;
+		}
 	}
 
     @Override
     public Session get(String sessionId) {
-        RedisConnection conn=connectionFactory.getConnection();
-        Session session = conn.getObject(getKey(sessionId));
-        conn.close();
-        return session;
+        try (RedisConnection conn=connectionFactory.getConnection()){
+        	Pipeline pipeline = conn.getConn().pipelined();
+        	Response<byte[]> payload = pipeline.get(RedisConnection.keyBytes(getKey(sessionId)));
+        	Response<String> access = pipeline.get(getAccessKey(sessionId));
+        	pipeline.sync();
+        	return merge(ObjectTransformer.deserializeBytes(payload.get()),access.get());
+        }
+    }
+    
+    /**
+     * slide the expiry without reading or writing the payload
+     * @param sessionId
+     * @param refreshTime
+     * @return false if the session not exists
+     */
+    public boolean touch(String sessionId,LocalDateTime refreshTime) {
+    	try (RedisConnection conn=connectionFactory.getConnection()){
+    		Pipeline pipeline = conn.getConn().pipelined();
+    		Response<Long> exists = pipeline.expire(getKey(sessionId), validitySeconds);
+    		pipeline.setex(getAccessKey(sessionId), validitySeconds, refreshTime.toString());
+    		pipeline.sync();
+    		if(exists.get() == 0) {
+    			conn.delete(getAccessKey(sessionId));
+    			return false;
+    		}
+    		return true;
+    	}
+    }
+    
+    /**
+     * read payload and slide the expiry in one round trip
+     */
+    Session touchAndGet(String sessionId,LocalDateTime refreshTime) {
+    	try (RedisConnection conn=connectionFactory.getConnection()){
+    		Pipeline pipeline = conn.getConn().pipelined();
+    		Response<byte[]> payload = pipeline.get(RedisConnection.keyBytes(getKey(sessionId)));
+    		pipeline.expire(getKey(sessionId), validitySeconds);
+    		pipeline.setex(getAccessKey(sessionId), validitySeconds, refreshTime.toString());
+    		pipeline.sync();
+    		Session session = ObjectTransformer.deserializeBytes(payload.get());
+    		if(session == null) {
+    			conn.delete(getAccessKey(sessionId));
+    			return null;
+    		}
+    		return merge(session,refreshTime.toString());
+    	}
+    }
+    
+    Session merge(Session session,String lastAccessTime) {
+    	if(session != null && lastAccessTime != null) {
+    		session.setLastAccessTime(LocalDateTime.parse(lastAccessTime));
+    		session.setExpiredTime(session.getLastAccessTime().plusSeconds(validitySeconds));
+    	}
+    	return session;
     }
 
     @Override
@@ -103,25 +186,15 @@ public class RedisSessionManager implements SessionManager {
 
 	@Override
     public Session refresh(String sessionId,LocalDateTime refreshTime) {
-        Session session = get(sessionId);
-        if(session != null) {
-        	_logger.debug("refresh session Id {} at {}",sessionId,refreshTime);
-	        session.setLastAccessTime(refreshTime);
-	        create(sessionId , session);
-        }
-        return session;
+		_logger.debug("refresh session Id {} at {}",sessionId,refreshTime);
+        return touchAndGet(sessionId,refreshTime);
     }
     
     @Override
     public Session refresh(String sessionId) {
-        Session session = get(sessionId);
-        if(session != null) {
-        	LocalDateTime currentTime = LocalDateTime.now();
-        	_logger.debug("refresh session Id {} at time {}",sessionId,currentTime);
-        	session.setLastAccessTime(currentTime);
-        	create(sessionId , session);
-        }
-        return session;
+    	LocalDateTime currentTime = LocalDateTime.now();
+    	_logger.debug("refresh session Id {} at time {}",sessionId,currentTime);
+        return touchAndGet(sessionId,currentTime);
     }
 
 	@Override
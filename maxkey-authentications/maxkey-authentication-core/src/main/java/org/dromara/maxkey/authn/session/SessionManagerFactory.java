@@ -23,10 +23,14 @@ import java.sql.Types;
 import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
 
+import org.dromara.maxkey.authn.SignPrincipal;
 import org.dromara.maxkey.constants.ConstsPersistence;
 import org.dromara.maxkey.entity.history.HistoryLogin;
 import org.dromara.maxkey.entity.idm.UserInfo;
+import org.dromara.maxkey.persistence.redis.RedisChannel;
 import org.dromara.maxkey.persistence.redis.RedisConnectionFactory;
 import org.dromara.maxkey.util.DateUtils;
 import org.slf4j.Logger;
@@ -34,11 +38,19 @@ import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 /**
  * SessionManager
  * Level 1 in memory,store in Caffeine
  * Level 2 in Redis 
- * user session status in database
+ * user session status in database<br>
+ * near cache mode : Level 1 is authoritative for reads , 
+ * Redis is refreshed only when refreshFraction of validity has elapsed since the last Redis write ,
+ * removed sessions are invalidated on all nodes by Redis pub/sub channel<br>
+ * the profile loader is bound to the principal of every returned session ,
+ * the profile is loaded on first access and written back to Redis once
  * @author shimh
  *
  */
@@ -57,6 +69,8 @@ public class SessionManagerFactory implements SessionManager{
     
     private static final String NO_SESSION_UPDATE_STATEMENT = 
     		"update mxk_history_login set sessionstatus = 7 where sessionstatus = 1 and (sessionid is null or sessionid = '')";
+    
+    public static final String INVALIDATE_CHANNEL = "MXK_SESSION_INVALIDATE";
 
     private JdbcTemplate jdbcTemplate;
     
@@ -68,10 +82,42 @@ public class SessionManagerFactory implements SessionManager{
 	
 	private int validitySeconds ;
 	
+	private boolean nearCache = false;
+	
+	/**
+	 * milliseconds between Redis refresh in near cache mode
+	 */
+	private long redisRefreshInterval;
+	
+	/**
+	 * sessionId to last Redis write time
+	 */
+	private Cache<String, Long> redisWriteTime;
+	
+	private RedisChannel invalidateChannel;
+	
+	/**
+	 * loads the profile columns of a principal signed on with the authentication columns only
+	 */
+	private UnaryOperator<UserInfo> profileLoader;
+	
 	public SessionManagerFactory(int persistence,
 			 	JdbcTemplate jdbcTemplate,
 	            RedisConnectionFactory redisConnFactory,
 	            int validitySeconds) {
+		this(persistence,jdbcTemplate,redisConnFactory,validitySeconds,false,0f);
+	}
+	
+	/**
+	 * @param nearCache near cache mode , only used in Redis persistence
+	 * @param refreshFraction 0 - 1 , fraction of validitySeconds elapsed before refresh Redis
+	 */
+	public SessionManagerFactory(int persistence,
+		 	JdbcTemplate jdbcTemplate,
+            RedisConnectionFactory redisConnFactory,
+            int validitySeconds,
+            boolean nearCache,
+            float refreshFraction) {
 		this.validitySeconds = validitySeconds;
 		 this.jdbcTemplate = jdbcTemplate;
 		 this.inMemorySessionManager = 
@@ -82,14 +128,59 @@ public class SessionManagerFactory implements SessionManager{
 			this.redisSessionManager = 
 					new RedisSessionManager(redisConnFactory,validitySeconds);
 			_logger.debug("RedisSessionManager");
+			this.nearCache = nearCache;
+			if(nearCache) {
+				this.redisRefreshInterval = (long)(validitySeconds * 1000L * Math.max(0f, Math.min(1f, refreshFraction)));
+				this.redisWriteTime = Caffeine.newBuilder()
+						.expireAfterWrite(validitySeconds, TimeUnit.SECONDS)
+						.build();
+				_logger.debug("near cache mode , Redis refresh interval {} ms" , redisRefreshInterval);
+			}
+			//invalidate removed session in memory
+			this.invalidateChannel = new RedisChannel(redisConnFactory,INVALIDATE_CHANNEL);
+			this.invalidateChannel.subscribe(sessionId -> {
+				_logger.trace("invalidate session {}" , sessionId);
+				inMemorySessionManager.remove(sessionId);
+				if(redisWriteTime != null) {
+					redisWriteTime.invalidate(sessionId);
+				}
+			});
 		 }
 	}
 
+	public void setProfileLoader(UnaryOperator<UserInfo> profileLoader) {
+		this.profileLoader = profileLoader;
+	}
+	
+	/**
+	 * bind the profile loader to the principal , the loaded principal is written back to Redis
+	 * so the profile is not loaded again on the next request or on other nodes
+	 */
+	private Session bindProfileLoader(String sessionId, Session session) {
+		if(session != null 
+				&& session.getAuthentication() != null
+				&& session.getAuthentication().getPrincipal() instanceof SignPrincipal principal
+				&& !principal.isProfileLoaded()
+				&& profileLoader != null) {
+			principal.setProfileLoader(userInfo -> {
+				profileLoader.apply(userInfo);
+				principal.setProfileLoaded(true);
+				if(isRedis) {
+					redisSessionManager.update(sessionId, session);
+				}
+				return userInfo;
+			});
+		}
+		return session;
+	}
+
 	@Override
 	public void create(String sessionId, Session session) {
+		bindProfileLoader(sessionId, session);
 		inMemorySessionManager.create(sessionId, session);
 		if(isRedis) {
 			redisSessionManager.create(sessionId, session);
+			touchRedis(sessionId);
 		}
 	}
 
@@ -98,6 +189,10 @@ public class SessionManagerFactory implements SessionManager{
 		Session session = inMemorySessionManager.remove(sessionId);
 		if(isRedis) {
 			session = redisSessionManager.remove(sessionId);
+			if(redisWriteTime != null) {
+				redisWriteTime.invalidate(sessionId);
+			}
+			invalidateChannel.publish(sessionId);
 		}
 		return session;
 	}
@@ -107,37 +202,83 @@ public class SessionManagerFactory implements SessionManager{
 		Session session = inMemorySessionManager.get(sessionId);
 		if(session == null && isRedis) {
 			session = redisSessionManager.get(sessionId);
+			if(session != null && nearCache) {
+				inMemorySessionManager.create(sessionId, session);
+				touchRedis(sessionId);
+			}
 		}
-		return session;
+		return bindProfileLoader(sessionId, session);
 	}
 
 	@Override
 	public Session refresh(String sessionId, LocalDateTime refreshTime) {
 		Session session = null;
 		if(isRedis) {
-			session = redisSessionManager.refresh(sessionId,refreshTime);
-			//renew one in Memory
-			inMemorySessionManager.create(sessionId, session);
+			if(nearCache) {
+				session = nearCacheRefresh(sessionId,refreshTime);
+			}else {
+				session = redisSessionManager.refresh(sessionId,refreshTime);
+				//renew one in Memory
+				inMemorySessionManager.create(sessionId, session);
+			}
 		}else {
 			session = inMemorySessionManager.refresh(sessionId,refreshTime);
 		}
-		return session;
+		return bindProfileLoader(sessionId, session);
 	}
 
 	@Override
 	public Session refresh(String sessionId) {
 		Session session = null;
 		if(isRedis) {
-			session = redisSessionManager.refresh(sessionId);
-			//renew one
-			inMemorySessionManager.remove(sessionId);
-			inMemorySessionManager.create(sessionId, session);
+			if(nearCache) {
+				session = nearCacheRefresh(sessionId,LocalDateTime.now());
+			}else {
+				session = redisSessionManager.refresh(sessionId);
+				//renew one
+				inMemorySessionManager.remove(sessionId);
+				inMemorySessionManager.create(sessionId, session);
+			}
 		}else {
 			session = inMemorySessionManager.refresh(sessionId);
 		}
 		
+		return bindProfileLoader(sessionId, session);
+	}
+	
+	/**
+	 * refresh in memory , write Redis only when redisRefreshInterval elapsed
+	 */
+	private Session nearCacheRefresh(String sessionId, LocalDateTime refreshTime) {
+		Session session = inMemorySessionManager.refresh(sessionId,refreshTime);
+		if(session == null) {
+			session = redisSessionManager.refresh(sessionId,refreshTime);
+			if(session != null) {
+				inMemorySessionManager.create(sessionId, session);
+				touchRedis(sessionId);
+			}
+			return session;
+		}
+		Long lastWrite = redisWriteTime.getIfPresent(sessionId);
+		long now = System.currentTimeMillis();
+		if(lastWrite == null || now - lastWrite >= redisRefreshInterval) {
+			_logger.trace("refresh session {} in Redis" , sessionId);
+			if(!redisSessionManager.touch(sessionId,refreshTime)) {
+				//removed by other node
+				inMemorySessionManager.remove(sessionId);
+				redisWriteTime.invalidate(sessionId);
+				return null;
+			}
+			redisWriteTime.put(sessionId, now);
+		}
 		return session;
 	}
+	
+	private void touchRedis(String sessionId) {
+		if(redisWriteTime != null) {
+			redisWriteTime.put(sessionId, System.currentTimeMillis());
+		}
+	}
 
 	@Override
 	public List<HistoryLogin> querySessions() {
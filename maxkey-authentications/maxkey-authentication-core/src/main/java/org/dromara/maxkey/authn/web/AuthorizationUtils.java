@@ -20,8 +20,10 @@ package org.dromara.maxkey.authn.web;
 import java.text.ParseException;
 
 
+import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import org.dromara.maxkey.authn.SignPrincipal;
+import org.dromara.maxkey.authn.jwt.AuthJwtService;
 import org.dromara.maxkey.authn.jwt.AuthTokenService;
 import org.dromara.maxkey.authn.session.Session;
 import org.dromara.maxkey.authn.session.SessionManager;
@@ -80,9 +82,10 @@ public class AuthorizationUtils {
 			String  authorization,
 			AuthTokenService authTokenService,
 			SessionManager sessionManager) throws ParseException {
-		if(authTokenService.validateJwtToken(authorization)) {
+		JWTClaimsSet claims = authTokenService.verifyJwtToken(authorization);
+		if(claims != null) {
 			if(isNotAuthenticated()) {
-				String sessionId = authTokenService.resolveJWTID(authorization);
+				String sessionId = claims.getJWTID();
 				Session session = sessionManager.get(sessionId);
 				if(session != null) {
 					setAuthentication(session.getAuthentication());
@@ -108,6 +111,16 @@ public class AuthorizationUtils {
 		return sessionManager.get(sessionId);
 	}
 
+	/**
+	 * get session by authorization , claims are taken from the verified token cache when present
+	 */
+	public static Session getSession(SessionManager sessionManager, AuthJwtService authJwtService, String authorization) throws ParseException {
+		_logger.debug("get session by authorization {}", authorization);
+		String sessionId = authJwtService.resolveJWTID(authorization);
+		_logger.debug("sessionId {}", sessionId);
+		return sessionManager.get(sessionId);
+	}
+
 
     public static Authentication getAuthentication() {
     	Authentication authentication = (Authentication) getAuthentication(WebContext.getRequest());
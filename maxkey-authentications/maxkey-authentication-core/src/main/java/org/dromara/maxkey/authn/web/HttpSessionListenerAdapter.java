@@ -58,13 +58,13 @@ public class HttpSessionListenerAdapter implements HttpSessionListener {
         Object principal  = authentication == null ? null : authentication.getPrincipal();
         _logger.trace("principal {}",principal);
         if(principal != null ) {
-        	if(principal instanceof SignPrincipal && ((SignPrincipal)principal).getUserInfo()!=null) {
+        	if(principal instanceof SignPrincipal && ((SignPrincipal)principal).getAuthnUserInfo()!=null) {
         		SignPrincipal signPrincipal = (SignPrincipal)principal;
         		_logger.trace("{} HttpSession Id  {} for userId  {} , username {} @Ticket {} Destroyed" ,
         			DateUtils.formatDateTime(new Date()),
         			session.getId(), 
-        			signPrincipal.getUserInfo().getId(),
-        			signPrincipal.getUserInfo().getUsername(),
+        			signPrincipal.getAuthnUserInfo().getId(),
+        			signPrincipal.getAuthnUserInfo().getUsername(),
         			signPrincipal.getSessionId());
         	}else if(principal instanceof User) {
         		User user = (User)principal;
@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 
+import org.dromara.maxkey.util.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
@@ -30,7 +31,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 
 import com.fasterxml.jackson.core.exc.StreamWriteException;
 import com.fasterxml.jackson.databind.DatabindException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -54,7 +54,6 @@ public class UnauthorizedEntryPoint {
  	    responseBody.put("message", "Unauthorized");
  	    responseBody.put("path", request.getServletPath());
 
- 	    final ObjectMapper mapper = new ObjectMapper();
- 	    mapper.writeValue(response.getOutputStream(), responseBody);
+ 	    JsonUtils.toStream(responseBody, response.getOutputStream());
  	}	
 }
@@ -47,11 +47,13 @@ public class SessionAutoConfiguration  {
             @Value("${maxkey.server.persistence}") int persistence,
             JdbcTemplate jdbcTemplate,
             RedisConnectionFactory redisConnFactory,
-            @Value("${maxkey.auth.session.timeout:1800}") int timeout
+            @Value("${maxkey.auth.session.timeout:1800}") int timeout,
+            @Value("${maxkey.auth.session.nearcache:false}") boolean nearCache,
+            @Value("${maxkey.auth.session.nearcache.refresh-fraction:0.1}") float refreshFraction
             ) {
-    	_logger.debug("session timeout {}" , timeout);
+    	_logger.debug("session timeout {} , near cache {}" , timeout , nearCache);
         return new SessionManagerFactory(
-        		persistence, jdbcTemplate, redisConnFactory,timeout);
+        		persistence, jdbcTemplate, redisConnFactory,timeout,nearCache,refreshFraction);
     }
 
     @Bean
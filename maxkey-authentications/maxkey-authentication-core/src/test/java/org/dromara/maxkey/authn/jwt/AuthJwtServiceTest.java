@@ -0,0 +1,101 @@
+/*
+ * Copyright [2022] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.authn.jwt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.dromara.maxkey.crypto.jwt.HMAC512Service;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+public class AuthJwtServiceTest {
+
+	static final String SECRET ="7heM-14BtxjyKPuH3ITIm7q2-ps5MuBirWCsrrdbzzSAOuSPrbQYiaJ54AeA0uH2XdkYy3hHAkTFIsieGkyqxOJZ_dQzrCbaYISH9rhUZAKYx8tUY0wkE4ArOC6LqHDJarR6UIcMsARakK9U4dhoOPO1cj74XytemI-w6ACYfzRUn_Rn4e-CQMcnD1C56oNEukwalf06xVgXl41h6K8IBEzLVod58y_VfvFn-NGWpNG0fy_Qxng6dg8Dgva2DobvzMN2eejHGLGB-x809MvC4zbG7CKNVlcrzMYDt2Gt2sOVDrt2l9YqJNfgaLFjrOEVw5cuXemGkX1MvHj6TAsbLg";
+
+	static final int COUNT = 200000;
+
+	AuthJwtService authJwtService;
+
+	@Before
+	public void setUp() throws JOSEException {
+		authJwtService = new AuthJwtService();
+		authJwtService.hmac512Service = new HMAC512Service(SECRET);
+	}
+
+	@Test
+	public void verify() throws Exception {
+		String jwt = authJwtService.genJwt("admin", "https://sso.maxkey.top", 600);
+		JWTClaimsSet claims = authJwtService.verifyJwtToken(jwt);
+		assertNotNull(claims);
+		assertEquals("admin", claims.getSubject());
+		//cached claims
+		assertTrue(claims == authJwtService.verifyJwtToken(jwt));
+		assertEquals(claims.getJWTID(), authJwtService.resolveJWTID(jwt));
+
+		String tampered = jwt.substring(0, jwt.length() - 4) + "AAAA";
+		assertFalse(authJwtService.validateJwtToken(tampered));
+		assertFalse(authJwtService.validateJwtToken(""));
+	}
+
+	@Test
+	public void expired() throws Exception {
+		String jwt = authJwtService.genJwt("admin", "https://sso.maxkey.top", -1);
+		assertNull(authJwtService.verifyJwtToken(jwt));
+	}
+
+	@Test
+	public void validateJwtTokenThroughput() throws Exception {
+		String jwt = authJwtService.genJwt("admin", "https://sso.maxkey.top", 600);
+		HMAC512Service hmac512Service = new HMAC512Service(SECRET);
+		//warm up
+		for(int i = 0; i < COUNT / 10; i++) {
+			authJwtService.resolve(jwt);
+			hmac512Service.verify(jwt);
+			authJwtService.validateJwtToken(jwt);
+		}
+
+		//previous path , parse for expiration , parse and verify , parse for JWTID
+		long startTime = System.currentTimeMillis();
+		for(int i = 0; i < COUNT; i++) {
+			SignedJWT.parse(jwt).getJWTClaimsSet().getExpirationTime();
+			hmac512Service.verify(jwt);
+			SignedJWT.parse(jwt).getJWTClaimsSet().getJWTID();
+		}
+		long parseTime = System.currentTimeMillis() - startTime;
+
+		startTime = System.currentTimeMillis();
+		for(int i = 0; i < COUNT; i++) {
+			authJwtService.verifyJwtToken(jwt).getJWTID();
+		}
+		long cachedTime = System.currentTimeMillis() - startTime;
+
+		System.out.println("parse and verify : " + COUNT + " in " + parseTime + " ms , "
+				+ (COUNT * 1000L / Math.max(parseTime, 1)) + " ops/s");
+		System.out.println("verified claims cache : " + COUNT + " in " + cachedTime + " ms , "
+				+ (COUNT * 1000L / Math.max(cachedTime, 1)) + " ops/s");
+	}
+
+}
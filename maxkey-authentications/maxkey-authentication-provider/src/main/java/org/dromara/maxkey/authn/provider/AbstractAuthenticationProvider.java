@@ -118,6 +118,8 @@ public abstract class AbstractAuthenticationProvider {
 
         //set session with principal
         SignPrincipal principal = new SignPrincipal(userInfo,session);
+        //sign-on only loaded the authentication columns , the profile is loaded on first access
+        principal.setProfileLoaded(false);
 
         List<GrantedAuthority> grantedAuthoritys = authenticationRealm.grantAuthority(userInfo);
         principal.setAuthenticated(true);
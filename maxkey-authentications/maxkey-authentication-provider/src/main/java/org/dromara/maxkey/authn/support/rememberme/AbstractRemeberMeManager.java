@@ -60,7 +60,7 @@ public abstract class AbstractRemeberMeManager {
     					HttpServletRequest request, HttpServletResponse response) {
         if (applicationConfig.getLoginConfig().isRemeberMe()) {
         	SignPrincipal principal = ((SignPrincipal)authentication.getPrincipal());
-    		UserInfo userInfo = principal.getUserInfo();
+    		UserInfo userInfo = principal.getAuthnUserInfo();
             _logger.debug("Remeber Me ...");
             RemeberMe remeberMe = new RemeberMe();
             remeberMe.setId(WebContext.genId());
@@ -23,11 +23,16 @@ import org.dromara.maxkey.authn.provider.AuthenticationProviderFactory;
 import org.dromara.maxkey.authn.provider.impl.*;
 import org.dromara.maxkey.authn.realm.AbstractAuthenticationRealm;
 import org.dromara.maxkey.authn.session.SessionManager;
+import org.dromara.maxkey.authn.session.SessionManagerFactory;
 import org.dromara.maxkey.authn.support.rememberme.AbstractRemeberMeManager;
 import org.dromara.maxkey.authn.support.rememberme.JdbcRemeberMeManager;
 import org.dromara.maxkey.configuration.ApplicationConfig;
+import org.dromara.maxkey.constants.ConstsPersistence;
 import org.dromara.maxkey.password.sms.SmsOtpAuthnService;
+import org.dromara.maxkey.persistence.redis.RedisConnectionFactory;
+import org.dromara.maxkey.persistence.repository.LoginBookkeepingRepository;
 import org.dromara.maxkey.persistence.repository.LoginHistoryRepository;
+import org.dromara.maxkey.persistence.repository.LoginRollupRepository;
 import org.dromara.maxkey.persistence.repository.LoginRepository;
 import org.dromara.maxkey.persistence.repository.PasswordPolicyValidator;
 import org.slf4j.Logger;
@@ -133,19 +138,58 @@ public class AuthnProviderAutoConfiguration {
         	);
     }
 
+    @Bean(destroyMethod = "shutdown")
+    public LoginBookkeepingRepository loginBookkeepingRepository(
+            @Value("${maxkey.server.persistence}") int persistence,
+            JdbcTemplate jdbcTemplate,
+            RedisConnectionFactory redisConnFactory,
+            @Value("${maxkey.login.bookkeeping.flush.interval:1000}") long flushInterval,
+            @Value("${maxkey.login.bookkeeping.batch.size:200}") int batchSize) {
+        _logger.debug("login bookkeeping flush interval {} , batch size {}" , flushInterval , batchSize);
+        return new LoginBookkeepingRepository(
+                jdbcTemplate,
+                persistence == ConstsPersistence.REDIS ? redisConnFactory : null,
+                flushInterval,
+                batchSize);
+    }
+
     @Bean
-    public PasswordPolicyValidator passwordPolicyValidator(JdbcTemplate jdbcTemplate,MessageSource messageSource) {
-        return new PasswordPolicyValidator(jdbcTemplate,messageSource);
+    public PasswordPolicyValidator passwordPolicyValidator(JdbcTemplate jdbcTemplate,MessageSource messageSource,
+            LoginBookkeepingRepository loginBookkeepingRepository) {
+        PasswordPolicyValidator passwordPolicyValidator = new PasswordPolicyValidator(jdbcTemplate,messageSource);
+        passwordPolicyValidator.setLoginBookkeepingRepository(loginBookkeepingRepository);
+        return passwordPolicyValidator;
     }
 
     @Bean
-    public LoginRepository loginRepository(JdbcTemplate jdbcTemplate) {
-        return new LoginRepository(jdbcTemplate);
+    public LoginRepository loginRepository(JdbcTemplate jdbcTemplate,
+            LoginBookkeepingRepository loginBookkeepingRepository,
+            SessionManager sessionManager) {
+        LoginRepository loginRepository = new LoginRepository(jdbcTemplate);
+        loginRepository.setLoginBookkeepingRepository(loginBookkeepingRepository);
+        if(sessionManager instanceof SessionManagerFactory sessionManagerFactory) {
+            sessionManagerFactory.setProfileLoader(loginRepository::loadProfile);
+        }
+        return loginRepository;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public LoginHistoryRepository loginHistoryRepository(
+            @Value("${maxkey.login.history.queue.capacity:10000}") int capacity,
+            @Value("${maxkey.login.history.batch.size:200}") int batchSize,
+            @Value("${maxkey.login.history.flush.interval:1000}") long flushInterval,
+            @Value("${maxkey.login.history.offer.timeout:50}") long offerTimeout,
+            JdbcTemplate jdbcTemplate,
+            LoginRollupRepository loginRollupRepository) {
+        LoginHistoryRepository loginHistoryRepository = 
+                new LoginHistoryRepository(jdbcTemplate,capacity,batchSize,flushInterval,offerTimeout);
+        loginHistoryRepository.setLoginRollupRepository(loginRollupRepository);
+        return loginHistoryRepository;
     }
 
     @Bean
-    public LoginHistoryRepository loginHistoryRepository(JdbcTemplate jdbcTemplate) {
-        return new LoginHistoryRepository(jdbcTemplate);
+    public LoginRollupRepository loginRollupRepository(JdbcTemplate jdbcTemplate) {
+        return new LoginRollupRepository(jdbcTemplate);
     }
 
     /**
@@ -76,16 +76,27 @@ public class HMAC512Service {
 	
 	public boolean verify(String jwt) {
 		try {
-		JWSObject jwsObjected =JWSObject.parse(jwt);
+			return verify(JWSObject.parse(jwt));
+		}catch(ParseException ParseException) {
+			
+		}
+		return false;
+	}
+	
+	/**
+	 * verify an already parsed JWS
+	 * @param jwsObject
+	 * @return
+	 */
+	public boolean verify(JWSObject jwsObject) {
+		try {
 		boolean isVerifier = verifier.verify(
-								jwsObjected.getHeader(), 
-								jwsObjected.getSigningInput(), 
-								jwsObjected.getSignature());
+								jwsObject.getHeader(), 
+								jwsObject.getSigningInput(), 
+								jwsObject.getSignature());
 		return isVerifier;
 		}catch(JOSEException JOSEException) {
 			
-		}catch(ParseException ParseException) {
-			
 		}
 		return false;
 	}
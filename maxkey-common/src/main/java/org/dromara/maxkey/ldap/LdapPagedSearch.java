@@ -0,0 +1,225 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.ldap;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LDAP search with the paged results control (RFC 2696) ,
+ * entries are passed to the handler page by page , so directories larger than the server size limit are read completely .<br>
+ * incremental search adds a lower bound of uSNChanged (ActiveDirectory) or modifyTimestamp (LDAP) to the filter .
+ */
+public class LdapPagedSearch {
+    private static final Logger _logger = LoggerFactory.getLogger(LdapPagedSearch.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    public static final String USN_CHANGED = "uSNChanged";
+
+    public static final String HIGHEST_COMMITTED_USN = "highestCommittedUSN";
+
+    public static final String MODIFY_TIMESTAMP = "modifyTimestamp";
+
+    public static final String DS_SERVICE_NAME = "dsServiceName";
+
+    public static final String INVOCATION_ID = "invocationId";
+
+    static final String BINARY_ATTRIBUTES = "java.naming.ldap.attributes.binary";
+
+    static final DateTimeFormatter GENERALIZED_TIME =
+            DateTimeFormatter.ofPattern("yyyyMMddHHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    DirContext ctx;
+
+    int pageSize;
+
+    long pages;
+
+    @FunctionalInterface
+    public interface SearchResultHandler {
+        public void handle(SearchResult searchResult) throws NamingException;
+    }
+
+    public LdapPagedSearch(DirContext ctx) {
+        this(ctx, DEFAULT_PAGE_SIZE);
+    }
+
+    public LdapPagedSearch(DirContext ctx, int pageSize) {
+        this.ctx = ctx;
+        this.pageSize = pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE;
+    }
+
+    /**
+     * search page by page , the connection is not a LdapContext then search without paging
+     * @param baseDN base DN
+     * @param filter filter
+     * @param constraints SearchControls
+     * @param handler called for every entry
+     * @return entries
+     * @throws NamingException
+     */
+    public long search(String baseDN, String filter, SearchControls constraints, SearchResultHandler handler)
+            throws NamingException {
+        if (!(ctx instanceof LdapContext ldapContext)) {
+            pages = 1;
+            return handle(ctx.search(baseDN, filter, constraints), handler);
+        }
+
+        long count = 0;
+        pages = 0;
+        byte[] cookie = null;
+        try {
+            do {
+                //not critical , servers without paging return all entries in one page
+                ldapContext.setRequestControls(
+                        new Control[] { new PagedResultsControl(pageSize, cookie, Control.NONCRITICAL) });
+                count += handle(ldapContext.search(baseDN, filter, constraints), handler);
+                pages++;
+                cookie = null;
+                Control[] controls = ldapContext.getResponseControls();
+                if (controls != null) {
+                    for (Control control : controls) {
+                        if (control instanceof PagedResultsResponseControl pagedResponse) {
+                            cookie = pagedResponse.getCookie();
+                        }
+                    }
+                }
+                _logger.debug("page {} , entries {}", pages, count);
+            } while (cookie != null && cookie.length > 0);
+        } catch (IOException e) {
+            NamingException namingException = new NamingException("paged results control error");
+            namingException.setRootCause(e);
+            throw namingException;
+        } finally {
+            ldapContext.setRequestControls(null);
+        }
+        return count;
+    }
+
+    long handle(NamingEnumeration<SearchResult> results, SearchResultHandler handler) throws NamingException {
+        long count = 0;
+        try {
+            while (null != results && results.hasMore()) {
+                handler.handle(results.next());
+                count++;
+            }
+        } finally {
+            if (results != null) {
+                results.close();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * ActiveDirectory highestCommittedUSN of RootDSE ,
+     * the provider url should not contain a DN
+     * @param ctx connection
+     * @return highestCommittedUSN , null when not available
+     */
+    public static String highestCommittedUSN(DirContext ctx) {
+        try {
+            Attribute attribute = ctx.getAttributes("", new String[] { HIGHEST_COMMITTED_USN }).get(HIGHEST_COMMITTED_USN);
+            return attribute == null ? null : attribute.get().toString();
+        } catch (NamingException e) {
+            _logger.warn("read {} error , full synchronization", HIGHEST_COMMITTED_USN, e);
+            return null;
+        }
+    }
+
+    /**
+     * ActiveDirectory invocationId of the domain controller , read from the NTDS Settings object of dsServiceName ,
+     * uSNChanged values are only comparable on the same invocationId
+     * @param ctx connection
+     * @return invocationId in hex , null when not available
+     */
+    public static String invocationId(DirContext ctx) {
+        try {
+            Attribute dsServiceName = ctx.getAttributes("", new String[] { DS_SERVICE_NAME }).get(DS_SERVICE_NAME);
+            if (dsServiceName == null) {
+                return null;
+            }
+            Object binaryAttributes = ctx.getEnvironment().get(BINARY_ATTRIBUTES);
+            if (binaryAttributes == null || !binaryAttributes.toString().contains(INVOCATION_ID)) {
+                ctx.addToEnvironment(BINARY_ATTRIBUTES, 
+                        binaryAttributes == null ? INVOCATION_ID : binaryAttributes + " " + INVOCATION_ID);
+            }
+            Attribute invocationId = ctx.getAttributes(
+                    dsServiceName.get().toString(), new String[] { INVOCATION_ID }).get(INVOCATION_ID);
+            if (invocationId == null) {
+                return null;
+            }
+            Object value = invocationId.get();
+            return value instanceof byte[] bytes ? HexFormat.of().formatHex(bytes) : value.toString();
+        } catch (NamingException e) {
+            _logger.warn("read {} error , full synchronization", INVOCATION_ID, e);
+            return null;
+        }
+    }
+
+    /**
+     * @param millis time
+     * @return LDAP GeneralizedTime in UTC
+     */
+    public static String generalizedTime(long millis) {
+        return GENERALIZED_TIME.format(Instant.ofEpochMilli(millis));
+    }
+
+    /**
+     * filter with the lower bound (attribute>=lowerBound)
+     * @param filter filter
+     * @param attribute uSNChanged or modifyTimestamp
+     * @param lowerBound null or blank , return the filter
+     * @return filter
+     */
+    public static String incrementalFilter(String filter, String attribute, String lowerBound) {
+        if (StringUtils.isBlank(lowerBound)) {
+            return filter;
+        }
+        String baseFilter = filter.startsWith("(") ? filter : "(" + filter + ")";
+        return "(&" + baseFilter + "(" + attribute + ">=" + lowerBound + "))";
+    }
+
+    public long getPages() {
+        return pages;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+}
@@ -25,8 +25,8 @@ import javax.naming.NamingException;
 import javax.naming.directory.Attribute;
 import javax.naming.directory.Attributes;
 import javax.naming.directory.DirContext;
-import javax.naming.directory.InitialDirContext;
 import javax.naming.directory.SearchControls;
+import javax.naming.ldap.InitialLdapContext;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -107,7 +107,8 @@ public class LdapUtils {
     protected DirContext createDirContext(Properties properties) {
     	DirContext ctx = null;
         try {
-        	ctx = new InitialDirContext(properties);
+        	//LdapContext , request controls such as paged results are supported
+        	ctx = new InitialLdapContext(properties, null);
             _logger.info("connect to ldap {} seccessful.",providerUrl);
         } catch (NamingException e) {
             _logger.error("connect to ldap {}  fail.",providerUrl);
@@ -20,10 +20,11 @@ package org.dromara.maxkey.pretty.impl;
 import java.io.IOException;
 
 import org.dromara.maxkey.pretty.Pretty;
+import org.dromara.maxkey.util.JsonUtils;
 
 import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParser;
@@ -32,6 +33,12 @@ public class JsonPretty  implements Pretty{
 
 	static JsonPretty instance ;
 	
+	static final ObjectWriter prettyWriter = JsonUtils.writer().withDefaultPrettyPrinter();
+	
+	static final Gson prettyGson = new GsonBuilder().setPrettyPrinting().create();
+	
+	static final Gson prettyGsonHtmlEscaping = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+	
 	public JsonPretty() {
 
 	}
@@ -55,9 +62,7 @@ public class JsonPretty  implements Pretty{
 	public  String jacksonFormat(Object bean){
 		String prettyJson = "";
 		try {
-			prettyJson = (new ObjectMapper())
-					.writerWithDefaultPrettyPrinter()
-					.writeValueAsString(bean);
+			prettyJson = prettyWriter.writeValueAsString(bean);
 		} catch (JsonGenerationException e) {
 			e.printStackTrace();
 		} catch (JsonMappingException e) {
@@ -74,10 +79,7 @@ public class JsonPretty  implements Pretty{
 	 * @return String
 	 */
 	public  String format(Object bean){
-		Gson gson = new GsonBuilder()
-				.setPrettyPrinting()
-				.create();
-		String json = gson.toJson(bean);
+		String json = prettyGson.toJson(bean);
 		return json;
 	}
 	
@@ -91,11 +93,7 @@ public class JsonPretty  implements Pretty{
 			return format(bean);
 		}
 		
-		Gson gson = new GsonBuilder()
-				.setPrettyPrinting()
-				.disableHtmlEscaping()
-				.create();
-		String json = gson.toJson(bean);
+		String json = prettyGsonHtmlEscaping.toJson(bean);
 		return json;
 	}
 	
@@ -17,9 +17,24 @@
 
 package org.dromara.maxkey.util;
 
+import java.security.SecureRandom;
+
 public class IdGenerator {
 
+	static final int UUID_STRATEGY = 0;
+	
+	static final int SNOWFLAKE_STRATEGY = 1;
+	
+	static final int RANDOM_STRATEGY = 2;
+	
+	static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	
+	//SecureRandom per thread , UUID.randomUUID shares one
+	static final ThreadLocal<SecureRandom> secureRandom = ThreadLocal.withInitial(SecureRandom::new);
+	
 	String strategy = "uuid";
+	
+	int strategyType = UUID_STRATEGY;
 
 	int datacenterId;
 	
@@ -31,15 +46,36 @@ public class IdGenerator {
 
 	
 	public String generate(){
-		if(strategy.equalsIgnoreCase("uuid")) {
-			return stringGenerator.uuidGenerate();
-		}else if(strategy.equalsIgnoreCase("SnowFlake")) {
-			return snowFlakeId.nextId()+"";
+		if(strategyType == UUID_STRATEGY) {
+			return uuid();
+		}else if(strategyType == SNOWFLAKE_STRATEGY) {
+			return Long.toString(snowFlakeId.nextId());
 		}else {
 			return stringGenerator.randomGenerate();
 		}
 	}
 	
+	/**
+	 * random (version 4) UUID in lower case , same format as StringGenerator.uuidGenerate
+	 */
+	public static String uuid() {
+		byte[] bytes = new byte[16];
+		secureRandom.get().nextBytes(bytes);
+		bytes[6]  &= 0x0f;  /* clear version        */
+		bytes[6]  |= 0x40;  /* set to version 4     */
+		bytes[8]  &= 0x3f;  /* clear variant        */
+		bytes[8]  |= (byte) 0x80;  /* set to IETF variant  */
+		char[] chars = new char[36];
+		int position = 0;
+		for (int i = 0; i < 16; i++) {
+			if (i == 4 || i == 6 || i == 8 || i == 10) {
+				chars[position++] = '-';
+			}
+			chars[position++] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+			chars[position++] = HEX_DIGITS[bytes[i] & 0x0f];
+		}
+		return new String(chars);
+	}
 	
 	public IdGenerator() {
 		super();
@@ -48,6 +84,13 @@ public class IdGenerator {
 	public IdGenerator(String strategy) {
 		super();
 		this.strategy = strategy;
+		if(strategy.equalsIgnoreCase("uuid")) {
+			strategyType = UUID_STRATEGY;
+		}else if(strategy.equalsIgnoreCase("SnowFlake")) {
+			strategyType = SNOWFLAKE_STRATEGY;
+		}else {
+			strategyType = RANDOM_STRATEGY;
+		}
 	}
 
 
@@ -57,6 +100,7 @@ public class IdGenerator {
 
 	public void setDatacenterId(int datacenterId) {
 		this.datacenterId = datacenterId;
+		snowFlakeId.setDatacenterId(datacenterId);
 	}
 
 	public int getMachineId() {
@@ -65,6 +109,7 @@ public class IdGenerator {
 
 	public void setMachineId(int machineId) {
 		this.machineId = machineId;
+		snowFlakeId.setMachineId(machineId);
 	}
 
 	public SnowFlakeId getSnowFlakeId() {
@@ -73,6 +118,8 @@ public class IdGenerator {
 
 	public void setSnowFlakeId(SnowFlakeId snowFlakeId) {
 		this.snowFlakeId = snowFlakeId;
+		this.datacenterId = (int) snowFlakeId.getDatacenterId();
+		this.machineId = (int) snowFlakeId.getMachineId();
 	}
 
 	public StringGenerator getStringGenerator() {
@@ -0,0 +1,51 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+
+package org.dromara.maxkey.util;
+
+import java.io.Serializable;
+
+/**
+ * JDK serialization codec , default codec of ObjectTransformer
+ * 
+ * @since 4.1
+ */
+public class JdkObjectCodec implements ObjectCodec {
+	
+	public static final byte ID = 1;
+
+	@Override
+	public byte getId() {
+		return ID;
+	}
+
+	@Override
+	public boolean supports(Class<?> type) {
+		return Serializable.class.isAssignableFrom(type);
+	}
+
+	@Override
+	public byte[] encode(Serializable object) {
+		return SerializationUtils.serialize(object);
+	}
+
+	@Override
+	public <T> T decode(byte[] bytes, int offset, int length) {
+		return SerializationUtils.deserialize(bytes, offset, length);
+	}
+
+}
@@ -18,14 +18,65 @@
 package org.dromara.maxkey.util;
 
 import com.fasterxml.jackson.core.JsonGenerationException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.gson.Gson;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * json helper , ObjectMapper and Gson are thread safe once configured ,
+ * the shared instances keep the serializer caches between calls .
+ */
 public class JsonUtils {
 
+    /**
+     * shared ObjectMapper , not exposed as its configuration is mutable ,
+     * callers get the immutable ObjectReader and ObjectWriter
+     */
+    static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static final ObjectReader READER = MAPPER.reader();
+
+    static final ObjectWriter WRITER = MAPPER.writer();
+
+    //the stream of caller is not closed
+    static final ObjectWriter STREAM_WRITER = MAPPER.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    static final Gson GSON = new Gson();
+
+    /**
+     * shared ObjectReader , use with/without for a different configuration
+     */
+    public static ObjectReader reader() {
+        return READER;
+    }
+
+    /**
+     * shared ObjectWriter , use with/without for a different configuration
+     */
+    public static ObjectWriter writer() {
+        return WRITER;
+    }
+
+    /**
+     * shared Gson
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
     /**
      * jackson Transform json string to java bean object.
      * 
@@ -35,7 +86,7 @@ public class JsonUtils {
      */
     public static Object stringToObject(String json, Object bean) {
         try {
-            bean = (new ObjectMapper()).readValue(json, bean.getClass());
+            bean = MAPPER.readerFor(bean.getClass()).readValue(json);
         } catch (JsonParseException e) {
             e.printStackTrace();
         } catch (JsonMappingException e) {
@@ -56,7 +107,28 @@ public class JsonUtils {
     public static <T> T stringToObject(String json, Class<T> cls) {
         T bean = null;
         try {
-            bean = (new ObjectMapper()).readValue(json, cls);
+            bean = MAPPER.readerFor(cls).readValue(json);
+        } catch (JsonParseException e) {
+            e.printStackTrace();
+        } catch (JsonMappingException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } 
+        return bean;
+    }
+
+    /**
+     * jackson Transform json stream to java bean object , the stream is not closed.
+     * 
+     * @param input InputStream
+     * @param cls Class
+     * @return Object
+     */
+    public static <T> T streamToObject(InputStream input, Class<T> cls) {
+        T bean = null;
+        try {
+            bean = MAPPER.readerFor(cls).without(JsonParser.Feature.AUTO_CLOSE_SOURCE).readValue(input);
         } catch (JsonParseException e) {
             e.printStackTrace();
         } catch (JsonMappingException e) {
@@ -76,7 +148,7 @@ public class JsonUtils {
     public static String toString(Object bean) {
         String json = "";
         try {
-            json = (new ObjectMapper()).writeValueAsString(bean);
+            json = WRITER.writeValueAsString(bean);
         } catch (JsonGenerationException e) {
             e.printStackTrace();
         } catch (JsonMappingException e) {
@@ -87,6 +159,17 @@ public class JsonUtils {
         return json;
     }
 
+    /**
+     * jackson write java bean object to json stream , UTF-8 , the stream is flushed not closed.
+     * 
+     * @param bean Object
+     * @param output OutputStream
+     * @throws IOException write error
+     */
+    public static void toStream(Object bean, OutputStream output) throws IOException {
+        STREAM_WRITER.writeValue(output, bean);
+    }
+
     /**
      * Gson Transform json string to java bean object.
      * 
@@ -96,10 +179,43 @@ public class JsonUtils {
      */
 
     public static <T> T gsonStringToObject(String json, Class<T> cls) {
-        T newBean = (new Gson()).fromJson(json, cls);
+        T newBean = GSON.fromJson(json, cls);
         return newBean;
     }
 
+    /**
+     * Gson Transform json stream (UTF-8) to java bean object , the stream is not closed.
+     * 
+     * @param <T> Class
+     * @param input InputStream
+     * @return Object
+     */
+    public static <T> T gsonStreamToObject(InputStream input, Class<T> cls) {
+        return gsonReaderToObject(new InputStreamReader(input, StandardCharsets.UTF_8), cls);
+    }
+
+    /**
+     * Gson Transform json reader to java bean object.
+     * 
+     * @param <T> Class
+     * @param reader Reader
+     * @return Object
+     */
+    public static <T> T gsonReaderToObject(Reader reader, Class<T> cls) {
+        return GSON.fromJson(reader, cls);
+    }
+
+    /**
+     * Gson Transform java bean object to another type by the json tree , no json string.
+     * 
+     * @param <T> Class
+     * @param bean Object
+     * @return Object
+     */
+    public static <T> T gsonConvert(Object bean, Class<T> cls) {
+        return GSON.fromJson(GSON.toJsonTree(bean), cls);
+    }
+
     /**
      * Gson Transform java bean object to json string .
      * 
@@ -110,9 +226,22 @@ public class JsonUtils {
         String json = "";
         // convert java object to JSON format,
         // and returned as JSON formatted string
-        json = (new Gson()).toJson(bean);
+        json = GSON.toJson(bean);
 
         return json;
     }
 
+    /**
+     * Gson write java bean object to json stream , UTF-8 , the stream is flushed not closed.
+     * 
+     * @param bean Object
+     * @param output OutputStream
+     * @throws IOException write error
+     */
+    public static void gsonToStream(Object bean, OutputStream output) throws IOException {
+        Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        GSON.toJson(bean, writer);
+        writer.flush();
+    }
+
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+
+package org.dromara.maxkey.util;
+
+import java.io.Serializable;
+
+/**
+ * ObjectCodec<br>
+ * binary codec SPI used by ObjectTransformer<br>
+ * implementations are discovered with java.util.ServiceLoader 
+ * (META-INF/services/org.dromara.maxkey.util.ObjectCodec)
+ * or registered by ObjectTransformer.register<br>
+ * 
+ * @since 4.1
+ */
+public interface ObjectCodec {
+	
+	/**
+	 * codec id written to the version header, 
+	 * must be unique and never reused , 1 is reserved for JDK serialization
+	 * @return id
+	 */
+	public byte getId();
+	
+	/**
+	 * @param type
+	 * @return true if the codec can encode the object type
+	 */
+	public boolean supports(Class<?> type);
+	
+	public byte[] encode(Serializable object);
+	
+	public <T> T decode(byte[] bytes, int offset, int length);
+
+}
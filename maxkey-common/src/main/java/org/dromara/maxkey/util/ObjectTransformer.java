@@ -21,21 +21,76 @@
 package org.dromara.maxkey.util;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ServiceLoader;
 
 import org.dromara.maxkey.crypto.HexUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * ObjectTransformer<br>
  * serialize & deserialize<br>
  * object serialize to ByteArray,and ByteArray deserialize to object<br>
  * object serialize to HEX String,and HEX String  deserialize to object<br>
+ * <br>
+ * binary format : MAGIC(1 byte) + codec id(1 byte) + payload ,
+ * the header lets nodes of different versions read each other's values during rolling upgrade ,
+ * values without header are legacy HEX String or raw JDK serialization<br>
  * @version 2.0
  * @since 1.6
  * @author Crystal.Sea
  */
 
 public class ObjectTransformer {
+	private static final Logger _logger = LoggerFactory.getLogger(ObjectTransformer.class);
 	
+	/**
+	 * header magic , never appears in HEX String and JDK serialization stream
+	 */
+	public static final byte MAGIC = (byte) 0xFE;
+	
+	public static final int HEADER_LENGTH = 2;
+	
+	static final byte [] JDK_STREAM_MAGIC = {(byte) 0xAC, (byte) 0xED};
+	
+	static final ObjectCodec [] codecs = new ObjectCodec[128];
+	
+	static volatile ObjectCodec defaultCodec = new JdkObjectCodec();
+	
+	static {
+		register(defaultCodec);
+		for(ObjectCodec codec : ServiceLoader.load(ObjectCodec.class)) {
+			_logger.debug("register ObjectCodec {} , id {}" , codec.getClass().getName() , codec.getId());
+			register(codec);
+		}
+	}
+	
+	/**
+	 * register codec , codec can be decoded after registered
+	 * @param codec
+	 */
+	public static synchronized void register(ObjectCodec codec) {
+		if(codec.getId() <= 0) {
+			throw new IllegalArgumentException("codec id must be in 1 .. 127");
+		}
+		codecs[codec.getId()] = codec;
+	}
+	
+	/**
+	 * set the codec used to write new values ,
+	 * roll out the reader (register) on all nodes before switching the writer
+	 * @param codec
+	 */
+	public static void setDefaultCodec(ObjectCodec codec) {
+		register(codec);
+		defaultCodec = codec;
+	}
+	
+	public static ObjectCodec getDefaultCodec() {
+		return defaultCodec;
+	}
+
 	/**
 	 * serialize Serializable Object 2 HEX String
 	 * @param Serializable Object
@@ -54,8 +109,45 @@ public class ObjectTransformer {
 	    return SerializationUtils.deserialize(HexUtils.hex2Bytes(hex)); 
 	} 
 	
-
-	
+	/**
+	 * serialize Serializable Object 2 ByteArray with version header
+	 * @param Serializable Object
+	 * @return byte[]
+	 */
+	public static final byte[] serializeBytes(Serializable s){ 
+		ObjectCodec codec = defaultCodec;
+		if(!codec.supports(s.getClass())) {
+			codec = codecs[JdkObjectCodec.ID];
+		}
+		byte[] payload = codec.encode(s);
+		byte[] bytes = new byte[HEADER_LENGTH + payload.length];
+		bytes[0] = MAGIC;
+		bytes[1] = codec.getId();
+		System.arraycopy(payload, 0, bytes, HEADER_LENGTH, payload.length);
+	    return bytes; 
+	} 
 	
+	/**
+	 * deserialize ByteArray 2 Object , 
+	 * support header ByteArray , raw JDK serialization and legacy HEX String
+	 * @param bytes
+	 * @return Object
+	 */
+	public static final <T> T deserializeBytes(byte[] bytes) { 
+		if(bytes == null || bytes.length == 0) {
+			return null;
+		}
+		if(bytes[0] == MAGIC && bytes.length >= HEADER_LENGTH) {
+			ObjectCodec codec = bytes[1] > 0 ? codecs[bytes[1]] : null;
+			if(codec == null) {
+				throw new IllegalArgumentException("unknown codec id " + bytes[1]);
+			}
+			return codec.decode(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+		}else if(bytes.length >= 2 && bytes[0] == JDK_STREAM_MAGIC[0] && bytes[1] == JDK_STREAM_MAGIC[1]) {
+			return SerializationUtils.deserialize(bytes);
+		}
+		//legacy HEX String
+	    return deserialize(new String(bytes, StandardCharsets.US_ASCII)); 
+	} 
 	
 }
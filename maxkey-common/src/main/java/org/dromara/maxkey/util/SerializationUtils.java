@@ -46,9 +46,13 @@ public class SerializationUtils {
 	}
 
 	public static <T> T deserialize(byte[] byteArray) {
+		return deserialize(byteArray, 0, byteArray.length);
+	}
+
+	public static <T> T deserialize(byte[] byteArray, int offset, int length) {
 		ObjectInputStream oip = null;
 		try {
-			oip = new ObjectInputStream(new ByteArrayInputStream(byteArray));
+			oip = new ObjectInputStream(new ByteArrayInputStream(byteArray, offset, length));
 			@SuppressWarnings("unchecked")
 			T result = (T) oip.readObject();
 			return result;
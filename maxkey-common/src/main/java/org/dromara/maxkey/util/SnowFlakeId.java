@@ -19,9 +19,18 @@ package org.dromara.maxkey.util;
 
 import java.util.Calendar;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 /**
  * 描述: Twitter的分布式自增ID雪花算法snowflake (Java版)
+ * <p>
+ * lock free , timestamp and sequence are one AtomicLong updated by CAS .
+ * when the sequence of one millisecond is exhausted or the clock moves backwards ,
+ * the sequence carries into the next millisecond , ids stay unique and increasing
+ * and the generator runs ahead of the clock until the clock catches up .
+ * when the node id is leased , no id is generated after the lease expired .
+ * </p>
  *
  * @author Crystal.Sea
  * @create 2021-04-17
@@ -54,11 +63,13 @@ public class SnowFlakeId {
     private static final  long DATACENTER_LEFT = SEQUENCE_BIT + MACHINE_BIT;
     private static final  long TIMESTMP_LEFT = DATACENTER_LEFT + DATACENTER_BIT;
 
-    private long datacenterId;  //数据中心
-    private long machineId;     //机器标识
-    private long sequence = 0L; //序列号
-    private long lastStmp = -1L;//上一次时间戳
+    private volatile long datacenterId;  //数据中心
+    private volatile long machineId;     //机器标识
+    //上一次时间戳(相对START_STMP) << SEQUENCE_BIT | 序列号
+    private final AtomicLong state = new AtomicLong(-1L << SEQUENCE_BIT);
     private String dateTime;
+    //time millis until the node id is leased , null when the node id is configured
+    private volatile LongSupplier leaseExpiry;
 
     public SnowFlakeId(long datacenterId, long machineId) {
         if (datacenterId > MAX_DATACENTER_NUM || datacenterId < 0) {
@@ -75,8 +86,7 @@ public class SnowFlakeId {
 		super();
 		this.datacenterId = datacenterId;
 		this.machineId = machineId;
-		this.sequence = sequence;
-		this.lastStmp = lastStmp;
+		this.state.set(((lastStmp - START_STMP) << SEQUENCE_BIT) | (sequence & MAX_SEQUENCE));
 		dateTime =DateUtils.toUtc( fromatTime(lastStmp));
 	}
 
@@ -85,49 +95,44 @@ public class SnowFlakeId {
      *
      * @return
      */
-    public synchronized long nextId() {
-        long currStmp = getNewstmp();
-        if (currStmp < lastStmp) {
-            throw new RuntimeException("Clock moved backwards.  Refusing to generate id");
+    public long nextId() {
+        LongSupplier expiry = leaseExpiry;
+        if (expiry != null && getNewstmp() >= expiry.getAsLong()) {
+            throw new IllegalStateException("lease of datacenterId " + datacenterId + " machineId " + machineId + " expired");
         }
-
-        if (currStmp == lastStmp) {
-            //相同毫秒内，序列号自增
-            sequence = (sequence + 1) & MAX_SEQUENCE;
-            //同一毫秒的序列数已经达到最大
-            if (sequence == 0L) {
-                currStmp = getNextMill();
+        long current;
+        long next;
+        do {
+            current = state.get();
+            long currStmp = getNewstmp() - START_STMP;
+            if (currStmp > (current >> SEQUENCE_BIT)) {
+                //不同毫秒内，序列号置为0
+                next = currStmp << SEQUENCE_BIT;
+            } else {
+                //相同毫秒内或时钟回拨，序列号自增，溢出时进位到下一毫秒
+                next = current + 1;
             }
-        } else {
-            //不同毫秒内，序列号置为0
-            sequence = 0L;
-        }
-
-        lastStmp = currStmp;
-
-        return (currStmp - START_STMP) << TIMESTMP_LEFT //时间戳部分
-                | datacenterId << DATACENTER_LEFT       //数据中心部分
-                | machineId << MACHINE_LEFT             //机器标识部分
-                | sequence;                             //序列号部分
+        } while (!state.compareAndSet(current, next));
+        return toId(next);
     }
     
     
     public  long currId() {
-        long currStmp = lastStmp;
-        
-        return (currStmp - START_STMP) << TIMESTMP_LEFT //时间戳部分
+        return toId(state.get());
+    }
+    
+    private long toId(long stmpSequence) {
+        return (stmpSequence >> SEQUENCE_BIT) << TIMESTMP_LEFT //时间戳部分
                 | datacenterId << DATACENTER_LEFT       //数据中心部分
                 | machineId << MACHINE_LEFT             //机器标识部分
-                | sequence;                             //序列号部分
+                | (stmpSequence & MAX_SEQUENCE);        //序列号部分
     }
     
-
-    private long getNextMill() {
-        long mill = getNewstmp();
-        while (mill <= lastStmp) {
-            mill = getNewstmp();
-        }
-        return mill;
+    /**
+     * milliseconds the generator runs ahead of the clock , 0 normally
+     */
+    public long getAheadMillis() {
+        return Math.max(0, (state.get() >> SEQUENCE_BIT) + START_STMP - getNewstmp());
     }
 
     private long getNewstmp() {
@@ -169,6 +174,9 @@ public class SnowFlakeId {
 	}
 
 	public void setDatacenterId(long datacenterId) {
+		if (datacenterId > MAX_DATACENTER_NUM || datacenterId < 0) {
+            throw new IllegalArgumentException("datacenterId can't be greater than MAX_DATACENTER_NUM or less than 0");
+        }
 		this.datacenterId = datacenterId;
 	}
 
@@ -177,23 +185,30 @@ public class SnowFlakeId {
 	}
 
 	public void setMachineId(long machineId) {
+		if (machineId > MAX_MACHINE_NUM || machineId < 0) {
+            throw new IllegalArgumentException("machineId can't be greater than MAX_MACHINE_NUM or less than 0");
+        }
 		this.machineId = machineId;
 	}
 
 	public long getSequence() {
-		return sequence;
+		return state.get() & MAX_SEQUENCE;
 	}
 
 	public void setSequence(long sequence) {
-		this.sequence = sequence;
+		state.updateAndGet(current -> (current & ~MAX_SEQUENCE) | (sequence & MAX_SEQUENCE));
 	}
 
 	public long getLastStmp() {
-		return lastStmp;
+		return (state.get() >> SEQUENCE_BIT) + START_STMP;
 	}
 
 	public void setLastStmp(long lastStmp) {
-		this.lastStmp = lastStmp;
+		state.updateAndGet(current -> ((lastStmp - START_STMP) << SEQUENCE_BIT) | (current & MAX_SEQUENCE));
+	}
+
+	public void setLeaseExpiry(LongSupplier leaseExpiry) {
+		this.leaseExpiry = leaseExpiry;
 	}
 
 	public String getDateTime() {
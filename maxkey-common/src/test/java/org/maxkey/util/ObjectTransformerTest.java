@@ -20,8 +20,42 @@ package org.maxkey.util;
 import java.util.HashMap;
 
 import org.dromara.maxkey.util.ObjectTransformer;
+import org.junit.Assert;
+import org.junit.Test;
 
 public class ObjectTransformerTest {
+	
+	HashMap<String, Object> newObject(){
+		HashMap<String, Object> ut=new HashMap<String, Object>();
+		ut.put("username","shimingxy");
+		ut.put("password","test");
+		ut.put("department","我的部门");
+		return ut;
+	}
+	
+	@Test
+	public void serializeBytes()  {
+		HashMap<String, Object> ut = newObject();
+		byte[] bytes = ObjectTransformer.serializeBytes(ut);
+		Assert.assertEquals(ObjectTransformer.MAGIC, bytes[0]);
+		Assert.assertEquals(ut, ObjectTransformer.deserializeBytes(bytes));
+	}
+	
+	@Test
+	public void deserializeLegacyHex()  {
+		HashMap<String, Object> ut = newObject();
+		byte[] legacy = ObjectTransformer.serialize(ut).getBytes();
+		Assert.assertEquals(ut, ObjectTransformer.deserializeBytes(legacy));
+	}
+	
+	@Test
+	public void roundTrip()  {
+		HashMap<String, Object> ut = newObject();
+		Assert.assertEquals(ut, ObjectTransformer.deserialize(ObjectTransformer.serialize(ut)));
+		Assert.assertEquals(ut, ObjectTransformer.deserializeBytes(ObjectTransformer.serializeBytes(ut)));
+		//binary is not hex encoded
+		Assert.assertTrue(ObjectTransformer.serializeBytes(ut).length < ObjectTransformer.serialize(ut).length());
+	}
 
 	/**
 	 * @param args
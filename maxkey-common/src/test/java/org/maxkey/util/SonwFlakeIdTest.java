@@ -17,7 +17,21 @@
 
 package org.maxkey.util;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
+
+import org.dromara.maxkey.util.IdGenerator;
 import org.dromara.maxkey.util.SnowFlakeId;
+import org.dromara.maxkey.util.StringGenerator;
 import org.joda.time.DateTime;
 import org.junit.Test;
 
@@ -46,4 +60,118 @@ public class SonwFlakeIdTest {
     
         System.out.println(System.currentTimeMillis() - start);
 	}
+	
+	@Test
+	public void clockBackwards()  {
+		//last timestamp one minute ahead of the clock
+		SnowFlakeId snowFlake = new SnowFlakeId(1, 1, 0, System.currentTimeMillis() + 60000);
+		long last = snowFlake.nextId();
+		for (int i = 0; i < 10000; i++) {
+			long id = snowFlake.nextId();
+			assertTrue(id > last);
+			last = id;
+		}
+		assertEquals(1, snowFlake.parse(last).getMachineId());
+		System.out.println("ahead " + snowFlake.getAheadMillis() + " ms");
+	}
+	
+	@Test
+	public void concurrentUnique() throws Exception {
+		SnowFlakeId snowFlake = new SnowFlakeId(1, 1);
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		int threads = 8;
+		int count = 100000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < count; i++) {
+					ids.add(snowFlake.nextId());
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+		assertEquals(threads * count, ids.size());
+		System.out.println(IdGenerator.uuid());
+	}
+	
+	@Test
+	public void throughput() throws Exception {
+		int threads = Runtime.getRuntime().availableProcessors();
+		int count = 1000000;
+		SnowFlakeId snowFlake = new SnowFlakeId(1, 1);
+		SynchronizedSnowFlakeId synchronizedSnowFlake = new SynchronizedSnowFlakeId(1, 1);
+		//warm up
+		run(synchronizedSnowFlake::nextId, threads, count / 10);
+		run(snowFlake::nextId, threads, count / 10);
+		
+		System.out.println("synchronized : " + run(synchronizedSnowFlake::nextId, 1, count) + " ids/s , 1 thread");
+		System.out.println("cas : " + run(snowFlake::nextId, 1, count) + " ids/s , 1 thread");
+		System.out.println("synchronized : " + run(synchronizedSnowFlake::nextId, threads, count) + " ids/s , " + threads + " threads");
+		System.out.println("cas : " + run(snowFlake::nextId, threads, count) + " ids/s , " + threads + " threads");
+		
+		StringGenerator stringGenerator = new StringGenerator();
+		System.out.println("uuid : " + run(() -> stringGenerator.uuidGenerate().length(), threads, count) + " ids/s , " + threads + " threads");
+		System.out.println("thread uuid : " + run(() -> IdGenerator.uuid().length(), threads, count) + " ids/s , " + threads + " threads");
+	}
+	
+	long run(LongSupplier generator, int threads, int count) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<>();
+		long start = System.nanoTime();
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				long sum = 0;
+				for (int i = 0; i < count; i++) {
+					sum += generator.getAsLong();
+				}
+				return sum;
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		long elapsed = System.nanoTime() - start;
+		executor.shutdown();
+		return threads * (long) count * 1000000000L / Math.max(elapsed, 1);
+	}
+	
+	/**
+	 * previous synchronized implementation , spins when the sequence is exhausted
+	 */
+	static class SynchronizedSnowFlakeId {
+		private static final long START_STMP = 1480166465631L;
+		private static final long MAX_SEQUENCE = -1L ^ (-1L << 12);
+		private long datacenterId;
+		private long machineId;
+		private long sequence = 0L;
+		private long lastStmp = -1L;
+		
+		SynchronizedSnowFlakeId(long datacenterId, long machineId) {
+			this.datacenterId = datacenterId;
+			this.machineId = machineId;
+		}
+		
+		synchronized long nextId() {
+			long currStmp = System.currentTimeMillis();
+			if (currStmp < lastStmp) {
+				throw new RuntimeException("Clock moved backwards.  Refusing to generate id");
+			}
+			if (currStmp == lastStmp) {
+				sequence = (sequence + 1) & MAX_SEQUENCE;
+				if (sequence == 0L) {
+					while (currStmp <= lastStmp) {
+						currStmp = System.currentTimeMillis();
+					}
+				}
+			} else {
+				sequence = 0L;
+			}
+			lastStmp = currStmp;
+			return (currStmp - START_STMP) << 22 | datacenterId << 17 | machineId << 12 | sequence;
+		}
+	}
 }
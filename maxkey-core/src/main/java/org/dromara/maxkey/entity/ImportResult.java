@@ -0,0 +1,143 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.entity;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * result of a batch import , counts and the errors of rows not imported .
+ * @author Crystal.Sea
+ *
+ */
+public class ImportResult implements Serializable {
+
+	private static final long serialVersionUID = -2474930870637725813L;
+
+	int total;
+
+	int inserted;
+
+	int updated;
+
+	List<RowError> errors = new ArrayList<>();
+
+	public ImportResult() {
+		super();
+	}
+
+	public ImportResult(int total) {
+		this.total = total;
+	}
+
+	/**
+	 * @param row index of the row in the batch
+	 * @param key username , code ...
+	 * @param message error
+	 */
+	public void addError(int row, String key, String message) {
+		errors.add(new RowError(row, key, message));
+	}
+
+	public void addInserted(int count) {
+		inserted += count;
+	}
+
+	public void addUpdated(int count) {
+		updated += count;
+	}
+
+	public int getTotal() {
+		return total;
+	}
+
+	public void setTotal(int total) {
+		this.total = total;
+	}
+
+	public int getInserted() {
+		return inserted;
+	}
+
+	public int getUpdated() {
+		return updated;
+	}
+
+	public int getFailed() {
+		return errors.size();
+	}
+
+	public boolean isSuccess() {
+		return errors.isEmpty();
+	}
+
+	public List<RowError> getErrors() {
+		return errors;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("ImportResult [total=");
+		builder.append(total);
+		builder.append(", inserted=");
+		builder.append(inserted);
+		builder.append(", updated=");
+		builder.append(updated);
+		builder.append(", failed=");
+		builder.append(errors.size());
+		builder.append("]");
+		return builder.toString();
+	}
+
+	public static class RowError implements Serializable {
+
+		private static final long serialVersionUID = 6184032587425510562L;
+
+		int row;
+
+		String key;
+
+		String message;
+
+		public RowError(int row, String key, String message) {
+			this.row = row;
+			this.key = key;
+			this.message = message;
+		}
+
+		public int getRow() {
+			return row;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return "RowError [row=" + row + ", key=" + key + ", message=" + message + "]";
+		}
+	}
+
+}
@@ -56,6 +56,10 @@ public class Synchronizers extends JpaEntity implements Serializable {
 	@Column
 	Integer syncStartTime;
 
+	// 增量同步水位 , uSNChanged / modifyTimestamp
+	@Column
+	String syncWatermark;
+
 	@Column
 	String providerUrl;
 	@Column
@@ -115,6 +119,14 @@ public class Synchronizers extends JpaEntity implements Serializable {
 		this.syncStartTime = syncStartTime;
 	}
 
+	public String getSyncWatermark() {
+		return syncWatermark;
+	}
+
+	public void setSyncWatermark(String syncWatermark) {
+		this.syncWatermark = syncWatermark;
+	}
+
 	public String getId() {
 		return id;
 	}
@@ -0,0 +1,152 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.entity.idm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * organizations indexed by id and by parent id , built in O(n) .<br>
+ * name and code paths are computed top down in one traversal ,
+ * each organization is visited once , cycles in parent ids are ignored .
+ *
+ * @author Crystal.Sea
+ *
+ */
+public class OrganizationsTree {
+
+	/**
+	 * set name and code path of organization from its parent
+	 */
+	@FunctionalInterface
+	public interface PathBuilder {
+		public void build(Organizations parent, Organizations organization);
+	}
+
+	/**
+	 * /root/child , code path /1/childId , used by synchronizers
+	 */
+	public static final PathBuilder SLASH_SEPARATED = (parent, organization) -> {
+		organization.setParentName(parent.getOrgName());
+		organization.setNamePath(parent.getNamePath() + "/" + organization.getOrgName());
+		organization.setCodePath(parent.getCodePath() + "/" + organization.getId());
+	};
+
+	/**
+	 * /root/child/ , code path /1/childId/ , used by reorganization
+	 */
+	public static final PathBuilder SLASH_TERMINATED = (parent, organization) -> {
+		organization.setCodePath(parent.getCodePath() + organization.getId() + "/");
+		organization.setNamePath(parent.getNamePath() + organization.getOrgName() + "/");
+	};
+
+	final Map<String, Organizations> orgsMap = new LinkedHashMap<>();
+
+	final Map<String, List<Organizations>> childrenMap = new HashMap<>();
+
+	//root and descendants of the last buildPaths , top down
+	final List<Organizations> pathOrgs = new ArrayList<>();
+
+	public OrganizationsTree(List<Organizations> orgsList) {
+		for (Organizations org : orgsList) {
+			orgsMap.put(org.getId(), org);
+		}
+		for (Organizations org : orgsList) {
+			if (org.getParentId() != null && !org.getParentId().equals(org.getId())) {
+				childrenMap.computeIfAbsent(org.getParentId(), k -> new ArrayList<>()).add(org);
+			}
+		}
+	}
+
+	public Organizations get(String id) {
+		return orgsMap.get(id);
+	}
+
+	public List<Organizations> getChildren(String parentId) {
+		return childrenMap.getOrDefault(parentId, Collections.emptyList());
+	}
+
+	public boolean hasChildren(String parentId) {
+		return childrenMap.containsKey(parentId);
+	}
+
+	public int size() {
+		return orgsMap.size();
+	}
+
+	public List<Organizations> getOrganizations() {
+		return new ArrayList<>(orgsMap.values());
+	}
+
+	/**
+	 * compute paths of descendants of root , the paths of root are kept
+	 * @param root root organization
+	 * @param pathBuilder path of organization from parent
+	 * @return descendants of which name path , code path or parent name changed
+	 */
+	public List<Organizations> buildPaths(Organizations root, PathBuilder pathBuilder) {
+		List<Organizations> changedOrgs = new ArrayList<>();
+		Set<String> visited = new HashSet<>();
+		visited.add(root.getId());
+		pathOrgs.clear();
+		ArrayDeque<Organizations> queue = new ArrayDeque<>();
+		queue.add(root);
+		while (!queue.isEmpty()) {
+			Organizations parent = queue.poll();
+			pathOrgs.add(parent);
+			for (Organizations org : getChildren(parent.getId())) {
+				if (!visited.add(org.getId())) {
+					continue;
+				}
+				String namePath = org.getNamePath();
+				String codePath = org.getCodePath();
+				String parentName = org.getParentName();
+				pathBuilder.build(parent, org);
+				if (!Objects.equals(namePath, org.getNamePath())
+						|| !Objects.equals(codePath, org.getCodePath())
+						|| !Objects.equals(parentName, org.getParentName())) {
+					changedOrgs.add(org);
+				}
+				queue.add(org);
+			}
+		}
+		return changedOrgs;
+	}
+
+	/**
+	 * @return name path to organization , root and descendants after buildPaths , otherwise all organizations
+	 */
+	public HashMap<String, Organizations> namePathMap() {
+		HashMap<String, Organizations> namePathMap = new HashMap<>(orgsMap.size() * 2);
+		for (Organizations org : pathOrgs.isEmpty() ? orgsMap.values() : pathOrgs) {
+			if (org.getNamePath() != null) {
+				namePathMap.put(org.getNamePath(), org);
+			}
+		}
+		return namePathMap;
+	}
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * broadcast cache invalidation to the other nodes ,
+ * messages published by this node are not delivered to itself .
+ */
+public interface CacheInvalidationBus {
+
+	public void publish(String message);
+
+	public void subscribe(Consumer<String> listener);
+
+	public void close();
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.PropertyResolver;
+
+/**
+ * registry of named in memory caches<br>
+ * size and ttl of each cache can be configured by
+ * maxkey.cache.{name}.maximum-size and maxkey.cache.{name}.expire-minutes ,
+ * invalidations are broadcast to the other nodes by the CacheInvalidationBus .
+ */
+public class CacheRegistry {
+	private static final Logger _logger = LoggerFactory.getLogger(CacheRegistry.class);
+
+	public static final String PROPERTY_PREFIX = "maxkey.cache.";
+
+	static final char SEPARATOR = '|';
+
+	static final Map<String, NamedCache<?>> caches = new ConcurrentHashMap<>();
+
+	static volatile PropertyResolver propertyResolver;
+
+	static volatile CacheInvalidationBus invalidationBus;
+
+	private CacheRegistry() {
+
+	}
+
+	/**
+	 * register or get cache by name
+	 * @param name cache name
+	 * @param maximumSize default maximum size
+	 * @param expireMinutes default ttl
+	 */
+	@SuppressWarnings("unchecked")
+	public static <V> NamedCache<V> register(String name, long maximumSize, long expireMinutes) {
+		return (NamedCache<V>) caches.computeIfAbsent(name, n -> {
+			NamedCache<V> namedCache = new NamedCache<>(n, maximumSize, expireMinutes);
+			configure(namedCache, propertyResolver);
+			_logger.debug("register cache {} , maximum size {} , ttl {} min" ,
+					n , namedCache.getMaximumSize() , namedCache.getExpireMinutes());
+			return namedCache;
+		});
+	}
+
+	public static NamedCache<?> get(String name) {
+		return caches.get(name);
+	}
+
+	/**
+	 * apply maxkey.cache.{name}.* to the registered and later registered caches
+	 */
+	public static void setPropertyResolver(PropertyResolver resolver) {
+		propertyResolver = resolver;
+		for(NamedCache<?> namedCache : caches.values()) {
+			configure(namedCache, resolver);
+		}
+	}
+
+	static void configure(NamedCache<?> namedCache, PropertyResolver resolver) {
+		if(resolver != null) {
+			String prefix = PROPERTY_PREFIX + namedCache.getName();
+			namedCache.configure(
+					resolver.getProperty(prefix + ".maximum-size", Long.class, namedCache.getMaximumSize()),
+					resolver.getProperty(prefix + ".expire-minutes", Long.class, namedCache.getExpireMinutes()));
+		}
+	}
+
+	/**
+	 * set bus and evict local caches on messages from other nodes
+	 */
+	public static void setInvalidationBus(CacheInvalidationBus bus) {
+		CacheInvalidationBus previous = invalidationBus;
+		invalidationBus = bus;
+		if(previous != null && previous != bus) {
+			previous.close();
+		}
+		if(bus != null) {
+			bus.subscribe(CacheRegistry::onMessage);
+		}
+	}
+
+	public static CacheInvalidationBus getInvalidationBus() {
+		return invalidationBus;
+	}
+
+	static void publish(String name, String key) {
+		CacheInvalidationBus bus = invalidationBus;
+		if(bus != null) {
+			bus.publish(name + SEPARATOR + (key == null ? "" : key));
+		}
+	}
+
+	/**
+	 * message name|key , empty key for all
+	 */
+	static void onMessage(String message) {
+		int index = message.indexOf(SEPARATOR);
+		if(index < 0) {
+			return;
+		}
+		NamedCache<?> namedCache = caches.get(message.substring(0, index));
+		if(namedCache != null) {
+			String key = message.substring(index + 1);
+			_logger.trace("evict cache {} key {}" , namedCache.getName() , key);
+			if(key.isEmpty()) {
+				namedCache.evictAll();
+			}else {
+				namedCache.evict(key);
+			}
+		}
+	}
+
+	public static List<String> metrics() {
+		List<String> metrics = new ArrayList<>();
+		for(NamedCache<?> namedCache : caches.values()) {
+			metrics.add(namedCache.metrics());
+		}
+		return metrics;
+	}
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.cache;
+
+import java.sql.Timestamp;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * cache invalidation by polling table mxk_cache_invalidation , used when Redis is not available<br>
+ * rows are read by id with an overlap window , ids committed out of order are not lost ,
+ * processed ids are remembered so a message is applied once .
+ */
+public class JdbcCacheInvalidationBus implements CacheInvalidationBus {
+	private static final Logger _logger = LoggerFactory.getLogger(JdbcCacheInvalidationBus.class);
+
+	static final String INSERT_STATEMENT =
+			"insert into mxk_cache_invalidation (message , nodeid , createdtime) values (? , ? , ?)";
+
+	static final String MAX_ID_STATEMENT =
+			"select max(id) from mxk_cache_invalidation";
+
+	static final String SELECT_STATEMENT =
+			"select id , message , nodeid from mxk_cache_invalidation where id > ? order by id";
+
+	static final String PURGE_STATEMENT =
+			"delete from mxk_cache_invalidation where createdtime < ?";
+
+	public static final long DEFAULT_POLL_INTERVAL = 5000;
+
+	//rows older than retention are deleted
+	static final long RETENTION = 60 * 60 * 1000L;
+
+	//ids below the newest processed id read again
+	static final long OVERLAP = 100;
+
+	static final int PURGE_EVERY_POLLS = 720;
+
+	final String nodeId = UUID.randomUUID().toString();
+
+	JdbcTemplate jdbcTemplate;
+
+	long pollInterval;
+
+	long lastId;
+
+	final TreeSet<Long> processedIds = new TreeSet<>();
+
+	volatile boolean running = true;
+
+	Thread poller;
+
+	public JdbcCacheInvalidationBus(JdbcTemplate jdbcTemplate, long pollInterval) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.pollInterval = pollInterval > 0 ? pollInterval : DEFAULT_POLL_INTERVAL;
+	}
+
+	@Override
+	public void publish(String message) {
+		_logger.trace("publish {}" , message);
+		try {
+			jdbcTemplate.update(INSERT_STATEMENT,
+					message, nodeId, new Timestamp(System.currentTimeMillis()));
+		}catch(Exception e) {
+			_logger.error("publish {} error" , message , e);
+		}
+	}
+
+	@Override
+	public void subscribe(Consumer<String> listener) {
+		try {
+			Long maxId = jdbcTemplate.queryForObject(MAX_ID_STATEMENT, Long.class);
+			lastId = maxId == null ? 0 : maxId;
+		}catch(Exception e) {
+			_logger.error("mxk_cache_invalidation is not available , cache invalidation is not broadcast" , e);
+			running = false;
+			return;
+		}
+		poller = new Thread(() -> {
+			int polls = 0;
+			while(running) {
+				try {
+					Thread.sleep(pollInterval);
+					poll(listener);
+					if(++polls % PURGE_EVERY_POLLS == 0) {
+						jdbcTemplate.update(PURGE_STATEMENT,
+								new Timestamp(System.currentTimeMillis() - RETENTION));
+					}
+				}catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}catch(Exception e) {
+					_logger.warn("poll cache invalidation error" , e);
+				}
+			}
+		},"cache-invalidation-poller");
+		poller.setDaemon(true);
+		poller.start();
+	}
+
+	void poll(Consumer<String> listener) {
+		jdbcTemplate.query(SELECT_STATEMENT, rs -> {
+			long id = rs.getLong("id");
+			if(processedIds.add(id)) {
+				lastId = Math.max(lastId, id);
+				if(!nodeId.equals(rs.getString("nodeid"))) {
+					try {
+						listener.accept(rs.getString("message"));
+					}catch(Exception e) {
+						_logger.error("message {} error" , id , e);
+					}
+				}
+			}
+		}, Math.max(0, lastId - OVERLAP));
+		processedIds.headSet(lastId - OVERLAP, true).clear();
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		if(poller != null) {
+			poller.interrupt();
+		}
+	}
+
+	public String getNodeId() {
+		return nodeId;
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Caffeine cache registered in CacheRegistry by name<br>
+ * invalidate and invalidateAll are broadcast to the other nodes ,
+ * evict and evictAll only apply to this node .
+ *
+ * @param <V> cached value
+ */
+public class NamedCache<V> {
+
+	final String name;
+
+	volatile long maximumSize;
+
+	volatile long expireMinutes;
+
+	volatile Cache<String, V> cache;
+
+	NamedCache(String name, long maximumSize, long expireMinutes) {
+		this.name = name;
+		this.maximumSize = maximumSize;
+		this.expireMinutes = expireMinutes;
+		this.cache = build(maximumSize, expireMinutes);
+	}
+
+	/**
+	 * rebuild with new size and ttl , cached values are dropped
+	 */
+	synchronized void configure(long maximumSize, long expireMinutes) {
+		if(this.maximumSize != maximumSize || this.expireMinutes != expireMinutes) {
+			this.maximumSize = maximumSize;
+			this.expireMinutes = expireMinutes;
+			this.cache = build(maximumSize, expireMinutes);
+		}
+	}
+
+	static <V> Cache<String, V> build(long maximumSize, long expireMinutes) {
+		return Caffeine.newBuilder()
+				.expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
+				.maximumSize(maximumSize)
+				.recordStats()
+				.build();
+	}
+
+	public V getIfPresent(String key) {
+		return key == null ? null : cache.getIfPresent(key);
+	}
+
+	/**
+	 * get or load , null from loader is not cached
+	 */
+	public V get(String key, Function<String, V> loader) {
+		return cache.get(key, loader);
+	}
+
+	public void put(String key, V value) {
+		if(key != null && value != null) {
+			cache.put(key, value);
+		}
+	}
+
+	/**
+	 * invalidate key on all nodes
+	 */
+	public void invalidate(String key) {
+		if(key != null) {
+			evict(key);
+			CacheRegistry.publish(name, key);
+		}
+	}
+
+	/**
+	 * invalidate all keys on all nodes
+	 */
+	public void invalidateAll() {
+		evictAll();
+		CacheRegistry.publish(name, null);
+	}
+
+	public void evict(String key) {
+		cache.invalidate(key);
+	}
+
+	public void evictAll() {
+		cache.invalidateAll();
+	}
+
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	public long estimatedSize() {
+		return cache.estimatedSize();
+	}
+
+	public String metrics() {
+		CacheStats stats = cache.stats();
+		return String.format("%s size %d/%d , ttl %d min , hits %d , misses %d , hit rate %.2f , evictions %d",
+				name,
+				cache.estimatedSize(),
+				maximumSize,
+				expireMinutes,
+				stats.hitCount(),
+				stats.missCount(),
+				stats.hitRate(),
+				stats.evictionCount());
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getMaximumSize() {
+		return maximumSize;
+	}
+
+	public long getExpireMinutes() {
+		return expireMinutes;
+	}
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * local invalidation only , for single node deployment
+ */
+public class NoOpCacheInvalidationBus implements CacheInvalidationBus {
+
+	@Override
+	public void publish(String message) {
+		//local only
+	}
+
+	@Override
+	public void subscribe(Consumer<String> listener) {
+		//local only
+	}
+
+	@Override
+	public void close() {
+		//local only
+	}
+
+}
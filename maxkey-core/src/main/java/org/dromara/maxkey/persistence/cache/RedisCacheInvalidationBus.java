@@ -0,0 +1,53 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.cache;
+
+import java.util.function.Consumer;
+
+import org.dromara.maxkey.persistence.redis.RedisChannel;
+import org.dromara.maxkey.persistence.redis.RedisConnectionFactory;
+
+/**
+ * cache invalidation over Redis pub/sub
+ */
+public class RedisCacheInvalidationBus implements CacheInvalidationBus {
+
+	public static final String CHANNEL = "MXK_CACHE_INVALIDATE";
+
+	RedisChannel channel;
+
+	public RedisCacheInvalidationBus(RedisConnectionFactory connectionFactory) {
+		this.channel = new RedisChannel(connectionFactory, CHANNEL);
+	}
+
+	@Override
+	public void publish(String message) {
+		channel.publish(message);
+	}
+
+	@Override
+	public void subscribe(Consumer<String> listener) {
+		channel.subscribe(listener);
+	}
+
+	@Override
+	public void close() {
+		channel.close();
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.redis;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * Redis pub/sub channel for cluster notification<br>
+ * messages published by this node are not delivered to itself ,
+ * the subscriber holds one pooled connection and reconnects when the connection is lost .
+ */
+public class RedisChannel {
+	private static final Logger _logger = LoggerFactory.getLogger(RedisChannel.class);
+	
+	static final char SEPARATOR = '|';
+	
+	static final long RECONNECT_INTERVAL = 3000;
+	
+	final String nodeId = UUID.randomUUID().toString();
+	
+	String channel;
+	
+	RedisConnectionFactory connectionFactory;
+	
+	volatile boolean running = true;
+	
+	volatile JedisPubSub pubSub;
+	
+	public RedisChannel(RedisConnectionFactory connectionFactory, String channel) {
+		this.connectionFactory = connectionFactory;
+		this.channel = channel;
+	}
+	
+	public void publish(String message) {
+		_logger.trace("publish {} to channel {}" , message , channel);
+		try (RedisConnection conn = connectionFactory.getConnection()){
+			conn.getConn().publish(channel, nodeId + SEPARATOR + message);
+		}catch(Exception e) {
+			_logger.error("publish to channel {} error" , channel , e);
+		}
+	}
+	
+	/**
+	 * start daemon subscriber thread
+	 * @param listener message from other nodes
+	 */
+	public void subscribe(Consumer<String> listener) {
+		pubSub = new JedisPubSub() {
+			@Override
+			public void onMessage(String channel, String message) {
+				int index = message.indexOf(SEPARATOR);
+				if(index < 0 || !message.substring(0, index).equals(nodeId)) {
+					try {
+						listener.accept(message.substring(index + 1));
+					}catch(Exception e) {
+						_logger.error("channel {} message {} error" , channel , message , e);
+					}
+				}
+			}
+		};
+		Thread subscriber = new Thread(() -> {
+			while(running) {
+				try (RedisConnection conn = connectionFactory.getConnection()){
+					_logger.debug("subscribe channel {}" , channel);
+					conn.getConn().subscribe(pubSub, channel);
+				}catch(Exception e) {
+					_logger.warn("channel {} subscriber disconnected , reconnect after {} ms" , channel , RECONNECT_INTERVAL , e);
+					try {
+						Thread.sleep(RECONNECT_INTERVAL);
+					} catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+		},"redis-channel-" + channel);
+		subscriber.setDaemon(true);
+		subscriber.start();
+	}
+	
+	public void close() {
+		running = false;
+		if(pubSub != null && pubSub.isSubscribed()) {
+			pubSub.unsubscribe();
+		}
+	}
+
+	public String getChannel() {
+		return channel;
+	}
+
+	public String getNodeId() {
+		return nodeId;
+	}
+	
+}
@@ -18,7 +18,12 @@
 package org.dromara.maxkey.persistence.redis;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import org.dromara.maxkey.util.ObjectTransformer;
 import org.slf4j.Logger;
@@ -26,14 +31,28 @@ import org.slf4j.LoggerFactory;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisDataException;
 
-public class RedisConnection {
+/**
+ * Redis connection borrowed from RedisConnectionFactory , 
+ * use try-with-resources to return the connection to the pool .<br>
+ * when openPipeline is called , write commands are queued to the pipeline 
+ * until closePipeline .
+ */
+public class RedisConnection implements AutoCloseable{
 	private static final Logger _logger = LoggerFactory.getLogger(RedisConnection.class);
 	
 	Jedis conn ;
 	RedisConnectionFactory connectionFactory;
 	
 	Pipeline pipeline ;
+	
+	/**
+	 * false after the server rejects GETDEL
+	 */
+	static volatile boolean getdelSupported = true;
 	 
 	public RedisConnection() {
 		
@@ -49,7 +68,11 @@ public class RedisConnection {
 	 * @param value
 	 */
 	public  void set(String key, String value){
-		conn.set(key, value);
+		if(pipeline != null) {
+			pipeline.set(key, value);
+		}else {
+			conn.set(key, value);
+		}
 	}
 	
 
@@ -59,7 +82,11 @@ public class RedisConnection {
 	 */
 	public  void setObject(String key, Object value){
 		if(value instanceof Serializable) {
-			set(key, ObjectTransformer.serialize((Serializable)value));
+			if(pipeline != null) {
+				pipeline.set(keyBytes(key), ObjectTransformer.serializeBytes((Serializable)value));
+			}else {
+				conn.set(keyBytes(key), ObjectTransformer.serializeBytes((Serializable)value));
+			}
 		}else {
 			_logger.error("value must implements of Serializable .");
 		}
@@ -67,7 +94,14 @@ public class RedisConnection {
 	
 	public  void setexObject(String key,int seconds, Object value){
 		if(value instanceof Serializable) {
-			setex(key, seconds, ObjectTransformer.serialize((Serializable)value));
+			_logger.trace("setex key {} ..." , key);
+			long lifetime = seconds == 0 ? RedisConnectionFactory.DEFAULT_CONFIG.DEFAULT_LIFETIME : seconds;
+			byte[] bytes = ObjectTransformer.serializeBytes((Serializable)value);
+			if(pipeline != null) {
+				pipeline.setex(keyBytes(key), lifetime, bytes);
+			}else {
+				conn.setex(keyBytes(key), lifetime, bytes);
+			}
 		}else {
 			_logger.error("value must implements of Serializable .");
 		}
@@ -80,14 +114,56 @@ public class RedisConnection {
 	 */
 	public  void setex(String key,long seconds, String value){
 		_logger.trace("setex key {} ..." , key);
-		if(seconds==0){
-			conn.setex(key, RedisConnectionFactory.DEFAULT_CONFIG.DEFAULT_LIFETIME, value);
+		long lifetime = seconds == 0 ? RedisConnectionFactory.DEFAULT_CONFIG.DEFAULT_LIFETIME : seconds;
+		if(pipeline != null) {
+			pipeline.setex(key, lifetime, value);
 		}else{
-			conn.setex(key, seconds, value);
+			conn.setex(key, lifetime, value);
 		}
 		_logger.trace("setex successful .");
 	}
 	
+	/**
+	 * MSET objects in one round trip
+	 * @param values key and object
+	 */
+	public void setObjects(Map<String, ? extends Serializable> values) {
+		if(values.isEmpty()) {
+			return;
+		}
+		byte[][] keysvalues = new byte[values.size() * 2][];
+		int i = 0;
+		for(Map.Entry<String, ? extends Serializable> entry : values.entrySet()) {
+			keysvalues[i++] = keyBytes(entry.getKey());
+			keysvalues[i++] = ObjectTransformer.serializeBytes(entry.getValue());
+		}
+		if(pipeline != null) {
+			pipeline.mset(keysvalues);
+		}else {
+			conn.mset(keysvalues);
+		}
+	}
+	
+	/**
+	 * SETEX objects in one pipelined round trip
+	 * @param values key and object
+	 * @param seconds
+	 */
+	public void setexObjects(Map<String, ? extends Serializable> values,int seconds) {
+		if(values.isEmpty()) {
+			return;
+		}
+		boolean opened = pipeline == null;
+		if(opened) {
+			openPipeline();
+		}
+		for(Map.Entry<String, ? extends Serializable> entry : values.entrySet()) {
+			setexObject(entry.getKey(), seconds, entry.getValue());
+		}
+		if(opened) {
+			closePipeline();
+		}
+	}
 	
 	/**
 	 * @param key
@@ -107,31 +183,114 @@ public class RedisConnection {
 	 * @return String 
 	 */
 	public  <T> T getObject(String key){
-		String value = null;
 		if(key != null){
-			value = get(key);
+			_logger.trace("get key {} ..." , key);
+			byte[] value = conn.get(keyBytes(key));
 			if(value!=null){
-				return ObjectTransformer.deserialize(value);
+				return ObjectTransformer.deserializeBytes(value);
 			}
 		}
 		return null;
 	}
 	
+	/**
+	 * MGET objects in one round trip
+	 * @param keys
+	 * @return objects in the order of keys , null if the key not exists
+	 */
+	public <T> List<T> getObjects(Collection<String> keys){
+		List<T> objects = new ArrayList<>(keys.size());
+		if(keys.isEmpty()) {
+			return objects;
+		}
+		byte[][] keysBytes = new byte[keys.size()][];
+		int i = 0;
+		for(String key : keys) {
+			keysBytes[i++] = keyBytes(key);
+		}
+		for(byte[] value : conn.mget(keysBytes)) {
+			T object = ObjectTransformer.deserializeBytes(value);
+			objects.add(object);
+		}
+		return objects;
+	}
+	
+	/**
+	 * GET and DEL atomically , only one caller gets the value , 
+	 * GETDEL of Redis 6.2 , MULTI/EXEC on older Redis
+	 * @param key
+	 * @return object
+	 */
+	public <T> T getdelObject(String key) {
+		if(getdelSupported) {
+			try {
+				return ObjectTransformer.deserializeBytes(conn.getDel(keyBytes(key)));
+			}catch(JedisDataException e) {
+				if(e.getMessage() == null || !e.getMessage().toLowerCase().contains("unknown command")) {
+					throw e;
+				}
+				_logger.info("GETDEL is not supported , use MULTI/EXEC");
+				getdelSupported = false;
+			}
+		}
+		Transaction getdel = conn.multi();
+		Response<byte[]> response = getdel.get(keyBytes(key));
+		getdel.del(keyBytes(key));
+		getdel.exec();
+		return ObjectTransformer.deserializeBytes(response.get());
+	}
+	
 	public void expire(String key,long seconds){
 		_logger.trace("expire key {} , {}" , key , seconds);
-		conn.expire(key, seconds);
+		if(pipeline != null) {
+			pipeline.expire(key, seconds);
+		}else {
+			conn.expire(key, seconds);
+		}
 	}
 	
 	public void delete(String key){
 		_logger.trace("del key {}" , key);
-		conn.del(key);
+		if(pipeline != null) {
+			pipeline.del(key);
+		}else {
+			conn.del(key);
+		}
 	}
 	
-	public  void rPush(String key, Serializable object){
-		conn.rpush(key, ObjectTransformer.serialize(object));
+	public void delete(String... keys){
+		_logger.trace("del keys {}" , (Object)keys);
+		if(pipeline != null) {
+			pipeline.del(keys);
+		}else {
+			conn.del(keys);
+		}
 	}
 	
+	public  void rPush(String key, String value){
+		if(pipeline != null) {
+			pipeline.rpush(key, value);
+		}else {
+			conn.rpush(key, value);
+		}
+	}
+	
+	public  void rPushObject(String key, Serializable object){
+		if(pipeline != null) {
+			pipeline.rpush(key, ObjectTransformer.serialize(object));
+		}else {
+			conn.rpush(key, ObjectTransformer.serialize(object));
+		}
+	}
+	
+	/**
+	 * @return removed count , 0 when pipeline is open
+	 */
 	public long  lRem(String key,int count,String value){
+		if(pipeline != null) {
+			pipeline.lrem(key, count, value);
+			return 0;
+		}
 		return conn.lrem(key, count, value);
 	}
 	
@@ -145,17 +304,37 @@ public class RedisConnection {
 	}
 	
 	public List<Object> closePipeline(){
-		return pipeline.syncAndReturnAll();
+		List<Object> results = pipeline.syncAndReturnAll();
+		pipeline = null;
+		return results;
 	}
+	
+	/**
+	 * run commands in a pipeline 
+	 * @param commands
+	 * @return results of commands
+	 */
+	public List<Object> pipelined(Consumer<Pipeline> commands){
+		Pipeline batch = conn.pipelined();
+		commands.accept(batch);
+		return batch.syncAndReturnAll();
+	}
+	
 	/**
      * 释放jedis资源
      * @param jedis
      */
+	@Override
 	public  void close() {
         if (conn != null) {
         	connectionFactory.close(conn);
+        	conn = null;
         }
     }
+	
+	public static byte[] keyBytes(String key) {
+		return key.getBytes(StandardCharsets.UTF_8);
+	}
 
 	public Jedis getConn() {
 		return conn;
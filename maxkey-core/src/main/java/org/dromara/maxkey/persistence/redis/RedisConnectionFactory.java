@@ -17,6 +17,8 @@
 
 package org.dromara.maxkey.persistence.redis;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -70,7 +72,13 @@ public class RedisConnectionFactory {
 
     JedisPoolConfig poolConfig;
 
-    private JedisPool jedisPool = null;
+    private volatile JedisPool jedisPool = null;
+    
+    private final AtomicLong borrowCount = new AtomicLong();
+    
+    private final AtomicLong borrowNanos = new AtomicLong();
+    
+    private final AtomicLong maxBorrowNanos = new AtomicLong();
 
     private String hostName;
     private int port;
@@ -81,7 +89,7 @@ public class RedisConnectionFactory {
 
     }
 
-    public void initConnectionFactory() {
+    public synchronized void initConnectionFactory() {
         if (jedisPool == null) {
         	_logger.debug("init Jedis Pool .");
             try {
@@ -107,8 +115,14 @@ public class RedisConnectionFactory {
         }
     }
 
-    public synchronized RedisConnection getConnection() {
-        initConnectionFactory();
+    /**
+     * borrow connection without lock , pool is initialized once
+     * @return RedisConnection , close it after use
+     */
+    public RedisConnection getConnection() {
+        if (jedisPool == null) {
+            initConnectionFactory();
+        }
         _logger.trace("get connection .");
         RedisConnection redisConnection = new RedisConnection(this);
         _logger.trace("return connection .");
@@ -117,7 +131,12 @@ public class RedisConnectionFactory {
 
     public Jedis open() {
     	_logger.trace("get jedisPool Resource ...");
+    	long start = System.nanoTime();
     	Jedis jedis = jedisPool.getResource();
+    	long nanos = System.nanoTime() - start;
+    	borrowCount.incrementAndGet();
+    	borrowNanos.addAndGet(nanos);
+    	maxBorrowNanos.accumulateAndGet(nanos, Math::max);
     	_logger.trace("return jedisPool Resource .");
         return jedis;
 
@@ -129,6 +148,48 @@ public class RedisConnectionFactory {
         conn.close();
         _logger.trace("closed conn .");
     }
+    
+    public int getNumActive() {
+    	return jedisPool == null ? 0 : jedisPool.getNumActive();
+    }
+    
+    public int getNumIdle() {
+    	return jedisPool == null ? 0 : jedisPool.getNumIdle();
+    }
+    
+    public int getNumWaiters() {
+    	return jedisPool == null ? 0 : jedisPool.getNumWaiters();
+    }
+    
+    public long getBorrowCount() {
+    	return borrowCount.get();
+    }
+    
+    /**
+     * @return average borrow wait in microseconds
+     */
+    public long getMeanBorrowMicros() {
+    	long count = borrowCount.get();
+    	return count == 0 ? 0 : borrowNanos.get() / count / 1000;
+    }
+    
+    public long getMaxBorrowMicros() {
+    	return maxBorrowNanos.get() / 1000;
+    }
+    
+    /**
+     * pool utilization metrics
+     * @return metrics
+     */
+    public String metrics() {
+    	return String.format("active %d , idle %d , waiters %d , borrowed %d , mean borrow %d us , max borrow %d us",
+    			getNumActive(),
+    			getNumIdle(),
+    			getNumWaiters(),
+    			getBorrowCount(),
+    			getMeanBorrowMicros(),
+    			getMaxBorrowMicros());
+    }
 
 
     public String getHostName() {
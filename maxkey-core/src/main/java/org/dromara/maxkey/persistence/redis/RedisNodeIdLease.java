@@ -0,0 +1,175 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.redis;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import redis.clients.jedis.params.SetParams;
+
+/**
+ * lease a node id in 0 ... maxNodes - 1 from Redis<br>
+ * the lease is renewed every third of its ttl , when the lease is lost
+ * another free node id is leased and passed to the listener .<br>
+ * the node id is valid until ttl after the last successful renewal , see getExpireTime ,
+ * so the id generator stops when Redis is not reachable long enough for another node to lease the same id .
+ */
+public class RedisNodeIdLease {
+	private static final Logger _logger = LoggerFactory.getLogger(RedisNodeIdLease.class);
+
+	public static final String PREFIX = "MXK_NODE_ID_";
+
+	static final String RENEW_SCRIPT =
+			"if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('expire', KEYS[1], ARGV[2]) else return 0 end";
+
+	static final String RELEASE_SCRIPT =
+			"if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+
+	public static final int DEFAULT_TTL_SECONDS = 60;
+
+	final String owner = UUID.randomUUID().toString();
+
+	RedisConnectionFactory connectionFactory;
+
+	String name;
+
+	int maxNodes;
+
+	int ttlSeconds;
+
+	volatile int nodeId = -1;
+
+	/**
+	 * time millis before the last successful lease or renewal , 0 when the lease is lost
+	 */
+	volatile long renewedTime;
+
+	IntConsumer listener;
+
+	ScheduledExecutorService renewer;
+
+	/**
+	 * @param name lease name , snowflake
+	 * @param maxNodes node ids
+	 * @param ttlSeconds lease ttl
+	 */
+	public RedisNodeIdLease(RedisConnectionFactory connectionFactory, String name, int maxNodes, int ttlSeconds) {
+		this.connectionFactory = connectionFactory;
+		this.name = name;
+		this.maxNodes = maxNodes;
+		this.ttlSeconds = ttlSeconds > 0 ? ttlSeconds : DEFAULT_TTL_SECONDS;
+	}
+
+	/**
+	 * lease node id and start renewal
+	 * @param listener node id leased , called again if the lease is lost and another id is leased
+	 * @return node id
+	 */
+	public int acquire(IntConsumer listener) {
+		this.listener = listener;
+		lease();
+		renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "node-id-lease-" + name);
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(1, ttlSeconds / 3);
+		renewer.scheduleWithFixedDelay(this::renew, period, period, TimeUnit.SECONDS);
+		return nodeId;
+	}
+
+	void lease() {
+		int start = ThreadLocalRandom.current().nextInt(maxNodes);
+		try (RedisConnection conn = connectionFactory.getConnection()) {
+			for (int i = 0; i < maxNodes; i++) {
+				int candidate = (start + i) % maxNodes;
+				long leaseTime = System.currentTimeMillis();
+				String result = conn.getConn().set(key(candidate), owner, SetParams.setParams().nx().ex(ttlSeconds));
+				if (result != null) {
+					nodeId = candidate;
+					_logger.info("lease {} node id {}" , name , nodeId);
+					listener.accept(nodeId);
+					renewedTime = leaseTime;
+					return;
+				}
+			}
+		}
+		throw new IllegalStateException("no free " + name + " node id in " + maxNodes);
+	}
+
+	void renew() {
+		long renewTime = System.currentTimeMillis();
+		try (RedisConnection conn = connectionFactory.getConnection()) {
+			Object renewed = conn.getConn().eval(RENEW_SCRIPT,
+					Collections.singletonList(key(nodeId)),
+					Arrays.asList(owner, String.valueOf(ttlSeconds)));
+			if (Long.valueOf(0).equals(renewed)) {
+				_logger.warn("{} node id {} lease lost , lease again" , name , nodeId);
+				renewedTime = 0;
+				lease();
+			}else {
+				renewedTime = renewTime;
+			}
+		} catch (Exception e) {
+			_logger.error("renew {} node id {} lease error , expire at {}" , name , nodeId , getExpireTime() , e);
+		}
+	}
+
+	/**
+	 * @return time millis until the node id is leased , 0 when not leased
+	 */
+	public long getExpireTime() {
+		long renewed = renewedTime;
+		return renewed == 0 ? 0 : renewed + ttlSeconds * 1000L;
+	}
+
+	public void release() {
+		if (renewer != null) {
+			renewer.shutdownNow();
+		}
+		if (nodeId < 0) {
+			return;
+		}
+		try (RedisConnection conn = connectionFactory.getConnection()) {
+			conn.getConn().eval(RELEASE_SCRIPT,
+					Collections.singletonList(key(nodeId)),
+					Collections.singletonList(owner));
+			_logger.info("release {} node id {}" , name , nodeId);
+		} catch (Exception e) {
+			_logger.error("release {} node id {} error" , name , nodeId , e);
+		}
+	}
+
+	String key(int id) {
+		return PREFIX + name + "_" + id;
+	}
+
+	public int getNodeId() {
+		return nodeId;
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.web;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+import org.dromara.maxkey.persistence.cache.CacheRegistry;
+import org.dromara.maxkey.persistence.cache.NamedCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * rendered metadata documents , SAML metadata , OpenID configuration and JWKS , cached as bytes with strong ETag .<br>
+ * a document is rendered again when the source it was rendered from ,
+ * client details or credential , is not the same object any more ,
+ * so the document follows the invalidation of the source cache .
+ *
+ * @author Crystal.Sea
+ *
+ */
+public class MetadataDocumentCache {
+	private static final  Logger _logger = LoggerFactory.getLogger(MetadataDocumentCache.class);
+
+	public static final String CACHE_NAME = "metadata_document";
+
+	public static final String CACHE_CONTROL = "public, max-age=300";
+
+	protected static final NamedCache<Document> documentCache =
+			CacheRegistry.register(CACHE_NAME, 10000, 60);
+
+	/**
+	 * rendered document
+	 */
+	public static final class Document {
+
+		final Object source;
+
+		final byte[] content;
+
+		final String etag;
+
+		final String contentType;
+
+		Document(Object source, byte[] content, String contentType) {
+			this.source = source;
+			this.content = content;
+			this.contentType = contentType;
+			this.etag = "\"" + sha256(content) + "\"";
+		}
+
+		public byte[] getContent() {
+			return content;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+	}
+
+	private MetadataDocumentCache() {
+
+	}
+
+	/**
+	 * cached document , rendered when missing or the source changed
+	 * @param key document key , includes base url and app id
+	 * @param source object the document is rendered from , compared by identity
+	 * @param contentType content type
+	 * @param renderer render the document , null on error
+	 * @return Document , null when render error , not cached
+	 */
+	public static Document get(String key, Object source, String contentType, Supplier<String> renderer) {
+		Document document = documentCache.getIfPresent(key);
+		if(document == null || document.source != source || !document.contentType.equals(contentType)) {
+			_logger.debug("render metadata document {}", key);
+			String content = renderer.get();
+			if(content == null) {
+				return null;
+			}
+			document = new Document(source, content.getBytes(StandardCharsets.UTF_8), contentType);
+			documentCache.put(key, document);
+		}
+		return document;
+	}
+
+	/**
+	 * write document with ETag and Cache-Control , 304 when If-None-Match matches the ETag
+	 * @param request
+	 * @param response
+	 * @param document
+	 * @throws IOException
+	 */
+	public static void write(HttpServletRequest request, HttpServletResponse response, Document document) throws IOException {
+		response.setHeader("ETag", document.etag);
+		response.setHeader("Cache-Control", CACHE_CONTROL);
+		if(matches(request.getHeader("If-None-Match"), document.etag)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		response.setContentType(document.contentType);
+		response.setContentLength(document.content.length);
+		response.getOutputStream().write(document.content);
+	}
+
+	/**
+	 * @param ifNoneMatch If-None-Match header , list of ETags or *
+	 * @param etag ETag of the document
+	 * @return true if matches
+	 */
+	static boolean matches(String ifNoneMatch, String etag) {
+		if(ifNoneMatch == null || ifNoneMatch.isBlank()) {
+			return false;
+		}
+		for(String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if(tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if(tag.equals("*") || tag.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static String sha256(byte[] content) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public static void invalidateAll() {
+		documentCache.invalidateAll();
+	}
+
+	public static String metrics() {
+		return documentCache.metrics();
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+public class CacheRegistryTest {
+
+	@Test
+	public void invalidate() {
+		List<String> published = new ArrayList<>();
+		List<Consumer<String>> listeners = new ArrayList<>();
+		CacheRegistry.setInvalidationBus(new CacheInvalidationBus() {
+			@Override
+			public void publish(String message) {
+				published.add(message);
+			}
+
+			@Override
+			public void subscribe(Consumer<String> listener) {
+				listeners.add(listener);
+			}
+
+			@Override
+			public void close() {
+				listeners.clear();
+			}
+		});
+
+		NamedCache<String> cache = CacheRegistry.register("test_apps", 100, 30);
+		assertTrue(cache == CacheRegistry.<String>register("test_apps", 100, 30));
+		cache.put("1", "app1");
+		cache.put("2", "app2");
+		assertEquals("app1", cache.getIfPresent("1"));
+
+		cache.invalidate("1");
+		assertNull(cache.getIfPresent("1"));
+		assertEquals("test_apps|1", published.get(0));
+
+		//message from other node
+		listeners.get(0).accept("test_apps|2");
+		assertNull(cache.getIfPresent("2"));
+
+		cache.put("3", "app3");
+		listeners.get(0).accept("test_apps|");
+		assertNull(cache.getIfPresent("3"));
+		assertEquals(1, cache.stats().hitCount());
+
+		CacheRegistry.setInvalidationBus(null);
+	}
+
+	@Test
+	public void configure() {
+		NamedCache<String> cache = CacheRegistry.register("test_policy", 100, 60);
+		CacheRegistry.setPropertyResolver(new MockEnvironment()
+				.withProperty("maxkey.cache.test_policy.maximum-size", "10")
+				.withProperty("maxkey.cache.test_policy.expire-minutes", "120"));
+		assertEquals(10, cache.getMaximumSize());
+		assertEquals(120, cache.getExpireMinutes());
+		System.out.println(CacheRegistry.metrics());
+		CacheRegistry.setPropertyResolver(null);
+	}
+
+}
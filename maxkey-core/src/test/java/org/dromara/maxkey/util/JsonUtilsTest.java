@@ -0,0 +1,147 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.dromara.maxkey.entity.idm.Organizations;
+import org.dromara.maxkey.entity.idm.UserInfo;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+
+/**
+ * shared mapper against new mapper per call , UserInfo and Organizations
+ */
+public class JsonUtilsTest {
+
+	static final int COUNT = 20000;
+
+	static UserInfo userInfo() {
+		UserInfo userInfo = new UserInfo();
+		userInfo.setId("1714816520329596930");
+		userInfo.setUsername("zhangsan");
+		userInfo.setDisplayName("张三");
+		userInfo.setEmail("zhangsan@maxkey.top");
+		userInfo.setMobile("13800000000");
+		userInfo.setDepartment("研发部");
+		userInfo.setStatus(1);
+		userInfo.setInstId("1");
+		return userInfo;
+	}
+
+	static Organizations organization() {
+		Organizations organization = new Organizations();
+		organization.setId("1714816520329596931");
+		organization.setOrgCode("RD");
+		organization.setOrgName("研发部");
+		organization.setFullName("MaxKey/研发部");
+		organization.setParentId("1");
+		organization.setStatus(1);
+		organization.setInstId("1");
+		return organization;
+	}
+
+	@Test
+	public void stream() throws Exception {
+		UserInfo userInfo = userInfo();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		JsonUtils.toStream(userInfo, output);
+		//stream is not closed , write again
+		output.write(' ');
+		UserInfo streamed = JsonUtils.streamToObject(new ByteArrayInputStream(output.toByteArray()), UserInfo.class);
+		assertEquals(userInfo.getUsername(), streamed.getUsername());
+		assertEquals(userInfo.getDisplayName(), streamed.getDisplayName());
+
+		output.reset();
+		Organizations organization = organization();
+		JsonUtils.gsonToStream(organization, output);
+		Organizations gsonStreamed = JsonUtils.gsonStreamToObject(new ByteArrayInputStream(output.toByteArray()), Organizations.class);
+		assertEquals(organization.getFullName(), gsonStreamed.getFullName());
+		assertEquals(JsonUtils.gsonToString(organization), output.toString("UTF-8"));
+	}
+
+	@Test
+	public void throughput() throws Exception {
+		UserInfo userInfo = userInfo();
+		Organizations organization = organization();
+		String userJson = JsonUtils.toString(userInfo);
+		String orgJson = JsonUtils.gsonToString(organization);
+		//warm up
+		for (int i = 0; i < COUNT / 10; i++) {
+			new ObjectMapper().readValue(new ObjectMapper().writeValueAsString(userInfo), UserInfo.class);
+			JsonUtils.stringToObject(JsonUtils.toString(userInfo), UserInfo.class);
+			new Gson().fromJson(new Gson().toJson(organization), Organizations.class);
+			JsonUtils.gsonStringToObject(JsonUtils.gsonToString(organization), Organizations.class);
+		}
+
+		long startTime = System.nanoTime();
+		for (int i = 0; i < COUNT; i++) {
+			new ObjectMapper().writeValueAsString(userInfo);
+			new ObjectMapper().readValue(userJson, UserInfo.class);
+		}
+		long newMapperTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+		startTime = System.nanoTime();
+		for (int i = 0; i < COUNT; i++) {
+			JsonUtils.toString(userInfo);
+			JsonUtils.stringToObject(userJson, UserInfo.class);
+		}
+		long sharedMapperTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream(4096);
+		startTime = System.nanoTime();
+		for (int i = 0; i < COUNT; i++) {
+			output.reset();
+			JsonUtils.toStream(userInfo, output);
+			JsonUtils.streamToObject(new ByteArrayInputStream(output.toByteArray()), UserInfo.class);
+		}
+		long streamTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+		startTime = System.nanoTime();
+		for (int i = 0; i < COUNT; i++) {
+			new Gson().toJson(organization);
+			new Gson().fromJson(orgJson, Organizations.class);
+		}
+		long newGsonTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+		startTime = System.nanoTime();
+		for (int i = 0; i < COUNT; i++) {
+			JsonUtils.gsonToString(organization);
+			JsonUtils.gsonStringToObject(orgJson, Organizations.class);
+		}
+		long sharedGsonTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+		System.out.println("UserInfo new ObjectMapper : " + COUNT + " in " + newMapperTime + " ms , "
+				+ (COUNT * 1000L / Math.max(newMapperTime, 1)) + " ops/s");
+		System.out.println("UserInfo shared ObjectMapper : " + COUNT + " in " + sharedMapperTime + " ms , "
+				+ (COUNT * 1000L / Math.max(sharedMapperTime, 1)) + " ops/s");
+		System.out.println("UserInfo shared ObjectMapper stream : " + COUNT + " in " + streamTime + " ms , "
+				+ (COUNT * 1000L / Math.max(streamTime, 1)) + " ops/s");
+		System.out.println("Organizations new Gson : " + COUNT + " in " + newGsonTime + " ms , "
+				+ (COUNT * 1000L / Math.max(newGsonTime, 1)) + " ops/s");
+		System.out.println("Organizations shared Gson : " + COUNT + " in " + sharedGsonTime + " ms , "
+				+ (COUNT * 1000L / Math.max(sharedGsonTime, 1)) + " ops/s");
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dromara.maxkey.constants.ContentType;
+import org.dromara.maxkey.web.MetadataDocumentCache.Document;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class MetadataDocumentCacheTest {
+
+	@Test
+	public void render() throws Exception {
+		AtomicInteger renders = new AtomicInteger();
+		Object source = new Object();
+		Document document = MetadataDocumentCache.get("test:1", source, ContentType.APPLICATION_JSON_UTF8,
+				() -> "{\"render\":" + renders.incrementAndGet() + "}");
+		assertTrue(document == MetadataDocumentCache.get("test:1", source, ContentType.APPLICATION_JSON_UTF8,
+				() -> "{\"render\":" + renders.incrementAndGet() + "}"));
+		assertEquals(1, renders.get());
+
+		//source reloaded
+		Document changed = MetadataDocumentCache.get("test:1", new Object(), ContentType.APPLICATION_JSON_UTF8,
+				() -> "{\"render\":" + renders.incrementAndGet() + "}");
+		assertEquals(2, renders.get());
+		assertFalse(document.getEtag().equals(changed.getEtag()));
+
+		assertNull(MetadataDocumentCache.get("test:2", source, ContentType.APPLICATION_JSON_UTF8, () -> null));
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MetadataDocumentCache.write(new MockHttpServletRequest(), response, changed);
+		assertEquals(200, response.getStatus());
+		assertEquals("{\"render\":2}", response.getContentAsString());
+		assertEquals(changed.getEtag(), response.getHeader("ETag"));
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("If-None-Match", "\"other\", " + changed.getEtag());
+		response = new MockHttpServletResponse();
+		MetadataDocumentCache.write(request, response, changed);
+		assertEquals(304, response.getStatus());
+		assertEquals(0, response.getContentLength());
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.mapper;
+
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * run mapper statements in a MyBatis BATCH session ,
+ * consecutive statements with the same SQL are sent as one JDBC batch .
+ */
+public final class MapperBatch {
+
+	private MapperBatch() {
+
+	}
+
+	/**
+	 * @param sqlSessionFactory SqlSessionFactory
+	 * @param mapperClass mapper
+	 * @param rows rows
+	 * @param statement mapper statement for a row , insert update ...
+	 * @return affected rows
+	 */
+	public static <M, T> int execute(SqlSessionFactory sqlSessionFactory, Class<M> mapperClass,
+			Collection<T> rows, BiConsumer<M, T> statement) {
+		if(rows == null || rows.isEmpty()) {
+			return 0;
+		}
+		return execute(sqlSessionFactory, mapperClass, mapper -> {
+			for(T row : rows) {
+				statement.accept(mapper, row);
+			}
+		});
+	}
+
+	/**
+	 * run the statements in one BATCH session , committed together or not at all
+	 * @param sqlSessionFactory SqlSessionFactory
+	 * @param mapperClass mapper
+	 * @param statements mapper statements , insert update ...
+	 * @return affected rows
+	 */
+	public static <M> int execute(SqlSessionFactory sqlSessionFactory, Class<M> mapperClass,
+			Consumer<M> statements) {
+		try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+			statements.accept(sqlSession.getMapper(mapperClass));
+			int affected = 0;
+			for(BatchResult batchResult : sqlSession.flushStatements()) {
+				for(int count : batchResult.getUpdateCounts()) {
+					//driver may not report the count of a batched statement
+					affected += (count == Statement.SUCCESS_NO_INFO ? 1 : count);
+				}
+			}
+			sqlSession.commit();
+			return affected;
+		}
+	}
+}
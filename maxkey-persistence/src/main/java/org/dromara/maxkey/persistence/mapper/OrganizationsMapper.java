@@ -28,4 +28,7 @@ public interface OrganizationsMapper extends IJpaMapper<Organizations> {
 	
 	@Update("update mxk_organizations set codepath = #{codePath} , namepath = #{namePath} where id = #{id}")
 	boolean updateNamePath(Organizations organization);
+	
+	@Update("update mxk_organizations set parentname = #{parentName} , codepath = #{codePath} , namepath = #{namePath} where id = #{id}")
+	int updateTreePath(Organizations organization);
 }
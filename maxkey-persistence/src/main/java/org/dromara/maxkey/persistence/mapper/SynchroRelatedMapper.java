@@ -31,4 +31,7 @@ import org.dromara.mybatis.jpa.IJpaMapper;
 public  interface SynchroRelatedMapper extends IJpaMapper<SynchroRelated> {
 	@Update("update mxk_synchro_related set synctime = #{syncTime} where id= #{id} ")
 	public int updateSyncTime(SynchroRelated synchroRelated);
+	
+	@Update("update mxk_synchro_related set synctime = #{syncTime} , originid3 = #{originId3} where id= #{id} ")
+	public int updateSyncTimeAndOriginId3(SynchroRelated synchroRelated);
 }
@@ -20,6 +20,7 @@
  */
 package org.dromara.maxkey.persistence.mapper;
 
+import org.apache.ibatis.annotations.Update;
 import org.dromara.maxkey.entity.Synchronizers;
 import org.dromara.mybatis.jpa.IJpaMapper;
 
@@ -30,4 +31,6 @@ import org.dromara.mybatis.jpa.IJpaMapper;
 
 public  interface SynchronizersMapper extends IJpaMapper<Synchronizers> {
 	
+	@Update("update mxk_synchronizers set syncwatermark = #{syncWatermark} where id = #{id}")
+	public int updateSyncWatermark(Synchronizers synchronizer);
 }
@@ -18,7 +18,9 @@
 package org.dromara.maxkey.persistence.mapper;
 
 import java.util.List;
+import java.util.Map;
 
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 import org.dromara.maxkey.constants.ConstsStatus;
@@ -45,6 +47,18 @@ public interface UserInfoMapper  extends IJpaMapper<UserInfo>{
 	 
 	public List<Organizations> findDeptsByUserId(String userId);
 	
+	/**
+	 * departments of users , rows of userid , departmentid and isprimary , labels are aliased for the map keys
+	 */
+	@Select({"<script>",
+		"select id userid , departmentid departmentid , 1 isprimary from mxk_userinfo where departmentid is not null and id in ",
+		"<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>",
+		" union all ",
+		"select userid userid , departmentid departmentid , 0 isprimary from mxk_userinfo_adjunct where userid in ",
+		"<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>",
+		"</script>"})
+	public List<Map<String, Object>> findDeptIdsByUserIds(@Param("userIds") List<String> userIds);
+	
 	public void updateLocked(UserInfo userInfo);
 
 	public void updateLockout(UserInfo userInfo);
@@ -0,0 +1,259 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.dromara.maxkey.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * retention of the history tables<br>
+ * rows older than the retention days of the table are selected in chunks by the time column ,
+ * appended to a gzip JSON lines archive file when archive is enabled , then deleted by id ,
+ * a run deletes at most maxChunks chunks of every table , the rest is deleted by the next runs .<br>
+ * dashboard login reports read the login rollups , so purging the login history keeps the report counts .<br>
+ * tables are kept until the retention days are configured .
+ */
+public class HistoryRetentionRepository {
+    private static final Logger logger = LoggerFactory.getLogger(HistoryRetentionRepository.class);
+
+    public static final int DEFAULT_CHUNK_SIZE  = 1000;
+
+    public static final int DEFAULT_MAX_CHUNKS  = 500;
+
+    private static final String SELECT_STATEMENT = "select %s from %s where %s < ?%s";
+
+    private static final String DELETE_STATEMENT = "delete from %s where id = ?";
+
+    private static final DateTimeFormatter ARCHIVE_DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    protected JdbcTemplate jdbcTemplate;
+
+    protected List<Policy> policies = new ArrayList<>();
+
+    protected int chunkSize;
+
+    protected int maxChunks;
+
+    /**
+     * archive directory , no archive when empty
+     */
+    protected String archivePath;
+
+    public HistoryRetentionRepository(JdbcTemplate jdbcTemplate, int chunkSize, int maxChunks, String archivePath) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+        this.maxChunks = maxChunks > 0 ? maxChunks : DEFAULT_MAX_CHUNKS;
+        this.archivePath = archivePath;
+    }
+
+    /**
+     * add table policy , not retained when retentionDays is 0 or less
+     * @param table history table
+     * @param timeColumn time column of the rows
+     * @param retentionDays days the rows are kept
+     * @return this
+     */
+    public HistoryRetentionRepository addPolicy(String table, String timeColumn, int retentionDays) {
+        return addPolicy(table, timeColumn, retentionDays, null);
+    }
+
+    /**
+     * add table policy , not retained when retentionDays is 0 or less
+     * @param table history table
+     * @param timeColumn time column of the rows
+     * @param retentionDays days the rows are kept
+     * @param condition rows which can be purged , like connected &lt;&gt; 0 , all rows when empty
+     * @return this
+     */
+    public HistoryRetentionRepository addPolicy(String table, String timeColumn, int retentionDays, String condition) {
+        if(retentionDays > 0) {
+            policies.add(new Policy(table, timeColumn, retentionDays, condition));
+        }else {
+            logger.info("retention of {} disabled" , table);
+        }
+        return this;
+    }
+
+    /**
+     * purge all tables , error of a table not stop the other tables
+     * @return rows deleted
+     */
+    public long purge() {
+        long deleted = 0;
+        for(Policy policy : policies) {
+            try {
+                deleted += purge(policy);
+            }catch(Exception e) {
+                logger.error("purge {} error" , policy.table , e);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * purge rows of the table older than the retention days
+     * @param policy table policy
+     * @return rows deleted
+     * @throws IOException archive error , the chunk is not deleted
+     */
+    public long purge(Policy policy) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Timestamp cutoff = Timestamp.valueOf(LocalDate.now().minusDays(policy.retentionDays).atStartOfDay());
+        //the archive needs the full rows , the delete needs the id only
+        String selectStatement = String.format(SELECT_STATEMENT,
+                isArchive() ? "*" : "id",
+                policy.table,
+                policy.timeColumn,
+                StringUtils.isBlank(policy.condition) ? "" : " and " + policy.condition);
+        String deleteStatement = String.format(DELETE_STATEMENT, policy.table);
+        long deleted = 0;
+        for(int chunk = 0; chunk < maxChunks; chunk++) {
+            List<Map<String, Object>> rows = jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(selectStatement);
+                    ps.setMaxRows(chunkSize);
+                    ps.setFetchSize(chunkSize);
+                    ps.setTimestamp(1, cutoff);
+                    return ps;
+                }, new ColumnMapRowMapper());
+            if(rows.isEmpty()) {
+                break;
+            }
+            if(isArchive()) {
+                archive(policy, rows);
+                policy.archived.addAndGet(rows.size());
+            }
+            List<Object[]> ids = new ArrayList<>(rows.size());
+            for(Map<String, Object> row : rows) {
+                ids.add(new Object[] {row.get("id")});
+            }
+            jdbcTemplate.batchUpdate(deleteStatement, ids);
+            deleted += rows.size();
+            if(rows.size() < chunkSize) {
+                break;
+            }
+        }
+        long elapsed = System.currentTimeMillis() - startTime;
+        policy.deleted.addAndGet(deleted);
+        policy.elapsed.addAndGet(elapsed);
+        policy.runs.incrementAndGet();
+        logger.info("purge {} before {} , deleted {} in {} ms" , policy.table , cutoff , deleted , elapsed);
+        return deleted;
+    }
+
+    /**
+     * append rows to archivePath/table-yyyyMMdd.jsonl.gz ,
+     * every chunk is a gzip member of the file , read by gunzip or zcat as one file
+     */
+    void archive(Policy policy, List<Map<String, Object>> rows) throws IOException {
+        File directory = new File(archivePath);
+        if(!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("can not create archive directory " + archivePath);
+        }
+        File archiveFile = new File(directory,
+                policy.table + "-" + LocalDateTime.now().format(ARCHIVE_DAY_FORMAT) + ".jsonl.gz");
+        try (OutputStream out = new GZIPOutputStream(
+                new BufferedOutputStream(new FileOutputStream(archiveFile, true)))) {
+            for(Map<String, Object> row : rows) {
+                JsonUtils.toStream(row, out);
+                out.write('\n');
+            }
+        }
+    }
+
+    public boolean isArchive() {
+        return StringUtils.isNotBlank(archivePath);
+    }
+
+    public List<Policy> getPolicies() {
+        return policies;
+    }
+
+    public String metrics() {
+        StringBuilder metrics = new StringBuilder();
+        for(Policy policy : policies) {
+            long elapsed = policy.elapsed.get();
+            metrics.append(String.format(
+                    "%s retention %d days , runs %d , deleted %d , archived %d , elapsed %d ms , %d rows/s%n",
+                    policy.table, policy.retentionDays, policy.runs.get(), policy.deleted.get(),
+                    policy.archived.get(), elapsed, elapsed > 0 ? policy.deleted.get() * 1000 / elapsed : 0));
+        }
+        return metrics.toString();
+    }
+
+    /**
+     * retention policy and throughput of a table
+     */
+    public static final class Policy {
+
+        final String table;
+
+        final String timeColumn;
+
+        final int retentionDays;
+
+        final String condition;
+
+        final AtomicLong runs = new AtomicLong();
+
+        final AtomicLong deleted = new AtomicLong();
+
+        final AtomicLong archived = new AtomicLong();
+
+        final AtomicLong elapsed = new AtomicLong();
+
+        Policy(String table, String timeColumn, int retentionDays, String condition) {
+            this.table = table;
+            this.timeColumn = timeColumn;
+            this.retentionDays = retentionDays;
+            this.condition = condition;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public int getRetentionDays() {
+            return retentionDays;
+        }
+
+        public long getDeleted() {
+            return deleted.get();
+        }
+    }
+
+}
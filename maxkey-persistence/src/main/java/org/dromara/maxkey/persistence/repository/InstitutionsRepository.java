@@ -21,18 +21,16 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.ObjectUtils;
 import org.dromara.maxkey.entity.Institutions;
+import org.dromara.maxkey.persistence.cache.CacheRegistry;
+import org.dromara.maxkey.persistence.cache.NamedCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-
 public class InstitutionsRepository {
     static final Logger _logger = LoggerFactory.getLogger(InstitutionsRepository.class);
 
@@ -41,10 +39,10 @@ public class InstitutionsRepository {
 
     private static final String DEFAULT_INSTID = "1";
 
-    protected static final Cache<String, Institutions> institutionsStore =
-            Caffeine.newBuilder()
-                	.expireAfterWrite(60, TimeUnit.MINUTES)
-                	.build();
+    public static final String CACHE_NAME = "institutions";
+
+    protected static final NamedCache<Institutions> institutionsStore =
+            CacheRegistry.register(CACHE_NAME, 10000, 60);
 
     //id domain mapping
     protected static final  ConcurrentHashMap<String,String> mapper = new ConcurrentHashMap<>();
@@ -85,6 +83,13 @@ public class InstitutionsRepository {
         return inst;
     }
 
+    /**
+     * invalidate institutions on all nodes , keyed by domain so all are dropped
+     */
+    public static void invalidate() {
+        institutionsStore.invalidateAll();
+    }
+
     public class InstitutionsRowMapper implements RowMapper<Institutions> {
         @Override
         public Institutions mapRow(ResultSet rs, int rowNum) throws SQLException {
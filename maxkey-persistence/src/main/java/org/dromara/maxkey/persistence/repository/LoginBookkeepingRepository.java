@@ -0,0 +1,531 @@
+/*
+ * Copyright [2020] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.repository;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.dromara.maxkey.constants.ConstsStatus;
+import org.dromara.maxkey.entity.idm.UserInfo;
+import org.dromara.maxkey.persistence.redis.RedisConnection;
+import org.dromara.maxkey.persistence.redis.RedisConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * login bookkeeping writer<br>
+ * last login and bad password count of mxk_userinfo are coalesced per user in memory
+ * and flushed by one daemon thread with JDBC batch update every flushInterval millis ,
+ * last login and bad password count are separate batches , only the rows of the failed batch
+ * are merged back and retried up to MAX_RETRIES flushes , so a login count is never added twice .<br>
+ * lock , unlock and the reset of lockout are written at once , a bad password count is not written
+ * over an unlock which happened after the bad password , so an administrator unlock on another node wins .<br>
+ * when redis is available the bad password count is an atomic redis counter expired after the lockout duration ,
+ * so every node takes the same lockout decision before the rows are flushed .
+ */
+public class LoginBookkeepingRepository {
+    private static Logger logger = LoggerFactory.getLogger(LoginBookkeepingRepository.class);
+
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+    public static final int DEFAULT_BATCH_SIZE      = 200;
+
+    /**
+     * bad password counter expire minutes when the password policy is not known
+     */
+    public static final int DEFAULT_LOCKOUT_MINUTES = 30;
+
+    /**
+     * flushes of a failed row before it is dropped
+     */
+    public static final int MAX_RETRIES             = 3;
+
+    public static final String BAD_PASSWORD_COUNT_KEY_PREFIX = "MXK_BAD_PASSWORD_COUNT_";
+
+    public static final String BAD_PASSWORD_TIME_KEY_PREFIX = "MXK_BAD_PASSWORD_TIME_";
+
+    private static final String LAST_LOGIN_UPDATE_STATEMENT = "update mxk_userinfo set lastlogintime = ?  , lastloginip = ? , logincount = logincount + ?, online = "
+            + UserInfo.ONLINE.ONLINE + "  where id = ?";
+
+    /**
+     * skipped when the user is unlocked after the bad password
+     */
+    private static final String BADPASSWORDCOUNT_UPDATE_STATEMENT = "update mxk_userinfo set badpasswordcount = ? , badpasswordtime = ?  where id = ?"
+            + " and (islocked = " + ConstsStatus.LOCK + " or unlocktime is null or unlocktime <= ?)";
+
+    private static final String LOCK_UPDATE_STATEMENT = "update mxk_userinfo set islocked = ?  , unlocktime = ? where id = ?";
+
+    private static final String LOCKOUT_RESET_UPDATE_STATEMENT = "update mxk_userinfo set badpasswordcount = 0 , islocked = ? , unlocktime = ? where id = ?";
+
+    protected JdbcTemplate jdbcTemplate;
+
+    protected RedisConnectionFactory redisConnFactory;
+
+    final ConcurrentHashMap<String, Pending> pendings = new ConcurrentHashMap<>();
+
+    long flushInterval;
+
+    int batchSize;
+
+    volatile boolean running = true;
+
+    Thread writerThread;
+
+    final ReentrantLock lock = new ReentrantLock();
+
+    final Condition flushCondition = lock.newCondition();
+
+    final AtomicLong updateCount    = new AtomicLong();
+
+    final AtomicLong writtenCount   = new AtomicLong();
+
+    final AtomicLong failedCount    = new AtomicLong();
+
+    final AtomicLong droppedCount   = new AtomicLong();
+
+    final AtomicLong batchCount     = new AtomicLong();
+
+    public LoginBookkeepingRepository(JdbcTemplate jdbcTemplate,RedisConnectionFactory redisConnFactory) {
+        this(jdbcTemplate, redisConnFactory, DEFAULT_FLUSH_INTERVAL, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param jdbcTemplate
+     * @param redisConnFactory null for a single node
+     * @param flushInterval
+     * @param batchSize
+     */
+    public LoginBookkeepingRepository(JdbcTemplate jdbcTemplate,RedisConnectionFactory redisConnFactory,
+            long flushInterval,int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisConnFactory = redisConnFactory;
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+        this.writerThread = new Thread(new BookkeepingWriter(),"login-bookkeeping-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public void updateLastLogin(UserInfo userInfo) {
+        update(userInfo.getId(), pending -> {
+            pending.lastLoginTime = userInfo.getLastLoginTime();
+            pending.lastLoginIp = userInfo.getLastLoginIp();
+            pending.loginCount ++;
+        });
+    }
+
+    /**
+     * plus bad password count , atomic in redis
+     * @param userInfo
+     * @param lockoutMinutes counter expired after the lockout duration
+     * @return bad password count
+     */
+    public int plusBadPasswordCount(UserInfo userInfo,int lockoutMinutes) {
+        int badPasswordCount = userInfo.getBadPasswordCount() + 1;
+        if(lockoutMinutes <= 0) {
+            lockoutMinutes = DEFAULT_LOCKOUT_MINUTES;
+        }
+        if(redisConnFactory != null) {
+            String key = BAD_PASSWORD_COUNT_KEY_PREFIX + userInfo.getId();
+            long expireSeconds = lockoutMinutes * 60L;
+            String badPasswordTime = String.valueOf(System.currentTimeMillis());
+            try (RedisConnection conn = redisConnFactory.getConnection()) {
+                List<Object> results = conn.pipelined(pipeline -> {
+                    pipeline.incr(key);
+                    pipeline.expire(key, expireSeconds);
+                    pipeline.setex(BAD_PASSWORD_TIME_KEY_PREFIX + userInfo.getId(), expireSeconds, badPasswordTime);
+                });
+                //the db row may not be flushed yet , take the larger one
+                badPasswordCount = Math.max(badPasswordCount, ((Long) results.get(0)).intValue());
+            } catch (Exception e) {
+                logger.error("incr {} error" , key , e);
+            }
+        }
+        Date badPasswordTime = new Date();
+        int count = badPasswordCount;
+        update(userInfo.getId(), pending -> {
+            pending.badPasswordCount = count;
+            pending.badPasswordTime = badPasswordTime;
+        });
+        userInfo.setBadPasswordCount(badPasswordCount);
+        userInfo.setBadPasswordTime(badPasswordTime);
+        return badPasswordCount;
+    }
+
+    public void resetBadPasswordCount(UserInfo userInfo) {
+        removeBadPasswordCounter(userInfo.getId());
+        Date badPasswordTime = new Date();
+        update(userInfo.getId(), pending -> {
+            pending.badPasswordCount = 0;
+            pending.badPasswordTime = badPasswordTime;
+        });
+        userInfo.setBadPasswordCount(0);
+    }
+
+    /**
+     * lock or unlock , written at once so every node and the administrator see the same state
+     * @param userInfo
+     * @param isLocked
+     */
+    public void updateLock(UserInfo userInfo,int isLocked) {
+        if(StringUtils.isEmpty(userInfo.getId())) {
+            return;
+        }
+        Date unlockTime = new Date();
+        jdbcTemplate.update(LOCK_UPDATE_STATEMENT,
+                new Object[] { isLocked , unlockTime , userInfo.getId() },
+                new int[] { Types.INTEGER, Types.TIMESTAMP, Types.VARCHAR });
+        userInfo.setIsLocked(isLocked);
+        userInfo.setUnLockTime(unlockTime);
+    }
+
+    /**
+     * reset bad password count and unlock at once , used when the lockout duration is over ,
+     * the pending bad password count is dropped , a queued reset would be older than the unlock and skipped
+     * @param userInfo
+     */
+    public void resetLockout(UserInfo userInfo) {
+        if(StringUtils.isEmpty(userInfo.getId())) {
+            return;
+        }
+        discard(userInfo.getId());
+        Date unlockTime = new Date();
+        jdbcTemplate.update(LOCKOUT_RESET_UPDATE_STATEMENT,
+                new Object[] { ConstsStatus.ACTIVE , unlockTime , userInfo.getId() },
+                new int[] { Types.INTEGER, Types.TIMESTAMP, Types.VARCHAR });
+        userInfo.setBadPasswordCount(0);
+        userInfo.setIsLocked(ConstsStatus.ACTIVE);
+        userInfo.setUnLockTime(unlockTime);
+    }
+
+    /**
+     * drop the redis counter and pending bad password count , used when the user is unlocked by administrator ,
+     * the pending rows of other nodes are older than the unlock and not written
+     * @param userId
+     */
+    public void discard(String userId) {
+        removeBadPasswordCounter(userId);
+        pendings.computeIfPresent(userId, (key , pending) -> {
+            pending.badPasswordCount = null;
+            pending.badPasswordTime = null;
+            return pending.isEmpty() ? null : pending;
+        });
+    }
+
+    /**
+     * overlay not yet flushed values and the redis counter on the loaded user
+     * @param userInfo
+     */
+    public void apply(UserInfo userInfo) {
+        if(userInfo == null || StringUtils.isEmpty(userInfo.getId())) {
+            return;
+        }
+        pendings.computeIfPresent(userInfo.getId(), (key , pending) -> {
+            pending.applyTo(userInfo);
+            return pending;
+        });
+        if(redisConnFactory != null) {
+            try (RedisConnection conn = redisConnFactory.getConnection()) {
+                List<Object> results = conn.pipelined(pipeline -> {
+                    pipeline.get(BAD_PASSWORD_COUNT_KEY_PREFIX + userInfo.getId());
+                    pipeline.get(BAD_PASSWORD_TIME_KEY_PREFIX + userInfo.getId());
+                });
+                String count = (String) results.get(0);
+                String time = (String) results.get(1);
+                if(count != null && Integer.parseInt(count) > userInfo.getBadPasswordCount()) {
+                    userInfo.setBadPasswordCount(Integer.parseInt(count));
+                    //the time of the last bad password on any node , not the stale one of the db row
+                    userInfo.setBadPasswordTime(time != null ? new Date(Long.parseLong(time)) : new Date());
+                }
+            } catch (Exception e) {
+                logger.error("get bad password count of {} error" , userInfo.getId() , e);
+            }
+        }
+    }
+
+    void removeBadPasswordCounter(String userId) {
+        if(redisConnFactory != null) {
+            try (RedisConnection conn = redisConnFactory.getConnection()) {
+                conn.delete(BAD_PASSWORD_COUNT_KEY_PREFIX + userId , BAD_PASSWORD_TIME_KEY_PREFIX + userId);
+            } catch (Exception e) {
+                logger.error("delete bad password count of {} error" , userId , e);
+            }
+        }
+    }
+
+    void update(String userId,Consumer<Pending> updater) {
+        if(StringUtils.isEmpty(userId)) {
+            return;
+        }
+        updateCount.incrementAndGet();
+        pendings.compute(userId, (key , pending) -> {
+            if(pending == null) {
+                pending = new Pending(key);
+            }
+            updater.accept(pending);
+            return pending;
+        });
+        if(!running) {
+            flush();
+        }
+    }
+
+    /**
+     * write all pending updates
+     */
+    public void flush() {
+        List<Pending> snapshot = new ArrayList<>(pendings.size());
+        for(String userId : pendings.keySet()) {
+            Pending pending = pendings.remove(userId);
+            if(pending != null) {
+                snapshot.add(pending);
+            }
+        }
+        for(int from = 0; from < snapshot.size(); from += batchSize) {
+            write(snapshot.subList(from, Math.min(from + batchSize, snapshot.size())));
+        }
+    }
+
+    void write(List<Pending> batch) {
+        List<Object[]> lastLoginArgs = new ArrayList<>();
+        List<Object[]> badPasswordArgs = new ArrayList<>();
+        for(Pending pending : batch) {
+            if(pending.loginCount > 0) {
+                lastLoginArgs.add(new Object[] {pending.lastLoginTime , pending.lastLoginIp , pending.loginCount , pending.userId});
+            }
+            if(pending.badPasswordCount != null) {
+                badPasswordArgs.add(new Object[] {pending.badPasswordCount , pending.badPasswordTime , pending.userId , pending.badPasswordTime});
+            }
+        }
+        if(!lastLoginArgs.isEmpty()) {
+            try {
+                jdbcTemplate.batchUpdate(LAST_LOGIN_UPDATE_STATEMENT, lastLoginArgs,
+                        new int[] { Types.TIMESTAMP, Types.VARCHAR, Types.INTEGER, Types.VARCHAR });
+                written(lastLoginArgs.size());
+            }catch(Exception e) {
+                failed("last login", lastLoginArgs.size(), e);
+                for(Pending pending : batch) {
+                    if(pending.loginCount > 0) {
+                        retry(pending.lastLogin());
+                    }
+                }
+            }
+        }
+        if(!badPasswordArgs.isEmpty()) {
+            try {
+                jdbcTemplate.batchUpdate(BADPASSWORDCOUNT_UPDATE_STATEMENT, badPasswordArgs,
+                        new int[] { Types.INTEGER, Types.TIMESTAMP, Types.VARCHAR, Types.TIMESTAMP });
+                written(badPasswordArgs.size());
+            }catch(Exception e) {
+                failed("bad password", badPasswordArgs.size(), e);
+                for(Pending pending : batch) {
+                    if(pending.badPasswordCount != null) {
+                        retry(pending.badPassword());
+                    }
+                }
+            }
+        }
+    }
+
+    void written(int rows) {
+        writtenCount.addAndGet(rows);
+        batchCount.incrementAndGet();
+    }
+
+    void failed(String statement, int rows, Exception e) {
+        failedCount.addAndGet(rows);
+        logger.error("write {} batch of {} error , retry" , statement , rows , e);
+    }
+
+    /**
+     * merge the failed row back under the updates made since the snapshot
+     */
+    void retry(Pending failed) {
+        if(++failed.retries > MAX_RETRIES) {
+            droppedCount.incrementAndGet();
+            logger.error("drop login bookkeeping of user {} after {} retries" , failed.userId , MAX_RETRIES);
+            return;
+        }
+        pendings.merge(failed.userId, failed, (newer , older) -> {
+            newer.mergeOlder(older);
+            return newer;
+        });
+    }
+
+    /**
+     * stop the writer and flush the rest
+     */
+    public void shutdown() {
+        logger.info("shutdown login bookkeeping writer , pending {}" , pendings.size());
+        running = false;
+        lock.lock();
+        try {
+            flushCondition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writerThread.join(flushInterval * 10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        logger.info("login bookkeeping writer stopped , {}" , metrics());
+    }
+
+    public String metrics() {
+        return String.format("pending %d , updates %d , written %d , failed %d , dropped %d , batches %d",
+                pendings.size(),
+                updateCount.get(),
+                writtenCount.get(),
+                failedCount.get(),
+                droppedCount.get(),
+                batchCount.get());
+    }
+
+    public int getPendingSize() {
+        return pendings.size();
+    }
+
+    public long getUpdateCount() {
+        return updateCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * coalesced updates of one user , only mutated inside ConcurrentHashMap compute
+     */
+    static class Pending {
+        final String userId;
+
+        Date lastLoginTime;
+
+        String lastLoginIp;
+
+        int loginCount;
+
+        Integer badPasswordCount;
+
+        Date badPasswordTime;
+
+        int retries;
+
+        Pending(String userId) {
+            this.userId = userId;
+        }
+
+        boolean isEmpty() {
+            return loginCount == 0 && badPasswordCount == null;
+        }
+
+        /**
+         * last login part , retried without the bad password count
+         */
+        Pending lastLogin() {
+            Pending part = new Pending(userId);
+            part.lastLoginTime = lastLoginTime;
+            part.lastLoginIp = lastLoginIp;
+            part.loginCount = loginCount;
+            part.retries = retries;
+            return part;
+        }
+
+        /**
+         * bad password part , retried without the login count
+         */
+        Pending badPassword() {
+            Pending part = new Pending(userId);
+            part.badPasswordCount = badPasswordCount;
+            part.badPasswordTime = badPasswordTime;
+            part.retries = retries;
+            return part;
+        }
+
+        /**
+         * keep the newer values , add the login count of the older
+         */
+        void mergeOlder(Pending older) {
+            if(older.loginCount > 0) {
+                if(loginCount == 0) {
+                    lastLoginTime = older.lastLoginTime;
+                    lastLoginIp = older.lastLoginIp;
+                }
+                loginCount += older.loginCount;
+            }
+            if(badPasswordCount == null) {
+                badPasswordCount = older.badPasswordCount;
+                badPasswordTime = older.badPasswordTime;
+            }
+            retries = Math.max(retries, older.retries);
+        }
+
+        void applyTo(UserInfo userInfo) {
+            if(loginCount > 0) {
+                userInfo.setLoginCount(userInfo.getLoginCount() + loginCount);
+            }
+            if(badPasswordCount != null) {
+                userInfo.setBadPasswordCount(badPasswordCount);
+                userInfo.setBadPasswordTime(badPasswordTime);
+            }
+        }
+    }
+
+    class BookkeepingWriter implements Runnable{
+
+        @Override
+        public void run() {
+            while(running) {
+                lock.lock();
+                try {
+                    flushCondition.await(flushInterval, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    logger.debug("login bookkeeping writer interrupted");
+                    running = false;
+                } finally {
+                    lock.unlock();
+                }
+                flush();
+            }
+        }
+    }
+}
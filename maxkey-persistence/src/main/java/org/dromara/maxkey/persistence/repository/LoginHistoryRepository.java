@@ -18,6 +18,13 @@
 package org.dromara.maxkey.persistence.repository;
 
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.dromara.maxkey.entity.history.HistoryLogin;
 import org.dromara.maxkey.web.WebContext;
@@ -25,9 +32,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+/**
+ * login history writer<br>
+ * login history is offered to a bounded queue and written by one daemon thread 
+ * with JDBC batch insert , flushed when batchSize rows are queued or flushInterval is reached .<br>
+ * when the queue is full the request thread waits at most offerTimeout millis , then the row is dropped and counted .<br>
+ * written batches are added to the dashboard rollups by LoginRollupRepository .
+ */
 public class LoginHistoryRepository {
     private static Logger logger = LoggerFactory.getLogger(LoginHistoryRepository.class);
     
+    public static final int DEFAULT_CAPACITY        = 10000;
+    
+    public static final int DEFAULT_BATCH_SIZE      = 200;
+    
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+    
+    public static final long DEFAULT_OFFER_TIMEOUT  = 50;
+    
     private static final String HISTORY_LOGIN_INSERT_STATEMENT = """
             insert into mxk_history_login 
                 (   id , 
@@ -52,82 +74,241 @@ public class LoginHistoryRepository {
                     instid)
                 values( ? , ? , ? , ? , ? , ? , ? , ? , ?, ? , ? , ? , ?, ?, ? , ? , ?, ? , ? , ?)
     		""";
+    
+    private static final int [] HISTORY_LOGIN_INSERT_TYPES = new int[] { 
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.VARCHAR,
+            Types.INTEGER,
+            Types.VARCHAR
+            };
 
     protected JdbcTemplate jdbcTemplate;
     
+    LoginRollupRepository loginRollupRepository;
+    
+    BlockingQueue<HistoryLogin> queue;
+    
+    int batchSize;
+    
+    long flushInterval;
+    
+    long offerTimeout;
+    
+    volatile boolean running = true;
+    
+    Thread writerThread;
+    
+    final AtomicLong offeredCount = new AtomicLong();
+    
+    final AtomicLong writtenCount = new AtomicLong();
+    
+    final AtomicLong droppedCount = new AtomicLong();
+    
+    final AtomicLong failedCount  = new AtomicLong();
+    
+    final AtomicLong batchCount   = new AtomicLong();
+    
     public LoginHistoryRepository(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL, DEFAULT_OFFER_TIMEOUT);
+    }
+    
+    public LoginHistoryRepository(JdbcTemplate jdbcTemplate,int capacity,int batchSize,long flushInterval,long offerTimeout) {
         this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+        this.writerThread = new Thread(new HistoryLoginWriter(),"login-history-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
     }
         
     public void login(HistoryLogin historyLogin) {
         historyLogin.setId(WebContext.genId());
         historyLogin.setLoginUrl(WebContext.getRequest().getRequestURI());
-        //Thread insert 
-        new Thread(new HistoryLoginRunnable(jdbcTemplate,historyLogin)).start();
-    }
-    
-	public class HistoryLoginRunnable implements Runnable{
-		
-		JdbcTemplate jdbcTemplate;
-		
-		HistoryLogin historyLogin;
-		
-		public HistoryLoginRunnable(JdbcTemplate jdbcTemplate, HistoryLogin historyLogin) {
-			super();
-			this.jdbcTemplate = jdbcTemplate;
-			this.historyLogin = historyLogin;
-		}
+        if(historyLogin.getLoginTime() == null) {
+            historyLogin.setLoginTime(new Date());
+        }
+        offer(historyLogin);
+    }
+    
+    /**
+     * offer to the writer queue , wait offerTimeout millis when the queue is full
+     * @param historyLogin
+     * @return false if dropped
+     */
+    public boolean offer(HistoryLogin historyLogin) {
+        offeredCount.incrementAndGet();
+        try {
+            if(running && queue.offer(historyLogin, offerTimeout, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long dropped = droppedCount.incrementAndGet();
+        logger.warn("History Login queue is full , dropped {} , total dropped {}" , historyLogin.getId() , dropped);
+        return false;
+    }
+    
+    /**
+     * stop accept history , drain the queue and wait for the writer
+     */
+    public void shutdown() {
+        logger.info("shutdown History Login writer , queued {}" , queue.size());
+        running = false;
+        try {
+            writerThread.join(flushInterval * 10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        //write the rest if the writer had not finished
+        List<HistoryLogin> batch = new ArrayList<>();
+        while(queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+        logger.info("History Login writer stopped , {}" , metrics());
+    }
+    
+    void write(List<HistoryLogin> batch) {
+        try {
+            List<Object[]> batchArgs = new ArrayList<>(batch.size());
+            for(HistoryLogin historyLogin : batch) {
+                logger.debug("History Login {}" , historyLogin);
+                batchArgs.add(new Object[] { 
+                        historyLogin.getId(),
+                        historyLogin.getSessionId(),
+                        historyLogin.getUserId(),
+                        historyLogin.getUsername(),
+                        historyLogin.getDisplayName(),
+                        historyLogin.getLoginType(),
+                        historyLogin.getMessage(),
+                        historyLogin.getCode(),
+                        historyLogin.getProvider(),
+                        historyLogin.getSourceIp(),
+                        historyLogin.getCountry(),
+                        historyLogin.getProvince(),
+                        historyLogin.getCity(),
+                        historyLogin.getLocation(),
+                        historyLogin.getBrowser(),
+                        historyLogin.getPlatform(),
+                        "Browser",
+                        historyLogin.getLoginUrl(),
+                        historyLogin.getSessionStatus(),
+                        historyLogin.getInstId()
+                        });
+            }
+            jdbcTemplate.batchUpdate(HISTORY_LOGIN_INSERT_STATEMENT, batchArgs, HISTORY_LOGIN_INSERT_TYPES);
+            writtenCount.addAndGet(batch.size());
+            batchCount.incrementAndGet();
+        }catch(Exception e) {
+            failedCount.addAndGet(batch.size());
+            logger.error("write History Login batch of {} error" , batch.size() , e);
+            return;
+        }
+        rollup(batch);
+    }
+    
+    void rollup(List<HistoryLogin> batch) {
+        if(loginRollupRepository != null) {
+            try {
+                loginRollupRepository.rollupLogins(batch);
+            }catch(Exception e) {
+                logger.error("rollup History Login batch of {} error" , batch.size() , e);
+            }
+        }
+    }
+    
+    public void setLoginRollupRepository(LoginRollupRepository loginRollupRepository) {
+        this.loginRollupRepository = loginRollupRepository;
+    }
+    
+    public String metrics() {
+        return String.format("queued %d , offered %d , written %d , dropped %d , failed %d , batches %d", 
+                queue.size(),
+                offeredCount.get(),
+                writtenCount.get(),
+                droppedCount.get(),
+                failedCount.get(),
+                batchCount.get());
+    }
+    
+    public int getQueueSize() {
+        return queue.size();
+    }
+    
+    public long getOfferedCount() {
+        return offeredCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
 
-		@Override
-	    public void run() {
-			logger.debug("History Login {}" , historyLogin);
-			
-	        jdbcTemplate.update(HISTORY_LOGIN_INSERT_STATEMENT,
-	                new Object[] { 
-	                        historyLogin.getId(),
-	                        historyLogin.getSessionId(),
-	                        historyLogin.getUserId(),
-	                        historyLogin.getUsername(),
-	                        historyLogin.getDisplayName(),
-	                        historyLogin.getLoginType(),
-	                        historyLogin.getMessage(),
-	                        historyLogin.getCode(),
-	                        historyLogin.getProvider(),
-	                        historyLogin.getSourceIp(),
-	                        historyLogin.getCountry(),
-	                        historyLogin.getProvince(),
-	                        historyLogin.getCity(),
-	                        historyLogin.getLocation(),
-	                        historyLogin.getBrowser(),
-	                        historyLogin.getPlatform(),
-	                        "Browser",
-	                        historyLogin.getLoginUrl(),
-	                        historyLogin.getSessionStatus(),
-	                        historyLogin.getInstId()
-	                        },
-	                new int[] { 
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.VARCHAR,
-	                        Types.INTEGER,
-	                        Types.VARCHAR
-	                        });
-		}
-	}
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    class HistoryLoginWriter implements Runnable{
+
+        @Override
+        public void run() {
+            List<HistoryLogin> batch = new ArrayList<>(batchSize);
+            while(running) {
+                try {
+                    long deadline = System.currentTimeMillis() + flushInterval;
+                    while(batch.size() < batchSize) {
+                        long wait = deadline - System.currentTimeMillis();
+                        if(wait <= 0) {
+                            break;
+                        }
+                        HistoryLogin historyLogin = queue.poll(wait, TimeUnit.MILLISECONDS);
+                        if(historyLogin == null) {
+                            break;
+                        }
+                        batch.add(historyLogin);
+                        queue.drainTo(batch, batchSize - batch.size());
+                    }
+                } catch (InterruptedException e) {
+                    logger.debug("History Login writer interrupted");
+                    running = false;
+                }
+                if(!batch.isEmpty()) {
+                    write(batch);
+                    batch.clear();
+                }
+            }
+            //drain on shutdown
+            while(queue.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
     
 }
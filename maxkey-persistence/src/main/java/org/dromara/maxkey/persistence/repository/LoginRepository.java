@@ -23,6 +23,7 @@ import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.TreeSet;
 
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -30,6 +31,8 @@ import org.dromara.maxkey.constants.ConstsRoles;
 import org.dromara.maxkey.constants.ConstsStatus;
 import org.dromara.maxkey.entity.idm.Groups;
 import org.dromara.maxkey.entity.idm.UserInfo;
+import org.dromara.maxkey.persistence.cache.CacheRegistry;
+import org.dromara.maxkey.persistence.cache.NamedCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -55,16 +58,67 @@ public class LoginRepository {
 
     private static final String GROUPS_SELECT_STATEMENT = "select distinct g.id,g.groupcode,g.groupname from mxk_userinfo u,mxk_groups g,mxk_group_member gm where u.id = ?  and u.id=gm.memberid and gm.groupid=g.id ";
 
-    private static final String DEFAULT_USERINFO_SELECT_STATEMENT = "select * from  mxk_userinfo where username = ? ";
+    /**
+     * columns needed to verify credential , lock and password policy
+     */
+    private static final String AUTHN_USERINFO_COLUMNS = "id,username,password,sharedsecret,sharedcounter,decipherable,windowsaccount,usertype,"
+            + "displayname,authntype,mobile,email,passwordlastsettime,passwordsettype,badpasswordcount,"
+            + "badpasswordtime,unlocktime,islocked,lastlogintime,lastloginip,logincount,locale,status,"
+            + "theme,instid";
+
+    /**
+     * remaining profile columns , the picture blob is never loaded for sign-on
+     */
+    private static final String PROFILE_USERINFO_COLUMNS = "nickname,namezhspell,namezhshortspell,givenname,middlename,familyname,honorificprefix,"
+            + "honorificsuffix,formattedname,gender,birthdate,married,idtype,idcardno,website,mobileverified,"
+            + "emailverified,passwordquestion,passwordanswer,apploginauthntype,apploginpassword,protectedapps,"
+            + "lastlogofftime,regionhistory,passwordhistory,timezone,preferredlanguage,workemail,"
+            + "workphonenumber,workcountry,workregion,worklocality,workstreetaddress,workaddressformatted,"
+            + "workpostalcode,workfax,homeemail,homephonenumber,homecountry,homeregion,homelocality,"
+            + "homestreetaddress,homeaddressformatted,homepostalcode,homefax,employeenumber,division,"
+            + "costcenter,organization,departmentid,department,jobtitle,joblevel,managerid,manager,"
+            + "assistantid,assistant,entrydate,quitdate,startworkdate,extraattribute,createdby,createddate,"
+            + "modifiedby,modifieddate,gridlist,description";
 
-    private static final String DEFAULT_USERINFO_SELECT_STATEMENT_USERNAME_MOBILE = "select * from  mxk_userinfo where (username = ? or mobile = ?)";
+    private static final String DEFAULT_USERINFO_SELECT_STATEMENT = "select " + AUTHN_USERINFO_COLUMNS + " from  mxk_userinfo where username = ? ";
 
-    private static final String DEFAULT_USERINFO_SELECT_STATEMENT_USERNAME_MOBILE_EMAIL = "select * from  mxk_userinfo where (username = ? or mobile = ? or email = ?) ";
+    private static final String DEFAULT_USERINFO_SELECT_STATEMENT_USERNAME_MOBILE = "select " + AUTHN_USERINFO_COLUMNS + " from  mxk_userinfo where (username = ? or mobile = ?)";
+
+    private static final String DEFAULT_USERINFO_SELECT_STATEMENT_USERNAME_MOBILE_EMAIL = "select " + AUTHN_USERINFO_COLUMNS + " from  mxk_userinfo where (username = ? or mobile = ? or email = ?) ";
+
+    private static final String PROFILE_USERINFO_SELECT_STATEMENT = "select " + PROFILE_USERINFO_COLUMNS + " from  mxk_userinfo where id = ? ";
 
     private static final String DEFAULT_MYAPPS_SELECT_STATEMENT = "select distinct app.id,app.appname from mxk_apps app,mxk_access gp,mxk_groups g  where app.id=gp.appid and app.status = 1 and gp.groupid=g.id and g.id in(%s)";
 
+    /**
+     * IN list placeholders are padded up to these sizes,
+     * so only a handful of statement texts reach the driver statement cache
+     */
+    private static final int [] IN_PLACEHOLDER_BUCKETS = {8, 16, 32, 64, 128, 256};
+
+    public static final String GROUPS_CACHE_NAME = "login.groups";
+
+    public static final String AUTHORIZED_APPS_CACHE_NAME = "login.authorizedApps";
+
+    /**
+     * user groups cache , key userId ,
+     * registered in CacheRegistry so changes made by mgt are evicted on the sso nodes
+     */
+    protected static final NamedCache<List<Groups>> groupsCache =
+            CacheRegistry.register(GROUPS_CACHE_NAME, 200000, 5);
+
+    /**
+     * authorized apps cache , key instId + sorted authorities
+     */
+    protected static final NamedCache<List<GrantedAuthority>> authorizedAppsCache =
+            CacheRegistry.register(AUTHORIZED_APPS_CACHE_NAME, 50000, 5);
+
     protected JdbcTemplate jdbcTemplate;
 
+    protected LoginBookkeepingRepository loginBookkeepingRepository;
+
+    protected PasswordPolicyRepository passwordPolicyRepository;
+
     /**
      * 1 (USERNAME)  2 (USERNAME | MOBILE) 3 (USERNAME | MOBILE | EMAIL)
      */
@@ -76,6 +130,7 @@ public class LoginRepository {
 
     public LoginRepository(JdbcTemplate jdbcTemplate){
         this.jdbcTemplate=jdbcTemplate;
+        this.passwordPolicyRepository = new PasswordPolicyRepository(jdbcTemplate);
     }
 
     public UserInfo find(String username, String password) {
@@ -88,13 +143,18 @@ public class LoginRepository {
         	 listUserInfo = findByUsernameOrMobileOrEmail(username,password);
         }
         _logger.debug("load UserInfo : {}" , listUserInfo);
-        return (ObjectUtils.isNotEmpty(listUserInfo))? listUserInfo.get(0) : null;
+        UserInfo userInfo = (ObjectUtils.isNotEmpty(listUserInfo))? listUserInfo.get(0) : null;
+        if(userInfo != null && loginBookkeepingRepository != null) {
+            //not yet written login bookkeeping
+            loginBookkeepingRepository.apply(userInfo);
+        }
+        return userInfo;
     }
 
     public List<UserInfo> findByUsername(String username, String password) {
     	return jdbcTemplate.query(
     			DEFAULT_USERINFO_SELECT_STATEMENT,
-    			new UserInfoRowMapper(),
+    			new AuthnUserInfoRowMapper(),
     			username
     		);
     }
@@ -102,7 +162,7 @@ public class LoginRepository {
     public List<UserInfo> findByUsernameOrMobile(String username, String password) {
     	return jdbcTemplate.query(
 			 	DEFAULT_USERINFO_SELECT_STATEMENT_USERNAME_MOBILE,
-    			new UserInfoRowMapper(),
+    			new AuthnUserInfoRowMapper(),
     			username,username
     		);
     }
@@ -110,12 +170,28 @@ public class LoginRepository {
     public List<UserInfo> findByUsernameOrMobileOrEmail(String username, String password) {
     	return jdbcTemplate.query(
 			 	DEFAULT_USERINFO_SELECT_STATEMENT_USERNAME_MOBILE_EMAIL,
-    			new UserInfoRowMapper(),
+    			new AuthnUserInfoRowMapper(),
     			username,username,username
     		);
     }
 
 
+    /**
+     * load the profile columns into the authenticated userInfo,
+     * called once credential is verified and a session is created
+     *
+     * @param userInfo
+     * @return userInfo
+     */
+    public UserInfo loadProfile(UserInfo userInfo) {
+        if (userInfo != null && StringUtils.isNotEmpty(userInfo.getId())) {
+            jdbcTemplate.query(PROFILE_USERINFO_SELECT_STATEMENT, rs -> {
+                mapProfile(rs, userInfo);
+            }, userInfo.getId());
+        }
+        return userInfo;
+    }
+
     /**
      * 閿佸畾鐢ㄦ埛锛歩slock锛�1 鐢ㄦ埛瑙ｉ攣 2 鐢ㄦ埛閿佸畾
      *
@@ -124,6 +200,10 @@ public class LoginRepository {
     public void updateLock(UserInfo userInfo) {
         try {
             if (userInfo != null && StringUtils.isNotEmpty(userInfo.getId())) {
+                if(loginBookkeepingRepository != null) {
+                    loginBookkeepingRepository.updateLock(userInfo, ConstsStatus.LOCK);
+                    return;
+                }
                 jdbcTemplate.update(LOCK_USER_UPDATE_STATEMENT,
                         new Object[] { ConstsStatus.LOCK, new Date(), userInfo.getId() },
                         new int[] { Types.VARCHAR, Types.TIMESTAMP, Types.VARCHAR });
@@ -142,6 +222,10 @@ public class LoginRepository {
     public void updateUnlock(UserInfo userInfo) {
         try {
             if (userInfo != null && StringUtils.isNotEmpty(userInfo.getId())) {
+                if(loginBookkeepingRepository != null) {
+                    loginBookkeepingRepository.updateLock(userInfo, ConstsStatus.ACTIVE);
+                    return;
+                }
                 jdbcTemplate.update(UNLOCK_USER_UPDATE_STATEMENT,
                         new Object[] { ConstsStatus.ACTIVE, new Date(), userInfo.getId() },
                         new int[] { Types.VARCHAR, Types.TIMESTAMP, Types.VARCHAR });
@@ -160,6 +244,10 @@ public class LoginRepository {
     public void updateLockout(UserInfo userInfo) {
         try {
             if (userInfo != null && StringUtils.isNotEmpty(userInfo.getId())) {
+                if(loginBookkeepingRepository != null) {
+                    loginBookkeepingRepository.resetLockout(userInfo);
+                    return;
+                }
                 jdbcTemplate.update(BADPASSWORDCOUNT_RESET_UPDATE_STATEMENT,
                         new Object[] { 0, ConstsStatus.ACTIVE, new Date(), userInfo.getId() },
                         new int[] { Types.INTEGER, Types.INTEGER, Types.TIMESTAMP, Types.VARCHAR });
@@ -178,6 +266,10 @@ public class LoginRepository {
     public void updateBadPasswordCount(UserInfo userInfo) {
         try {
             if (userInfo != null && StringUtils.isNotEmpty(userInfo.getId())) {
+                if(loginBookkeepingRepository != null) {
+                    loginBookkeepingRepository.plusBadPasswordCount(userInfo, lockoutMinutes());
+                    return;
+                }
                 int badPasswordCount = userInfo.getBadPasswordCount() + 1;
                 userInfo.setBadPasswordCount(badPasswordCount);
                 jdbcTemplate.update(BADPASSWORDCOUNT_UPDATE_STATEMENT,
@@ -190,33 +282,116 @@ public class LoginRepository {
         }
     }
 
+    /**
+     * lockout duration of the password policy , DEFAULT_LOCKOUT_MINUTES when not loaded
+     */
+    int lockoutMinutes() {
+        try {
+            return passwordPolicyRepository.getPasswordPolicy().getDuration();
+        } catch (Exception e) {
+            _logger.error("load password policy error" , e);
+            return LoginBookkeepingRepository.DEFAULT_LOCKOUT_MINUTES;
+        }
+    }
+
     public List<GrantedAuthority> queryAuthorizedApps(List<GrantedAuthority> grantedAuthoritys) {
-        String grantedAuthorityString="'ROLE_ALL_USER'";
+        return queryAuthorizedApps(null , grantedAuthoritys);
+    }
+
+    public List<GrantedAuthority> queryAuthorizedApps(String instId , List<GrantedAuthority> grantedAuthoritys) {
+        TreeSet<String> authorities = new TreeSet<>();
+        authorities.add(ConstsRoles.ROLE_ALL_USER.getAuthority());
         for(GrantedAuthority grantedAuthority : grantedAuthoritys) {
-            grantedAuthorityString += ",'"+ grantedAuthority.getAuthority()+"'";
+            authorities.add(grantedAuthority.getAuthority());
         }
-
-        ArrayList<GrantedAuthority> listAuthorizedApps = (ArrayList<GrantedAuthority>) jdbcTemplate.query(
-                String.format(DEFAULT_MYAPPS_SELECT_STATEMENT, grantedAuthorityString),
-                new RowMapper<GrantedAuthority>() {
-            public GrantedAuthority mapRow(ResultSet rs, int rowNum) throws SQLException {
-                return new SimpleGrantedAuthority(rs.getString("id"));
+        String cacheKey = instId + "_" + String.join(",", authorities);
+
+        List<GrantedAuthority> listAuthorizedApps = authorizedAppsCache.get(cacheKey, key -> {
+            List<String> params = new ArrayList<>(authorities);
+            List<GrantedAuthority> apps = new ArrayList<>();
+            //chunk very large authority sets into bucket sized statements
+            int maxBucket = IN_PLACEHOLDER_BUCKETS[IN_PLACEHOLDER_BUCKETS.length - 1];
+            for(int from = 0; from < params.size(); from += maxBucket) {
+                List<String> chunk = params.subList(from, Math.min(from + maxBucket, params.size()));
+                int placeholders = inPlaceholderBucket(chunk.size());
+                Object [] args = new Object[placeholders];
+                for(int i = 0; i < placeholders; i++) {
+                    //repeat the last value to fill the bucket
+                    args[i] = chunk.get(Math.min(i, chunk.size() - 1));
+                }
+                for(GrantedAuthority app : jdbcTemplate.query(
+                        String.format(DEFAULT_MYAPPS_SELECT_STATEMENT, inPlaceholders(placeholders)),
+                        new RowMapper<GrantedAuthority>() {
+                            public GrantedAuthority mapRow(ResultSet rs, int rowNum) throws SQLException {
+                                return new SimpleGrantedAuthority(rs.getString("id"));
+                            }
+                        },
+                        args)) {
+                    if(!apps.contains(app)) {
+                        apps.add(app);
+                    }
+                }
             }
+            return List.copyOf(apps);
         });
 
         _logger.debug("list Authorized Apps  {}" , listAuthorizedApps);
-        return listAuthorizedApps;
+        return new ArrayList<>(listAuthorizedApps);
     }
 
     public List<Groups> queryGroups(UserInfo userInfo) {
-        List<Groups> listRoles = jdbcTemplate.query(GROUPS_SELECT_STATEMENT, new RowMapper<Groups>() {
-            public Groups mapRow(ResultSet rs, int rowNum) throws SQLException {
-                return new Groups(rs.getString("id"), rs.getString("groupcode"),rs.getString("groupname"), 0);
-            }
-        }, userInfo.getId());
+        List<Groups> listRoles = groupsCache.get(userInfo.getId(), key ->
+            List.copyOf(jdbcTemplate.query(GROUPS_SELECT_STATEMENT, new RowMapper<Groups>() {
+                public Groups mapRow(ResultSet rs, int rowNum) throws SQLException {
+                    return new Groups(rs.getString("id"), rs.getString("groupcode"),rs.getString("groupname"), 0);
+                }
+            }, userInfo.getId()))
+        );
 
         _logger.debug("list Roles  {}" , listRoles);
-        return listRoles;
+        return new ArrayList<>(listRoles);
+    }
+
+    /**
+     * invalidate cached groups for the member on all nodes
+     * @param memberId , all members when blank
+     */
+    public static void invalidateGroups(String memberId) {
+        if(StringUtils.isBlank(memberId)) {
+            groupsCache.invalidateAll();
+        }else {
+            groupsCache.invalidate(memberId);
+        }
+    }
+
+    /**
+     * invalidate all cached groups and authorized apps on all nodes,
+     * used when a group or its access is changed
+     */
+    public static void invalidateAuthorities() {
+        groupsCache.invalidateAll();
+        authorizedAppsCache.invalidateAll();
+    }
+
+    public static void invalidateAuthorizedApps() {
+        authorizedAppsCache.invalidateAll();
+    }
+
+    static int inPlaceholderBucket(int size) {
+        for(int bucket : IN_PLACEHOLDER_BUCKETS) {
+            if(size <= bucket) {
+                return bucket;
+            }
+        }
+        return size;
+    }
+
+    static String inPlaceholders(int size) {
+        StringBuilder placeholders = new StringBuilder(size * 2);
+        for(int i = 0; i < size; i++) {
+            placeholders.append(i == 0 ? "?" : ",?");
+        }
+        return placeholders.toString();
     }
 
     /**
@@ -248,6 +423,10 @@ public class LoginRepository {
 
 
     public void updateLastLogin(UserInfo userInfo) {
+        if(loginBookkeepingRepository != null) {
+            loginBookkeepingRepository.updateLastLogin(userInfo);
+            return;
+        }
         jdbcTemplate.update(LOGIN_USERINFO_UPDATE_STATEMENT,
                 new Object[] {
                 				userInfo.getLastLoginTime(),
@@ -258,123 +437,131 @@ public class LoginRepository {
                 new int[] { Types.TIMESTAMP, Types.VARCHAR, Types.INTEGER, Types.VARCHAR });
     }
 
+    public void setLoginBookkeepingRepository(LoginBookkeepingRepository loginBookkeepingRepository) {
+        this.loginBookkeepingRepository = loginBookkeepingRepository;
+    }
+
     public class UserInfoRowMapper implements RowMapper<UserInfo> {
         @Override
         public UserInfo mapRow(ResultSet rs, int rowNum) throws SQLException {
-
             UserInfo userInfo = new UserInfo();
-            userInfo.setId(rs.getString("id"));
-            userInfo.setUsername(rs.getString("username"));
-            userInfo.setPassword(rs.getString("password"));
-            userInfo.setSharedSecret(rs.getString("sharedsecret"));
-            userInfo.setSharedCounter(rs.getString("sharedcounter"));
-            userInfo.setDecipherable(rs.getString("decipherable"));
-            userInfo.setWindowsAccount(rs.getString("windowsaccount"));
-            userInfo.setUserType(rs.getString("usertype"));
-
-            userInfo.setDisplayName(rs.getString("displayname"));
-            userInfo.setNickName(rs.getString("nickname"));
-            userInfo.setNameZhSpell(rs.getString("namezhspell"));// nameZHSpell
-            userInfo.setNameZhShortSpell(rs.getString("namezhshortspell"));// nameZHSpell
-            userInfo.setGivenName(rs.getString("givenname"));
-            userInfo.setMiddleName(rs.getString("middlename"));
-            userInfo.setFamilyName(rs.getString("familyname"));
-            userInfo.setHonorificPrefix(rs.getString("honorificprefix"));
-            userInfo.setHonorificSuffix(rs.getString("honorificsuffix"));
-            userInfo.setFormattedName(rs.getString("formattedname"));
-
-            userInfo.setGender(rs.getInt("gender"));
-            userInfo.setBirthDate(rs.getString("birthdate"));
+            mapAuthn(rs, userInfo);
             userInfo.setPicture(rs.getBytes("picture"));
-            userInfo.setMarried(rs.getInt("married"));
-            userInfo.setIdType(rs.getInt("idtype"));
-            userInfo.setIdCardNo(rs.getString("idcardno"));
-            userInfo.setWebSite(rs.getString("website"));
-
-            userInfo.setAuthnType(rs.getInt("authntype"));
-            userInfo.setMobile(rs.getString("mobile"));
-            userInfo.setMobileVerified(rs.getInt("mobileverified"));
-            userInfo.setEmail(rs.getString("email"));
-            userInfo.setEmailVerified(rs.getInt("emailverified"));
-            userInfo.setPasswordQuestion(rs.getString("passwordquestion"));
-            userInfo.setPasswordAnswer(rs.getString("passwordanswer"));
-
-            userInfo.setAppLoginAuthnType(rs.getInt("apploginauthntype"));
-            userInfo.setAppLoginPassword(rs.getString("apploginpassword"));
-            userInfo.setProtectedApps(rs.getString("protectedapps"));
-
-            userInfo.setPasswordLastSetTime(rs.getTimestamp("passwordlastsettime"));
-            userInfo.setPasswordSetType(rs.getInt("passwordsettype"));
-            userInfo.setBadPasswordCount(rs.getInt("badpasswordcount"));
-            userInfo.setBadPasswordTime(rs.getTimestamp("badpasswordtime"));
-            userInfo.setUnLockTime(rs.getTimestamp("unlocktime"));
-            userInfo.setIsLocked(rs.getInt("islocked"));
-            userInfo.setLastLoginTime(rs.getTimestamp("lastlogintime"));
-            userInfo.setLastLoginIp(rs.getString("lastloginip"));
-            userInfo.setLastLogoffTime(rs.getTimestamp("lastlogofftime"));
-            userInfo.setLoginCount(rs.getInt("logincount"));
-            userInfo.setRegionHistory(rs.getString("regionhistory"));
-            userInfo.setPasswordHistory(rs.getString("passwordhistory"));
-
-            userInfo.setTimeZone(rs.getString("timezone"));
-            userInfo.setLocale(rs.getString("locale"));
-            userInfo.setPreferredLanguage(rs.getString("preferredlanguage"));
-
-            userInfo.setWorkEmail(rs.getString("workemail"));
-            userInfo.setWorkPhoneNumber(rs.getString("workphonenumber"));
-            userInfo.setWorkCountry(rs.getString("workcountry"));
-            userInfo.setWorkRegion(rs.getString("workregion"));
-            userInfo.setWorkLocality(rs.getString("worklocality"));
-            userInfo.setWorkStreetAddress(rs.getString("workstreetaddress"));
-            userInfo.setWorkAddressFormatted(rs.getString("workaddressformatted"));
-            userInfo.setWorkPostalCode(rs.getString("workpostalcode"));
-            userInfo.setWorkFax(rs.getString("workfax"));
-
-            userInfo.setHomeEmail(rs.getString("homeemail"));
-            userInfo.setHomePhoneNumber(rs.getString("homephonenumber"));
-            userInfo.setHomeCountry(rs.getString("homecountry"));
-            userInfo.setHomeRegion(rs.getString("homeregion"));
-            userInfo.setHomeLocality(rs.getString("homelocality"));
-            userInfo.setHomeStreetAddress(rs.getString("homestreetaddress"));
-            userInfo.setHomeAddressFormatted(rs.getString("homeaddressformatted"));
-            userInfo.setHomePostalCode(rs.getString("homepostalcode"));
-            userInfo.setHomeFax(rs.getString("homefax"));
-
-            userInfo.setEmployeeNumber(rs.getString("employeenumber"));
-            userInfo.setDivision(rs.getString("division"));
-            userInfo.setCostCenter(rs.getString("costcenter"));
-            userInfo.setOrganization(rs.getString("organization"));
-            userInfo.setDepartmentId(rs.getString("departmentid"));
-            userInfo.setDepartment(rs.getString("department"));
-            userInfo.setJobTitle(rs.getString("jobtitle"));
-            userInfo.setJobLevel(rs.getString("joblevel"));
-            userInfo.setManagerId(rs.getString("managerid"));
-            userInfo.setManager(rs.getString("manager"));
-            userInfo.setAssistantId(rs.getString("assistantid"));
-            userInfo.setAssistant(rs.getString("assistant"));
-            userInfo.setEntryDate(rs.getString("entrydate"));//
-            userInfo.setQuitDate(rs.getString("quitdate"));
-            userInfo.setStartWorkDate(rs.getString("startworkdate"));// STARTWORKDATE
-
-            userInfo.setExtraAttribute(rs.getString("extraattribute"));
-
-            userInfo.setCreatedBy(rs.getString("createdby"));
-            userInfo.setCreatedDate(rs.getTimestamp("createddate"));
-            userInfo.setModifiedBy(rs.getString("modifiedby"));
-            userInfo.setModifiedDate(rs.getTimestamp("modifieddate"));
-
-            userInfo.setStatus(rs.getInt("status"));
-            userInfo.setGridList(rs.getInt("gridlist"));
-            userInfo.setDescription(rs.getString("description"));
-            userInfo.setTheme(rs.getString("theme"));
-            userInfo.setInstId(rs.getString("instid"));
-            if (userInfo.getTheme() == null || userInfo.getTheme().equalsIgnoreCase("")) {
-                userInfo.setTheme("default");
-            }
+            mapProfile(rs, userInfo);
+            return userInfo;
+        }
+    }
 
+    /**
+     * maps the authentication projection only
+     */
+    public class AuthnUserInfoRowMapper implements RowMapper<UserInfo> {
+        @Override
+        public UserInfo mapRow(ResultSet rs, int rowNum) throws SQLException {
+            UserInfo userInfo = new UserInfo();
+            mapAuthn(rs, userInfo);
             return userInfo;
         }
     }
-}
 
+    private static void mapAuthn(ResultSet rs, UserInfo userInfo) throws SQLException {
+        userInfo.setId(rs.getString("id"));
+        userInfo.setUsername(rs.getString("username"));
+        userInfo.setPassword(rs.getString("password"));
+        userInfo.setSharedSecret(rs.getString("sharedsecret"));
+        userInfo.setSharedCounter(rs.getString("sharedcounter"));
+        userInfo.setDecipherable(rs.getString("decipherable"));
+        userInfo.setWindowsAccount(rs.getString("windowsaccount"));
+        userInfo.setUserType(rs.getString("usertype"));
+        userInfo.setDisplayName(rs.getString("displayname"));
+        userInfo.setAuthnType(rs.getInt("authntype"));
+        userInfo.setMobile(rs.getString("mobile"));
+        userInfo.setEmail(rs.getString("email"));
+        userInfo.setPasswordLastSetTime(rs.getTimestamp("passwordlastsettime"));
+        userInfo.setPasswordSetType(rs.getInt("passwordsettype"));
+        userInfo.setBadPasswordCount(rs.getInt("badpasswordcount"));
+        userInfo.setBadPasswordTime(rs.getTimestamp("badpasswordtime"));
+        userInfo.setUnLockTime(rs.getTimestamp("unlocktime"));
+        userInfo.setIsLocked(rs.getInt("islocked"));
+        userInfo.setLastLoginTime(rs.getTimestamp("lastlogintime"));
+        userInfo.setLastLoginIp(rs.getString("lastloginip"));
+        userInfo.setLoginCount(rs.getInt("logincount"));
+        userInfo.setLocale(rs.getString("locale"));
+        userInfo.setStatus(rs.getInt("status"));
+        userInfo.setTheme(rs.getString("theme"));
+        userInfo.setInstId(rs.getString("instid"));
+        if (userInfo.getTheme() == null || userInfo.getTheme().equalsIgnoreCase("")) {
+            userInfo.setTheme("default");
+        }
+    }
 
+    private static void mapProfile(ResultSet rs, UserInfo userInfo) throws SQLException {
+        userInfo.setNickName(rs.getString("nickname"));
+        userInfo.setNameZhSpell(rs.getString("namezhspell"));// nameZHSpell
+        userInfo.setNameZhShortSpell(rs.getString("namezhshortspell"));// nameZHSpell
+        userInfo.setGivenName(rs.getString("givenname"));
+        userInfo.setMiddleName(rs.getString("middlename"));
+        userInfo.setFamilyName(rs.getString("familyname"));
+        userInfo.setHonorificPrefix(rs.getString("honorificprefix"));
+        userInfo.setHonorificSuffix(rs.getString("honorificsuffix"));
+        userInfo.setFormattedName(rs.getString("formattedname"));
+        userInfo.setGender(rs.getInt("gender"));
+        userInfo.setBirthDate(rs.getString("birthdate"));
+        userInfo.setMarried(rs.getInt("married"));
+        userInfo.setIdType(rs.getInt("idtype"));
+        userInfo.setIdCardNo(rs.getString("idcardno"));
+        userInfo.setWebSite(rs.getString("website"));
+        userInfo.setMobileVerified(rs.getInt("mobileverified"));
+        userInfo.setEmailVerified(rs.getInt("emailverified"));
+        userInfo.setPasswordQuestion(rs.getString("passwordquestion"));
+        userInfo.setPasswordAnswer(rs.getString("passwordanswer"));
+        userInfo.setAppLoginAuthnType(rs.getInt("apploginauthntype"));
+        userInfo.setAppLoginPassword(rs.getString("apploginpassword"));
+        userInfo.setProtectedApps(rs.getString("protectedapps"));
+        userInfo.setLastLogoffTime(rs.getTimestamp("lastlogofftime"));
+        userInfo.setRegionHistory(rs.getString("regionhistory"));
+        userInfo.setPasswordHistory(rs.getString("passwordhistory"));
+        userInfo.setTimeZone(rs.getString("timezone"));
+        userInfo.setPreferredLanguage(rs.getString("preferredlanguage"));
+        userInfo.setWorkEmail(rs.getString("workemail"));
+        userInfo.setWorkPhoneNumber(rs.getString("workphonenumber"));
+        userInfo.setWorkCountry(rs.getString("workcountry"));
+        userInfo.setWorkRegion(rs.getString("workregion"));
+        userInfo.setWorkLocality(rs.getString("worklocality"));
+        userInfo.setWorkStreetAddress(rs.getString("workstreetaddress"));
+        userInfo.setWorkAddressFormatted(rs.getString("workaddressformatted"));
+        userInfo.setWorkPostalCode(rs.getString("workpostalcode"));
+        userInfo.setWorkFax(rs.getString("workfax"));
+        userInfo.setHomeEmail(rs.getString("homeemail"));
+        userInfo.setHomePhoneNumber(rs.getString("homephonenumber"));
+        userInfo.setHomeCountry(rs.getString("homecountry"));
+        userInfo.setHomeRegion(rs.getString("homeregion"));
+        userInfo.setHomeLocality(rs.getString("homelocality"));
+        userInfo.setHomeStreetAddress(rs.getString("homestreetaddress"));
+        userInfo.setHomeAddressFormatted(rs.getString("homeaddressformatted"));
+        userInfo.setHomePostalCode(rs.getString("homepostalcode"));
+        userInfo.setHomeFax(rs.getString("homefax"));
+        userInfo.setEmployeeNumber(rs.getString("employeenumber"));
+        userInfo.setDivision(rs.getString("division"));
+        userInfo.setCostCenter(rs.getString("costcenter"));
+        userInfo.setOrganization(rs.getString("organization"));
+        userInfo.setDepartmentId(rs.getString("departmentid"));
+        userInfo.setDepartment(rs.getString("department"));
+        userInfo.setJobTitle(rs.getString("jobtitle"));
+        userInfo.setJobLevel(rs.getString("joblevel"));
+        userInfo.setManagerId(rs.getString("managerid"));
+        userInfo.setManager(rs.getString("manager"));
+        userInfo.setAssistantId(rs.getString("assistantid"));
+        userInfo.setAssistant(rs.getString("assistant"));
+        userInfo.setEntryDate(rs.getString("entrydate"));//
+        userInfo.setQuitDate(rs.getString("quitdate"));
+        userInfo.setStartWorkDate(rs.getString("startworkdate"));// STARTWORKDATE
+        userInfo.setExtraAttribute(rs.getString("extraattribute"));
+        userInfo.setCreatedBy(rs.getString("createdby"));
+        userInfo.setCreatedDate(rs.getTimestamp("createddate"));
+        userInfo.setModifiedBy(rs.getString("modifiedby"));
+        userInfo.setModifiedDate(rs.getTimestamp("modifieddate"));
+        userInfo.setGridList(rs.getInt("gridlist"));
+        userInfo.setDescription(rs.getString("description"));
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.dromara.maxkey.entity.history.HistoryLogin;
+import org.dromara.maxkey.entity.history.HistoryLoginApps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * login analytics rollups for the dashboard<br>
+ * mxk_report_login_hour , logins per instId , day and hour ,
+ * mxk_report_login_day , logins per instId , day and browser or app .<br>
+ * rows are counted per batch in memory and added to the rollups by update , or insert when the row not exists ,
+ * backfill rebuilds the rollups of closed days from the history tables , a day in one transaction ,
+ * a day is closed CLOSE_DELAY_MINUTES after midnight , when the live adds of the day are done ,
+ * so the rebuild never counts a login which is added live again .<br>
+ * backfilled days are recorded in mxk_report_login_backfill and not rebuilt again by backfillPending .<br>
+ * rows without login time are not counted .
+ */
+public class LoginRollupRepository {
+    private static final Logger logger = LoggerFactory.getLogger(LoginRollupRepository.class);
+
+    public static final String DIMENSION_BROWSER    = "browser";
+
+    public static final String DIMENSION_APP        = "app";
+
+    public static final String OTHER                = "Other";
+
+    /**
+     * minutes after midnight when the live adds of the previous day are done
+     */
+    public static final int CLOSE_DELAY_MINUTES     = 10;
+
+    private static final String HOUR_UPDATE_STATEMENT =
+            "update mxk_report_login_hour set reportcount = reportcount + ? where instid = ? and rollupday = ? and rolluphour = ?";
+
+    private static final String HOUR_INSERT_STATEMENT =
+            "insert into mxk_report_login_hour (instid , rollupday , rolluphour , reportcount) values (? , ? , ? , ?)";
+
+    private static final String DAY_UPDATE_STATEMENT =
+            "update mxk_report_login_day set reportcount = reportcount + ? where instid = ? and rollupday = ? and dimension = ? and dimensionvalue = ?";
+
+    private static final String DAY_INSERT_STATEMENT =
+            "insert into mxk_report_login_day (instid , rollupday , dimension , dimensionvalue , reportcount) values (? , ? , ? , ? , ?)";
+
+    private static final String HOUR_DELETE_STATEMENT = "delete from mxk_report_login_hour where rollupday = ?";
+
+    private static final String DAY_DELETE_STATEMENT = "delete from mxk_report_login_day where rollupday = ?";
+
+    private static final String BACKFILL_SELECT_STATEMENT = "select rollupday from mxk_report_login_backfill where rollupday >= ?";
+
+    private static final String BACKFILL_DELETE_STATEMENT = "delete from mxk_report_login_backfill where rollupday = ?";
+
+    private static final String BACKFILL_INSERT_STATEMENT = "insert into mxk_report_login_backfill (rollupday , backfilltime) values (? , ?)";
+
+    private static final String HISTORY_LOGIN_SELECT_STATEMENT =
+            "select instid , logintime , browser from mxk_history_login where logintime >= ? and logintime < ?";
+
+    private static final String HISTORY_LOGIN_APPS_SELECT_STATEMENT =
+            "select instid , logintime , appname from mxk_history_login_apps where logintime >= ? and logintime < ?";
+
+    protected JdbcTemplate jdbcTemplate;
+
+    protected TransactionTemplate transactionTemplate;
+
+    public LoginRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+    }
+
+    /**
+     * add the logins to the hour and browser rollups
+     * @param historyLogins written login history
+     */
+    public void rollupLogins(List<HistoryLogin> historyLogins) {
+        Rollup rollup = new Rollup();
+        for(HistoryLogin historyLogin : historyLogins) {
+            rollup.login(historyLogin.getInstId(), toLocalDateTime(historyLogin.getLoginTime()), historyLogin.getBrowser());
+        }
+        add(rollup);
+    }
+
+    /**
+     * add the app sign on to the app rollups
+     * @param historyLoginApps written login apps history
+     */
+    public void rollupApps(List<HistoryLoginApps> historyLoginApps) {
+        Rollup rollup = new Rollup();
+        for(HistoryLoginApps historyLoginApp : historyLoginApps) {
+            rollup.app(historyLoginApp.getInstId(), toLocalDateTime(historyLoginApp.getLoginTime()), historyLoginApp.getAppName());
+        }
+        add(rollup);
+    }
+
+    /**
+     * rebuild the rollups of the closed days from mxk_history_login and mxk_history_login_apps
+     * @param from first day
+     * @param to last day , inclusive , open days are skipped
+     * @return logins rolled up
+     */
+    public long backfill(LocalDate from, LocalDate to) {
+        LocalDate lastClosedDay = lastClosedDay(LocalDateTime.now());
+        if(to.isAfter(lastClosedDay)) {
+            to = lastClosedDay;
+        }
+        long count = 0;
+        for(LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            count += backfillDay(day);
+        }
+        logger.info("backfill rollups {} - {} , logins {}" , from , to , count);
+        return count;
+    }
+
+    /**
+     * rebuild the closed days since from which are not backfilled yet ,
+     * the days of the reports at the first run , then each day once after it is closed
+     * @param from first day
+     * @return logins rolled up
+     */
+    public long backfillPending(LocalDate from) {
+        Set<LocalDate> backfilled = new HashSet<>();
+        jdbcTemplate.query(BACKFILL_SELECT_STATEMENT, rs -> {
+                backfilled.add(rs.getDate(1).toLocalDate());
+            }, java.sql.Date.valueOf(from));
+        LocalDate to = lastClosedDay(LocalDateTime.now());
+        long count = 0;
+        for(LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if(!backfilled.contains(day)) {
+                count += backfillDay(day);
+            }
+        }
+        logger.debug("backfill pending rollups since {} , logins {}" , from , count);
+        return count;
+    }
+
+    long backfillDay(LocalDate day) {
+        Rollup rollup = transactionTemplate.execute(status -> backfill(day));
+        logger.debug("backfill rollups of {} , logins {} , rows {}" , day , rollup.logins , rollup.size());
+        return rollup.logins;
+    }
+
+    /**
+     * @return the last day whose live adds are done
+     */
+    static LocalDate lastClosedDay(LocalDateTime now) {
+        return now.minusMinutes(CLOSE_DELAY_MINUTES).toLocalDate().minusDays(1);
+    }
+
+    /**
+     * record the backfill , delete the rollups of the day ,
+     * then count the history of the day and insert , in the transaction of the caller
+     */
+    Rollup backfill(LocalDate day) {
+        Timestamp start = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        jdbcTemplate.update(BACKFILL_DELETE_STATEMENT, java.sql.Date.valueOf(day));
+        jdbcTemplate.update(BACKFILL_INSERT_STATEMENT, java.sql.Date.valueOf(day), new Timestamp(System.currentTimeMillis()));
+        jdbcTemplate.update(HOUR_DELETE_STATEMENT, java.sql.Date.valueOf(day));
+        jdbcTemplate.update(DAY_DELETE_STATEMENT, java.sql.Date.valueOf(day));
+        Rollup rollup = new Rollup();
+        jdbcTemplate.query(HISTORY_LOGIN_SELECT_STATEMENT, rs -> {
+                rollup.login(rs.getString(1), toLocalDateTime(rs.getTimestamp(2)), rs.getString(3));
+            }, start, end);
+        jdbcTemplate.query(HISTORY_LOGIN_APPS_SELECT_STATEMENT, rs -> {
+                rollup.app(rs.getString(1), toLocalDateTime(rs.getTimestamp(2)), rs.getString(3));
+            }, start, end);
+        insert(rollup);
+        return rollup;
+    }
+
+    void add(Rollup rollup) {
+        for(Map.Entry<RollupKey, Long> entry : rollup.hours.entrySet()) {
+            RollupKey key = entry.getKey();
+            Object [] whereArgs = new Object[] {key.instId , java.sql.Date.valueOf(key.day) , key.hour};
+            upsert(HOUR_UPDATE_STATEMENT, HOUR_INSERT_STATEMENT, entry.getValue(), whereArgs);
+        }
+        for(Map.Entry<RollupKey, Long> entry : rollup.days.entrySet()) {
+            RollupKey key = entry.getKey();
+            Object [] whereArgs = new Object[] {key.instId , java.sql.Date.valueOf(key.day) , key.dimension , key.value};
+            upsert(DAY_UPDATE_STATEMENT, DAY_INSERT_STATEMENT, entry.getValue(), whereArgs);
+        }
+    }
+
+    void insert(Rollup rollup) {
+        List<Object[]> hourArgs = new ArrayList<>(rollup.hours.size());
+        for(Map.Entry<RollupKey, Long> entry : rollup.hours.entrySet()) {
+            RollupKey key = entry.getKey();
+            hourArgs.add(new Object[] {key.instId , java.sql.Date.valueOf(key.day) , key.hour , entry.getValue()});
+        }
+        List<Object[]> dayArgs = new ArrayList<>(rollup.days.size());
+        for(Map.Entry<RollupKey, Long> entry : rollup.days.entrySet()) {
+            RollupKey key = entry.getKey();
+            dayArgs.add(new Object[] {key.instId , java.sql.Date.valueOf(key.day) , key.dimension , key.value , entry.getValue()});
+        }
+        if(!hourArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(HOUR_INSERT_STATEMENT, hourArgs);
+        }
+        if(!dayArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(DAY_INSERT_STATEMENT, dayArgs);
+        }
+    }
+
+    /**
+     * update count = count + increment , insert when not exists ,
+     * update again when the row is inserted by other node at the same time
+     */
+    void upsert(String updateStatement, String insertStatement, long increment, Object [] whereArgs) {
+        Object [] updateArgs = new Object[whereArgs.length + 1];
+        updateArgs[0] = increment;
+        System.arraycopy(whereArgs, 0, updateArgs, 1, whereArgs.length);
+        if(jdbcTemplate.update(updateStatement, updateArgs) > 0) {
+            return;
+        }
+        Object [] insertArgs = new Object[whereArgs.length + 1];
+        System.arraycopy(whereArgs, 0, insertArgs, 0, whereArgs.length);
+        insertArgs[whereArgs.length] = increment;
+        try {
+            jdbcTemplate.update(insertStatement, insertArgs);
+        }catch(DuplicateKeyException e) {
+            jdbcTemplate.update(updateStatement, updateArgs);
+        }
+    }
+
+    static LocalDateTime toLocalDateTime(Date date) {
+        if(date == null) {
+            return null;
+        }
+        return date instanceof Timestamp timestamp ?
+                timestamp.toLocalDateTime() : new Timestamp(date.getTime()).toLocalDateTime();
+    }
+
+    /**
+     * counts of a batch
+     */
+    static class Rollup {
+
+        final Map<RollupKey, Long> hours = new HashMap<>();
+
+        final Map<RollupKey, Long> days = new HashMap<>();
+
+        long logins;
+
+        void login(String instId, LocalDateTime loginTime, String browser) {
+            if(StringUtils.isBlank(instId) || loginTime == null) {
+                return;
+            }
+            logins++;
+            LocalDate day = loginTime.toLocalDate();
+            hours.merge(new RollupKey(instId, day, loginTime.getHour(), null, null), 1L, Long::sum);
+            days.merge(new RollupKey(instId, day, 0, DIMENSION_BROWSER,
+                    StringUtils.isBlank(browser) ? OTHER : browser), 1L, Long::sum);
+        }
+
+        void app(String instId, LocalDateTime loginTime, String appName) {
+            if(StringUtils.isBlank(instId) || loginTime == null) {
+                return;
+            }
+            days.merge(new RollupKey(instId, loginTime.toLocalDate(), 0, DIMENSION_APP,
+                    StringUtils.isBlank(appName) ? OTHER : appName), 1L, Long::sum);
+        }
+
+        int size() {
+            return hours.size() + days.size();
+        }
+    }
+
+    static final class RollupKey {
+
+        final String instId;
+
+        final LocalDate day;
+
+        final int hour;
+
+        final String dimension;
+
+        final String value;
+
+        RollupKey(String instId, LocalDate day, int hour, String dimension, String value) {
+            this.instId = instId;
+            this.day = day;
+            this.hour = hour;
+            this.dimension = dimension;
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(instId, day, hour, dimension, value);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof RollupKey other)) {
+                return false;
+            }
+            return hour == other.hour
+                    && Objects.equals(instId, other.instId)
+                    && Objects.equals(day, other.day)
+                    && Objects.equals(dimension, other.dimension)
+                    && Objects.equals(value, other.value);
+        }
+    }
+
+}
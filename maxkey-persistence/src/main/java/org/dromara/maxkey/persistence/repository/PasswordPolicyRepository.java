@@ -22,10 +22,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 import org.dromara.maxkey.constants.ConstsProperties;
 import org.dromara.maxkey.entity.cnf.CnfPasswordPolicy;
+import org.dromara.maxkey.persistence.cache.CacheRegistry;
+import org.dromara.maxkey.persistence.cache.NamedCache;
 import org.passay.CharacterOccurrencesRule;
 import org.passay.CharacterRule;
 import org.passay.DictionaryRule;
@@ -43,8 +44,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 
 public class PasswordPolicyRepository {
     static final Logger _logger = LoggerFactory.getLogger(PasswordPolicyRepository.class);
@@ -52,11 +51,11 @@ public class PasswordPolicyRepository {
     //Dictionary topWeakPassword Source
     public static final String TOPWEAKPASSWORD_PROPERTYSOURCE      = "classpath:/top_weak_password.txt";
     
+    public static final String CACHE_NAME = "password_policy";
+    
     //Cache PasswordPolicy in memory ONE_HOUR
-    protected static final Cache<String, CnfPasswordPolicy> passwordPolicyStore = 
-            Caffeine.newBuilder()
-                .expireAfterWrite(60, TimeUnit.MINUTES)
-                .build();
+    protected static final NamedCache<CnfPasswordPolicy> passwordPolicyStore = 
+            CacheRegistry.register(CACHE_NAME, 100, 60);
     
     protected CnfPasswordPolicy passwordPolicy;
     
@@ -156,6 +155,13 @@ public class PasswordPolicyRepository {
 		return passwordPolicyRuleList;
 	}
 
+   /**
+    * invalidate PasswordPolicy on all nodes , rules are rebuilt on next access
+    */
+   public static void invalidate() {
+	   passwordPolicyStore.invalidateAll();
+   }
+
 
 public class PasswordPolicyRowMapper implements RowMapper<CnfPasswordPolicy> {
 
@@ -49,6 +49,8 @@ public class PasswordPolicyValidator {
     
     MessageSource messageSource;
     
+    LoginBookkeepingRepository loginBookkeepingRepository;
+    
     public static final String PASSWORD_POLICY_VALIDATE_RESULT = "PASSWORD_POLICY_SESSION_VALIDATE_RESULT_KEY";
     
     private static final String LOCK_USER_UPDATE_STATEMENT = "update mxk_userinfo set islocked = ?  , unlocktime = ? where id = ?";
@@ -219,6 +221,10 @@ public class PasswordPolicyValidator {
        try {
            if (userInfo != null && StringUtils.isNotEmpty(userInfo.getId())) {
         	   if(userInfo.getIsLocked() == ConstsStatus.ACTIVE) {
+        		   if(loginBookkeepingRepository != null) {
+        			   loginBookkeepingRepository.updateLock(userInfo, ConstsStatus.LOCK);
+        			   return;
+        		   }
 	               jdbcTemplate.update(LOCK_USER_UPDATE_STATEMENT,
 	                       new Object[] { ConstsStatus.LOCK, new Date(), userInfo.getId() },
 	                       new int[] { Types.VARCHAR, Types.TIMESTAMP, Types.VARCHAR });
@@ -239,6 +245,10 @@ public class PasswordPolicyValidator {
    public void unlockUser(UserInfo userInfo) {
        try {
            if (userInfo != null && StringUtils.isNotEmpty(userInfo.getId())) {
+               if(loginBookkeepingRepository != null) {
+                   loginBookkeepingRepository.updateLock(userInfo, ConstsStatus.ACTIVE);
+                   return;
+               }
                jdbcTemplate.update(UNLOCK_USER_UPDATE_STATEMENT,
                        new Object[] { ConstsStatus.ACTIVE, new Date(), userInfo.getId() },
                        new int[] { Types.VARCHAR, Types.TIMESTAMP, Types.VARCHAR });
@@ -257,6 +267,10 @@ public class PasswordPolicyValidator {
    public void resetAttempts(UserInfo userInfo) {
        try {
            if (userInfo != null && StringUtils.isNotEmpty(userInfo.getId())) {
+               if(loginBookkeepingRepository != null) {
+                   loginBookkeepingRepository.resetLockout(userInfo);
+                   return;
+               }
                jdbcTemplate.update(BADPASSWORDCOUNT_RESET_UPDATE_STATEMENT,
                        new Object[] { 0, ConstsStatus.ACTIVE, new Date(), userInfo.getId() },
                        new int[] { Types.INTEGER, Types.INTEGER, Types.TIMESTAMP, Types.VARCHAR });
@@ -285,9 +299,13 @@ public class PasswordPolicyValidator {
    
    public void plusBadPasswordCount(UserInfo userInfo) {
        if (userInfo != null && StringUtils.isNotEmpty(userInfo.getId())) {
-           userInfo.setBadPasswordCount(userInfo.getBadPasswordCount() + 1);
-           setBadPasswordCount(userInfo.getId(),userInfo.getBadPasswordCount());
            CnfPasswordPolicy passwordPolicy = passwordPolicyRepository.getPasswordPolicy();
+           if(loginBookkeepingRepository != null) {
+               loginBookkeepingRepository.plusBadPasswordCount(userInfo, passwordPolicy.getDuration());
+           }else {
+               userInfo.setBadPasswordCount(userInfo.getBadPasswordCount() + 1);
+               setBadPasswordCount(userInfo.getId(),userInfo.getBadPasswordCount());
+           }
            if(userInfo.getBadPasswordCount() >= passwordPolicy.getAttempts()) {
         	   _logger.debug("Bad Password Count {} , Max Attempts {}",
         			   userInfo.getBadPasswordCount() + 1,passwordPolicy.getAttempts());
@@ -299,11 +317,28 @@ public class PasswordPolicyValidator {
    public void resetBadPasswordCount(UserInfo userInfo) {
        if (userInfo != null && StringUtils.isNotEmpty(userInfo.getId())) {
            if(userInfo.getBadPasswordCount()>0) {
-               setBadPasswordCount(userInfo.getId(),0);
+               if(loginBookkeepingRepository != null) {
+                   loginBookkeepingRepository.resetBadPasswordCount(userInfo);
+               }else {
+                   setBadPasswordCount(userInfo.getId(),0);
+               }
            } 
        }
    }
    
+   /**
+    * drop the not yet written bad password count and lock state,
+    * used after the user is unlocked by administrator
+    * 
+    * @param userInfo
+    */
+   public void discardLoginBookkeeping(UserInfo userInfo) {
+       if (loginBookkeepingRepository != null 
+               && userInfo != null && StringUtils.isNotEmpty(userInfo.getId())) {
+           loginBookkeepingRepository.discard(userInfo.getId());
+       }
+   }
+   
    public String generateRandomPassword() {
        CnfPasswordPolicy passwordPolicy = passwordPolicyRepository.getPasswordPolicy();
        
@@ -322,4 +357,8 @@ public class PasswordPolicyValidator {
 		return passwordPolicyRepository;
 	}
 
+	public void setLoginBookkeepingRepository(LoginBookkeepingRepository loginBookkeepingRepository) {
+		this.loginBookkeepingRepository = loginBookkeepingRepository;
+	}
+
 }
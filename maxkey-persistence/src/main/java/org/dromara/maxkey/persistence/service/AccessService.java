@@ -17,8 +17,11 @@
 
 package org.dromara.maxkey.persistence.service;
 
+import java.util.List;
+
 import org.dromara.maxkey.entity.Access;
 import org.dromara.maxkey.persistence.mapper.AccessMapper;
+import org.dromara.maxkey.persistence.repository.LoginRepository;
 import org.dromara.mybatis.jpa.JpaService;
 import org.springframework.stereotype.Repository;
 
@@ -39,4 +42,39 @@ public class AccessService  extends JpaService<Access>{
 		return (AccessMapper)super.getMapper();
 	}
 
+	@Override
+	public boolean insert(Access access) {
+		boolean result = super.insert(access);
+		LoginRepository.invalidateAuthorizedApps();
+		return result;
+	}
+
+	@Override
+	public boolean insertBatch(List<Access> accessList) {
+		boolean result = super.insertBatch(accessList);
+		LoginRepository.invalidateAuthorizedApps();
+		return result;
+	}
+
+	@Override
+	public boolean update(Access access) {
+		boolean result = super.update(access);
+		LoginRepository.invalidateAuthorizedApps();
+		return result;
+	}
+
+	@Override
+	public boolean delete(String id) {
+		boolean result = super.delete(id);
+		LoginRepository.invalidateAuthorizedApps();
+		return result;
+	}
+
+	@Override
+	public boolean deleteBatch(List<String> ids) {
+		boolean result = super.deleteBatch(ids);
+		LoginRepository.invalidateAuthorizedApps();
+		return result;
+	}
+
 }
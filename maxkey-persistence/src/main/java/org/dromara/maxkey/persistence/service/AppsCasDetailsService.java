@@ -17,24 +17,22 @@
 
 package org.dromara.maxkey.persistence.service;
 
-import java.util.concurrent.TimeUnit;
+import java.util.List;
 
 import org.dromara.maxkey.entity.apps.AppsCasDetails;
+import org.dromara.maxkey.persistence.cache.CacheRegistry;
+import org.dromara.maxkey.persistence.cache.NamedCache;
 import org.dromara.maxkey.persistence.mapper.AppsCasDetailsMapper;
 import org.dromara.mybatis.jpa.JpaService;
 import org.springframework.stereotype.Repository;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-
 @Repository
 public class AppsCasDetailsService  extends JpaService<AppsCasDetails>{
 
-	protected static final   Cache<String, AppsCasDetails> detailsCache = 
-            Caffeine.newBuilder()
-                .expireAfterWrite(30, TimeUnit.MINUTES)
-                .maximumSize(200000)
-                .build();
+	public static final String CACHE_NAME = "apps_cas";
+
+	protected static final   NamedCache<AppsCasDetails> detailsCache = 
+            CacheRegistry.register(CACHE_NAME, 200000, 30);
 	
 	public AppsCasDetailsService() {
 		super(AppsCasDetailsMapper.class);
@@ -63,4 +61,27 @@ public class AppsCasDetailsService  extends JpaService<AppsCasDetails>{
 		}
 		return details;
 	}
+	
+	@Override
+	public boolean update(AppsCasDetails details) {
+		boolean updated = super.update(details);
+		detailsCache.invalidate(details.getId());
+		return updated;
+	}
+	
+	@Override
+	public boolean delete(String id) {
+		boolean deleted = super.delete(id);
+		detailsCache.invalidate(id);
+		return deleted;
+	}
+	
+	@Override
+	public boolean deleteBatch(List<String> ids) {
+		boolean deleted = super.deleteBatch(ids);
+		for(String id : ids) {
+			detailsCache.invalidate(id);
+		}
+		return deleted;
+	}
 }
@@ -17,24 +17,22 @@
 
 package org.dromara.maxkey.persistence.service;
 
-import java.util.concurrent.TimeUnit;
+import java.util.List;
 
 import org.dromara.maxkey.entity.apps.AppsFormBasedDetails;
+import org.dromara.maxkey.persistence.cache.CacheRegistry;
+import org.dromara.maxkey.persistence.cache.NamedCache;
 import org.dromara.maxkey.persistence.mapper.AppsFormBasedDetailsMapper;
 import org.dromara.mybatis.jpa.JpaService;
 import org.springframework.stereotype.Repository;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-
 @Repository
 public class AppsFormBasedDetailsService  extends JpaService<AppsFormBasedDetails>{
 
-	protected static final   Cache<String, AppsFormBasedDetails> detailsCache = 
-            Caffeine.newBuilder()
-                .expireAfterWrite(30, TimeUnit.MINUTES)
-                .maximumSize(200000)
-                .build();
+	public static final String CACHE_NAME = "apps_formbased";
+
+	protected static final   NamedCache<AppsFormBasedDetails> detailsCache = 
+            CacheRegistry.register(CACHE_NAME, 200000, 30);
 	
 	public AppsFormBasedDetailsService() {
 		super(AppsFormBasedDetailsMapper.class);
@@ -61,4 +59,27 @@ public class AppsFormBasedDetailsService  extends JpaService<AppsFormBasedDetail
 		}
 		return details;
 	}
+	
+	@Override
+	public boolean update(AppsFormBasedDetails details) {
+		boolean updated = super.update(details);
+		detailsCache.invalidate(details.getId());
+		return updated;
+	}
+	
+	@Override
+	public boolean delete(String id) {
+		boolean deleted = super.delete(id);
+		detailsCache.invalidate(id);
+		return deleted;
+	}
+	
+	@Override
+	public boolean deleteBatch(List<String> ids) {
+		boolean deleted = super.deleteBatch(ids);
+		for(String id : ids) {
+			detailsCache.invalidate(id);
+		}
+		return deleted;
+	}
 }
@@ -17,24 +17,28 @@
 
 package org.dromara.maxkey.persistence.service;
 
-import java.util.concurrent.TimeUnit;
+import java.util.List;
 
 import org.dromara.maxkey.entity.apps.AppsSAML20Details;
+import org.dromara.maxkey.persistence.cache.CacheRegistry;
+import org.dromara.maxkey.persistence.cache.NamedCache;
 import org.dromara.maxkey.persistence.mapper.AppsSaml20DetailsMapper;
 import org.dromara.mybatis.jpa.JpaService;
 import org.springframework.stereotype.Repository;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-
 @Repository
 public class AppsSaml20DetailsService  extends JpaService<AppsSAML20Details>{
 
-	protected static final   Cache<String, AppsSAML20Details> detailsCache = 
-            Caffeine.newBuilder()
-                .expireAfterWrite(30, TimeUnit.MINUTES)
-                .maximumSize(200000)
-                .build();
+	public static final String CACHE_NAME = "apps_saml20";
+
+	protected static final   NamedCache<AppsSAML20Details> detailsCache = 
+            CacheRegistry.register(CACHE_NAME, 200000, 30);
+	
+	//SAML runtime context of app , keystore and credentials , built by the SAML protocol
+	public static final String CONTEXT_CACHE_NAME = "apps_saml20_context";
+	
+	protected static final   NamedCache<?> contextCache = 
+            CacheRegistry.register(CONTEXT_CACHE_NAME, 20000, 30);
 	
 	public AppsSaml20DetailsService() {
 		super(AppsSaml20DetailsMapper.class);
@@ -61,4 +65,32 @@ public class AppsSaml20DetailsService  extends JpaService<AppsSAML20Details>{
 		}
 		return details;
 	}
+	
+	@Override
+	public boolean update(AppsSAML20Details details) {
+		boolean updated = super.update(details);
+		invalidate(details.getId());
+		return updated;
+	}
+	
+	@Override
+	public boolean delete(String id) {
+		boolean deleted = super.delete(id);
+		invalidate(id);
+		return deleted;
+	}
+	
+	@Override
+	public boolean deleteBatch(List<String> ids) {
+		boolean deleted = super.deleteBatch(ids);
+		for(String id : ids) {
+			invalidate(id);
+		}
+		return deleted;
+	}
+	
+	public void invalidate(String id) {
+		detailsCache.invalidate(id);
+		contextCache.invalidate(id);
+	}
 }
@@ -18,17 +18,15 @@
 package org.dromara.maxkey.persistence.service;
 
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 import org.dromara.maxkey.entity.apps.Apps;
 import org.dromara.maxkey.entity.apps.UserApps;
+import org.dromara.maxkey.persistence.cache.CacheRegistry;
+import org.dromara.maxkey.persistence.cache.NamedCache;
 import org.dromara.maxkey.persistence.mapper.AppsMapper;
 import org.dromara.mybatis.jpa.JpaService;
 import org.springframework.stereotype.Repository;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-
 @Repository
 public class AppsService extends JpaService<Apps>{
 	//maxkey-mgt
@@ -36,10 +34,10 @@ public class AppsService extends JpaService<Apps>{
 	
 	public static final  	String DETAIL_SUFFIX	=	"_detail";
 	
-	protected static final   Cache<String, Apps> detailsCacheStore = 
-										Caffeine.newBuilder()
-							                .expireAfterWrite(30, TimeUnit.MINUTES)
-							                .build();
+	public static final  	String CACHE_NAME		=	"apps";
+	
+	protected static final   NamedCache<Apps> detailsCacheStore = 
+										CacheRegistry.register(CACHE_NAME, 200000, 30);
 	
 	public AppsService() {
 		super(AppsMapper.class);
@@ -57,11 +55,38 @@ public class AppsService extends JpaService<Apps>{
 		return ((AppsMapper)super.getMapper()).insertApp(app)>0;
 	};
 	public boolean updateApp(Apps app) {
-		return ((AppsMapper)super.getMapper()).updateApp(app)>0;
+		boolean updated = ((AppsMapper)super.getMapper()).updateApp(app)>0;
+		invalidate(app.getId());
+		return updated;
 	};
 	
 	public boolean updateExtendAttr(Apps app) {
-		return ((AppsMapper)super.getMapper()).updateExtendAttr(app)>0;
+		boolean updated = ((AppsMapper)super.getMapper()).updateExtendAttr(app)>0;
+		invalidate(app.getId());
+		return updated;
+	}
+	
+	@Override
+	public boolean update(Apps app) {
+		boolean updated = super.update(app);
+		invalidate(app.getId());
+		return updated;
+	}
+	
+	@Override
+	public boolean delete(String id) {
+		boolean deleted = super.delete(id);
+		invalidate(id);
+		return deleted;
+	}
+	
+	@Override
+	public boolean deleteBatch(List<String> ids) {
+		boolean deleted = super.deleteBatch(ids);
+		for(String id : ids) {
+			invalidate(id);
+		}
+		return deleted;
 	}
 	
     public List<UserApps> queryMyApps(UserApps userApplications){
@@ -80,7 +105,7 @@ public class AppsService extends JpaService<Apps>{
     		appDetails = detailsCacheStore.getIfPresent(appId + DETAIL_SUFFIX); 
     		if(appDetails == null) {
     			appDetails = this.get(appId);
-    			detailsCacheStore.put(appId, appDetails);
+    			detailsCacheStore.put(appId + DETAIL_SUFFIX, appDetails);
     		}
     	}else {
     		appDetails = this.get(appId);
@@ -88,4 +113,11 @@ public class AppsService extends JpaService<Apps>{
         return appDetails;
     }
     
+    /**
+     * invalidate app on all nodes
+     */
+    public void invalidate(String appId) {
+    	detailsCacheStore.invalidate(appId + DETAIL_SUFFIX);
+    }
+    
 }
@@ -19,6 +19,7 @@ package org.dromara.maxkey.persistence.service;
 
 import org.dromara.maxkey.entity.cnf.CnfPasswordPolicy;
 import org.dromara.maxkey.persistence.mapper.CnfPasswordPolicyMapper;
+import org.dromara.maxkey.persistence.repository.PasswordPolicyRepository;
 import org.dromara.mybatis.jpa.JpaService;
 import org.springframework.stereotype.Repository;
 
@@ -37,4 +38,10 @@ public class CnfPasswordPolicyService  extends JpaService<CnfPasswordPolicy>{
 		return (CnfPasswordPolicyMapper)super.getMapper();
 	}
 	
+	@Override
+	public boolean update(CnfPasswordPolicy entity) {
+		boolean updated = super.update(entity);
+		PasswordPolicyRepository.invalidate();
+		return updated;
+	}
 }
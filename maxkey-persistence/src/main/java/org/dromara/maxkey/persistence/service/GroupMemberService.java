@@ -23,6 +23,7 @@ import org.dromara.maxkey.entity.idm.GroupMember;
 import org.dromara.maxkey.entity.idm.Groups;
 import org.dromara.maxkey.entity.idm.UserInfo;
 import org.dromara.maxkey.persistence.mapper.GroupMemberMapper;
+import org.dromara.maxkey.persistence.repository.LoginRepository;
 import org.dromara.mybatis.jpa.JpaService;
 import org.dromara.mybatis.jpa.entity.JpaPageResults;
 import org.slf4j.Logger;
@@ -45,16 +46,61 @@ public class GroupMemberService  extends JpaService<GroupMember>{
 		return (GroupMemberMapper)super.getMapper();
 	}
 	
+	@Override
+	public boolean insert(GroupMember groupMember) {
+		boolean result = super.insert(groupMember);
+		LoginRepository.invalidateGroups(groupMember.getMemberId());
+		return result;
+	}
+	
+	@Override
+	public boolean insertBatch(List<GroupMember> groupMembers) {
+		boolean result = super.insertBatch(groupMembers);
+		LoginRepository.invalidateGroups(null);
+		return result;
+	}
+	
+	@Override
+	public boolean update(GroupMember groupMember) {
+		boolean result = super.update(groupMember);
+		LoginRepository.invalidateGroups(null);
+		return result;
+	}
+	
+	@Override
+	public boolean delete(String id) {
+		boolean result = super.delete(id);
+		LoginRepository.invalidateGroups(null);
+		return result;
+	}
+	
+	@Override
+	public boolean deleteBatch(List<String> ids) {
+		boolean result = super.deleteBatch(ids);
+		LoginRepository.invalidateGroups(null);
+		return result;
+	}
+	
 	public int addDynamicMember(Groups dynamicGroup) {
-	    return getMapper().addDynamicMember(dynamicGroup);
+	    int count = getMapper().addDynamicMember(dynamicGroup);
+	    if(count > 0) {
+	    	LoginRepository.invalidateGroups(null);
+	    }
+	    return count;
 	}
 	
 	public int deleteDynamicMember(Groups dynamicGroup) {
-	    return getMapper().deleteDynamicMember(dynamicGroup);
+	    int count = getMapper().deleteDynamicMember(dynamicGroup);
+	    if(count > 0) {
+	    	LoginRepository.invalidateGroups(null);
+	    }
+	    return count;
 	}
 	
 	public int deleteByGroupId(String groupId) {
-        return getMapper().deleteByGroupId(groupId);
+        int count = getMapper().deleteByGroupId(groupId);
+        LoginRepository.invalidateGroups(null);
+        return count;
     }
 	
 	public List<UserInfo> queryMemberByGroupId(String groupId){
@@ -29,6 +29,7 @@ import org.dromara.maxkey.entity.Institutions;
 import org.dromara.maxkey.entity.idm.Groups;
 import org.dromara.maxkey.entity.permissions.Roles;
 import org.dromara.maxkey.persistence.mapper.GroupsMapper;
+import org.dromara.maxkey.persistence.repository.LoginRepository;
 import org.dromara.maxkey.util.StrUtils;
 import org.dromara.mybatis.jpa.JpaService;
 import org.slf4j.Logger;
@@ -66,6 +67,28 @@ public class GroupsService  extends JpaService<Groups> implements Serializable {
 	}
 	
 	
+	@Override
+	public boolean update(Groups group) {
+		boolean result = super.update(group);
+		//group code may change ROLE_ authorities
+		LoginRepository.invalidateAuthorities();
+		return result;
+	}
+	
+	@Override
+	public boolean delete(String id) {
+		boolean result = super.delete(id);
+		LoginRepository.invalidateAuthorities();
+		return result;
+	}
+	
+	@Override
+	public boolean deleteBatch(List<String> ids) {
+		boolean result = super.deleteBatch(ids);
+		LoginRepository.invalidateAuthorities();
+		return result;
+	}
+	
 	public List<Groups> queryDynamicGroups(Groups groups){
 	    return this.getMapper().queryDynamic(groups);
 	}
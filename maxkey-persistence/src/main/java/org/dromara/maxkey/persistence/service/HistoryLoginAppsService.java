@@ -17,14 +17,24 @@
 
 package org.dromara.maxkey.persistence.service;
 
+import java.util.List;
+
 import org.dromara.maxkey.entity.history.HistoryLoginApps;
 import org.dromara.maxkey.persistence.mapper.HistoryLoginAppsMapper;
+import org.dromara.maxkey.persistence.repository.LoginRollupRepository;
 import org.dromara.mybatis.jpa.JpaService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public class HistoryLoginAppsService  extends JpaService<HistoryLoginApps>{
+	private static final Logger _logger = LoggerFactory.getLogger(HistoryLoginAppsService.class);
 
+	@Autowired(required = false)
+	LoginRollupRepository loginRollupRepository;
+	
 	public HistoryLoginAppsService() {
 		super(HistoryLoginAppsMapper.class);
 	}
@@ -58,6 +68,13 @@ public class HistoryLoginAppsService  extends JpaService<HistoryLoginApps>{
 		@Override
 		public void run() {
 			historyLoginAppsMapper.insert(loginAppsHistory);
+			if(loginRollupRepository != null) {
+				try {
+					loginRollupRepository.rollupApps(List.of(loginAppsHistory));
+				}catch(Exception e) {
+					_logger.error("rollup login app {} error" , loginAppsHistory.getAppId() , e);
+				}
+			}
 		}
 		
 	}
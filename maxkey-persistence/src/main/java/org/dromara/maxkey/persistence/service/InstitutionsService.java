@@ -19,6 +19,7 @@ package org.dromara.maxkey.persistence.service;
 
 import org.dromara.maxkey.entity.Institutions;
 import org.dromara.maxkey.persistence.mapper.InstitutionsMapper;
+import org.dromara.maxkey.persistence.repository.InstitutionsRepository;
 import org.dromara.mybatis.jpa.JpaService;
 import org.springframework.stereotype.Repository;
 
@@ -41,5 +42,11 @@ public class InstitutionsService  extends JpaService<Institutions>{
 	 public Institutions findByDomain(String domain) {
 		 return getMapper().findByDomain(domain);
 	 };
-	 
+	
+	@Override
+	public boolean update(Institutions entity) {
+		boolean updated = super.update(entity);
+		InstitutionsRepository.invalidate();
+		return updated;
+	}
 }
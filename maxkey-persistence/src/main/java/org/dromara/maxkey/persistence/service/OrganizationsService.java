@@ -19,13 +19,15 @@ package org.dromara.maxkey.persistence.service;
 
 import java.sql.Types;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
 import org.dromara.maxkey.entity.idm.Organizations;
+import org.dromara.maxkey.entity.idm.OrganizationsTree;
+import org.dromara.maxkey.persistence.mapper.MapperBatch;
 import org.dromara.maxkey.persistence.mapper.OrganizationsMapper;
 import org.dromara.maxkey.provision.ProvisionAction;
 import org.dromara.maxkey.provision.ProvisionService;
@@ -33,7 +35,6 @@ import org.dromara.maxkey.provision.ProvisionTopic;
 import org.dromara.mybatis.jpa.JpaService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -45,6 +46,9 @@ public class OrganizationsService  extends JpaService<Organizations>{
     @Autowired
     ProvisionService provisionService;
     
+    @Autowired
+    SqlSessionFactory sqlSessionFactory;
+    
 	public OrganizationsService() {
 		super(OrganizationsMapper.class);
 	}
@@ -102,37 +106,52 @@ public class OrganizationsService  extends JpaService<Organizations>{
 	 }
 
 
+	public List<Organizations> findByInstId(String instId) {
+		return find("instid = ?", new Object[] { instId }, new int[] { Types.VARCHAR });
+	}
+	
+	/**
+	 * write parent name , code path and name path of organizations with JDBC batch ,
+	 * and send the provisioning messages
+	 * @param organizations
+	 * @return affected rows
+	 */
+	public int updateTreePathBatch(List<Organizations> organizations) {
+		int affected = MapperBatch.execute(
+				sqlSessionFactory, OrganizationsMapper.class, organizations, OrganizationsMapper::updateTreePath);
+		provisionService.sendBatch(ProvisionTopic.ORG_TOPIC, organizations, ProvisionAction.UPDATE_ACTION);
+		return affected;
+	}
+
 	public void reorgNamePath(String instId) {
 		_logger.debug("instId {}", instId);
 		if (StringUtils.isBlank(instId)) {
 			instId = "1";
 		}
 
-		HashMap<String, Organizations> reorgOrgMap = new HashMap<>();
-		List<Organizations> orgList = find(" where instid ='" + instId + "'");
-		List<Organizations> originOrgList = new ArrayList<>();
+		OrganizationsTree orgsTree = new OrganizationsTree(findByInstId(instId));
 		Organizations rootOrg = null;
-		for (Organizations org : orgList) {
-			reorgOrgMap.put(org.getId(), org);
+		for (Organizations org : orgsTree.getOrganizations()) {
 			if (isRootOrg(org)) {
 				rootOrg = org;
 			}
-			Organizations cloneOrg = new Organizations();
-			BeanUtils.copyProperties(org, cloneOrg);
-			originOrgList.add(cloneOrg);
+		}
+		if (rootOrg == null) {
+			_logger.warn("root organization of instId {} not found", instId);
+			return;
 		}
 		try {
-			reorg(reorgOrgMap, orgList, rootOrg);
-			_logger.debug("reorged .");
-			long reorgCount = 0;
-			for (Organizations originOrg : originOrgList) {
-				Organizations reorgOrg = reorgOrgMap.get(originOrg.getId());
-				_logger.trace("reorged Organization {}", reorgOrg);
-				if (originOrg.getNamePath() == null || !originOrg.getNamePath().equals(reorgOrg.getNamePath())) {
-					_logger.debug("update reorgCount {} , Organization {}", ++reorgCount, reorgOrg);
-					getMapper().updateNamePath(reorgOrg);
-				}
+			List<Organizations> reorgOrgs = new ArrayList<>();
+			String codePath = "/" + rootOrg.getId() + "/";
+			String namePath = "/" + rootOrg.getOrgName() + "/";
+			if (!codePath.equals(rootOrg.getCodePath()) || !namePath.equals(rootOrg.getNamePath())) {
+				rootOrg.setCodePath(codePath);
+				rootOrg.setNamePath(namePath);
+				reorgOrgs.add(rootOrg);
 			}
+			reorgOrgs.addAll(orgsTree.buildPaths(rootOrg, OrganizationsTree.SLASH_TERMINATED));
+			_logger.debug("reorged , update {} of {}", reorgOrgs.size(), orgsTree.size());
+			MapperBatch.execute(sqlSessionFactory, OrganizationsMapper.class, reorgOrgs, OrganizationsMapper::updateNamePath);
 			_logger.debug("reorg finished .");
 		} catch (Exception e) {
 			_logger.error("reorgNamePath Exception ", e);
@@ -148,25 +167,6 @@ public class OrganizationsService  extends JpaService<Organizations>{
 		return false;
 	}
 
-	void reorg(HashMap<String, Organizations> orgMap, List<Organizations> orgList, Organizations rootOrg) {
-		if (isRootOrg(rootOrg)) {
-			rootOrg.setCodePath("/" + rootOrg.getId() + "/");
-			rootOrg.setNamePath("/" + rootOrg.getOrgName() + "/");
-		} else {
-			Organizations parent = orgMap.get(rootOrg.getParentId());
-			rootOrg.setCodePath(parent.getCodePath() + rootOrg.getId() + "/");
-			rootOrg.setNamePath(parent.getNamePath() + rootOrg.getOrgName() + "/");
-		}
-		rootOrg.setReorgNamePath(true);
-
-		for (Organizations org : orgList) {
-			if (org.isReorgNamePath())
-				continue;
-			if (org.getParentId().equalsIgnoreCase(rootOrg.getId())) {
-				reorg(orgMap, orgList, org);
-			}
-		}
-	}
 	 /**
 	     *       根据数据格式返回数据
      *
@@ -17,6 +17,8 @@
 
 package org.dromara.maxkey.persistence.service;
 
+import java.sql.Date;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,11 +27,20 @@ import org.dromara.mybatis.jpa.JpaService;
 import org.dromara.mybatis.jpa.entity.JpaEntity;
 import org.springframework.stereotype.Repository;
 
+/**
+ * dashboard reports , login counts are read from the rollups maintained by LoginRollupRepository ,
+ * so the reports scan days not logins .
+ */
 @Repository
 public class ReportService  extends JpaService<JpaEntity>{
+	
+	/**
+	 * days of the month , browser and app reports
+	 */
+	public static final int REPORT_DAYS = 30;
 
 	public Integer analysisDay(HashMap<String,Object> reportParameter) {
-		return getMapper().analysisDay(reportParameter);
+		return getMapper().analysisDay(rollupParameter(reportParameter));
 	};
 	
 	public Integer analysisNewUsers(HashMap<String,Object> reportParameter) {
@@ -45,24 +56,37 @@ public class ReportService  extends JpaService<JpaEntity>{
 	};
 	
 	public List<Map<String,Object>> analysisDayHour(HashMap<String,Object> reportParameter){
-		return getMapper().analysisDayHour(reportParameter);
+		return getMapper().analysisDayHour(rollupParameter(reportParameter));
 	}
 	
 	public List<Map<String,Object>> analysisMonth(HashMap<String,Object> reportParameter){
-		return getMapper().analysisMonth(reportParameter);
+		return getMapper().analysisMonth(rollupParameter(reportParameter));
 	}
 	
 	
 	public List<Map<String,Object>> analysisBrowser(HashMap<String,Object> reportParameter){
-		return getMapper().analysisBrowser(reportParameter);
+		return getMapper().analysisBrowser(rollupParameter(reportParameter));
 	}
 	
 	public List<Map<String,Object>> analysisApp(HashMap<String,Object> reportParameter){
-		return getMapper().analysisApp(reportParameter);
+		return getMapper().analysisApp(rollupParameter(reportParameter));
 	}
 	
 	
 	
+	/**
+	 * instId , rollupDay today and rollupSince the first day of the reports ,
+	 * days are of the application server as the rollups
+	 */
+	HashMap<String,Object> rollupParameter(HashMap<String,Object> reportParameter){
+		LocalDate today = LocalDate.now();
+		HashMap<String,Object> rollupParameter = new HashMap<>();
+		rollupParameter.put("instId", reportParameter.get("instId"));
+		rollupParameter.put("rollupDay", Date.valueOf(today));
+		rollupParameter.put("rollupSince", Date.valueOf(today.minusDays(REPORT_DAYS)));
+		return rollupParameter;
+	}
+	
 	public ReportService() {
 		super(ReportMapper.class);
 		
@@ -18,20 +18,32 @@
 package org.dromara.maxkey.persistence.service;
 
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.dromara.maxkey.entity.SynchroRelated;
 import org.dromara.maxkey.entity.Synchronizers;
 import org.dromara.maxkey.entity.idm.Organizations;
+import org.dromara.maxkey.persistence.mapper.MapperBatch;
 import org.dromara.maxkey.persistence.mapper.SynchroRelatedMapper;
 import org.dromara.maxkey.util.DateUtils;
 import org.dromara.mybatis.jpa.JpaService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public class SynchroRelatedService  extends JpaService<SynchroRelated>{
 
+	static final int IN_CLAUSE_SIZE = 500;
+	
+	@Autowired
+	SqlSessionFactory sqlSessionFactory;
+
 	public SynchroRelatedService() {
 		super(SynchroRelatedMapper.class);
 	}
@@ -74,4 +86,65 @@ public class SynchroRelatedService  extends JpaService<SynchroRelated>{
 			updateSyncTime(synchroRelated);
 		}
 	}
+	
+	/**
+	 * related rows by originId , one query per IN_CLAUSE_SIZE originIds
+	 * @param synchronizer
+	 * @param originIds
+	 * @param classType
+	 * @return originId to related row
+	 */
+	public Map<String, SynchroRelated> findByOriginIds(Synchronizers synchronizer,List<String> originIds,String classType) {
+		Map<String, SynchroRelated> loadSynchroRelateds = new HashMap<>();
+		for(int from = 0 ; from < originIds.size() ; from += IN_CLAUSE_SIZE) {
+			List<String> chunk = originIds.subList(from, Math.min(from + IN_CLAUSE_SIZE, originIds.size()));
+			Object[] args = new Object[chunk.size() + 3];
+			int[] argTypes = new int[chunk.size() + 3];
+			args[0] = synchronizer.getInstId();
+			args[1] = synchronizer.getId();
+			args[2] = classType;
+			StringBuilder condition = new StringBuilder("instid = ? and syncid = ? and objecttype = ? and originid in (");
+			for(int i = 0 ; i < chunk.size() ; i++) {
+				condition.append(i == 0 ? "?" : ",?");
+				args[i + 3] = chunk.get(i);
+			}
+			condition.append(")");
+			Arrays.fill(argTypes, Types.VARCHAR);
+			for(SynchroRelated loadSynchroRelated : find(condition.toString(), args, argTypes)) {
+				loadSynchroRelateds.put(loadSynchroRelated.getOriginId(), loadSynchroRelated);
+			}
+		}
+		return loadSynchroRelateds;
+	}
+	
+	/**
+	 * insert new related rows and update the sync time and originId3 of existing rows with JDBC batch ,
+	 * existing rows are read by originId with one query per IN_CLAUSE_SIZE rows
+	 * @param synchronizer
+	 * @param synchroRelateds
+	 * @param classType
+	 */
+	public void updateSynchroRelatedBatch(Synchronizers synchronizer,List<SynchroRelated> synchroRelateds,String classType) {
+		List<String> originIds = new ArrayList<>(synchroRelateds.size());
+		for(SynchroRelated synchroRelated : synchroRelateds) {
+			originIds.add(synchroRelated.getOriginId());
+		}
+		Map<String, SynchroRelated> loadSynchroRelateds = findByOriginIds(synchronizer, originIds, classType);
+		
+		String syncTime = DateUtils.formatDateTime(new Date());
+		List<SynchroRelated> inserts = new ArrayList<>();
+		List<SynchroRelated> updates = new ArrayList<>();
+		for(SynchroRelated synchroRelated : synchroRelateds) {
+			SynchroRelated loadSynchroRelated = loadSynchroRelateds.get(synchroRelated.getOriginId());
+			if(loadSynchroRelated == null) {
+				inserts.add(synchroRelated);
+			}else {
+				synchroRelated.setId(loadSynchroRelated.getId());
+				synchroRelated.setSyncTime(syncTime);
+				updates.add(synchroRelated);
+			}
+		}
+		MapperBatch.execute(sqlSessionFactory, SynchroRelatedMapper.class, inserts, SynchroRelatedMapper::insert);
+		MapperBatch.execute(sqlSessionFactory, SynchroRelatedMapper.class, updates, SynchroRelatedMapper::updateSyncTimeAndOriginId3);
+	}
 }
@@ -40,8 +40,13 @@ public class SynchronizersService  extends JpaService<Synchronizers>{
 		return (SynchronizersMapper)super.getMapper();
 	}
 	
-	
-
-
+	/**
+	 * save the incremental synchronization watermark only
+	 * @param synchronizer
+	 * @return
+	 */
+	public boolean updateSyncWatermark(Synchronizers synchronizer) {
+		return getMapper().updateSyncWatermark(synchronizer) > 0;
+	}
 	
 }
@@ -19,14 +19,32 @@ package org.dromara.maxkey.persistence.service;
 
 
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.dromara.maxkey.constants.ConstsStatus;
 import org.dromara.maxkey.crypto.password.PasswordReciprocal;
 import org.dromara.maxkey.entity.Accounts;
 import org.dromara.maxkey.entity.ChangePassword;
+import org.dromara.maxkey.entity.ImportResult;
+import org.dromara.maxkey.entity.idm.Organizations;
 import org.dromara.maxkey.entity.idm.UserInfo;
+import org.dromara.maxkey.persistence.mapper.MapperBatch;
 import org.dromara.maxkey.persistence.mapper.UserInfoMapper;
 import org.dromara.maxkey.persistence.repository.PasswordPolicyValidator;
 import org.dromara.maxkey.provision.ProvisionAction;
@@ -36,6 +54,7 @@ import org.dromara.maxkey.web.WebContext;
 import org.dromara.mybatis.jpa.JpaService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Repository;
@@ -58,8 +77,22 @@ public class UserInfoService extends JpaService<UserInfo> {
 	@Autowired
 	ProvisionService provisionService;
 
+	@Autowired
+	SqlSessionFactory sqlSessionFactory;
+
+	@Autowired
+	OrganizationsService organizationsService;
+
 	AccountsService accountsService;
 	
+	static final int IN_CLAUSE_SIZE = 500;
+	
+	/**
+	 * bounded pool of batch password encoding , bcrypt costs tens of milliseconds per password ,
+	 * idle threads are released
+	 */
+	static final ThreadPoolExecutor PASSWORD_ENCODER_EXECUTOR = passwordEncoderExecutor();
+	
 	public UserInfoService() {
 		super(UserInfoMapper.class);
 	}
@@ -195,6 +228,352 @@ public class UserInfoService extends JpaService<UserInfo> {
 		}
 	}
 	
+	/**
+	 * insert or update users of one institution by username ,
+	 * existing users are read with one query , rows are written with JDBC batch in one transaction 
+	 * and provisioning messages are built from the batch without reading the users again
+	 * @param userInfos users of one institution
+	 * @return affected rows
+	 */
+	public int saveOrUpdateBatch(List<UserInfo> userInfos) {
+		if(userInfos.isEmpty()) {
+			return 0;
+		}
+		List<String> usernames = new ArrayList<>(userInfos.size());
+		for(UserInfo userInfo : userInfos) {
+			usernames.add(userInfo.getUsername());
+		}
+		Map<String, UserInfo> loadUserInfos = findByUsernames(userInfos.get(0).getInstId(), usernames);
+		List<UserInfo> inserts = new ArrayList<>();
+		List<UserInfo> updates = new ArrayList<>();
+		for(UserInfo userInfo : userInfos) {
+			UserInfo loadUserInfo = loadUserInfos.get(userInfo.getUsername());
+			if(loadUserInfo == null) {
+				inserts.add(userInfo);
+			}else {
+				userInfo.setId(loadUserInfo.getId());
+				userInfo.setPassword(null);
+				this.passwordEncoder(userInfo);
+				updates.add(userInfo);
+			}
+		}
+		//synchronized sources may provide encoded passwords , {bcrypt}...
+		Map<Integer, Exception> encodeErrors = passwordEncoderBatch(inserts, true);
+		if(!encodeErrors.isEmpty()) {
+			throw new IllegalStateException("password encode error" , encodeErrors.values().iterator().next());
+		}
+		//inserts and updates are committed together , so provisioning never misses committed inserts
+		int affected = MapperBatch.execute(sqlSessionFactory, UserInfoMapper.class, mapper -> {
+			for(UserInfo userInfo : inserts) {
+				mapper.insert(userInfo);
+			}
+			for(UserInfo userInfo : updates) {
+				mapper.update(userInfo);
+			}
+		});
+		_logger.debug("batch insert {} , update {} , affected {}" , inserts.size() , updates.size() , affected);
+		provisioningBatch(inserts, updates);
+		return affected;
+	}
+	
+	/**
+	 * bulk import of users , Excel import and so on .<br>
+	 * passwords of new users are encoded in parallel on a bounded pool , rows are written with JDBC batch ,
+	 * a failed batch is written again row by row , provisioning messages are built from the imported users .
+	 * rows with empty or duplicate username , existing users when not updateExist and rows failed to write 
+	 * are reported in the result
+	 * @param userInfos users
+	 * @param updateExist update existing users , the password of existing users is not changed
+	 * @return ImportResult
+	 */
+	public ImportResult importBatch(List<UserInfo> userInfos, boolean updateExist) {
+		ImportResult result = new ImportResult(userInfos.size());
+		//instId/username to row
+		Map<String, Integer> usernameRows = new HashMap<>();
+		Map<String, List<String>> instUsernames = new HashMap<>();
+		boolean [] rejected = new boolean[userInfos.size()];
+		for(int row = 0 ; row < userInfos.size() ; row++) {
+			UserInfo userInfo = userInfos.get(row);
+			if(StringUtils.isBlank(userInfo.getUsername())) {
+				result.addError(row, null, "username is empty");
+				rejected[row] = true;
+			}else if(StringUtils.isBlank(userInfo.getInstId())) {
+				result.addError(row, userInfo.getUsername(), "instId is empty");
+				rejected[row] = true;
+			}else if(usernameRows.putIfAbsent(userInfo.getInstId() + "/" + userInfo.getUsername(), row) != null) {
+				result.addError(row, userInfo.getUsername(), "duplicate username");
+				rejected[row] = true;
+			}else {
+				instUsernames.computeIfAbsent(userInfo.getInstId(), k -> new ArrayList<>()).add(userInfo.getUsername());
+			}
+		}
+		
+		Map<String, UserInfo> loadUserInfos = new HashMap<>();
+		for(Map.Entry<String, List<String>> entry : instUsernames.entrySet()) {
+			for(UserInfo loadUserInfo : findByUsernames(entry.getKey(), entry.getValue()).values()) {
+				loadUserInfos.put(entry.getKey() + "/" + loadUserInfo.getUsername(), loadUserInfo);
+			}
+		}
+		
+		List<UserInfo> inserts = new ArrayList<>();
+		List<Integer> insertRows = new ArrayList<>();
+		List<UserInfo> updates = new ArrayList<>();
+		List<Integer> updateRows = new ArrayList<>();
+		for(int row = 0 ; row < userInfos.size() ; row++) {
+			if(rejected[row]) {
+				continue;
+			}
+			UserInfo userInfo = userInfos.get(row);
+			UserInfo loadUserInfo = loadUserInfos.get(userInfo.getInstId() + "/" + userInfo.getUsername());
+			if(loadUserInfo == null) {
+				inserts.add(userInfo);
+				insertRows.add(row);
+			}else if(updateExist) {
+				userInfo.setId(loadUserInfo.getId());
+				userInfo.setPassword(null);
+				this.passwordEncoder(userInfo);
+				updates.add(userInfo);
+				updateRows.add(row);
+			}else {
+				result.addError(row, userInfo.getUsername(), "username exists");
+			}
+		}
+		
+		Map<Integer, Exception> encodeErrors = passwordEncoderBatch(inserts, false);
+		if(!encodeErrors.isEmpty()) {
+			List<UserInfo> encodedInserts = new ArrayList<>(inserts.size());
+			List<Integer> encodedRows = new ArrayList<>(inserts.size());
+			for(int i = 0 ; i < inserts.size() ; i++) {
+				if(encodeErrors.containsKey(i)) {
+					result.addError(insertRows.get(i), inserts.get(i).getUsername(), "password encode error " + encodeErrors.get(i).getMessage());
+				}else {
+					encodedInserts.add(inserts.get(i));
+					encodedRows.add(insertRows.get(i));
+				}
+			}
+			inserts = encodedInserts;
+			insertRows = encodedRows;
+		}
+		
+		List<UserInfo> inserted = importWrite(inserts, insertRows, UserInfoMapper::insert, result);
+		List<UserInfo> updated = importWrite(updates, updateRows, UserInfoMapper::update, result);
+		result.addInserted(inserted.size());
+		result.addUpdated(updated.size());
+		provisioningBatch(inserted, updated);
+		_logger.debug("import {}" , result);
+		return result;
+	}
+	
+	/**
+	 * update users by id with JDBC batch , a failed batch is written again row by row ,
+	 * the password is not changed , provisioning messages are built from the updated users .
+	 * the users must exist , rows failed to write are reported in the result
+	 * @param userInfos users with id
+	 * @return ImportResult
+	 */
+	public ImportResult updateBatch(List<UserInfo> userInfos) {
+		ImportResult result = new ImportResult(userInfos.size());
+		List<Integer> rows = new ArrayList<>(userInfos.size());
+		for(int row = 0 ; row < userInfos.size() ; row++) {
+			UserInfo userInfo = userInfos.get(row);
+			userInfo.setPassword(null);
+			this.passwordEncoder(userInfo);
+			rows.add(row);
+		}
+		List<UserInfo> updated = importWrite(userInfos, rows, UserInfoMapper::update, result);
+		result.addUpdated(updated.size());
+		provisioningBatch(new ArrayList<>(), updated);
+		_logger.debug("update {}" , result);
+		return result;
+	}
+	
+	/**
+	 * write rows with JDBC batch , the batch is rolled back on error and the rows are written one by one
+	 * @return rows written
+	 */
+	List<UserInfo> importWrite(List<UserInfo> rows, List<Integer> rowIndexes, 
+			BiConsumer<UserInfoMapper, UserInfo> statement, ImportResult result) {
+		try {
+			MapperBatch.execute(sqlSessionFactory, UserInfoMapper.class, rows, statement);
+			return rows;
+		}catch(Exception e) {
+			_logger.warn("batch of {} users error , write one by one" , rows.size() , e);
+		}
+		List<UserInfo> written = new ArrayList<>(rows.size());
+		for(int i = 0 ; i < rows.size() ; i++) {
+			UserInfo userInfo = rows.get(i);
+			try {
+				MapperBatch.execute(sqlSessionFactory, UserInfoMapper.class, List.of(userInfo), statement);
+				written.add(userInfo);
+			}catch(Exception e) {
+				_logger.debug("write user {} error" , userInfo.getUsername() , e);
+				result.addError(rowIndexes.get(i), userInfo.getUsername(), e.getMessage());
+			}
+		}
+		return written;
+	}
+	
+	/**
+	 * provisioning messages of batch , built from the users with the departments loaded in bulk
+	 */
+	void provisioningBatch(List<UserInfo> inserts, List<UserInfo> updates) {
+		if(provisionService.getApplicationConfig().isProvisionSupport()) {
+			loadDepts(inserts);
+			loadDepts(updates);
+			for(UserInfo userInfo : updates) {
+				accountUpdate(userInfo);
+			}
+			provisionService.sendBatch(ProvisionTopic.USERINFO_TOPIC, inserts, ProvisionAction.CREATE_ACTION);
+			provisionService.sendBatch(ProvisionTopic.USERINFO_TOPIC, updates, ProvisionAction.UPDATE_ACTION);
+		}
+	}
+	
+	/**
+	 * departments of users as findUserRelated , two queries per IN_CLAUSE_SIZE users
+	 * @param userInfos users
+	 */
+	void loadDepts(List<UserInfo> userInfos) {
+		for(int from = 0 ; from < userInfos.size() ; from += IN_CLAUSE_SIZE) {
+			List<UserInfo> chunk = userInfos.subList(from, Math.min(from + IN_CLAUSE_SIZE, userInfos.size()));
+			List<String> userIds = new ArrayList<>(chunk.size());
+			for(UserInfo userInfo : chunk) {
+				userIds.add(userInfo.getId());
+			}
+			List<Map<String, Object>> userDeptIds = getMapper().findDeptIdsByUserIds(userIds);
+			Map<String, Organizations> depts = new HashMap<>();
+			if(!userDeptIds.isEmpty()) {
+				Set<String> deptIds = new HashSet<>();
+				for(Map<String, Object> userDeptId : userDeptIds) {
+					deptIds.add(String.valueOf(userDeptId.get("departmentid")));
+				}
+				for(Organizations dept : organizationsService.findByIds(new ArrayList<>(deptIds))) {
+					depts.put(dept.getId(), dept);
+				}
+			}
+			Map<String, List<Organizations>> userDepts = new HashMap<>();
+			for(Map<String, Object> userDeptId : userDeptIds) {
+				Organizations dept = depts.get(String.valueOf(userDeptId.get("departmentid")));
+				if(dept != null) {
+					//isPrimary differs per user
+					Organizations userDept = new Organizations();
+					BeanUtils.copyProperties(dept, userDept);
+					userDept.setIsPrimary(((Number) userDeptId.get("isprimary")).intValue());
+					userDepts.computeIfAbsent(String.valueOf(userDeptId.get("userid")), k -> new ArrayList<>()).add(userDept);
+				}
+			}
+			for(UserInfo userInfo : chunk) {
+				userInfo.setDepts(userDepts.getOrDefault(userInfo.getId(), new ArrayList<>()));
+			}
+		}
+	}
+	
+	/**
+	 * encode passwords of users in parallel on PASSWORD_ENCODER_EXECUTOR
+	 * @param userInfos users
+	 * @param keepEncoded passwords with encoder id prefix {id} are kept
+	 * @return index of user to error
+	 */
+	Map<Integer, Exception> passwordEncoderBatch(List<UserInfo> userInfos, boolean keepEncoded) {
+		Map<Integer, Exception> errors = new HashMap<>();
+		List<Future<?>> futures = new ArrayList<>(userInfos.size());
+		for(UserInfo userInfo : userInfos) {
+			if(keepEncoded && isEncodedPassword(userInfo.getPassword())) {
+				userInfo.setDecipherable(null);
+				futures.add(CompletableFuture.completedFuture(null));
+			}else {
+				futures.add(PASSWORD_ENCODER_EXECUTOR.submit(() -> passwordEncoder(userInfo)));
+			}
+		}
+		for(int i = 0 ; i < futures.size() ; i++) {
+			try {
+				futures.get(i).get();
+			}catch(ExecutionException e) {
+				errors.put(i, e.getCause() instanceof Exception cause ? cause : e);
+			}catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				for(int j = i ; j < futures.size() ; j++) {
+					futures.get(j).cancel(true);
+					errors.put(j, e);
+				}
+				break;
+			}
+		}
+		return errors;
+	}
+	
+	static boolean isEncodedPassword(String password) {
+		return password != null && password.startsWith("{") && password.indexOf('}') > 1;
+	}
+	
+	static ThreadPoolExecutor passwordEncoderExecutor() {
+		int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+		AtomicInteger threadNumber = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, "password-encoder-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+	
+	/**
+	 * users of institution by usernames , IN_CLAUSE_SIZE usernames per query
+	 * @param instId institution
+	 * @param usernames usernames
+	 * @return username to user
+	 */
+	public Map<String, UserInfo> findByUsernames(String instId, List<String> usernames) {
+		Map<String, UserInfo> userInfos = new HashMap<>();
+		for(int from = 0 ; from < usernames.size() ; from += IN_CLAUSE_SIZE) {
+			List<String> chunk = usernames.subList(from, Math.min(from + IN_CLAUSE_SIZE, usernames.size()));
+			Object[] args = new Object[chunk.size() + 1];
+			int[] argTypes = new int[chunk.size() + 1];
+			StringBuilder condition = new StringBuilder("instid = ? and username in (");
+			args[0] = instId;
+			argTypes[0] = Types.VARCHAR;
+			for(int i = 0 ; i < chunk.size() ; i++) {
+				condition.append(i == 0 ? "?" : ",?");
+				args[i + 1] = chunk.get(i);
+				argTypes[i + 1] = Types.VARCHAR;
+			}
+			condition.append(")");
+			for(UserInfo userInfo : find(condition.toString(), args, argTypes)) {
+				userInfos.put(userInfo.getUsername(), userInfo);
+			}
+		}
+		return userInfos;
+	}
+	
+	/**
+	 * users of institution by ids , IN_CLAUSE_SIZE ids per query
+	 * @param instId institution
+	 * @param ids user ids
+	 * @return id to user
+	 */
+	public Map<String, UserInfo> findByIds(String instId, List<String> ids) {
+		Map<String, UserInfo> userInfos = new HashMap<>();
+		for(int from = 0 ; from < ids.size() ; from += IN_CLAUSE_SIZE) {
+			List<String> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_SIZE, ids.size()));
+			Object[] args = new Object[chunk.size() + 1];
+			int[] argTypes = new int[chunk.size() + 1];
+			StringBuilder condition = new StringBuilder("instid = ? and id in (");
+			args[0] = instId;
+			argTypes[0] = Types.VARCHAR;
+			for(int i = 0 ; i < chunk.size() ; i++) {
+				condition.append(i == 0 ? "?" : ",?");
+				args[i + 1] = chunk.get(i);
+				argTypes[i + 1] = Types.VARCHAR;
+			}
+			condition.append(")");
+			for(UserInfo userInfo : find(condition.toString(), args, argTypes)) {
+				userInfos.put(userInfo.getId(), userInfo);
+			}
+		}
+		return userInfos;
+	}
+	
 	public boolean updateProtectedApps(UserInfo userinfo) {
 		try {
 			userinfo.setModifiedDate(new Date());
@@ -376,6 +755,7 @@ public class UserInfoService extends JpaService<UserInfo> {
 				userInfo.setIsLocked(ConstsStatus.START);
 				userInfo.setBadPasswordCount(0);
 				getMapper().updateLockout(userInfo);
+				passwordPolicyValidator.discardLoginBookkeeping(userInfo);
 			}
 		} catch(Exception e) {
 			e.printStackTrace();
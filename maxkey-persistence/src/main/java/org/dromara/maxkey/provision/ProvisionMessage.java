@@ -26,6 +26,10 @@ public class ProvisionMessage {
     String  content;
     int     connected;
     int     instId;
+    /**
+     * connector ids of a dead letter , a redriven message is only delivered to them
+     */
+    String  failedConnectors;
     
     Object  sourceObject;
 
@@ -93,6 +97,14 @@ public class ProvisionMessage {
 		this.instId = instId;
 	}
 
+	public String getFailedConnectors() {
+		return failedConnectors;
+	}
+
+	public void setFailedConnectors(String failedConnectors) {
+		this.failedConnectors = failedConnectors;
+	}
+
 	public ProvisionMessage() {
     }
 
@@ -17,19 +17,23 @@
 
 package org.dromara.maxkey.provision;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.dromara.maxkey.configuration.ApplicationConfig;
-import org.dromara.maxkey.provision.thread.ProvisioningThread;
+import org.dromara.maxkey.provision.thread.ProvisioningOutbox;
 import org.dromara.maxkey.util.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 @Component
-public class ProvisionService {
+public class ProvisionService implements DisposableBean{
     private static final Logger _logger = LoggerFactory.getLogger(ProvisionService.class);
     
     @Autowired
@@ -37,6 +41,19 @@ public class ProvisionService {
     
     @Autowired
     JdbcTemplate jdbcTemplate;
+    
+    @Value("${maxkey.provision.outbox.workers:2}")
+    int outboxWorkers = ProvisioningOutbox.DEFAULT_WORKERS;
+    
+    @Value("${maxkey.provision.outbox.capacity:10000}")
+    int outboxCapacity = ProvisioningOutbox.DEFAULT_CAPACITY;
+    
+    @Value("${maxkey.provision.outbox.batch.size:200}")
+    int outboxBatchSize = ProvisioningOutbox.DEFAULT_BATCH_SIZE;
+    
+    volatile ProvisioningOutbox outbox;
+    
+    final AtomicLong messageSequence = new AtomicLong();
 
     /**
      * send  msg to jdbc
@@ -49,7 +66,7 @@ public class ProvisionService {
         if(applicationConfig.isProvisionSupport()) {
             ProvisionMessage message = 
             		new ProvisionMessage(
-            				UUID.randomUUID().toString(),	//message id as uuid
+            				nextMessageId(),	//message id in send order
             				topic,	//TOPIC
             				actionType,	//action of content
             				DateUtils.getCurrentDateTimeAsString(),	//send time
@@ -57,16 +74,69 @@ public class ProvisionService {
             				content
             				);
             //sand msg to provision topic
-            Thread thread = null;
-            if(applicationConfig.isProvisionSupport()) {
-            	_logger.trace("message...");
-            	thread = new  ProvisioningThread(jdbcTemplate,message);
-            	thread.start();
-            }else{
-            	_logger.trace("no send message...");
+            _logger.trace("message...");
+            getOutbox().send(message);
+        }else{
+        	_logger.trace("no send message...");
+        }
+    }
+    
+    /**
+     * send messages of a batch , the outbox writes them in JDBC batches of at most outbox batch size
+     * @param topic TOPIC
+     * @param contents msg Objects
+     * @param actionType CREATE UPDATE DELETE
+     */
+    public void sendBatch(String topic,List<?> contents,String actionType) {
+        if(applicationConfig.isProvisionSupport() && !contents.isEmpty()) {
+            String sendTime = DateUtils.getCurrentDateTimeAsString();
+            ProvisioningOutbox batchOutbox = getOutbox();
+            for(Object content : contents) {
+                batchOutbox.send(new ProvisionMessage(
+                        nextMessageId(),
+                        topic,
+                        actionType,
+                        sendTime,
+                        null,
+                        content));
             }
+            _logger.debug("send {} {} messages" , contents.size() , topic);
         }
     }
+    
+    /**
+     * message id in send order , the runner delivers the messages of the same send time by id ,
+     * time millis and sequence of this node , then random for uniqueness across nodes
+     * @return message id
+     */
+    String nextMessageId() {
+        return String.format("%013d%06d-%s", 
+        		System.currentTimeMillis(),
+        		messageSequence.incrementAndGet() % 1000000,
+        		UUID.randomUUID().toString().substring(0, 18));
+    }
+    
+    /**
+     * outbox is created on first message , so nodes without provisioning start no workers
+     * @return ProvisioningOutbox
+     */
+    public ProvisioningOutbox getOutbox() {
+    	if(outbox == null) {
+    		synchronized (this) {
+    			if(outbox == null) {
+    				outbox = new ProvisioningOutbox(jdbcTemplate,outboxWorkers,outboxCapacity,outboxBatchSize);
+    			}
+			}
+    	}
+    	return outbox;
+    }
+    
+    @Override
+	public void destroy() {
+		if(outbox != null) {
+			outbox.shutdown();
+		}
+	}
 
 	public void setApplicationConfig(ApplicationConfig applicationConfig) {
 		this.applicationConfig = applicationConfig;
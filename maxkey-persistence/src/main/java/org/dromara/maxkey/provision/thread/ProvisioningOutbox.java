@@ -0,0 +1,312 @@
+/*
+ * Copyright [2022] [MaxKey of copyright http://www.maxkey.top]
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.maxkey.provision.thread;
+
+import java.io.Serializable;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.dromara.maxkey.entity.Accounts;
+import org.dromara.maxkey.entity.ChangePassword;
+import org.dromara.maxkey.entity.idm.Organizations;
+import org.dromara.maxkey.entity.idm.UserInfo;
+import org.dromara.maxkey.pretty.impl.JsonPretty;
+import org.dromara.maxkey.provision.ProvisionMessage;
+import org.dromara.maxkey.util.JsonUtils;
+import org.dromara.maxkey.util.ObjectTransformer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Provisioning outbox<br>
+ * messages are queued and written to mxk_history_provisions by a fixed pool of workers with JDBC batch insert ,
+ * when the queue is full the sender blocks until space is available , so bulk imports are throttled instead of dropping messages .<br>
+ * a failed batch is written again row by row , so one bad row does not lose the others ,
+ * messages sent after shutdown are written by the sender .
+ *
+ */
+public class ProvisioningOutbox {
+	private static final Logger _logger = LoggerFactory.getLogger(ProvisioningOutbox.class);
+    
+	static final String PROVISION_INSERT_STATEMENT = "insert into mxk_history_provisions(id,topic,actiontype,content,sendtime,connected,instid) values (? , ? , ? , ? , ? , ?  , ? )";
+	
+	static final int [] PROVISION_INSERT_TYPES = new int[] { 
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, 
+            Types.TINYINT,Types.TINYINT
+            };
+	
+	public static final int DEFAULT_WORKERS     = 2;
+	
+	public static final int DEFAULT_CAPACITY    = 10000;
+	
+	public static final int DEFAULT_BATCH_SIZE  = 200;
+	
+	static final long POLL_TIMEOUT = 500;
+	
+	JdbcTemplate jdbcTemplate;
+	
+	BlockingQueue<ProvisionMessage> queue;
+	
+	ExecutorService workers;
+	
+	int batchSize;
+	
+	volatile boolean running = true;
+	
+	ProvisioningListener listener;
+	
+	final AtomicLong sentCount    = new AtomicLong();
+	
+	final AtomicLong writtenCount = new AtomicLong();
+	
+	final AtomicLong failedCount  = new AtomicLong();
+	
+	final AtomicLong batchCount   = new AtomicLong();
+	
+	final AtomicLong writeNanos   = new AtomicLong();
+    
+    public ProvisioningOutbox(JdbcTemplate jdbcTemplate) {
+    	this(jdbcTemplate, DEFAULT_WORKERS, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+    
+    public ProvisioningOutbox(JdbcTemplate jdbcTemplate,int workerSize,int capacity,int batchSize) {
+    	this.jdbcTemplate = jdbcTemplate;
+    	this.queue = new ArrayBlockingQueue<>(capacity);
+    	this.batchSize = batchSize;
+    	AtomicInteger threadNumber = new AtomicInteger(1);
+    	this.workers = Executors.newFixedThreadPool(workerSize, r -> {
+    		Thread thread = new Thread(r, "provisioning-outbox-" + threadNumber.getAndIncrement());
+    		thread.setDaemon(true);
+    		return thread;
+    	});
+    	for(int i = 0 ; i < workerSize ; i++) {
+    		workers.execute(new OutboxWorker());
+    	}
+    }
+    
+    /**
+     * queue the message , block when the outbox is full ,
+     * write at once when the outbox is shut down
+     * @param msg
+     */
+    public void send(ProvisionMessage msg) {
+    	sentCount.incrementAndGet();
+    	if(!running) {
+    		write(List.of(msg));
+    		return;
+    	}
+    	try {
+    		queue.put(msg);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			_logger.error("send message {} interrupted , message lost" , msg.getId());
+			return;
+		}
+    	//shut down while queued , the workers may be gone
+    	if(!running && queue.remove(msg)) {
+    		write(List.of(msg));
+    	}
+    }
+    
+    /**
+     * stop the workers after the queue is drained
+     */
+    public void shutdown() {
+    	_logger.info("shutdown provisioning outbox , queued {}" , queue.size());
+    	running = false;
+    	workers.shutdown();
+    	try {
+			workers.awaitTermination(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+    	_logger.info("provisioning outbox stopped , {}" , metrics());
+    }
+    
+    void write(List<ProvisionMessage> batch) {
+    	long start = System.nanoTime();
+    	List<Object[]> batchArgs = new ArrayList<>(batch.size());
+    	int written = 0;
+    	try {
+	    	for(ProvisionMessage msg : batch) {
+	    		try {
+		    		if(_logger.isDebugEnabled()) {
+		    			_logger.debug("send message \n{}" ,new JsonPretty().jacksonFormat(msg.getSourceObject()));
+		    		}
+		    		msg.setContent(ObjectTransformer.serialize((Serializable)msg.getSourceObject()));
+		    		batchArgs.add(new Object[] { 
+		            		msg.getId(), msg.getTopic(), msg.getActionType(), msg.getContent(),
+		            		msg.getSendTime(),msg.getConnected(),getInstId(msg.getSourceObject())
+		                    });
+	    		}catch(Exception e) {
+	    			failedCount.incrementAndGet();
+	    			_logger.error("serialize message {} error , message lost" , msg.getId() , e);
+	    		}
+	    	}
+	    	if(batchArgs.isEmpty()) {
+	    		return;
+	    	}
+	    	try {
+	    		jdbcTemplate.batchUpdate(PROVISION_INSERT_STATEMENT, batchArgs, PROVISION_INSERT_TYPES);
+	    		written = batchArgs.size();
+	    		batchCount.incrementAndGet();
+	    	}catch(Exception e) {
+	    		_logger.error("send {} messages to Message Queue error , write row by row" , batchArgs.size() , e);
+	    		written = writeRows(batchArgs);
+	    	}
+	    	writtenCount.addAndGet(written);
+	    	if(listener != null && written > 0) {
+	    		listener.onProvisionMessages(written);
+	    	}
+	        _logger.debug("send {} messages to Message Queue finished ." , written);
+    	}finally {
+    		writeNanos.addAndGet(System.nanoTime() - start);
+    	}
+    }
+    
+    /**
+     * write the rows of a failed batch one by one , 
+     * rows already inserted by the batch are counted as written
+     * @return rows written
+     */
+    int writeRows(List<Object[]> batchArgs) {
+    	int written = 0;
+    	for(Object[] args : batchArgs) {
+    		try {
+    			jdbcTemplate.update(PROVISION_INSERT_STATEMENT, args, PROVISION_INSERT_TYPES);
+    			written++;
+    		}catch(DuplicateKeyException e) {
+    			written++;
+    		}catch(Exception e) {
+    			failedCount.incrementAndGet();
+    			_logger.error("send message {} to Message Queue error , message lost" , args[0] , e);
+    		}
+    	}
+    	return written;
+    }
+    
+    /**
+     * read instId from the source object without json round trip
+     * @param source
+     * @return instId
+     */
+    static int getInstId(Object source) {
+    	String instId = null;
+    	if(source instanceof UserInfo userInfo) {
+    		instId = userInfo.getInstId();
+    	}else if(source instanceof Organizations organization) {
+    		instId = organization.getInstId();
+    	}else if(source instanceof ChangePassword changePassword) {
+    		instId = changePassword.getInstId();
+    	}else if(source instanceof Accounts account) {
+    		instId = account.getInstId();
+    	}else {
+    		return JsonUtils.gsonConvert(source, Inst.class).getInstId();
+    	}
+    	return instId == null ? 0 : Integer.parseInt(instId);
+    }
+    
+    public String metrics() {
+    	long written = writtenCount.get();
+    	long nanos = writeNanos.get();
+		return String.format("queued %d , sent %d , written %d , failed %d , batches %d , %.1f msg/s", 
+				queue.size(),
+				sentCount.get(),
+				written,
+				failedCount.get(),
+				batchCount.get(),
+				nanos == 0 ? 0d : written * 1_000_000_000d / nanos);
+	}
+    
+    public int getQueueSize() {
+		return queue.size();
+	}
+
+	public long getSentCount() {
+		return sentCount.get();
+	}
+
+	public long getWrittenCount() {
+		return writtenCount.get();
+	}
+
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+
+	public long getBatchCount() {
+		return batchCount.get();
+	}
+
+	public void setListener(ProvisioningListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * notified after messages are written to mxk_history_provisions
+	 */
+	public interface ProvisioningListener{
+		public void onProvisionMessages(int count);
+	}
+
+	class OutboxWorker implements Runnable{
+
+		@Override
+		public void run() {
+			List<ProvisionMessage> batch = new ArrayList<>(batchSize);
+			while(running || !queue.isEmpty()) {
+				try {
+					ProvisionMessage msg = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+					if(msg != null) {
+						batch.add(msg);
+						queue.drainTo(batch, batchSize - 1);
+						write(batch);
+						batch.clear();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+    
+    static class Inst{
+    	
+    	int instId;
+
+		public int getInstId() {
+			return instId;
+		}
+
+		public void setInstId(int instId) {
+			this.instId = instId;
+		}
+
+		public Inst() {}
+    }
+}
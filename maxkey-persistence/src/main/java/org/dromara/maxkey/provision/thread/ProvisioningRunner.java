@@ -19,7 +19,21 @@ package org.dromara.maxkey.provision.thread;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.dromara.maxkey.crypto.password.PasswordReciprocal;
 import org.dromara.maxkey.entity.ChangePassword;
@@ -42,12 +56,45 @@ import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 
+/**
+ * Provisioning dispatcher<br>
+ * pending messages are fanned out to every connector of the same institution ,
+ * each connector has its own queue and at most maxInFlight concurrent deliveries , 
+ * so a slow connector never blocks the others .<br>
+ * failed deliveries are retried with exponential backoff per connector , 
+ * after maxRetries the message is marked as dead letter with the ids of the failed connectors ,
+ * a redriven dead letter is only delivered to them .<br>
+ * messages of the same object are delivered one after another in send order , 
+ * the next one starts when the previous one is completed on every connector .<br>
+ * pending messages are read by keyset on sendtime and id , so messages in flight are not read again .<br>
+ * connected : 0 pending , &gt; 0 delivered to n connectors , -1 dead letter , -2 no connector
+ */
 public class ProvisioningRunner {
 	private static final Logger _logger = LoggerFactory.getLogger(ProvisioningRunner.class);
 	
-	static final String PROVISION_SELECT_STATEMENT = "select * from mxk_history_provisions where connected = 0 order by sendtime asc limit 500";
+	public static final int DEAD_LETTER = -1;
+	
+	/**
+	 * no connector of the institution when dispatched , so never polled again
+	 */
+	public static final int NO_CONNECTOR = -2;
+	
+	/**
+	 * wait for the deliveries in progress on shutdown
+	 */
+	static final long SHUTDOWN_TIMEOUT = 10;
+	
+	public static final int PAGE_SIZE = 500;
+	
+	static final String PROVISION_SELECT_COLUMNS = "select id,topic,actiontype,content,sendtime,connected,failedconnectors,instid from mxk_history_provisions where connected = 0 ";
+	
+	static final String PROVISION_SELECT_STATEMENT = PROVISION_SELECT_COLUMNS 
+			+ "order by sendtime asc , id asc limit " + PAGE_SIZE;
 	
-	static final String PROVISION_UPDATE_STATEMENT = "update mxk_history_provisions set connected = connected + 1  where  id = ?";
+	static final String PROVISION_SELECT_AFTER_STATEMENT = PROVISION_SELECT_COLUMNS 
+			+ "and (sendtime > ? or (sendtime = ? and id > ?)) order by sendtime asc , id asc limit " + PAGE_SIZE;
+	
+	static final String PROVISION_UPDATE_STATEMENT = "update mxk_history_provisions set connected = ? , failedconnectors = ? where  id = ?";
 	
 	static final String PROVISION_LOG_INSERT_STATEMENT = "insert into mxk_history_connector(id,conname,topic,actiontype,sourceid,sourcename,synctime,result,instid) values (? , ? , ? , ? , ? , ?  , ?  , ?  , ? )";
 	
@@ -55,86 +102,279 @@ public class ProvisioningRunner {
     JdbcTemplate jdbcTemplate;
     
     ConnectorsService connectorsService;
+    
+    int maxInFlight = 4;
+    
+    int maxRetries = 3;
+    
+    long retryBackoff = 1000;
+    
+    /**
+     * connector id to dispatcher
+     */
+    final Map<String, ScheduledThreadPoolExecutor> dispatchers = new ConcurrentHashMap<>();
+    
+    /**
+     * message ids which are dispatched but not completed
+     */
+    final Set<String> inflight = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * object key to the messages waiting for the delivery in progress of the same object
+     */
+    final Map<String, Deque<Delivery>> objectQueues = new HashMap<>();
+    
+    /**
+     * sendtime and id of the last message read , reset when nothing is in flight
+     */
+    String cursorSendTime;
+    
+    String cursorId;
+    
+    final ConcurrentLinkedQueue<Object[]> statusUpdates = new ConcurrentLinkedQueue<>();
+    
+    final ConcurrentLinkedQueue<Object[]> connectorLogs = new ConcurrentLinkedQueue<>();
+    
+    final AtomicLong deliveredCount  = new AtomicLong();
+    
+    final AtomicLong retriedCount    = new AtomicLong();
+    
+    final AtomicLong deadLetterCount = new AtomicLong();
 
 	public ProvisioningRunner(ConnectorsService connectorsService,JdbcTemplate jdbcTemplate) {
 		this.connectorsService = connectorsService;
 		this.jdbcTemplate = jdbcTemplate;
 	}
-    
 	
-	public void provisions() {
+	public ProvisioningRunner(ConnectorsService connectorsService,JdbcTemplate jdbcTemplate,
+			int maxInFlight,int maxRetries,long retryBackoff) {
+		this(connectorsService,jdbcTemplate);
+		this.maxInFlight = maxInFlight;
+		this.maxRetries = maxRetries;
+		this.retryBackoff = retryBackoff;
+	}
+    
+	/**
+	 * dispatch pending messages
+	 * @return count of messages read , PAGE_SIZE means more messages may be pending
+	 */
+	public int provisions() {
+		int count = 0;
 		try {
+			flush();
+			if(inflight.isEmpty()) {
+				//start again from the oldest pending message , e.g. redriven dead letters
+				cursorSendTime = null;
+				cursorId = null;
+			}
 			List<Connectors> listConnectors = connectorsService.query(new Query().eq("status", 1).eq("justintime", 1));
-			List<ProvisionMessage> listProvisionMessage = jdbcTemplate.query(PROVISION_SELECT_STATEMENT, new ProvisionMessageRowMapper());
+			List<ProvisionMessage> listProvisionMessage = cursorId == null ?
+					jdbcTemplate.query(PROVISION_SELECT_STATEMENT, new ProvisionMessageRowMapper()) :
+					jdbcTemplate.query(PROVISION_SELECT_AFTER_STATEMENT, new ProvisionMessageRowMapper(),
+							cursorSendTime, cursorSendTime, cursorId);
+			count = listProvisionMessage.size();
 			for(ProvisionMessage msg : listProvisionMessage) {
-				_logger.debug("Provision message {}",msg);
+				if(msg.getSendTime() != null) {
+					cursorSendTime = msg.getSendTime();
+					cursorId = msg.getId();
+				}
+				if(inflight.contains(msg.getId())) {
+					continue;
+				}
+				List<String> failedConnectors = msg.getFailedConnectors() == null ? 
+						null : Arrays.asList(msg.getFailedConnectors().split(","));
+				List<Connectors> targets = new ArrayList<>();
 				for(Connectors connector: listConnectors) {
-					_logger.debug("Provision message to connector {}",connector);
-					provision(msg,connector);
+					if(Integer.parseInt(connector.getInstId()) == msg.getInstId()
+							&& (failedConnectors == null || failedConnectors.contains(connector.getId()))) {
+						targets.add(connector);
+					}
+				}
+				if(targets.isEmpty()) {
+					statusUpdates.add(new Object[] {NO_CONNECTOR,null,msg.getId()});
+					continue;
+				}
+				_logger.debug("Provision message {} to {} connectors",msg,targets.size());
+				Object content = ObjectTransformer.deserialize(msg.getContent());
+				if(content instanceof UserInfo user) {
+					//content is shared by all connectors , never send password
+					user.setPassword(null);
+					user.setDecipherable(null);
 				}
+				inflight.add(msg.getId());
+				enqueue(new Delivery(msg,content,targets,getObjectKey(content)));
 			}
 		}catch(Exception e) {
 			_logger.error("provisions Exception",e);
 		}
+		return count;
+	}
+	
+	/**
+	 * start the delivery , or queue it behind the delivery in progress of the same object
+	 */
+	void enqueue(Delivery delivery) {
+		if(delivery.objectKey != null) {
+			synchronized (objectQueues) {
+				Deque<Delivery> waiting = objectQueues.get(delivery.objectKey);
+				if(waiting != null) {
+					waiting.add(delivery);
+					return;
+				}
+				objectQueues.put(delivery.objectKey, new ArrayDeque<>());
+			}
+		}
+		start(delivery);
 	}
 	
-	public void provision(ProvisionMessage provisionMessage,Connectors connector) {
-		if(Integer.parseInt(connector.getInstId()) == provisionMessage.getInstId()) {
-			String url = connector.getProviderUrl();
-			if(!url.endsWith("/")) {
-				url = url + "/";
+	void start(Delivery delivery) {
+		for(Connectors connector: delivery.targets) {
+			dispatch(delivery,connector,0);
+		}
+	}
+	
+	/**
+	 * queue the status of the completed delivery and start the next message of the same object
+	 */
+	void complete(Delivery delivery) {
+		if(delivery.failedConnectors.isEmpty()) {
+			statusUpdates.add(new Object[] {delivery.targets.size(),null,delivery.msg.getId()});
+		}else {
+			deadLetterCount.incrementAndGet();
+			_logger.warn("Provision message {} is dead letter of connectors {}",delivery.msg.getId(),delivery.failedConnectors);
+			statusUpdates.add(new Object[] {DEAD_LETTER,String.join(",", delivery.failedConnectors),delivery.msg.getId()});
+		}
+		if(delivery.objectKey == null) {
+			return;
+		}
+		Delivery next;
+		synchronized (objectQueues) {
+			Deque<Delivery> waiting = objectQueues.get(delivery.objectKey);
+			next = waiting == null ? null : waiting.poll();
+			if(next == null) {
+				objectQueues.remove(delivery.objectKey);
 			}
-			String resultMessage = "";
-			String objectId = "";
-			String objectName = "";
-			if(provisionMessage.getTopic().equalsIgnoreCase(ProvisionTopic.USERINFO_TOPIC)) {
-				UserInfo user = (UserInfo)ObjectTransformer.deserialize(provisionMessage.getContent());
-				user.setPassword(null);
-				user.setDecipherable(null);
-				objectId = user.getId();
-				objectName = user.getDisplayName()+"("+user.getUsername()+")";
-				resultMessage = provisionUser(user,url,provisionMessage.getActionType(),connector);
-				provisionLog(	connector.getConnName(),
-						"Users",
-						provisionMessage.getActionType(),
-						objectId,
-						objectName,
-						resultMessage,
-						provisionMessage.getInstId()
-				);
-			}else if(provisionMessage.getTopic().equalsIgnoreCase(ProvisionTopic.PASSWORD_TOPIC)) {
-				ChangePassword changePassword = (ChangePassword)ObjectTransformer.deserialize(provisionMessage.getContent());
-				objectId = changePassword.getUserId();
-				objectName = changePassword.getDisplayName()+"("+changePassword.getUsername()+")";
-				resultMessage = provisionChangePassword(changePassword,url,provisionMessage.getActionType(),connector);
-				provisionLog(	connector.getConnName(),
-						"Password",
-						provisionMessage.getActionType(),
-						objectId,
-						objectName,
-						resultMessage,
-						provisionMessage.getInstId()
-				);
-			}else if(provisionMessage.getTopic().equalsIgnoreCase(ProvisionTopic.ORG_TOPIC)) {
-				Organizations organization = (Organizations)ObjectTransformer.deserialize(provisionMessage.getContent());
-				objectId = organization.getId();
-				objectName = organization.getOrgName();
-				resultMessage = provisionOrganization(organization,url,provisionMessage.getActionType(),connector);
-				provisionLog(	connector.getConnName(),
-								"Organizations",
-								provisionMessage.getActionType(),
-								objectId,
-								objectName,
-								resultMessage,
-								provisionMessage.getInstId()
-						);
+		}
+		if(next != null) {
+			start(next);
+		}
+	}
+	
+	/**
+	 * user and password messages of a user share the key , so they are delivered in order
+	 * @return null if the object has no id
+	 */
+	static String getObjectKey(Object content) {
+		if(content instanceof UserInfo user) {
+			return user.getId() == null ? null : "Users/" + user.getId();
+		}else if(content instanceof ChangePassword changePassword) {
+			return changePassword.getUserId() == null ? null : "Users/" + changePassword.getUserId();
+		}else if(content instanceof Organizations organization) {
+			return organization.getId() == null ? null : "Organizations/" + organization.getId();
+		}
+		return null;
+	}
+	
+	void dispatch(Delivery delivery,Connectors connector,int attempt) {
+		ScheduledThreadPoolExecutor dispatcher = dispatchers.computeIfAbsent(connector.getId(), id -> {
+			AtomicInteger threadNumber = new AtomicInteger(1);
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(maxInFlight, r -> {
+				Thread thread = new Thread(r, "provisioning-" + connector.getConnName() + "-" + threadNumber.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.setRemoveOnCancelPolicy(true);
+			//retries waiting for backoff are dropped on shutdown , the message is still pending
+			executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+			return executor;
+		});
+		Runnable task = () -> deliver(delivery,connector,attempt);
+		try {
+			if(attempt == 0) {
+				dispatcher.execute(task);
+			}else {
+				long delay = retryBackoff << Math.min(attempt - 1, 16);
+				_logger.debug("retry message {} to connector {} after {} ms",delivery.msg.getId(),connector.getConnName(),delay);
+				dispatcher.schedule(task, delay, TimeUnit.MILLISECONDS);
 			}
-			
-			jdbcTemplate.update(PROVISION_UPDATE_STATEMENT,provisionMessage.getId());
+		}catch(RejectedExecutionException e) {
+			//shutting down , the message is still pending and provisioned again after restart
+			_logger.warn("Provision message {} to connector {} rejected",delivery.msg.getId(),connector.getConnName());
+		}
+	}
+	
+	void deliver(Delivery delivery,Connectors connector,int attempt) {
+		boolean success = false;
+		try {
+			success = provision(delivery.msg,delivery.content,connector);
+		}catch(Exception e) {
+			_logger.error("Provision message {} to connector {} Exception",delivery.msg.getId(),connector.getConnName(),e);
+		}
+		if(!success && attempt < maxRetries) {
+			retriedCount.incrementAndGet();
+			dispatch(delivery,connector,attempt + 1);
+			return;
+		}
+		if(success) {
+			deliveredCount.incrementAndGet();
+		}else {
+			delivery.failedConnectors.add(connector.getId());
+		}
+		if(delivery.pending.decrementAndGet() == 0) {
+			complete(delivery);
+		}
+	}
+	
+	/**
+	 * deliver the message to connector
+	 * @return true if the connector accepted the message
+	 */
+	public boolean provision(ProvisionMessage provisionMessage,Object content,Connectors connector) {
+		String url = connector.getProviderUrl();
+		if(!url.endsWith("/")) {
+			url = url + "/";
+		}
+		String resultMessage = "";
+		String objectId = "";
+		String objectName = "";
+		String topic = "";
+		if(provisionMessage.getTopic().equalsIgnoreCase(ProvisionTopic.USERINFO_TOPIC)) {
+			UserInfo user = (UserInfo)content;
+			objectId = user.getId();
+			objectName = user.getDisplayName()+"("+user.getUsername()+")";
+			topic = "Users";
+			resultMessage = provisionUser(user,url,provisionMessage.getActionType(),connector);
+		}else if(provisionMessage.getTopic().equalsIgnoreCase(ProvisionTopic.PASSWORD_TOPIC)) {
+			ChangePassword changePassword = (ChangePassword)content;
+			objectId = changePassword.getUserId();
+			objectName = changePassword.getDisplayName()+"("+changePassword.getUsername()+")";
+			topic = "Password";
+			resultMessage = provisionChangePassword(changePassword,url,provisionMessage.getActionType(),connector);
+		}else if(provisionMessage.getTopic().equalsIgnoreCase(ProvisionTopic.ORG_TOPIC)) {
+			Organizations organization = (Organizations)content;
+			objectId = organization.getId();
+			objectName = organization.getOrgName();
+			topic = "Organizations";
+			resultMessage = provisionOrganization(organization,url,provisionMessage.getActionType(),connector);
+		}else {
+			//topic not supported by connector
+			return true;
 		}
+		return provisionLog(	connector.getConnName(),
+				topic,
+				provisionMessage.getActionType(),
+				objectId,
+				objectName,
+				resultMessage,
+				provisionMessage.getInstId()
+		);
 	}
 	
-	public void provisionLog(String conName,String topic,String actionType,String sourceId,String sourceName,String resultMessage,int instid) {
+	/**
+	 * queue connector log 
+	 * @return true if result is success
+	 */
+	public boolean provisionLog(String conName,String topic,String actionType,String sourceId,String sourceName,String resultMessage,int instid) {
 		Message<?> resultMsg = null;
 		String result = "success";
 		
@@ -146,7 +386,7 @@ public class ProvisioningRunner {
 			result = "fail";
 		}
 		
-		jdbcTemplate.update(PROVISION_LOG_INSERT_STATEMENT, 
+		connectorLogs.add(new Object[] {
 				WebContext.genId(),
 				conName,
 				topic,
@@ -156,7 +396,72 @@ public class ProvisioningRunner {
 				DateUtils.getCurrentDateTimeAsString(),
 				result,
 				instid
-				);
+				});
+		return "success".equals(result);
+	}
+	
+	/**
+	 * batch write completed message status and connector logs ,
+	 * messages are released from inflight even if the update fails , 
+	 * so they are polled and provisioned again
+	 */
+	public void flush() {
+		List<Object[]> logs = drain(connectorLogs);
+		if(!logs.isEmpty()) {
+			jdbcTemplate.batchUpdate(PROVISION_LOG_INSERT_STATEMENT, logs);
+		}
+		List<Object[]> updates = drain(statusUpdates);
+		if(!updates.isEmpty()) {
+			try {
+				jdbcTemplate.batchUpdate(PROVISION_UPDATE_STATEMENT, updates);
+			}finally {
+				for(Object[] update : updates) {
+					inflight.remove(update[2]);
+				}
+			}
+			_logger.debug("Provision {} messages completed , {}",updates.size(),metrics());
+		}
+	}
+	
+	List<Object[]> drain(ConcurrentLinkedQueue<Object[]> queue){
+		List<Object[]> list = new ArrayList<>();
+		Object[] args;
+		while((args = queue.poll()) != null) {
+			list.add(args);
+		}
+		return list;
+	}
+	
+	/**
+	 * stop the dispatchers , wait for the deliveries in progress and flush the rest
+	 */
+	public void shutdown() {
+		for(ScheduledThreadPoolExecutor dispatcher : dispatchers.values()) {
+			dispatcher.shutdown();
+		}
+		try {
+			for(ScheduledThreadPoolExecutor dispatcher : dispatchers.values()) {
+				if(!dispatcher.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+					_logger.warn("Provisioning dispatcher not terminated in {} seconds",SHUTDOWN_TIMEOUT);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+		_logger.info("Provisioning runner stopped , {}",metrics());
+	}
+	
+	public String metrics() {
+		return String.format("inflight %d , delivered %d , retried %d , dead letter %d", 
+				inflight.size(),
+				deliveredCount.get(),
+				retriedCount.get(),
+				deadLetterCount.get());
+	}
+	
+	public int getInflightSize() {
+		return inflight.size();
 	}
 	
 	public String getActionType(String actionType) {
@@ -200,6 +505,31 @@ public class ProvisioningRunner {
 				.post(baseUrl, changePassword);
 	}
 	
+	/**
+	 * message dispatched to connectors
+	 */
+	static class Delivery{
+		ProvisionMessage msg;
+		
+		Object content;
+		
+		List<Connectors> targets;
+		
+		String objectKey;
+		
+		AtomicInteger pending;
+		
+		Set<String> failedConnectors = ConcurrentHashMap.newKeySet();
+
+		Delivery(ProvisionMessage msg, Object content, List<Connectors> targets, String objectKey) {
+			this.msg = msg;
+			this.content = content;
+			this.targets = targets;
+			this.objectKey = objectKey;
+			this.pending = new AtomicInteger(targets.size());
+		}
+	}
+	
     public class ProvisionMessageRowMapper implements RowMapper<ProvisionMessage> {
         @Override
         public ProvisionMessage mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -208,7 +538,9 @@ public class ProvisioningRunner {
         	msg.setActionType(rs.getString("actiontype"));
         	msg.setTopic(rs.getString("topic"));
         	msg.setContent(rs.getString("content"));
+        	msg.setSendTime(rs.getString("sendtime"));
         	msg.setConnected(rs.getInt("connected"));
+        	msg.setFailedConnectors(rs.getString("failedconnectors"));
         	msg.setInstId(rs.getInt("instid"));
             return msg;
         }
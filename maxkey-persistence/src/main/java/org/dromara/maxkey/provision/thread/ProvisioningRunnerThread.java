@@ -17,29 +17,105 @@
 
 package org.dromara.maxkey.provision.thread;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Provisioning Runner Thread<br>
+ * wakes up when the outbox writes new messages , polls every pollInterval as fallback 
+ * for messages written by other nodes , and flushes completed deliveries every flushInterval .
+ */
 public class ProvisioningRunnerThread  extends Thread{
 	private static final Logger _logger = LoggerFactory.getLogger(ProvisioningRunnerThread.class);
 	
+	static final long FLUSH_INTERVAL = 1000;
+	
 	ProvisioningRunner runner;
+	
+	long pollInterval = 60 * 1000;
+	
+	final ReentrantLock lock = new ReentrantLock();
+	
+	final Condition wakeupCondition = lock.newCondition();
+	
+	boolean wakeup = false;
+	
+	volatile boolean running = true;
 
 	public ProvisioningRunnerThread(ProvisioningRunner runner) {
-		super();
+		super("provisioning-runner");
 		this.runner = runner;
+		this.setDaemon(true);
+	}
+	
+	public ProvisioningRunnerThread(ProvisioningRunner runner,long pollInterval) {
+		this(runner);
+		this.pollInterval = pollInterval;
+	}
+	
+	/**
+	 * signal new messages
+	 */
+	public void wakeup() {
+		lock.lock();
+		try {
+			wakeup = true;
+			wakeupCondition.signal();
+		}finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * stop polling , then the runner flushes the completed deliveries
+	 */
+	public void shutdown() {
+		running = false;
+		wakeup();
+		try {
+			join(FLUSH_INTERVAL * 10);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		runner.shutdown();
 	}
 
 	@Override
 	public void run() {
-		while(true) {
+		long nextPoll = 0;
+		while(running) {
 			try {
-				Thread.sleep(60 * 1000);
-				_logger.trace("Provisioning start ...");
-				runner.provisions();
-				_logger.trace("Provisioning end , wait for next .");
+				boolean poll = false;
+				lock.lock();
+				try {
+					if(!wakeup && System.currentTimeMillis() < nextPoll) {
+						wakeupCondition.await(Math.min(FLUSH_INTERVAL, nextPoll - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+					}
+					if(wakeup || System.currentTimeMillis() >= nextPoll) {
+						poll = true;
+						wakeup = false;
+					}
+				}finally {
+					lock.unlock();
+				}
+				if(poll) {
+					_logger.trace("Provisioning start ...");
+					int count = runner.provisions();
+					//more messages are pending , poll again at next flush
+					nextPoll = System.currentTimeMillis() + (count >= ProvisioningRunner.PAGE_SIZE ? FLUSH_INTERVAL : pollInterval);
+					_logger.trace("Provisioning end , wait for next .");
+				}else {
+					runner.flush();
+				}
 			} catch (InterruptedException e) {
 				_logger.error("InterruptedException", e);
+				running = false;
+			} catch (Exception e) {
+				_logger.error("Provisioning Exception", e);
 			}
 		}
 	}
@@ -0,0 +1,101 @@
+/*
+ * Copyright [2020] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.mybatis.jpa.test;
+
+import static org.junit.Assert.assertNotNull;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.dromara.maxkey.entity.idm.UserInfo;
+import org.dromara.maxkey.persistence.repository.LoginRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * login throughput , select * versus authentication projection ,
+ * runs against the database of spring/applicationContext.xml like the other service tests
+ */
+public class LoginThroughputTest {
+
+	private static final Logger _logger = LoggerFactory.getLogger(LoginThroughputTest.class);
+
+	static final String USERNAME = "admin";
+
+	static final int LOGINS = 10000;
+
+	public static ApplicationContext context;
+
+	public static JdbcTemplate jdbcTemplate;
+
+	public static LoginRepository loginRepository;
+
+	@Test
+	public void loginThroughput() throws Exception{
+		//warm up
+		selectAll();
+		projection();
+
+		long startTime = System.currentTimeMillis();
+		selectAll();
+		long selectAllTime = System.currentTimeMillis() - startTime;
+
+		startTime = System.currentTimeMillis();
+		projection();
+		long projectionTime = System.currentTimeMillis() - startTime;
+
+		_logger.info("select * : {} logins in {} ms , {} logins/s" ,
+				LOGINS , selectAllTime , LOGINS * 1000L / Math.max(selectAllTime, 1));
+		_logger.info("projection : {} logins in {} ms , {} logins/s" ,
+				LOGINS , projectionTime , LOGINS * 1000L / Math.max(projectionTime, 1));
+	}
+
+	void selectAll() {
+		for(int i = 0; i < LOGINS; i++) {
+			List<UserInfo> listUserInfo = jdbcTemplate.query(
+					"select * from  mxk_userinfo where (username = ? or mobile = ?)",
+					loginRepository.new UserInfoRowMapper(),
+					USERNAME,USERNAME);
+			listUserInfo.get(0);
+		}
+	}
+
+	void projection() {
+		for(int i = 0; i < LOGINS; i++) {
+			assertNotNull(loginRepository.find(USERNAME, ""));
+		}
+	}
+
+	@Before
+	public void initSpringContext(){
+		if(context!=null) {
+			return;
+		}
+		_logger.info("init Spring Context...");
+		context = new ClassPathXmlApplicationContext(new String[] {"spring/applicationContext.xml"});
+		jdbcTemplate = new JdbcTemplate((DataSource)context.getBean("dataSource"));
+		loginRepository = new LoginRepository(jdbcTemplate);
+	}
+
+}
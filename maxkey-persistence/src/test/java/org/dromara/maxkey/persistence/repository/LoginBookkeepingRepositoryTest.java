@@ -0,0 +1,154 @@
+/*
+ * Copyright [2020] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.repository;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Date;
+import java.util.List;
+
+import org.dromara.maxkey.constants.ConstsStatus;
+import org.dromara.maxkey.entity.idm.UserInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * lockout and login count against one simulated mxk_userinfo row
+ */
+public class LoginBookkeepingRepositoryTest {
+
+	static final int ATTEMPTS = 5;
+
+	RowJdbcTemplate jdbcTemplate;
+
+	LoginBookkeepingRepository loginBookkeepingRepository;
+
+	@Before
+	public void setUp() {
+		jdbcTemplate = new RowJdbcTemplate();
+		loginBookkeepingRepository = new LoginBookkeepingRepository(jdbcTemplate, null, 60000, 200);
+	}
+
+	@After
+	public void tearDown() {
+		loginBookkeepingRepository.shutdown();
+	}
+
+	@Test
+	public void unlockAfterLockout() {
+		UserInfo userInfo = jdbcTemplate.load();
+		while(loginBookkeepingRepository.plusBadPasswordCount(userInfo, 30) < ATTEMPTS) {
+			loginBookkeepingRepository.flush();
+		}
+		loginBookkeepingRepository.updateLock(userInfo, ConstsStatus.LOCK);
+		loginBookkeepingRepository.flush();
+		assertEquals(ATTEMPTS, jdbcTemplate.badPasswordCount);
+		assertEquals(ConstsStatus.LOCK, jdbcTemplate.isLocked);
+
+		//lockout duration is over
+		loginBookkeepingRepository.resetLockout(jdbcTemplate.load());
+		loginBookkeepingRepository.flush();
+		assertEquals(0, jdbcTemplate.badPasswordCount);
+		assertEquals(ConstsStatus.ACTIVE, jdbcTemplate.isLocked);
+
+		//one bad password on the next login
+		userInfo = jdbcTemplate.load();
+		assertEquals(1, loginBookkeepingRepository.plusBadPasswordCount(userInfo, 30));
+		loginBookkeepingRepository.flush();
+		assertEquals(1, jdbcTemplate.badPasswordCount);
+		assertEquals(ConstsStatus.ACTIVE, jdbcTemplate.isLocked);
+	}
+
+	@Test
+	public void retryFailedBatchOnly() {
+		UserInfo userInfo = jdbcTemplate.load();
+		loginBookkeepingRepository.updateLastLogin(userInfo);
+		loginBookkeepingRepository.plusBadPasswordCount(userInfo, 30);
+		jdbcTemplate.failBadPassword = true;
+		loginBookkeepingRepository.flush();
+		assertEquals(1, jdbcTemplate.loginCount);
+		assertEquals(0, jdbcTemplate.badPasswordCount);
+
+		jdbcTemplate.failBadPassword = false;
+		loginBookkeepingRepository.flush();
+		assertEquals(1, jdbcTemplate.loginCount);
+		assertEquals(1, jdbcTemplate.badPasswordCount);
+	}
+
+	/**
+	 * one user row , the statements are told apart by their columns
+	 */
+	static class RowJdbcTemplate extends JdbcTemplate {
+
+		int loginCount;
+
+		int badPasswordCount;
+
+		Date badPasswordTime;
+
+		int isLocked = ConstsStatus.ACTIVE;
+
+		Date unlockTime;
+
+		boolean failBadPassword;
+
+		UserInfo load() {
+			UserInfo userInfo = new UserInfo();
+			userInfo.setId("u1");
+			userInfo.setLoginCount(loginCount);
+			userInfo.setBadPasswordCount(badPasswordCount);
+			userInfo.setBadPasswordTime(badPasswordTime);
+			userInfo.setIsLocked(isLocked);
+			userInfo.setUnLockTime(unlockTime);
+			return userInfo;
+		}
+
+		@Override
+		public int update(String sql, Object[] args, int[] argTypes) {
+			if(sql.contains("badpasswordcount = 0")) {
+				badPasswordCount = 0;
+			}
+			isLocked = (Integer) args[0];
+			unlockTime = (Date) args[1];
+			return 1;
+		}
+
+		@Override
+		public int[] batchUpdate(String sql, List<Object[]> batchArgs, int[] argTypes) {
+			for(Object[] args : batchArgs) {
+				if(sql.contains("logincount")) {
+					loginCount += (Integer) args[2];
+				}else {
+					if(failBadPassword) {
+						throw new DataAccessResourceFailureException("connection reset");
+					}
+					Date time = (Date) args[1];
+					if(isLocked == ConstsStatus.LOCK || unlockTime == null || !unlockTime.after(time)) {
+						badPasswordCount = (Integer) args[0];
+						badPasswordTime = time;
+					}
+				}
+			}
+			return new int[batchArgs.size()];
+		}
+	}
+
+}
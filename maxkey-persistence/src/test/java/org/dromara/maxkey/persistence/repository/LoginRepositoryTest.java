@@ -0,0 +1,124 @@
+/*
+ * Copyright [2020] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.persistence.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.dromara.maxkey.entity.idm.UserInfo;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * sign-on reads the authentication projection , the profile is read by id ,
+ * the row mappers only read the columns of their statement
+ */
+public class LoginRepositoryTest {
+
+	static final Map<String, Object> ROW = Map.of(
+			"id", "u1",
+			"username", "admin",
+			"displayname", "Admin",
+			"instid", "1",
+			"department", "IT",
+			"jobtitle", "Engineer");
+
+	@Test
+	public void find() {
+		StatementJdbcTemplate jdbcTemplate = new StatementJdbcTemplate();
+		LoginRepository loginRepository = new LoginRepository(jdbcTemplate);
+
+		UserInfo userInfo = loginRepository.find("admin", "");
+		assertEquals("u1", userInfo.getId());
+		assertEquals("Admin", userInfo.getDisplayName());
+		assertEquals("default", userInfo.getTheme());
+		assertNull(userInfo.getDepartment());
+		assertEquals(1, jdbcTemplate.statements.size());
+		assertFalse(jdbcTemplate.statements.get(0).contains("*"));
+		assertFalse(jdbcTemplate.statements.get(0).contains("picture"));
+
+		loginRepository.loadProfile(userInfo);
+		assertEquals("IT", userInfo.getDepartment());
+		assertEquals("Engineer", userInfo.getJobTitle());
+		assertEquals(2, jdbcTemplate.statements.size());
+		assertFalse(jdbcTemplate.statements.get(1).contains("picture"));
+	}
+
+	/**
+	 * one row , only the selected columns are readable
+	 */
+	static class StatementJdbcTemplate extends JdbcTemplate {
+
+		final List<String> statements = new ArrayList<>();
+
+		@Override
+		public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+			statements.add(sql);
+			try {
+				return List.of(rowMapper.mapRow(resultSet(sql), 0));
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public void query(String sql, RowCallbackHandler rch, Object... args) {
+			statements.add(sql);
+			try {
+				rch.processRow(resultSet(sql));
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		static ResultSet resultSet(String sql) {
+			String select = sql.substring("select ".length(), sql.indexOf(" from "));
+			List<String> columns = Arrays.asList(select.replace(" ", "").split(","));
+			return (ResultSet) Proxy.newProxyInstance(
+					LoginRepositoryTest.class.getClassLoader(),
+					new Class<?>[] {ResultSet.class},
+					(proxy, method, methodArgs) -> {
+						if(methodArgs == null || !(methodArgs[0] instanceof String)) {
+							return null;
+						}
+						String column = ((String) methodArgs[0]).toLowerCase(Locale.ROOT);
+						if(!columns.contains(column)) {
+							throw new SQLException("column " + column + " not selected");
+						}
+						Object value = ROW.get(column);
+						if(method.getReturnType() == int.class) {
+							return value == null ? 0 : Integer.parseInt(value.toString());
+						}
+						return value;
+					});
+		}
+	}
+
+}
@@ -57,27 +57,24 @@ public class RedisTicketServices extends RandomServiceTicketServices {
 
 	@Override
 	public void store(String ticketId, Ticket ticket, int validitySeconds) {
-		RedisConnection conn=connectionFactory.getConnection();
-		conn.setexObject(prefixTicketId(ticketId), validitySeconds, ticket);
-		conn.close();
+		try (RedisConnection conn=connectionFactory.getConnection()) {
+			conn.setexObject(prefixTicketId(ticketId), validitySeconds, ticket);
+		}
 		
 	}
 
 	@Override
 	public Ticket remove(String ticketId) {
-		RedisConnection conn=connectionFactory.getConnection();
-		Ticket ticket = conn.getObject(prefixTicketId(ticketId));
-		conn.delete(prefixTicketId(ticketId));
-		conn.close();
-		return ticket;
+		try (RedisConnection conn=connectionFactory.getConnection()) {
+			return conn.getdelObject(prefixTicketId(ticketId));
+		}
 	}
 
     @Override
     public Ticket get(String ticketId) {
-        RedisConnection conn=connectionFactory.getConnection();
-        Ticket ticket = conn.getObject(prefixTicketId(ticketId));
-        conn.close();
-        return ticket;
+        try (RedisConnection conn=connectionFactory.getConnection()) {
+            return conn.getObject(prefixTicketId(ticketId));
+        }
     }
     
     public String prefixTicketId(String ticketId) {
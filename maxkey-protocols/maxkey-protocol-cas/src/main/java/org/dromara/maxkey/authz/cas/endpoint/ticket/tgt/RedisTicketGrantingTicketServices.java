@@ -56,26 +56,23 @@ public class RedisTicketGrantingTicketServices extends RandomServiceTicketServic
 
 	@Override
 	public void store(String ticketId, Ticket ticket, int validitySeconds) {
-		RedisConnection conn=connectionFactory.getConnection();
-		conn.setexObject(PREFIX+ticketId, validitySeconds, ticket);
-		conn.close();
+		try (RedisConnection conn=connectionFactory.getConnection()) {
+			conn.setexObject(PREFIX+ticketId, validitySeconds, ticket);
+		}
 	}
 
 	@Override
 	public Ticket remove(String ticketId) {
-		RedisConnection conn=connectionFactory.getConnection();
-		Ticket ticket = conn.getObject(PREFIX+ticketId);
-		conn.delete(PREFIX+ticketId);
-		conn.close();
-		return ticket;
+		try (RedisConnection conn=connectionFactory.getConnection()) {
+			return conn.getdelObject(PREFIX+ticketId);
+		}
 	}
 
     @Override
     public Ticket get(String ticketId) {
-        RedisConnection conn=connectionFactory.getConnection();
-        Ticket ticket = conn.getObject(PREFIX+ticketId);
-        conn.close();
-        return ticket;
+        try (RedisConnection conn=connectionFactory.getConnection()) {
+            return conn.getObject(PREFIX+ticketId);
+        }
     }
 
 	
@@ -41,7 +41,7 @@ public class OAuth2UserDetailsService implements UserDetailsService {
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 		UserInfo userInfo;
 		try {
-		    userInfo = loginRepository.find(username, "");
+		    userInfo = loginRepository.loadProfile(loginRepository.find(username, ""));
 		} catch (NoSuchClientException e) {
 			throw new UsernameNotFoundException(e.getMessage(), e);
 		}
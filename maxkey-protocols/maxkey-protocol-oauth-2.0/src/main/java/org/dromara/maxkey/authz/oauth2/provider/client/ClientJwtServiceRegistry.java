@@ -0,0 +1,130 @@
+/*
+ * Copyright [2022] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.authz.oauth2.provider.client;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.dromara.maxkey.crypto.jwt.encryption.service.impl.DefaultJwtEncryptionAndDecryptionService;
+import org.dromara.maxkey.crypto.jwt.signer.service.impl.DefaultJwtSigningAndValidationService;
+import org.dromara.maxkey.entity.apps.oauth2.provider.ClientDetails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jose.JOSEException;
+
+/**
+ * per client signing and encryption services built from the client JWK ,
+ * reused until the client key or algorithm changes or the client is updated .
+ *
+ * the services are read only after construction and shared between requests .
+ */
+public class ClientJwtServiceRegistry {
+	private static final  Logger _logger = LoggerFactory.getLogger(ClientJwtServiceRegistry.class);
+
+	protected static final Cache<String, Versioned<DefaultJwtSigningAndValidationService>> signingServices =
+			Caffeine.newBuilder()
+				.expireAfterAccess(60, TimeUnit.MINUTES)
+				.maximumSize(20000)
+				.build();
+
+	protected static final Cache<String, Versioned<DefaultJwtEncryptionAndDecryptionService>> encryptionServices =
+			Caffeine.newBuilder()
+				.expireAfterAccess(60, TimeUnit.MINUTES)
+				.maximumSize(20000)
+				.build();
+
+	/**
+	 * signing service of client , key id clientId_sig
+	 */
+	public static DefaultJwtSigningAndValidationService getSigningService(ClientDetails clientDetails)
+			throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException {
+		String clientId = clientDetails.getClientId();
+		Versioned<DefaultJwtSigningAndValidationService> versioned = signingServices.getIfPresent(clientId);
+		if(versioned == null || !versioned.matches(clientDetails.getSignatureKey(), clientDetails.getSignature())) {
+			_logger.debug("build Jwt Signing Service for client {}" , clientId);
+			versioned = new Versioned<>(
+					clientDetails.getSignatureKey(),
+					clientDetails.getSignature(),
+					new DefaultJwtSigningAndValidationService(
+							clientDetails.getSignatureKey(),
+							clientId + "_sig",
+							clientDetails.getSignature()
+						));
+			signingServices.put(clientId, versioned);
+		}
+		return versioned.service;
+	}
+
+	/**
+	 * encryption service of client , key id clientId_enc
+	 */
+	public static DefaultJwtEncryptionAndDecryptionService getEncryptionService(ClientDetails clientDetails)
+			throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException {
+		String clientId = clientDetails.getClientId();
+		Versioned<DefaultJwtEncryptionAndDecryptionService> versioned = encryptionServices.getIfPresent(clientId);
+		if(versioned == null || !versioned.matches(clientDetails.getAlgorithmKey(), clientDetails.getAlgorithm())) {
+			_logger.debug("build Jwt Encryption Service for client {}" , clientId);
+			versioned = new Versioned<>(
+					clientDetails.getAlgorithmKey(),
+					clientDetails.getAlgorithm(),
+					new DefaultJwtEncryptionAndDecryptionService(
+							clientDetails.getAlgorithmKey(),
+							clientId + "_enc",
+							clientDetails.getAlgorithm()
+						));
+			encryptionServices.put(clientId, versioned);
+		}
+		return versioned.service;
+	}
+
+	public static void invalidate(String clientId) {
+		signingServices.invalidate(clientId);
+		encryptionServices.invalidate(clientId);
+	}
+
+	public static void invalidateAll() {
+		signingServices.invalidateAll();
+		encryptionServices.invalidateAll();
+	}
+
+	/**
+	 * service with the key and algorithm it was built from
+	 */
+	static class Versioned<T> {
+		final String key;
+
+		final String algorithm;
+
+		final T service;
+
+		Versioned(String key, String algorithm, T service) {
+			this.key = key;
+			this.algorithm = algorithm;
+			this.service = service;
+		}
+
+		boolean matches(String key, String algorithm) {
+			return Objects.equals(this.key, key) && Objects.equals(this.algorithm, algorithm);
+		}
+	}
+}
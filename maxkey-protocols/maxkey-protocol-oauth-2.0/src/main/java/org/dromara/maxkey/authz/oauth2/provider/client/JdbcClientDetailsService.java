@@ -23,7 +23,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
@@ -38,6 +37,8 @@ import org.dromara.maxkey.authz.oauth2.provider.NoSuchClientException;
 import org.dromara.maxkey.crypto.password.NoOpPasswordEncoder;
 import org.dromara.maxkey.entity.apps.oauth2.provider.ClientDetails;
 import org.dromara.maxkey.entity.apps.oauth2.provider.client.BaseClientDetails;
+import org.dromara.maxkey.persistence.cache.CacheRegistry;
+import org.dromara.maxkey.persistence.cache.NamedCache;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -48,9 +49,6 @@ import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-
 /**
  * Basic, JDBC implementation of the client details service.
  */
@@ -58,11 +56,10 @@ public class JdbcClientDetailsService implements ClientDetailsService, ClientReg
 
     private static final Log logger = LogFactory.getLog(JdbcClientDetailsService.class);
     
-    protected static final   Cache<String, ClientDetails> detailsCache = 
-            Caffeine.newBuilder()
-                .expireAfterWrite(30, TimeUnit.MINUTES)
-                .maximumSize(200000)
-                .build();
+    public static final String CACHE_NAME = "oauth_client";
+    
+    protected static final   NamedCache<ClientDetails> detailsCache = 
+            CacheRegistry.register(CACHE_NAME, 200000, 30);
 
     private JsonMapper mapper = createJsonMapper();
 
@@ -166,6 +163,7 @@ public class JdbcClientDetailsService implements ClientDetailsService, ClientReg
             throw new NoSuchClientException("No client found with id = " + clientDetails.getClientId());
         }
         detailsCache.invalidate(clientDetails.getClientId());
+        ClientJwtServiceRegistry.invalidate(clientDetails.getClientId());
     }
 
     public void updateClientSecret(String clientId, String secret) throws NoSuchClientException {
@@ -173,6 +171,7 @@ public class JdbcClientDetailsService implements ClientDetailsService, ClientReg
         if (count != 1) {
             throw new NoSuchClientException("No client found with id = " + clientId);
         }
+        detailsCache.invalidate(clientId);
     }
 
     public void removeClientDetails(String clientId) throws NoSuchClientException {
@@ -180,6 +179,8 @@ public class JdbcClientDetailsService implements ClientDetailsService, ClientReg
         if (count != 1) {
             throw new NoSuchClientException("No client found with id = " + clientId);
         }
+        detailsCache.invalidate(clientId);
+        ClientJwtServiceRegistry.invalidate(clientId);
     }
 
     public List<ClientDetails> listClientDetails() {
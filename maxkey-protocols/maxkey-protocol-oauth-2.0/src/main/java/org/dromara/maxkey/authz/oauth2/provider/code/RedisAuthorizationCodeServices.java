@@ -48,18 +48,16 @@ public class RedisAuthorizationCodeServices extends RandomValueAuthorizationCode
 	
 	@Override
 	protected void store(String code, OAuth2Authentication authentication) {
-		RedisConnection  conn=connectionFactory.getConnection();
-		conn.setexObject(PREFIX+code,codeValiditySeconds, authentication);
-		conn.close();
+		try (RedisConnection  conn=connectionFactory.getConnection()) {
+			conn.setexObject(PREFIX+code,codeValiditySeconds, authentication);
+		}
 	}
 
 	@Override
 	public OAuth2Authentication remove(String code) {
-		RedisConnection  conn=connectionFactory.getConnection();
-		OAuth2Authentication auth = conn.getObject(PREFIX+code);
-		conn.delete(PREFIX+code);
-        conn.close();
-		return auth;
+		try (RedisConnection  conn=connectionFactory.getConnection()) {
+			return conn.getdelObject(PREFIX+code);
+		}
 	}
 
 }
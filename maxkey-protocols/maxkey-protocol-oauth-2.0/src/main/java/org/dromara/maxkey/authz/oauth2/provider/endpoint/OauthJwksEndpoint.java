@@ -21,6 +21,8 @@ import org.dromara.maxkey.authz.oauth2.common.OAuth2Constants;
 import org.dromara.maxkey.constants.ContentType;
 import org.dromara.maxkey.crypto.jose.keystore.JWKSetKeyStore;
 import org.dromara.maxkey.entity.apps.oauth2.provider.ClientDetails;
+import org.dromara.maxkey.web.MetadataDocumentCache;
+import org.dromara.maxkey.web.MetadataDocumentCache.Document;
 import org.dromara.maxkey.web.WebConstants;
 import org.dromara.maxkey.web.WebContext;
 import org.slf4j.Logger;
@@ -70,31 +72,40 @@ public class OauthJwksEndpoint extends AbstractEndpoint {
 			_logger.error("getClientDetailsService", e);
 		}
 		if(clientDetails != null) {
-			String jwkSetString = "";
-			if(!clientDetails.getSignature().equalsIgnoreCase("none")) {
-				jwkSetString = clientDetails.getSignatureKey();
-			}
-			if(!clientDetails.getAlgorithm().equalsIgnoreCase("none")) {
-				if(!StringUtils.hasText(jwkSetString)) {
-					jwkSetString = clientDetails.getAlgorithmKey();
-				}else {
-					jwkSetString = jwkSetString + "," +clientDetails.getAlgorithmKey();
-				}
-			}
-			JWKSetKeyStore jwkSetKeyStore = new JWKSetKeyStore("{\"keys\": [" + jwkSetString + "]}");
-			
+			final ClientDetails jwksClientDetails = clientDetails;
+			String contentType = ContentType.APPLICATION_JSON_UTF8;
 			if(StringUtils.hasText(mediaType) 
 					&& mediaType.equalsIgnoreCase(ContentType.XML)) {
-				response.setContentType(ContentType.APPLICATION_XML_UTF8);
-			}else {
-				response.setContentType(ContentType.APPLICATION_JSON_UTF8);
+				contentType = ContentType.APPLICATION_XML_UTF8;
 			}
-			response.getWriter().write(jwkSetKeyStore.toString(mediaType));
+			//rendered again when the client details are reloaded
+			Document document = MetadataDocumentCache.get(
+					"jwks:" + appId + ":" + mediaType, 
+					clientDetails, 
+					contentType, 
+					() -> buildJwkSet(jwksClientDetails, mediaType));
+			MetadataDocumentCache.write(request, response, document);
 		} else {
 			response.getWriter().write(appId + " not exist . \n" + WebContext.version());
 		}
 
 
 	}
+	
+	String buildJwkSet(ClientDetails clientDetails, String mediaType) {
+		String jwkSetString = "";
+		if(!clientDetails.getSignature().equalsIgnoreCase("none")) {
+			jwkSetString = clientDetails.getSignatureKey();
+		}
+		if(!clientDetails.getAlgorithm().equalsIgnoreCase("none")) {
+			if(!StringUtils.hasText(jwkSetString)) {
+				jwkSetString = clientDetails.getAlgorithmKey();
+			}else {
+				jwkSetString = jwkSetString + "," +clientDetails.getAlgorithmKey();
+			}
+		}
+		JWKSetKeyStore jwkSetKeyStore = new JWKSetKeyStore("{\"keys\": [" + jwkSetString + "]}");
+		return jwkSetKeyStore.toString(mediaType);
+	}
 
 }
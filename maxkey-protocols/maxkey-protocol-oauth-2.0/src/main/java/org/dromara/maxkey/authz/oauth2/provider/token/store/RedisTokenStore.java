@@ -77,8 +77,7 @@ public class RedisTokenStore implements TokenStore {
 	public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
 		String key = authenticationKeyGenerator.extractKey(authentication);
 		String serializedKey = (AUTH_TO_ACCESS + key);
-		RedisConnection conn = getConnection();
-		try {
+		try (RedisConnection conn = getConnection()) {
 			OAuth2AccessToken accessToken =conn.getObject(serializedKey);
 			if (accessToken != null
 					&& !key.equals(authenticationKeyGenerator.extractKey(readAuthentication(accessToken.getValue())))) {
@@ -88,8 +87,6 @@ public class RedisTokenStore implements TokenStore {
 				storeAccessToken(accessToken, authentication);
 			}
 			return accessToken;
-		} finally {
-			conn.close();
 		}
 	}
 
@@ -101,12 +98,9 @@ public class RedisTokenStore implements TokenStore {
 	@Override
 	public OAuth2Authentication readAuthentication(String token) {
 		_logger.trace("read Authentication by token " + token + " , token key " + AUTH + token);
-		RedisConnection conn = getConnection();
-		try {
+		try (RedisConnection conn = getConnection()) {
 			OAuth2Authentication auth = conn.getObject(AUTH + token);
 			return auth;
-		} finally {
-			conn.close();
 		}
 	}
 
@@ -116,12 +110,9 @@ public class RedisTokenStore implements TokenStore {
 	}
 
 	public OAuth2Authentication readAuthenticationForRefreshToken(String token) {
-		RedisConnection conn = getConnection();
-		try {
+		try (RedisConnection conn = getConnection()) {
 			OAuth2Authentication auth = conn.getObject(REFRESH_AUTH + token);
 			return auth;
-		} finally {
-			conn.close();
 		}
 	}
 
@@ -138,16 +129,16 @@ public class RedisTokenStore implements TokenStore {
 		_logger.trace("approvalKey " + approvalKey);
 		_logger.trace("clientId " + clientId);
 
-		RedisConnection conn = getConnection();
-		try {
+		try (RedisConnection conn = getConnection()) {
 			conn.openPipeline();
 			conn.setObject(accessKey, token);
 			conn.setObject(authKey, authentication);
 			conn.setObject(authToAccessKey, token);
+			//list members are the token values , removed by value
 			if (!authentication.isClientOnly()) {
-				conn.rPush(approvalKey, token);
+				conn.rPush(approvalKey, token.getValue());
 			}
-			conn.rPush(clientId, token);
+			conn.rPush(clientId, token.getValue());
 			if (token.getExpiration() != null) {
 				int seconds = token.getExpiresIn();
 				conn.expire(accessKey, seconds);
@@ -178,8 +169,6 @@ public class RedisTokenStore implements TokenStore {
 				}
 			}
 			conn.closePipeline();
-		} finally {
-			conn.close();
 		}
 	}
 
@@ -200,13 +189,10 @@ public class RedisTokenStore implements TokenStore {
 
 	@Override
 	public OAuth2AccessToken readAccessToken(String tokenValue) {
-		RedisConnection conn = getConnection();
-		try {
+		try (RedisConnection conn = getConnection()) {
 			String key = (ACCESS + tokenValue);
 			OAuth2AccessToken accessToken = conn.getObject(key);
 			return accessToken;
-		} finally {
-			conn.close();
 		}
 	}
 
@@ -214,19 +200,15 @@ public class RedisTokenStore implements TokenStore {
 		String accessKey = (ACCESS + tokenValue);
 		String authKey = (AUTH + tokenValue);
 		String accessToRefreshKey = (ACCESS_TO_REFRESH + tokenValue);
-		RedisConnection conn = getConnection();
-		try {
+		try (RedisConnection conn = getConnection()) {
 			conn.openPipeline();
-			conn.getPipeline().get(accessKey);
-			conn.getPipeline().get(authKey);
+			conn.getPipeline().get(RedisConnection.keyBytes(authKey));
 			conn.getPipeline().del(accessKey);
 			conn.getPipeline().del(accessToRefreshKey);
 			 //Don't remove the refresh token - it's up to the caller to do that
 			conn.getPipeline().del(authKey);
 			List<Object> results = conn.closePipeline();
-			String access = (String) results.get(0);
-			String auth = (String) results.get(1);
-			OAuth2Authentication authentication = ObjectTransformer.deserialize(auth);
+			OAuth2Authentication authentication = ObjectTransformer.deserializeBytes((byte[]) results.get(0));
 			if (authentication != null) {
 				String key = authenticationKeyGenerator.extractKey(authentication);
 				String authToAccessKey = (AUTH_TO_ACCESS + key);
@@ -234,13 +216,12 @@ public class RedisTokenStore implements TokenStore {
 				String clientId = (CLIENT_ID_TO_ACCESS + authentication.getOAuth2Request().getClientId());
 				conn.openPipeline();
 				conn.delete(authToAccessKey);
-				conn.lRem(unameKey, 1, access);
-				conn.lRem(clientId, 1, access);
+				//list members are the token values
+				conn.lRem(unameKey, 1, tokenValue);
+				conn.lRem(clientId, 1, tokenValue);
 				conn.delete(ACCESS + key);
 				conn.closePipeline();
 			}
-		} finally {
-			conn.close();
 		}
 	}
 
@@ -248,8 +229,7 @@ public class RedisTokenStore implements TokenStore {
 	public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
 		String refreshKey = (REFRESH + refreshToken.getValue());
 		String refreshAuthKey = (REFRESH_AUTH + refreshToken.getValue());
-		RedisConnection conn = getConnection();
-		try {
+		try (RedisConnection conn = getConnection()) {
 			conn.openPipeline();
 			conn.setObject(refreshKey, refreshToken);
 			conn.setObject(refreshAuthKey, authentication);
@@ -265,21 +245,15 @@ public class RedisTokenStore implements TokenStore {
 				}
 			}
 			conn.closePipeline();
-		} finally {
-			conn.close();
 		}
 	}
 
 	@Override
 	public OAuth2RefreshToken readRefreshToken(String tokenValue) {
 		String key = (REFRESH + tokenValue);
-		RedisConnection conn = getConnection();
-		try {
+		try (RedisConnection conn = getConnection()) {
 			OAuth2RefreshToken refreshToken = conn.getObject(key);
-			conn.close();
 			return refreshToken;
-		} finally {
-			conn.close();
 		}
 	}
 
@@ -293,16 +267,13 @@ public class RedisTokenStore implements TokenStore {
 		String refreshAuthKey = (REFRESH_AUTH + tokenValue);
 		String refresh2AccessKey = (REFRESH_TO_ACCESS + tokenValue);
 		String access2RefreshKey = (ACCESS_TO_REFRESH + tokenValue);
-		RedisConnection conn = getConnection();
-		try {
+		try (RedisConnection conn = getConnection()) {
 			conn.openPipeline();
 			conn.delete(refreshKey);
 			conn.delete(refreshAuthKey);
 			conn.delete(refresh2AccessKey);
 			conn.delete(access2RefreshKey);
 			conn.closePipeline();
-		} finally {
-			conn.close();
 		}
 	}
 
@@ -314,14 +285,11 @@ public class RedisTokenStore implements TokenStore {
 	private void removeAccessTokenUsingRefreshToken(String refreshToken) {
 		String key = (REFRESH_TO_ACCESS + refreshToken);
 		List<Object> results = null;
-		RedisConnection conn = getConnection();
-		try {
+		try (RedisConnection conn = getConnection()) {
 			conn.openPipeline();
 			conn.getPipeline().get(key);
 			conn.getPipeline().del(key);
 			results = conn.closePipeline();
-		} finally {
-			conn.close();
 		}
 		if (results == null) {
 			return;
@@ -338,43 +306,35 @@ public class RedisTokenStore implements TokenStore {
 	public Collection<OAuth2AccessToken> findTokensByClientIdAndUserName(String clientId, String userName) {
 		String approvalKey = (UNAME_TO_ACCESS + getApprovalKey(clientId, userName));
 		_logger.trace("approvalKey " + approvalKey);
-		List<String> stringList = null;
-		RedisConnection conn = getConnection();
-		try {
-			stringList = conn.lRange(approvalKey, 0, -1);
-		} finally {
-			conn.close();
-		}
-		if (stringList == null || stringList.size() == 0) {
-			return Collections.<OAuth2AccessToken> emptySet();
-		}
-		List<OAuth2AccessToken> accessTokens = new ArrayList<OAuth2AccessToken>(stringList.size());
-		for (String str : stringList) {
-			//accessToken may expired
-			OAuth2AccessToken accessToken = conn.getObject(str);
-			accessTokens.add(accessToken);
-		}
-		return Collections.<OAuth2AccessToken> unmodifiableCollection(accessTokens);
+		return findTokensByListKey(approvalKey);
 	}
 
 	@Override
 	public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
 		String key = (CLIENT_ID_TO_ACCESS + clientId);
 		_logger.trace("TokensByClientId  " + key);
-		List<String> stringList = null;
-		RedisConnection conn = getConnection();
-		try {
-			stringList = conn.lRange(key, 0, -1);
-		} finally {
-			conn.close();
-		}
-		if (stringList == null || stringList.size() == 0) {
-			return Collections.<OAuth2AccessToken> emptySet();
-		}
-		List<OAuth2AccessToken> accessTokens = new ArrayList<OAuth2AccessToken>(stringList.size());
-		for (String str : stringList) {
-			OAuth2AccessToken accessToken = conn.getObject(str);
-			accessTokens.add(accessToken);
+		return findTokensByListKey(key);
+	}
+
+	/**
+	 * list members are the token values , tokens are read with MGET , expired tokens are skipped
+	 */
+	private Collection<OAuth2AccessToken> findTokensByListKey(String listKey) {
+		List<OAuth2AccessToken> accessTokens = new ArrayList<OAuth2AccessToken>();
+		try (RedisConnection conn = getConnection()) {
+			List<String> tokenValues = conn.lRange(listKey, 0, -1);
+			if (tokenValues == null || tokenValues.isEmpty()) {
+				return Collections.<OAuth2AccessToken> emptySet();
+			}
+			List<String> accessKeys = new ArrayList<String>(tokenValues.size());
+			for (String tokenValue : tokenValues) {
+				accessKeys.add(ACCESS + tokenValue);
+			}
+			for (Object accessToken : conn.getObjects(accessKeys)) {
+				if (accessToken instanceof OAuth2AccessToken) {
+					accessTokens.add((OAuth2AccessToken) accessToken);
+				}
+			}
 		}
 		return Collections.<OAuth2AccessToken> unmodifiableCollection(accessTokens);
 	}
@@ -32,6 +32,7 @@ import org.dromara.maxkey.authz.oauth2.common.OAuth2Constants;
 import org.dromara.maxkey.authz.oauth2.common.exceptions.OAuth2Exception;
 import org.dromara.maxkey.authz.oauth2.provider.ClientDetailsService;
 import org.dromara.maxkey.authz.oauth2.provider.OAuth2Authentication;
+import org.dromara.maxkey.authz.oauth2.provider.client.ClientJwtServiceRegistry;
 import org.dromara.maxkey.authz.oauth2.provider.token.DefaultTokenServices;
 import org.dromara.maxkey.constants.ContentType;
 import org.dromara.maxkey.crypto.jwt.encryption.service.impl.DefaultJwtEncryptionAndDecryptionService;
@@ -212,10 +213,7 @@ public class UserInfoOIDCEndpoint {
 			    //需要签名  signed ID token
 				DefaultJwtSigningAndValidationService jwtSignerService = null;
 				try {
-					jwtSignerService = new DefaultJwtSigningAndValidationService(
-							clientDetails.getSignatureKey(),
-							clientDetails.getClientId() + "_sig",
-							clientDetails.getSignature());
+					jwtSignerService = ClientJwtServiceRegistry.getSigningService(clientDetails);
 				}catch(Exception e) {
 					_logger.error("Couldn't create Jwt Signing Service",e);
 				}
@@ -238,10 +236,7 @@ public class UserInfoOIDCEndpoint {
 			    // 需要加密
 				try {
 					DefaultJwtEncryptionAndDecryptionService jwtEncryptionService = 
-								new DefaultJwtEncryptionAndDecryptionService(
-										clientDetails.getAlgorithmKey(),
-										clientDetails.getClientId()  + "_enc",
-										clientDetails.getAlgorithm());
+								ClientJwtServiceRegistry.getEncryptionService(clientDetails);
 					
 					Payload payload = userInfoJWTClaims.toPayload();
 					
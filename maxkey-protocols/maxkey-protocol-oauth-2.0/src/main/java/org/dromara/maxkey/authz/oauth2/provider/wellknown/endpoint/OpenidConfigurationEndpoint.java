@@ -25,13 +25,18 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.dromara.maxkey.authz.oauth2.common.OAuth2Constants;
 import org.dromara.maxkey.authz.oauth2.provider.endpoint.AbstractEndpoint;
 import org.dromara.maxkey.authz.oauth2.provider.wellknown.OpenidConfiguration;
+import org.dromara.maxkey.constants.ContentType;
 import org.dromara.maxkey.entity.apps.oauth2.provider.ClientDetails;
+import org.dromara.maxkey.util.JsonUtils;
+import org.dromara.maxkey.web.MetadataDocumentCache;
+import org.dromara.maxkey.web.MetadataDocumentCache.Document;
 import org.dromara.maxkey.web.WebContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -48,11 +53,11 @@ public class OpenidConfigurationEndpoint extends AbstractEndpoint {
 			produces = "application/json",
 			method={RequestMethod.POST, RequestMethod.GET})
 	@ResponseBody
-	public OpenidConfiguration  configuration(
+	public void  configuration(
 			HttpServletRequest request,
 			HttpServletResponse response,
-			@RequestParam(value = "client_id", required = false) String client_id) {
-		return configurationMetadata(request,response, null,client_id);
+			@RequestParam(value = "client_id", required = false) String client_id) throws IOException {
+		configurationMetadata(request,response, null,client_id);
 	}
 	
 	@Operation(summary = "OpenID Connect metadata 元数据接口", description = "参数client_id",method="GET,POST")
@@ -62,11 +67,11 @@ public class OpenidConfigurationEndpoint extends AbstractEndpoint {
 			produces = "application/json",
 			method={RequestMethod.POST, RequestMethod.GET})
 	@ResponseBody
-	public OpenidConfiguration  configurationMetadata(
+	public void  configurationMetadata(
 			HttpServletRequest request,
 			HttpServletResponse response, 
 			@PathVariable("instId") String instId,
-			@RequestParam(value = "client_id", required = false) String client_id) {
+			@RequestParam(value = "client_id", required = false) String client_id) throws IOException {
 		_logger.debug("instId {} , client_id {}" , instId ,client_id);
 		
 		String baseUrl = WebContext.getContextPath(true);
@@ -81,6 +86,17 @@ public class OpenidConfigurationEndpoint extends AbstractEndpoint {
 			}
 		}
 		
+		final ClientDetails configClientDetails = clientDetails;
+		//rendered again when the client details are reloaded
+		Document document = MetadataDocumentCache.get(
+				"oidc:" + baseUrl + ":" + client_id, 
+				clientDetails, 
+				ContentType.APPLICATION_JSON_UTF8, 
+				() -> JsonUtils.toString(buildConfiguration(baseUrl, configClientDetails, client_id)));
+		MetadataDocumentCache.write(request, response, document);
+	}
+	
+	OpenidConfiguration buildConfiguration(String baseUrl, ClientDetails clientDetails, String client_id) {
 		OpenidConfiguration openidConfig = new OpenidConfiguration();
 		openidConfig.setRequest_parameter_supported(true);
 		openidConfig.setAuthorization_endpoint(baseUrl + OAuth2Constants.ENDPOINT.ENDPOINT_BASE + "/authorize");
@@ -34,6 +34,7 @@ import org.dromara.maxkey.authz.oauth2.common.OAuth2AccessToken;
 import org.dromara.maxkey.authz.oauth2.provider.ClientDetailsService;
 import org.dromara.maxkey.authz.oauth2.provider.OAuth2Authentication;
 import org.dromara.maxkey.authz.oauth2.provider.OAuth2Request;
+import org.dromara.maxkey.authz.oauth2.provider.client.ClientJwtServiceRegistry;
 import org.dromara.maxkey.authz.oauth2.provider.token.TokenEnhancer;
 import org.dromara.maxkey.configuration.oidc.OIDCProviderMetadata;
 import org.dromara.maxkey.crypto.jwt.encryption.service.impl.DefaultJwtEncryptionAndDecryptionService;
@@ -89,11 +90,7 @@ public class OIDCIdTokenEnhancer implements TokenEnhancer {
 			JWSAlgorithm signingAlg = null;
 			try {//jwtSignerService
 				if (StringUtils.isNotBlank(clientDetails.getSignature()) && !clientDetails.getSignature().equalsIgnoreCase("none")) {
-					jwtSignerService = new DefaultJwtSigningAndValidationService(
-							clientDetails.getSignatureKey(),
-							clientDetails.getClientId() + "_sig",
-							clientDetails.getSignature()
-						);
+					jwtSignerService = ClientJwtServiceRegistry.getSigningService(clientDetails);
 
 					signingAlg = jwtSignerService.getDefaultSigningAlgorithm();
 				}
@@ -163,11 +160,7 @@ public class OIDCIdTokenEnhancer implements TokenEnhancer {
 					&& !clientDetails.getAlgorithm().equalsIgnoreCase("none")) {
 				try {
 					DefaultJwtEncryptionAndDecryptionService jwtEncryptionService = 
-								new DefaultJwtEncryptionAndDecryptionService(
-										clientDetails.getAlgorithmKey(),
-										clientDetails.getClientId()  + "_enc",
-										clientDetails.getAlgorithm()
-									);
+								ClientJwtServiceRegistry.getEncryptionService(clientDetails);
 					Payload payload = builder.build().toPayload();
 					// Example Request JWT encrypted with RSA-OAEP-256 and 128-bit AES/GCM
 					//JWEHeader jweHeader = new JWEHeader(JWEAlgorithm.RSA1_5, EncryptionMethod.A128GCM);
@@ -27,19 +27,29 @@ public class AuthnRequestInfo implements Serializable {
 	 * 
 	 */
 	private static final long serialVersionUID = 9115030955516039900L;
+	private final String appId;
 	private final String assertionConumerURL;
 	private final String authnRequestID;
+	private final String relayState;
 	
 	public AuthnRequestInfo(String assertionConumerURL, String authnRequestID) {
+		this(null, assertionConumerURL, authnRequestID, null);
+	}
+	
+	public AuthnRequestInfo(String appId, String assertionConumerURL, String authnRequestID, String relayState) {
 		super();
+		this.appId = appId;
 		this.assertionConumerURL = assertionConumerURL;
 		this.authnRequestID = authnRequestID;
+		this.relayState = relayState;
 	}
 	
 	public AuthnRequestInfo() {
-		super();
-		this.assertionConumerURL = "";
-		this.authnRequestID = null;
+		this(null, "", null, null);
+	}
+	
+	public String getAppId() {
+		return appId;
 	}
 	
 	public String getAssertionConumerURL() {
@@ -50,12 +60,18 @@ public class AuthnRequestInfo implements Serializable {
 	public String getAuthnRequestID() {
 		return authnRequestID;
 	}
+	
+	public String getRelayState() {
+		return relayState;
+	}
 
 	@Override
 	 public String toString() {
 	     return new ToStringBuilder(this).
+	       append("appId", appId).
 	       append("assertionConumerURL", assertionConumerURL).
 	       append("authnRequestID",authnRequestID).
+	       append("relayState",relayState).
 	       toString();
 	}
 	
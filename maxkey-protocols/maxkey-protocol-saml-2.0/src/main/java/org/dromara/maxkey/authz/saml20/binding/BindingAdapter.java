@@ -18,8 +18,6 @@
 
 package org.dromara.maxkey.authz.saml20.binding;
 
-import org.dromara.maxkey.authz.saml.common.AuthnRequestInfo;
-import org.dromara.maxkey.entity.apps.AppsSAML20Details;
 import org.opensaml.common.SignableSAMLObject;
 import org.opensaml.saml2.metadata.Endpoint;
 import org.opensaml.ws.message.encoder.MessageEncodingException;
@@ -32,27 +30,18 @@ import jakarta.servlet.http.HttpServletResponse;
 /**
  * 
  * Abstracts the SAML Binding used to send/receive messages.
- * 
+ * the adapter is stateless , credential and relay state are passed with the message 
  *
  */
 public interface BindingAdapter {
 
-	public void sendSAMLMessage(SignableSAMLObject samlMessage, Endpoint endpoint, HttpServletRequest request, HttpServletResponse response) throws MessageEncodingException;
+	public void sendSAMLMessage(SignableSAMLObject samlMessage, 
+								Endpoint endpoint, 
+								Credential signingCredential,
+								String relayState,
+								HttpServletRequest request, 
+								HttpServletResponse response) throws MessageEncodingException;
 	
 	public void setSecurityPolicyResolver(SecurityPolicyResolver securityPolicyResolver);
 	
-	public void setExtractBindingAdapter(ExtractBindingAdapter extractBindingAdapter);
-	
-	public void setAuthnRequestInfo(AuthnRequestInfo authnRequestInfo);
-	
-	public void setRelayState(String relayState);
-	
-	public AppsSAML20Details getSaml20Details();
-	
-	public AuthnRequestInfo getAuthnRequestInfo();
-	
-	public Credential getSigningCredential();
-	
-	public Credential getSpSigningCredential();
-	
 }
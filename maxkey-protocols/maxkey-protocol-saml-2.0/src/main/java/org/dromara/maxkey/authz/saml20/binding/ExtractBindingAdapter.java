@@ -18,22 +18,18 @@
 
 package org.dromara.maxkey.authz.saml20.binding;
 
-import java.security.KeyStore;
-
 import org.dromara.maxkey.crypto.keystore.KeyStoreLoader;
-import org.dromara.maxkey.entity.apps.AppsSAML20Details;
 import org.opensaml.common.binding.SAMLMessageContext;
 import org.opensaml.ws.message.decoder.MessageDecodingException;
 import org.opensaml.ws.security.SecurityPolicyResolver;
 import org.opensaml.xml.security.SecurityException;
-import org.opensaml.xml.security.credential.CredentialResolver;
 
 import jakarta.servlet.http.HttpServletRequest;
 
 /**
  * 
  * Abstracts the SAML Binding used to send/receive messages.
- * 
+ * the adapter is stateless , the security policy of the application is passed with the request 
  *
  */
 public interface ExtractBindingAdapter {
@@ -41,17 +37,24 @@ public interface ExtractBindingAdapter {
 	@SuppressWarnings("rawtypes")
 	public SAMLMessageContext extractSAMLMessageContext(HttpServletRequest request) throws MessageDecodingException, SecurityException;
 
+	/**
+	 * decode and evaluate with the security policy of the application
+	 * @param request
+	 * @param securityPolicyResolver Saml20AppContext.getSecurityPolicyResolver(getBinding())
+	 */
+	@SuppressWarnings("rawtypes")
+	public SAMLMessageContext extractSAMLMessageContext(HttpServletRequest request, 
+			SecurityPolicyResolver securityPolicyResolver) throws MessageDecodingException, SecurityException;
+
 	public String extractSAMLMessage(HttpServletRequest request);
 	
 	public void setSecurityPolicyResolver(SecurityPolicyResolver securityPolicyResolver);
 	
-	public void buildSecurityPolicyResolver(KeyStore trustKeyStore);
-	
-	public void setSaml20Detail(AppsSAML20Details  saml20Detail);
-	
-	public AppsSAML20Details getSaml20Detail();
+	/**
+	 * @return POST or Redirect
+	 */
+	public String getBinding();
 	
 	public KeyStoreLoader getKeyStoreLoader();
 	
-	public CredentialResolver getCredentialResolver();
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.authz.saml20.binding;
+
+import java.security.KeyStore;
+
+import org.dromara.maxkey.authz.saml.common.TrustResolver;
+import org.dromara.maxkey.constants.ConstsBoolean;
+import org.dromara.maxkey.crypto.keystore.KeyStoreLoader;
+import org.dromara.maxkey.crypto.keystore.KeyStoreUtil;
+import org.dromara.maxkey.entity.apps.AppsSAML20Details;
+import org.opensaml.common.binding.security.IssueInstantRule;
+import org.opensaml.common.binding.security.MessageReplayRule;
+import org.opensaml.ws.security.SecurityPolicyResolver;
+import org.opensaml.xml.security.CriteriaSet;
+import org.opensaml.xml.security.credential.Credential;
+import org.opensaml.xml.security.credential.CredentialResolver;
+import org.opensaml.xml.security.credential.KeyStoreCredentialResolver;
+import org.opensaml.xml.security.credential.UsageType;
+import org.opensaml.xml.security.criteria.EntityIDCriteria;
+import org.opensaml.xml.security.criteria.UsageCriteria;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * immutable SAML runtime of an application ,
+ * trust keystore , credentials and security policy resolvers are built once from AppsSAML20Details
+ * and shared by the requests of the application .
+ *
+ * @author Crystal.Sea
+ *
+ */
+public final class Saml20AppContext {
+	private static final  Logger _logger = LoggerFactory.getLogger(Saml20AppContext.class);
+
+	public static final String BINDING_POST = "POST";
+
+	public static final String BINDING_REDIRECT = "Redirect";
+
+	private final AppsSAML20Details saml20Details;
+
+	private final KeyStore trustKeyStore;
+
+	private final CredentialResolver credentialResolver;
+
+	private final SecurityPolicyResolver postSecurityPolicyResolver;
+
+	private final SecurityPolicyResolver redirectSecurityPolicyResolver;
+
+	private final Credential signingCredential;
+
+	private final Credential spEncryptionCredential;
+
+	private Saml20AppContext(AppsSAML20Details saml20Details, KeyStore trustKeyStore,
+			CredentialResolver credentialResolver, SecurityPolicyResolver postSecurityPolicyResolver,
+			SecurityPolicyResolver redirectSecurityPolicyResolver, Credential signingCredential,
+			Credential spEncryptionCredential) {
+		this.saml20Details = saml20Details;
+		this.trustKeyStore = trustKeyStore;
+		this.credentialResolver = credentialResolver;
+		this.postSecurityPolicyResolver = postSecurityPolicyResolver;
+		this.redirectSecurityPolicyResolver = redirectSecurityPolicyResolver;
+		this.signingCredential = signingCredential;
+		this.spEncryptionCredential = spEncryptionCredential;
+	}
+
+	/**
+	 * parse the keystore of the application and resolve the credentials
+	 * @param saml20Details application
+	 * @param keyStoreLoader IdP keystore , type , entity name and password
+	 * @param issueInstantRule
+	 * @param messageReplayRule
+	 * @return Saml20AppContext
+	 */
+	public static Saml20AppContext build(AppsSAML20Details saml20Details, KeyStoreLoader keyStoreLoader,
+			IssueInstantRule issueInstantRule, MessageReplayRule messageReplayRule) {
+		KeyStore trustKeyStore = KeyStoreUtil.bytes2KeyStore(saml20Details.getKeyStore(),
+				keyStoreLoader.getKeyStore().getType(),
+				keyStoreLoader.getKeystorePassword());
+
+		TrustResolver postTrustResolver = new TrustResolver(trustKeyStore,
+				keyStoreLoader.getEntityName(),
+				keyStoreLoader.getKeystorePassword(),
+				issueInstantRule,
+				messageReplayRule,
+				BINDING_POST);
+		TrustResolver redirectTrustResolver = new TrustResolver(trustKeyStore,
+				keyStoreLoader.getEntityName(),
+				keyStoreLoader.getKeystorePassword(),
+				issueInstantRule,
+				messageReplayRule,
+				BINDING_REDIRECT);
+		CredentialResolver credentialResolver = postTrustResolver.getKeyStoreCredentialResolver();
+
+		//IdP signing credential
+		Credential signingCredential = resolveCredential(
+				credentialResolver, keyStoreLoader.getEntityName(), UsageType.SIGNING);
+
+		//SP credential of assertion encryption
+		Credential spEncryptionCredential = null;
+		if(ConstsBoolean.isYes(saml20Details.getEncrypted())) {
+			KeyStoreCredentialResolver spCredentialResolver = new TrustResolver().buildKeyStoreCredentialResolver(
+					trustKeyStore,
+					saml20Details.getEntityId(),
+					keyStoreLoader.getKeystorePassword());
+			spEncryptionCredential = resolveCredential(
+					spCredentialResolver, saml20Details.getEntityId(), UsageType.ENCRYPTION);
+		}
+
+		_logger.debug("build SAML context of app {} , signing credential {} , encryption credential {}",
+				saml20Details.getId(), signingCredential != null, spEncryptionCredential != null);
+		return new Saml20AppContext(saml20Details, trustKeyStore, credentialResolver,
+				postTrustResolver.getStaticSecurityPolicyResolver(),
+				redirectTrustResolver.getStaticSecurityPolicyResolver(),
+				signingCredential, spEncryptionCredential);
+	}
+
+	static Credential resolveCredential(CredentialResolver credentialResolver, String entityId, UsageType usageType) {
+		CriteriaSet criteriaSet = new CriteriaSet();
+		criteriaSet.add(new EntityIDCriteria(entityId));
+		criteriaSet.add(new UsageCriteria(usageType));
+		try {
+			return credentialResolver.resolveSingle(criteriaSet);
+		} catch (Exception e) {
+			_logger.error("Credential Resolver error , entityId {} usage {}", entityId, usageType, e);
+			return null;
+		}
+	}
+
+	/**
+	 * @param binding POST or Redirect
+	 * @return SecurityPolicyResolver of the binding
+	 */
+	public SecurityPolicyResolver getSecurityPolicyResolver(String binding) {
+		return BINDING_REDIRECT.equalsIgnoreCase(binding) ? redirectSecurityPolicyResolver : postSecurityPolicyResolver;
+	}
+
+	public String getAppId() {
+		return saml20Details.getId();
+	}
+
+	public AppsSAML20Details getSaml20Details() {
+		return saml20Details;
+	}
+
+	public KeyStore getTrustKeyStore() {
+		return trustKeyStore;
+	}
+
+	public CredentialResolver getCredentialResolver() {
+		return credentialResolver;
+	}
+
+	public Credential getSigningCredential() {
+		return signingCredential;
+	}
+
+	public Credential getSpEncryptionCredential() {
+		return spEncryptionCredential;
+	}
+
+}
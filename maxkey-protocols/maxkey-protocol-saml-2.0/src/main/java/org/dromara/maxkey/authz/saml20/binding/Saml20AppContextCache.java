@@ -0,0 +1,87 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.authz.saml20.binding;
+
+import org.dromara.maxkey.crypto.keystore.KeyStoreLoader;
+import org.dromara.maxkey.entity.apps.AppsSAML20Details;
+import org.dromara.maxkey.persistence.cache.CacheRegistry;
+import org.dromara.maxkey.persistence.cache.NamedCache;
+import org.dromara.maxkey.persistence.service.AppsSaml20DetailsService;
+import org.opensaml.common.binding.security.IssueInstantRule;
+import org.opensaml.common.binding.security.MessageReplayRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Saml20AppContext by app id .<br>
+ * AppsSaml20DetailsService invalidates the context with the details on update and delete ,
+ * a context built from details other than the cached details is rebuilt too .
+ *
+ * @author Crystal.Sea
+ *
+ */
+public class Saml20AppContextCache {
+	private static final  Logger _logger = LoggerFactory.getLogger(Saml20AppContextCache.class);
+
+	protected static final NamedCache<Saml20AppContext> contextCache =
+			CacheRegistry.register(AppsSaml20DetailsService.CONTEXT_CACHE_NAME, 20000, 30);
+
+	AppsSaml20DetailsService saml20DetailsService;
+
+	KeyStoreLoader keyStoreLoader;
+
+	IssueInstantRule issueInstantRule;
+
+	MessageReplayRule messageReplayRule;
+
+	public Saml20AppContextCache(AppsSaml20DetailsService saml20DetailsService, KeyStoreLoader keyStoreLoader,
+			IssueInstantRule issueInstantRule, MessageReplayRule messageReplayRule) {
+		this.saml20DetailsService = saml20DetailsService;
+		this.keyStoreLoader = keyStoreLoader;
+		this.issueInstantRule = issueInstantRule;
+		this.messageReplayRule = messageReplayRule;
+	}
+
+	/**
+	 * @param appId app id
+	 * @return context , null when the app not exist
+	 */
+	public Saml20AppContext get(String appId) {
+		AppsSAML20Details saml20Details = saml20DetailsService.getAppDetails(appId , true);
+		if(saml20Details == null) {
+			return null;
+		}
+		Saml20AppContext appContext = contextCache.getIfPresent(appId);
+		//details reloaded , changed on other node or expired
+		if(appContext == null || appContext.getSaml20Details() != saml20Details) {
+			_logger.debug("build SAML context of app {}", appId);
+			appContext = Saml20AppContext.build(saml20Details, keyStoreLoader, issueInstantRule, messageReplayRule);
+			contextCache.put(appId, appContext);
+		}
+		return appContext;
+	}
+
+	public void invalidate(String appId) {
+		contextCache.invalidate(appId);
+	}
+
+	public String metrics() {
+		return contextCache.metrics();
+	}
+
+}
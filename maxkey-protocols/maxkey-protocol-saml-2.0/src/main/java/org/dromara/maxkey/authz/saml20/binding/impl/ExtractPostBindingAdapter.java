@@ -18,13 +18,11 @@
 
 package org.dromara.maxkey.authz.saml20.binding.impl;
 
-import java.security.KeyStore;
-
 import org.apache.commons.lang.StringUtils;
-import org.dromara.maxkey.authz.saml.common.TrustResolver;
+import org.dromara.maxkey.authz.saml.common.SecurityPolicyDelegate;
 import org.dromara.maxkey.authz.saml20.binding.ExtractBindingAdapter;
+import org.dromara.maxkey.authz.saml20.binding.Saml20AppContext;
 import org.dromara.maxkey.crypto.keystore.KeyStoreLoader;
-import org.dromara.maxkey.entity.apps.AppsSAML20Details;
 import org.opensaml.common.binding.BasicSAMLMessageContext;
 import org.opensaml.common.binding.SAMLMessageContext;
 import org.opensaml.common.binding.decoding.SAMLMessageDecoder;
@@ -32,9 +30,9 @@ import org.opensaml.common.binding.security.IssueInstantRule;
 import org.opensaml.common.binding.security.MessageReplayRule;
 import org.opensaml.ws.message.decoder.MessageDecodingException;
 import org.opensaml.ws.security.SecurityPolicyResolver;
+import org.opensaml.ws.security.provider.StaticSecurityPolicyResolver;
 import org.opensaml.ws.transport.http.HttpServletRequestAdapter;
 import org.opensaml.xml.security.SecurityException;
-import org.opensaml.xml.security.credential.CredentialResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
@@ -55,9 +53,6 @@ public class ExtractPostBindingAdapter implements ExtractBindingAdapter, Initial
 	protected MessageReplayRule messageReplayRule;
 	
 	protected KeyStoreLoader keyStoreLoader;
-	protected CredentialResolver credentialResolver;
-	
-	protected AppsSAML20Details  saml20Detail;
 	
 	
 	public ExtractPostBindingAdapter() {
@@ -91,6 +86,13 @@ public class ExtractPostBindingAdapter implements ExtractBindingAdapter, Initial
 	@Override
 	@SuppressWarnings("rawtypes")
 	public SAMLMessageContext extractSAMLMessageContext(HttpServletRequest request) throws MessageDecodingException, SecurityException {
+		return extractSAMLMessageContext(request, securityPolicyResolver);
+	}
+	
+	@Override
+	@SuppressWarnings("rawtypes")
+	public SAMLMessageContext extractSAMLMessageContext(HttpServletRequest request,
+			SecurityPolicyResolver securityPolicyResolver) throws MessageDecodingException, SecurityException {
 		
 		BasicSAMLMessageContext messageContext = new BasicSAMLMessageContext();
 		
@@ -117,20 +119,10 @@ public class ExtractPostBindingAdapter implements ExtractBindingAdapter, Initial
 	}
 	
 	@Override
-	public void buildSecurityPolicyResolver(KeyStore trustKeyStore) {
-	    _logger.debug("EntityName {}, KeystorePassword {}",
-	                    keyStoreLoader.getEntityName(),keyStoreLoader.getKeystorePassword());
-	    
-		TrustResolver trustResolver = new TrustResolver(trustKeyStore,
-					keyStoreLoader.getEntityName(),
-					keyStoreLoader.getKeystorePassword(), 
-					issueInstantRule,
-					messageReplayRule,"POST");
-		credentialResolver = (CredentialResolver)trustResolver.getKeyStoreCredentialResolver();
-		this.securityPolicyResolver = trustResolver.getStaticSecurityPolicyResolver();
+	public String getBinding() {
+		return Saml20AppContext.BINDING_POST;
 	}
 	
-	
 	/**
 	 * @param securityPolicyResolver the securityPolicyResolver to set
 	 */
@@ -140,19 +132,17 @@ public class ExtractPostBindingAdapter implements ExtractBindingAdapter, Initial
 		this.securityPolicyResolver = securityPolicyResolver;
 	}
 
+	/**
+	 * default security policy , issue instant and replay , for messages not bound to an application
+	 */
 	@Override
 	public void afterPropertiesSet() throws Exception {
-		
-	}
-
-	@Override
-	public void setSaml20Detail(AppsSAML20Details saml20Detail) {
-		this.saml20Detail=saml20Detail;
-	}
-
-	@Override
-	public AppsSAML20Details getSaml20Detail() {
-		return saml20Detail;
+		if(securityPolicyResolver == null && issueInstantRule != null && messageReplayRule != null) {
+			SecurityPolicyDelegate securityPolicyDelegate = new SecurityPolicyDelegate();
+			securityPolicyDelegate.addSecurityPolicy(issueInstantRule);
+			securityPolicyDelegate.addSecurityPolicy(messageReplayRule);
+			securityPolicyResolver = new StaticSecurityPolicyResolver(securityPolicyDelegate);
+		}
 	}
 
 	@Override
@@ -168,13 +158,6 @@ public class ExtractPostBindingAdapter implements ExtractBindingAdapter, Initial
 
 
 
-	@Override
-	public CredentialResolver getCredentialResolver() {
-		return this.credentialResolver;
-	}
-
-
-
 	public void setIssuingEntityName(String issuingEntityName) {
 		this.issuingEntityName = issuingEntityName;
 	}
@@ -17,12 +17,9 @@
 
 package org.dromara.maxkey.authz.saml20.binding.impl;
 
-import java.security.KeyStore;
-
-import org.dromara.maxkey.authz.saml.common.TrustResolver;
+import org.dromara.maxkey.authz.saml20.binding.Saml20AppContext;
 import org.opensaml.common.binding.decoding.SAMLMessageDecoder;
 import org.opensaml.ws.security.SecurityPolicyResolver;
-import org.opensaml.xml.security.credential.CredentialResolver;
 
 public class ExtractRedirectBindingAdapter extends ExtractPostBindingAdapter{
 
@@ -43,16 +40,8 @@ public class ExtractRedirectBindingAdapter extends ExtractPostBindingAdapter{
 	}
 	
 	@Override
-	public void buildSecurityPolicyResolver(KeyStore trustKeyStore) {
-
-		TrustResolver trustResolver = new TrustResolver(trustKeyStore,
-					keyStoreLoader.getEntityName(),
-					keyStoreLoader.getKeystorePassword(), 
-					issueInstantRule,
-					messageReplayRule,
-					"Redirect");
-		credentialResolver = (CredentialResolver)trustResolver.getKeyStoreCredentialResolver();
-		this.securityPolicyResolver = trustResolver.getStaticSecurityPolicyResolver();
+	public String getBinding() {
+		return Saml20AppContext.BINDING_REDIRECT;
 	}
 
 }
@@ -18,17 +18,8 @@
 
 package org.dromara.maxkey.authz.saml20.binding.impl;
 
-import java.security.KeyStore;
-
-import org.apache.commons.lang.Validate;
 import org.apache.velocity.app.VelocityEngine;
-import org.dromara.maxkey.authz.saml.common.AuthnRequestInfo;
-import org.dromara.maxkey.authz.saml.common.TrustResolver;
 import org.dromara.maxkey.authz.saml20.binding.BindingAdapter;
-import org.dromara.maxkey.authz.saml20.binding.ExtractBindingAdapter;
-import org.dromara.maxkey.crypto.keystore.KeyStoreLoader;
-import org.dromara.maxkey.crypto.keystore.KeyStoreUtil;
-import org.dromara.maxkey.entity.apps.AppsSAML20Details;
 import org.opensaml.common.SignableSAMLObject;
 import org.opensaml.common.binding.BasicSAMLMessageContext;
 import org.opensaml.common.binding.decoding.SAMLMessageDecoder;
@@ -38,23 +29,17 @@ import org.opensaml.saml2.metadata.Endpoint;
 import org.opensaml.ws.message.encoder.MessageEncodingException;
 import org.opensaml.ws.security.SecurityPolicyResolver;
 import org.opensaml.ws.transport.http.HttpServletResponseAdapter;
-import org.opensaml.xml.security.CriteriaSet;
-import org.opensaml.xml.security.SecurityException;
 import org.opensaml.xml.security.credential.Credential;
-import org.opensaml.xml.security.credential.CredentialResolver;
-import org.opensaml.xml.security.credential.KeyStoreCredentialResolver;
-import org.opensaml.xml.security.credential.UsageType;
-import org.opensaml.xml.security.criteria.EntityIDCriteria;
-import org.opensaml.xml.security.criteria.UsageCriteria;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+/**
+ * stateless , the signing credential comes from Saml20AppContext 
+ * and the relay state from the AuthnRequest of the session
+ */
 public class PostBindingAdapter implements BindingAdapter, InitializingBean{
-	private static final  Logger logger = LoggerFactory.getLogger(PostBindingAdapter.class);
 
 	static final String SAML_REQUEST_POST_PARAM_NAME = "SAMLRequest";
 	static final String SAML_RESPONSE_POST_PARAM_NAME = "SAMLResponse";
@@ -64,17 +49,8 @@ public class PostBindingAdapter implements BindingAdapter, InitializingBean{
 	protected SAMLMessageEncoder encoder;	
 	protected  String issuerEntityName;
 	
-	protected CredentialResolver credentialResolver;
-	protected Credential signingCredential;
-	protected Credential spSigningCredential;
 	protected SecurityPolicyResolver securityPolicyResolver;
 
-	protected ExtractBindingAdapter extractBindingAdapter;
-	
-	protected AuthnRequestInfo authnRequestInfo;
-	
-	protected String relayState;
-
 	public PostBindingAdapter() {
 		super();
 	}
@@ -100,6 +76,8 @@ public class PostBindingAdapter implements BindingAdapter, InitializingBean{
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public void sendSAMLMessage(SignableSAMLObject samlMessage,
 								Endpoint endpoint, 
+								Credential signingCredential,
+								String relayState,
 								HttpServletRequest request,
 								HttpServletResponse response) throws MessageEncodingException {
 		
@@ -120,48 +98,6 @@ public class PostBindingAdapter implements BindingAdapter, InitializingBean{
 		encoder.encode(messageContext);
 		
 	}
-
-
-	public void  buildCredentialResolver(CredentialResolver credentialResolver) throws Exception{
-		this.credentialResolver=credentialResolver;
-		CriteriaSet criteriaSet = new CriteriaSet();
-		criteriaSet.add(new EntityIDCriteria(getKeyStoreLoader().getEntityName()));
-		criteriaSet.add(new UsageCriteria(UsageType.SIGNING));
-
-		try {
-			signingCredential = credentialResolver.resolveSingle(criteriaSet);
-		} catch (SecurityException e) {
-			logger.error("Credential Resolver error . ", e);
-			throw new Exception(e);
-		}
-		Validate.notNull(signingCredential);
-	}
-	
-	public Credential  buildSPSigningCredential() throws Exception{
-		KeyStore trustKeyStore = KeyStoreUtil.bytes2KeyStore(getSaml20Details().getKeyStore(),
-				getKeyStoreLoader().getKeyStore().getType(),
-				getKeyStoreLoader().getKeystorePassword());
-		
-		TrustResolver trustResolver=new TrustResolver();
-		KeyStoreCredentialResolver credentialResolver =trustResolver.buildKeyStoreCredentialResolver(
-							trustKeyStore, 
-							getSaml20Details().getEntityId(), 
-							getKeyStoreLoader().getKeystorePassword());
-	
-		CriteriaSet criteriaSet = new CriteriaSet();
-		criteriaSet.add(new EntityIDCriteria(getSaml20Details().getEntityId()));
-		criteriaSet.add(new UsageCriteria(UsageType.ENCRYPTION));
-
-		try {
-			spSigningCredential = credentialResolver.resolveSingle(criteriaSet);
-		} catch (SecurityException e) {
-			logger.error("Credential Resolver error . ", e);
-			throw new Exception(e);
-		}
-		Validate.notNull(spSigningCredential);
-		
-		return spSigningCredential;
-	}
 	
 	@Override
 	public void afterPropertiesSet() throws Exception {
@@ -183,58 +119,4 @@ public class PostBindingAdapter implements BindingAdapter, InitializingBean{
 		this.issuerEntityName = issuerEntityName;
 	}
 
-	public KeyStoreLoader getKeyStoreLoader() {
-		return extractBindingAdapter.getKeyStoreLoader();
-	}
-
-	@Override
-	public Credential getSigningCredential() {
-		return signingCredential;
-	}
-
-	public void setSigningCredential(Credential signingCredential) {
-		this.signingCredential = signingCredential;
-	}
-
-	@Override
-	public Credential getSpSigningCredential() {
-		return spSigningCredential;
-	}
-
-	public void setSpSigningCredential(Credential spSigningCredential) {
-		this.spSigningCredential = spSigningCredential;
-	}
-	
-	@Override
-	public AuthnRequestInfo getAuthnRequestInfo() {
-		return authnRequestInfo;
-	}
-
-	@Override
-	public void setAuthnRequestInfo(AuthnRequestInfo authnRequestInfo) {
-		this.authnRequestInfo = authnRequestInfo;
-	}
-
-	@Override
-	public void setRelayState(String relayState) {
-		this.relayState = relayState;
-	}
-
-	@Override
-	public void setExtractBindingAdapter(
-			ExtractBindingAdapter extractBindingAdapter) {
-		this.extractBindingAdapter=extractBindingAdapter;
-		this.credentialResolver=extractBindingAdapter.getCredentialResolver();
-		try {
-			buildCredentialResolver(extractBindingAdapter.getCredentialResolver());
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-		
-	}
-
-	@Override
-	public AppsSAML20Details getSaml20Details() {
-		return extractBindingAdapter.getSaml20Detail();
-	}
 }
@@ -18,12 +18,16 @@
 package org.dromara.maxkey.authz.saml20.metadata.endpoint;
 
 
+import java.io.IOException;
+
 import org.apache.commons.lang.Validate;
 import org.dromara.maxkey.authz.saml.common.TrustResolver;
 import org.dromara.maxkey.authz.saml20.metadata.MetadataGenerator;
 import org.dromara.maxkey.constants.ContentType;
 import org.dromara.maxkey.crypto.keystore.KeyStoreLoader;
 import org.dromara.maxkey.entity.Saml20Metadata;
+import org.dromara.maxkey.web.MetadataDocumentCache;
+import org.dromara.maxkey.web.MetadataDocumentCache.Document;
 import org.dromara.maxkey.web.WebConstants;
 import org.dromara.maxkey.web.WebContext;
 import org.opensaml.common.xml.SAMLConstants;
@@ -78,9 +82,8 @@ public class SamlMetadataEndpoint {
 	@Operation(summary = "SAML 2.0 元数据接口", description = "参数mxk_metadata_APPID",method="GET")
 	@RequestMapping(value = "/" + WebConstants.MXK_METADATA_PREFIX + "{appid}.xml",produces = "application/xml", method={RequestMethod.POST, RequestMethod.GET})
 	@ResponseBody
-	public String  metadata(HttpServletRequest request,
-			HttpServletResponse response, @PathVariable("appid") String appId) {
-	    response.setContentType(ContentType.APPLICATION_XML_UTF8);
+	public void  metadata(HttpServletRequest request,
+			HttpServletResponse response, @PathVariable("appid") String appId) throws IOException {
 		if(signingCredential == null){
 	        TrustResolver trustResolver = new TrustResolver();
 	        CredentialResolver credentialResolver=(CredentialResolver)trustResolver.buildKeyStoreCredentialResolver(
@@ -104,6 +107,23 @@ public class SamlMetadataEndpoint {
 			
 		Validate.notNull(signingCredential);
 		
+		String baseUrl = WebContext.getContextPath(true);
+		//rendered again when the signing credential changes
+		Document document = MetadataDocumentCache.get(
+				"saml20:" + baseUrl + ":" + appId, 
+				signingCredential, 
+				ContentType.APPLICATION_XML_UTF8, 
+				() -> buildMetadata(baseUrl, appId));
+		if(document == null) {
+			response.setContentType(ContentType.APPLICATION_XML_UTF8);
+			response.getWriter().write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" 
+					+ "<root>" + WebContext.version() + "</root>");
+			return;
+		}
+		MetadataDocumentCache.write(request, response, document);
+	}
+	
+	String buildMetadata(String baseUrl, String appId) {
 		try{
 			
 			MetadataGenerator metadataGenerator =new MetadataGenerator();
@@ -111,19 +131,19 @@ public class SamlMetadataEndpoint {
 	        IDPSSODescriptor descriptor = metadataGenerator.buildIDPSSODescriptor();
 	
 	        descriptor.getSingleSignOnServices().add(
-	        		metadataGenerator.getSingleSignOnService(WebContext.getContextPath(true) + "/authz/saml20/" + appId,null));
+	        		metadataGenerator.getSingleSignOnService(baseUrl + "/authz/saml20/" + appId,null));
 	        
 	        descriptor.getSingleSignOnServices().add(
-	        		metadataGenerator.getSingleSignOnService(WebContext.getContextPath(true) + "/authz/saml20/" + appId,SAMLConstants.SAML2_REDIRECT_BINDING_URI));
+	        		metadataGenerator.getSingleSignOnService(baseUrl + "/authz/saml20/" + appId,SAMLConstants.SAML2_REDIRECT_BINDING_URI));
 	        
 	        descriptor.getSingleSignOnServices().add(
-	        		metadataGenerator.getSingleSignOnService(WebContext.getContextPath(true) + "/authz/saml20/" + appId,SAMLConstants.SAML2_POST_SIMPLE_SIGN_BINDING_URI));
+	        		metadataGenerator.getSingleSignOnService(baseUrl + "/authz/saml20/" + appId,SAMLConstants.SAML2_POST_SIMPLE_SIGN_BINDING_URI));
 	        
 	        descriptor.getSingleLogoutServices().add(
-	        		metadataGenerator.getSingleLogoutService(WebContext.getContextPath(true) + "/force/logout" , null));
+	        		metadataGenerator.getSingleLogoutService(baseUrl + "/force/logout" , null));
 	        
 	        descriptor.getManageNameIDServices().add(
-	        		metadataGenerator.getManageNameIDService(WebContext.getContextPath(true) + "/metadata/saml20/" + WebConstants.MXK_METADATA_PREFIX + appId + ".xml"));
+	        		metadataGenerator.getManageNameIDService(baseUrl + "/metadata/saml20/" + WebConstants.MXK_METADATA_PREFIX + appId + ".xml"));
 	             
 	        descriptor.getKeyDescriptors().add(metadataGenerator.generateEncryptionKeyDescriptor(signingCredential));  
 	         
@@ -170,10 +190,7 @@ public class SamlMetadataEndpoint {
 		}catch (Exception e) {
 			logger.error(e.getMessage(),e); 
         }
-		
-
-		return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" 
-					+ "<root>" + WebContext.version() + "</root>";
+		return null;
 	}
 
 	/**
@@ -25,6 +25,8 @@ import org.dromara.maxkey.authn.web.AuthorizationUtils;
 import org.dromara.maxkey.authz.saml.common.AuthnRequestInfo;
 import org.dromara.maxkey.authz.saml.common.EndpointGenerator;
 import org.dromara.maxkey.authz.saml20.binding.BindingAdapter;
+import org.dromara.maxkey.authz.saml20.binding.Saml20AppContext;
+import org.dromara.maxkey.authz.saml20.binding.Saml20AppContextCache;
 import org.dromara.maxkey.authz.saml20.provider.xml.AuthnResponseGenerator;
 import org.dromara.maxkey.entity.apps.AppsSAML20Details;
 import org.dromara.maxkey.entity.idm.UserInfo;
@@ -48,7 +50,16 @@ import jakarta.servlet.http.HttpServletResponse;
 public class AssertionEndpoint {
 	private static final  Logger logger = LoggerFactory.getLogger(AssertionEndpoint.class);
 	
-	private BindingAdapter bindingAdapter;
+	@Autowired
+	@Qualifier("postSimpleSignBindingAdapter")
+	private BindingAdapter postSimpleSignBindingAdapter;
+	
+	@Autowired
+	@Qualifier("postBindingAdapter")
+	private BindingAdapter postBindingAdapter;
+	
+	@Autowired
+	private Saml20AppContextCache saml20AppContextCache;
 
 	@Autowired
 	@Qualifier("endpointGenerator")
@@ -64,17 +75,30 @@ public class AssertionEndpoint {
 			HttpServletResponse response,
 			@CurrentUser UserInfo currentUser) throws Exception {
 		logger.debug("saml20 assertion start.");
-		bindingAdapter = (BindingAdapter) request.getSession().getAttribute(
+		AuthnRequestInfo authnRequestInfo = (AuthnRequestInfo) request.getSession().getAttribute(
 		        WebConstants.AUTHORIZE_SIGN_ON_APP_SAMLV20_ADAPTER);
-		logger.debug("saml20 assertion get session samlv20Adapter "+bindingAdapter);
-		AppsSAML20Details saml20Details = bindingAdapter.getSaml20Details();
-		logger.debug("saml20Details "+saml20Details.getExtendAttr());
-		AuthnRequestInfo authnRequestInfo = bindingAdapter.getAuthnRequestInfo();
 		
 		if (authnRequestInfo == null) {
 			logger.warn("Could not find AuthnRequest on the request.  Responding with SC_FORBIDDEN.");
 			throw new Exception();
 		}
+		
+		Saml20AppContext appContext = saml20AppContextCache.get(authnRequestInfo.getAppId());
+		if (appContext == null) {
+			logger.error("SAML APPID [" + authnRequestInfo.getAppId() + "] is not exist .");
+			throw new Exception();
+		}
+		AppsSAML20Details saml20Details = appContext.getSaml20Details();
+		logger.debug("saml20Details "+saml20Details.getExtendAttr());
+		
+		BindingAdapter bindingAdapter;
+		if(saml20Details.getBinding().endsWith("PostSimpleSign")){
+            bindingAdapter=postSimpleSignBindingAdapter;
+            logger.debug("Authz POST Binding is  use PostSimpleSign .");
+        }else{
+            bindingAdapter=postBindingAdapter;
+            logger.debug("Authz POST Binding is  use Post .");
+        }
 
 		logger.debug("AuthnRequestInfo: {}", authnRequestInfo);
 		HashMap <String,String>attributeMap=new HashMap<String,String>();
@@ -86,7 +110,7 @@ public class AssertionEndpoint {
 				saml20Details,
 				authnRequestInfo,
 				attributeMap,
-				bindingAdapter,
+				appContext,
 				currentUser);
 		
 		Endpoint endpoint = endpointGenerator.generateEndpoint(saml20Details.getSpAcsUrl());
@@ -96,7 +120,8 @@ public class AssertionEndpoint {
 		// we could use a different adapter to send the response based on
 		// request issuer...
 		try {
-			bindingAdapter.sendSAMLMessage(authResponse, endpoint, request,response);
+			bindingAdapter.sendSAMLMessage(authResponse, endpoint, 
+					appContext.getSigningCredential(), authnRequestInfo.getRelayState(), request, response);
 		} catch (MessageEncodingException mee) {
 			logger.error("Exception encoding SAML message", mee);
 			throw new Exception(mee);
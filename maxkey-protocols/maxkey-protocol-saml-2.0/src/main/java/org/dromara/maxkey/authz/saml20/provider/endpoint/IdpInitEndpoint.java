@@ -17,21 +17,14 @@
 
 package org.dromara.maxkey.authz.saml20.provider.endpoint;
 
-import java.security.KeyStore;
-
 import org.dromara.maxkey.authz.saml.common.AuthnRequestInfo;
-import org.dromara.maxkey.authz.saml20.binding.BindingAdapter;
-import org.dromara.maxkey.authz.saml20.binding.ExtractBindingAdapter;
-import org.dromara.maxkey.crypto.keystore.KeyStoreLoader;
-import org.dromara.maxkey.crypto.keystore.KeyStoreUtil;
-import org.dromara.maxkey.entity.apps.AppsSAML20Details;
-import org.dromara.maxkey.persistence.service.AppsSaml20DetailsService;
+import org.dromara.maxkey.authz.saml20.binding.Saml20AppContext;
+import org.dromara.maxkey.authz.saml20.binding.Saml20AppContextCache;
 import org.dromara.maxkey.web.WebConstants;
 import org.dromara.maxkey.web.WebContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -54,26 +47,8 @@ import jakarta.servlet.http.HttpServletResponse;
 public class IdpInitEndpoint {
 	private static final  Logger logger = LoggerFactory.getLogger(IdpInitEndpoint.class);
 
-	private BindingAdapter bindingAdapter;
-	
-	@Autowired
-	@Qualifier("postSimpleSignBindingAdapter")
-	private BindingAdapter postSimpleSignBindingAdapter;
-	
 	@Autowired
-	@Qualifier("postBindingAdapter")
-	private BindingAdapter postBindingAdapter;
-	
-	@Autowired
-	@Qualifier("extractRedirectBindingAdapter")
-	private ExtractBindingAdapter extractRedirectBindingAdapter;
-
-	@Autowired
-	@Qualifier("keyStoreLoader")
-	private KeyStoreLoader keyStoreLoader;
-
-	@Autowired
-	private AppsSaml20DetailsService saml20DetailsService;
+	private Saml20AppContextCache saml20AppContextCache;
 	
 	/**
 	 * 
@@ -92,34 +67,17 @@ public class IdpInitEndpoint {
 				HttpServletResponse response,
 				@PathVariable("appid") String appId)throws Exception {
 		logger.debug("SAML IDP init , app id is "+appId);
-		AppsSAML20Details saml20Details = saml20DetailsService.getAppDetails(appId , true);
-		WebContext.setAttribute(WebConstants.AUTHORIZE_SIGN_ON_APP, saml20Details);
-		if (saml20Details == null) {
+		Saml20AppContext appContext = saml20AppContextCache.get(appId);
+		WebContext.setAttribute(WebConstants.AUTHORIZE_SIGN_ON_APP, 
+				appContext == null ? null : appContext.getSaml20Details());
+		if (appContext == null) {
 			logger.error("samlId[" + appId + "] Error .");
 			throw new Exception();
 		}
-
-		KeyStore trustKeyStore = KeyStoreUtil.bytes2KeyStore(saml20Details.getKeyStore(),
-				keyStoreLoader.getKeyStore().getType(),
-				keyStoreLoader.getKeystorePassword());
-
-		extractRedirectBindingAdapter.setSaml20Detail(saml20Details);
-		extractRedirectBindingAdapter.buildSecurityPolicyResolver(trustKeyStore);
-		
-		String binding=saml20Details.getBinding();
-		
-		if(binding.endsWith("PostSimpleSign")){
-			bindingAdapter=postSimpleSignBindingAdapter;
-		}else{
-			bindingAdapter=postBindingAdapter;
-		}
 		
 		//AuthnRequestInfo init authnRequestID to null
-		bindingAdapter.setAuthnRequestInfo(new AuthnRequestInfo());
-
-		bindingAdapter.setExtractBindingAdapter(extractRedirectBindingAdapter);
-		
-		request.getSession().setAttribute(WebConstants.AUTHORIZE_SIGN_ON_APP_SAMLV20_ADAPTER, bindingAdapter);
+		request.getSession().setAttribute(WebConstants.AUTHORIZE_SIGN_ON_APP_SAMLV20_ADAPTER, 
+				new AuthnRequestInfo(appId, "", null, null));
 
 		logger.debug("idp init forwarding to assertion :","/authz/saml20/assertion");
 
@@ -127,12 +85,4 @@ public class IdpInitEndpoint {
 	}
 
 
-	/**
-	 * @param keyStoreLoader
-	 *            the keyStoreLoader to set
-	 */
-	public void setKeyStoreLoader(KeyStoreLoader keyStoreLoader) {
-		this.keyStoreLoader = keyStoreLoader;
-	}
-
 }
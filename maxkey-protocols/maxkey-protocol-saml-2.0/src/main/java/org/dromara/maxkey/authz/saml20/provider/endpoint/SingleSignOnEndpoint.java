@@ -17,15 +17,11 @@
 
 package org.dromara.maxkey.authz.saml20.provider.endpoint;
 
-import java.security.KeyStore;
-
 import org.dromara.maxkey.authz.saml.common.AuthnRequestInfo;
-import org.dromara.maxkey.authz.saml20.binding.BindingAdapter;
 import org.dromara.maxkey.authz.saml20.binding.ExtractBindingAdapter;
+import org.dromara.maxkey.authz.saml20.binding.Saml20AppContext;
+import org.dromara.maxkey.authz.saml20.binding.Saml20AppContextCache;
 import org.dromara.maxkey.authz.saml20.xml.SAML2ValidatorSuite;
-import org.dromara.maxkey.crypto.keystore.KeyStoreUtil;
-import org.dromara.maxkey.entity.apps.AppsSAML20Details;
-import org.dromara.maxkey.persistence.service.AppsSaml20DetailsService;
 import org.dromara.maxkey.web.WebConstants;
 import org.dromara.maxkey.web.WebContext;
 import org.opensaml.common.binding.SAMLMessageContext;
@@ -53,16 +49,6 @@ import jakarta.servlet.http.HttpServletResponse;
 public class SingleSignOnEndpoint {
 	private static final  Logger logger = LoggerFactory.getLogger(SingleSignOnEndpoint.class);
 
-	private BindingAdapter bindingAdapter;
-	
-	@Autowired
-	@Qualifier("postSimpleSignBindingAdapter")
-	private BindingAdapter postSimpleSignBindingAdapter;
-	
-	@Autowired
-	@Qualifier("postBindingAdapter")
-	private BindingAdapter postBindingAdapter;
-	
 	@Autowired
 	@Qualifier("extractPostBindingAdapter")
 	private ExtractBindingAdapter extractPostBindingAdapter;
@@ -76,7 +62,7 @@ public class SingleSignOnEndpoint {
 	private SAML2ValidatorSuite validatorSuite;
 
 	@Autowired
-	private AppsSaml20DetailsService saml20DetailsService;
+	private Saml20AppContextCache saml20AppContextCache;
 
 	@Operation(summary = "SAML 2.0 SP Init接收接口", description = "传递参数应用ID",method="POST")
 	@RequestMapping(value = "/authz/saml20/{appid}", method=RequestMethod.POST)
@@ -103,41 +89,40 @@ public class SingleSignOnEndpoint {
 											HttpServletRequest request) throws Exception{
 		logger.debug("SAML Redirect Binding , app id is "+appId);
 		
-		extractSaml20Detail(extractBindingAdapter,appId);
+		Saml20AppContext appContext = extractSaml20Detail(appId);
 
-		extractSAMLMessage(extractBindingAdapter,request);
+		AuthnRequestInfo authnRequestInfo = extractSAMLMessage(extractBindingAdapter,appContext,request);
 		
-		request.getSession().setAttribute(WebConstants.AUTHORIZE_SIGN_ON_APP_SAMLV20_ADAPTER, bindingAdapter);
+		request.getSession().setAttribute(WebConstants.AUTHORIZE_SIGN_ON_APP_SAMLV20_ADAPTER, authnRequestInfo);
 		
 		return WebContext.forward("/authz/saml20/assertion");
 	}
 
-	public void extractSaml20Detail(ExtractBindingAdapter extractBindingAdapter,String samlId) throws Exception{
-		AppsSAML20Details  saml20Details  = saml20DetailsService.getAppDetails(samlId , true);
-		WebContext.setAttribute(WebConstants.AUTHORIZE_SIGN_ON_APP, saml20Details);
-		if (saml20Details == null) {
+	public Saml20AppContext extractSaml20Detail(String samlId) throws Exception{
+		Saml20AppContext appContext = saml20AppContextCache.get(samlId);
+		WebContext.setAttribute(WebConstants.AUTHORIZE_SIGN_ON_APP, 
+				appContext == null ? null : appContext.getSaml20Details());
+		if (appContext == null) {
 			logger.error("Request SAML APPID [" + samlId + "] is not exist .");
 			throw new Exception();
 		}
-
-		KeyStore trustKeyStore = KeyStoreUtil.bytes2KeyStore(saml20Details.getKeyStore(),
-				extractBindingAdapter.getKeyStoreLoader().getKeyStore().getType(),
-				extractBindingAdapter.getKeyStoreLoader().getKeystorePassword());
-
-		extractBindingAdapter.setSaml20Detail(saml20Details);
-		extractBindingAdapter.buildSecurityPolicyResolver(trustKeyStore);
+		return appContext;
 	}
 	
 
 	   
 	@SuppressWarnings("rawtypes")
-	public void extractSAMLMessage(ExtractBindingAdapter extractBindingAdapter,HttpServletRequest request) throws Exception{
+	public AuthnRequestInfo extractSAMLMessage(ExtractBindingAdapter extractBindingAdapter,
+											Saml20AppContext appContext,
+											HttpServletRequest request) throws Exception{
 		
 	    SAMLMessageContext messageContext;
 		logger.debug("extract SAML Message .");
 		
 		try {
-			messageContext = extractBindingAdapter.extractSAMLMessageContext(request);
+			messageContext = extractBindingAdapter.extractSAMLMessageContext(
+					request,
+					appContext.getSecurityPolicyResolver(extractBindingAdapter.getBinding()));
 			logger.debug("validate SAML AuthnRequest .");
 	        AuthnRequest authnRequest = (AuthnRequest) messageContext.getInboundSAMLMessage();
 	        logger.debug("AuthnRequest ProtocolBinding "+authnRequest.getProtocolBinding());
@@ -151,35 +136,18 @@ public class SingleSignOnEndpoint {
 	        
 	        validatorSuite.validate(authnRequest);
 	        
-
-	        logger.debug("Select Authz  Binding.");
-	        String binding=extractBindingAdapter.getSaml20Detail().getBinding();
-	        
-	        if(binding.endsWith("PostSimpleSign")){
-	            bindingAdapter=postSimpleSignBindingAdapter;
-	            logger.debug("Authz POST Binding is  use PostSimpleSign .");
-	        }else{
-	            bindingAdapter=postBindingAdapter;
-	            logger.debug("Authz POST Binding is  use Post .");
-	        }
-	        
+	        String relayState=request.getParameter("RelayState");
+	        logger.debug("RelayState : {}",relayState);
 	        
 	        AuthnRequestInfo authnRequestInfo = new AuthnRequestInfo(
+	                                appContext.getAppId(),
 	                                authnRequest.getAssertionConsumerServiceURL(),
-	                                authnRequest.getID());
+	                                authnRequest.getID(),
+	                                relayState);
 	        
-	        logger.debug("AuthnRequest vefified.  Forwarding to AuthnResponder",authnRequestInfo);
-	        
-	        bindingAdapter.setAuthnRequestInfo(authnRequestInfo);
-	        
-	        bindingAdapter.setExtractBindingAdapter(extractBindingAdapter);
-	        
-	        String relayState=request.getParameter("RelayState");
-	        if (relayState != null) {
-	            bindingAdapter.setRelayState(relayState);
-	            logger.debug("RelayState : ",relayState);
-	        }
+	        logger.debug("AuthnRequest vefified.  Forwarding to AuthnResponder {}",authnRequestInfo);
 	        
+	        return authnRequestInfo;
 		} catch (MessageDecodingException e1) {
 			logger.error("Exception decoding SAML MessageDecodingException", e1);
 			throw new Exception(e1);
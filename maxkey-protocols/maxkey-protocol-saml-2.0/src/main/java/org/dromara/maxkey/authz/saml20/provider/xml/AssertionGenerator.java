@@ -23,7 +23,7 @@ import java.util.HashMap;
 import org.dromara.maxkey.authn.web.AuthorizationUtils;
 import org.dromara.maxkey.authz.saml.service.IDService;
 import org.dromara.maxkey.authz.saml.service.TimeService;
-import org.dromara.maxkey.authz.saml20.binding.BindingAdapter;
+import org.dromara.maxkey.authz.saml20.binding.Saml20AppContext;
 import org.dromara.maxkey.authz.saml20.xml.IssuerGenerator;
 import org.dromara.maxkey.entity.apps.AppsSAML20Details;
 import org.dromara.maxkey.entity.idm.UserInfo;
@@ -76,7 +76,7 @@ public class AssertionGenerator {
 
 	public Assertion generateAssertion(
 							AppsSAML20Details saml20Details,
-							BindingAdapter bindingAdapter,
+							Saml20AppContext appContext,
 							String assertionConsumerURL, 
 							String inResponseTo, 
 							String audienceUrl,
@@ -123,12 +123,12 @@ public class AssertionGenerator {
 		assertion.setConditions(conditions);
 		//sign Assertion
 		try{
-		    if(bindingAdapter.getSigningCredential() == null) {
+		    if(appContext.getSigningCredential() == null) {
 		       throw new Exception("Signing Credential is null..." );
 		    }
-		    logger.debug("EntityId " + bindingAdapter.getSigningCredential().getEntityId());
+		    logger.debug("EntityId " + appContext.getSigningCredential().getEntityId());
 	        BasicCredential basicCredential = new BasicCredential();
-	        basicCredential.setPrivateKey(bindingAdapter.getSigningCredential().getPrivateKey());
+	        basicCredential.setPrivateKey(appContext.getSigningCredential().getPrivateKey());
 	        
 	        Signature signature = new SignatureBuilder().buildObject();
 	        signature.setCanonicalizationAlgorithm(SignatureConstants.ALGO_ID_C14N_EXCL_OMIT_COMMENTS);
@@ -138,9 +138,9 @@ public class AssertionGenerator {
 	        KeyInfoGeneratorFactory keyInfoGeneratorFactory = Configuration
 					.getGlobalSecurityConfiguration()
 					.getKeyInfoGeneratorManager().getDefaultManager()
-					.getFactory(bindingAdapter.getSigningCredential());
+					.getFactory(appContext.getSigningCredential());
 	        
-	        signature.setKeyInfo(keyInfoGeneratorFactory.newInstance().generate(bindingAdapter.getSigningCredential()));
+	        signature.setKeyInfo(keyInfoGeneratorFactory.newInstance().generate(appContext.getSigningCredential()));
 	        BasicSecurityConfiguration config = (BasicSecurityConfiguration) Configuration.getGlobalSecurityConfiguration();
 	        
 	        if(saml20Details.getSignature().equalsIgnoreCase("RSAwithSHA1"))  {  
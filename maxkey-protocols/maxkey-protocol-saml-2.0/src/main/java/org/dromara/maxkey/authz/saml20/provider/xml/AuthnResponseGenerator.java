@@ -23,7 +23,7 @@ import java.util.HashMap;
 import org.dromara.maxkey.authz.saml.common.AuthnRequestInfo;
 import org.dromara.maxkey.authz.saml.service.IDService;
 import org.dromara.maxkey.authz.saml.service.TimeService;
-import org.dromara.maxkey.authz.saml20.binding.BindingAdapter;
+import org.dromara.maxkey.authz.saml20.binding.Saml20AppContext;
 import org.dromara.maxkey.authz.saml20.xml.IssuerGenerator;
 import org.dromara.maxkey.constants.ConstsBoolean;
 import org.dromara.maxkey.entity.apps.AppsSAML20Details;
@@ -65,14 +65,14 @@ public class AuthnResponseGenerator {
 	public Response generateAuthnResponse(  AppsSAML20Details saml20Details,
 											AuthnRequestInfo authnRequestInfo,
 											HashMap<String,String>attributeMap, 
-											BindingAdapter bindingAdapter,
+											Saml20AppContext appContext,
 											UserInfo currentUser){
 		
 		Response authResponse = new ResponseBuilder().buildObject();
 		//builder Assertion
 		Assertion assertion = assertionGenerator.generateAssertion( 
 											saml20Details,
-											bindingAdapter,
+											appContext,
 											saml20Details.getSpAcsUrl(),
 											authnRequestInfo.getAuthnRequestID(),
 											saml20Details.getAudience(),
@@ -89,14 +89,14 @@ public class AuthnResponseGenerator {
 				encryptionParameters.setAlgorithm(EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128);
 				logger.info("encryption assertion Algorithm : "+EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128);
 				KeyEncryptionParameters keyEncryptionParameters = new KeyEncryptionParameters();
-				keyEncryptionParameters.setEncryptionCredential(bindingAdapter.getSpSigningCredential());
+				keyEncryptionParameters.setEncryptionCredential(appContext.getSpEncryptionCredential());
 				// kekParams.setAlgorithm(EncryptionConstants.ALGO_ID_KEYTRANSPORT_RSAOAEP);
 				keyEncryptionParameters.setAlgorithm(EncryptionConstants.ALGO_ID_KEYTRANSPORT_RSA15);
 				logger.info("keyEncryption  Algorithm : "+EncryptionConstants.ALGO_ID_KEYTRANSPORT_RSA15);
 				KeyInfoGeneratorFactory keyInfoGeneratorFactory = Configuration
 														.getGlobalSecurityConfiguration()
 														.getKeyInfoGeneratorManager().getDefaultManager()
-														.getFactory(bindingAdapter.getSpSigningCredential());
+														.getFactory(appContext.getSpEncryptionCredential());
 				keyEncryptionParameters.setKeyInfoGenerator(keyInfoGeneratorFactory.newInstance());
 				Encrypter encrypter = new Encrypter(encryptionParameters, keyEncryptionParameters);
 				encrypter.setKeyPlacement(KeyPlacement.PEER);
@@ -25,6 +25,7 @@ import org.apache.velocity.exception.VelocityException;
 import org.dromara.maxkey.authz.saml.common.EndpointGenerator;
 import org.dromara.maxkey.authz.saml.service.IDService;
 import org.dromara.maxkey.authz.saml.service.TimeService;
+import org.dromara.maxkey.authz.saml20.binding.Saml20AppContextCache;
 import org.dromara.maxkey.authz.saml20.binding.decoder.OpenHTTPPostDecoder;
 import org.dromara.maxkey.authz.saml20.binding.decoder.OpenHTTPPostSimpleSignDecoder;
 import org.dromara.maxkey.authz.saml20.binding.decoder.OpenHTTPRedirectDecoder;
@@ -36,6 +37,7 @@ import org.dromara.maxkey.authz.saml20.provider.xml.AuthnResponseGenerator;
 import org.dromara.maxkey.authz.saml20.xml.SAML2ValidatorSuite;
 import org.dromara.maxkey.crypto.keystore.KeyStoreLoader;
 import org.dromara.maxkey.entity.Saml20Metadata;
+import org.dromara.maxkey.persistence.service.AppsSaml20DetailsService;
 import org.opensaml.common.binding.security.IssueInstantRule;
 import org.opensaml.common.binding.security.MessageReplayRule;
 import org.opensaml.util.storage.MapBasedStorageService;
@@ -329,7 +331,15 @@ public class Saml20AutoConfiguration implements InitializingBean {
         return adapter;
     }
     
-    
+    /**
+     * Saml20AppContextCache.
+     * @return saml20AppContextCache
+     */
+    @Bean(name = "saml20AppContextCache")
+    Saml20AppContextCache saml20AppContextCache(AppsSaml20DetailsService saml20DetailsService,
+                                                @Qualifier("keyStoreLoader") KeyStoreLoader keyStoreLoader, IssueInstantRule issueInstantRule, MessageReplayRule messageReplayRule) {
+        return new Saml20AppContextCache(saml20DetailsService, keyStoreLoader, issueInstantRule, messageReplayRule);
+    }
     
    
 
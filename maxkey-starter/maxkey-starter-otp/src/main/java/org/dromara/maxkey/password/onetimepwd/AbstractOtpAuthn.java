@@ -18,8 +18,11 @@
 package org.dromara.maxkey.password.onetimepwd;
 
 import org.dromara.maxkey.entity.idm.UserInfo;
+import org.dromara.maxkey.password.onetimepwd.token.AbstractOtpReplayCache;
 import org.dromara.maxkey.password.onetimepwd.token.AbstractOtpTokenStore;
+import org.dromara.maxkey.password.onetimepwd.token.InMemoryOtpReplayCache;
 import org.dromara.maxkey.password.onetimepwd.token.InMemoryOtpTokenStore;
+import org.dromara.maxkey.password.onetimepwd.token.OtpCounterRepository;
 import org.dromara.maxkey.util.StringGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,9 +37,19 @@ public abstract class AbstractOtpAuthn {
 
     protected AbstractOtpTokenStore optTokenStore = new InMemoryOtpTokenStore();
     
+    protected AbstractOtpReplayCache replayCache = new InMemoryOtpReplayCache();
+    
+    /**
+     * saves the shared counter of counter based OTP , null when the counter is not saved
+     */
+    protected OtpCounterRepository counterRepository;
+    
     //验证码有效間隔
     protected int interval = 30;
     
+    //clock drift , time steps or counters accepted before and after current
+    protected int window = 1;
+    
     // 验证码长度，范围4～10，默认为6
     protected int digits = 6;
 
@@ -148,6 +161,64 @@ public abstract class AbstractOtpAuthn {
         this.optTokenStore = optTokenStore;
     }
 
+    public void setReplayCache(AbstractOtpReplayCache replayCache) {
+        this.replayCache = replayCache;
+    }
+
+    public void setCounterRepository(OtpCounterRepository counterRepository) {
+        this.counterRepository = counterRepository;
+    }
+
+    /**
+     * accept token of user at time step or counter once
+     * @return false when token is replayed
+     */
+    protected boolean markUsed(UserInfo userInfo, long counter) {
+        if (replayCache == null) {
+            return true;
+        }
+        boolean firstUse = replayCache.markUsed(
+                otpType + "_" + userInfo.getId() + "_" + counter, replayValiditySeconds());
+        if (!firstUse) {
+            logger.debug("token of user {} at {} is replayed" , userInfo.getUsername() , counter);
+        }
+        return firstUse;
+    }
+
+    /**
+     * accept counter of counter based OTP once and move the shared counter of user to nextCounter ,
+     * the saved counter rejects used counters on all nodes , 
+     * used marks are only kept when the counter is not saved
+     * @return false when token is replayed
+     */
+    protected boolean advanceCounter(UserInfo userInfo, long counter, String nextCounter) {
+        if (counterRepository == null) {
+            if (!markUsed(userInfo, counter)) {
+                return false;
+            }
+        } else if (!counterRepository.advance(userInfo.getId(), userInfo.getSharedCounter(), nextCounter)) {
+            logger.debug("counter of user {} is moved from {} , token is replayed" , userInfo.getUsername() , userInfo.getSharedCounter());
+            return false;
+        }
+        userInfo.setSharedCounter(nextCounter);
+        return true;
+    }
+
+    /**
+     * keep used marks while the time step or counter is accepted
+     */
+    protected int replayValiditySeconds() {
+        return interval * (window * 2 + 2);
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public void setWindow(int window) {
+        this.window = window;
+    }
+
     public void initPropertys() {
         
     }
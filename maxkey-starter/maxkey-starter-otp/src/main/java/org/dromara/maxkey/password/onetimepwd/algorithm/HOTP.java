@@ -19,8 +19,6 @@ package org.dromara.maxkey.password.onetimepwd.algorithm;
 
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 
 /**
  * IETF RFC 4226 http://tools.ietf.org/html/rfc4226 HOTP Include HmacOTP's
@@ -80,25 +78,9 @@ public class HOTP {
 
     public static byte[] hmac_sha1(byte[] 
             keyBytes, byte[] text) throws NoSuchAlgorithmException, InvalidKeyException {
-        // try {
-        Mac hmacSha1;
-        try {
-            hmacSha1 = Mac.getInstance("HmacSHA1");
-        } catch (NoSuchAlgorithmException nsae) {
-            hmacSha1 = Mac.getInstance("HMAC-SHA-1");
-        }
-        SecretKeySpec macKey = new SecretKeySpec(keyBytes, "RAW");
-        hmacSha1.init(macKey);
-        return hmacSha1.doFinal(text);
-        // } catch (GeneralSecurityException gse) {
-        // throw new UndeclaredThrowableException(gse);
-        // }
+        return OtpEngine.mac(OtpEngine.HMAC_SHA1, keyBytes).doFinal(text);
     }
     
-    // 0 1 2 3 4 5 6 7 8
-    private static final int[] DIGITS_POWER
-            = { 1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000 };
-
     /**
      * This method generates an OTP value for the given set of parameters.
      *
@@ -133,38 +115,14 @@ public class HOTP {
     public static String generateOTP(byte[] 
             secret, long movingFactor, int codeDigits, boolean addChecksum,
             int truncationOffset) throws NoSuchAlgorithmException, InvalidKeyException {
-        // put movingFactor value into text byte array
-        String result = null;
         final int digits = addChecksum ? (codeDigits + 1) : codeDigits;
 
-        byte[] text = new byte[8];
-        for (int i = text.length - 1; i >= 0; i--) {
-            text[i] = (byte) (movingFactor & 0xff);
-            movingFactor >>= 8;
-        }
-
-        // compute hmac hash
-        byte[] hash = hmac_sha1(secret, text);
-
-        // put selected bytes into result int
-        int offset = hash[hash.length - 1] & 0xf;
-
-        if ((0 <= truncationOffset) && (truncationOffset < (hash.length - 4))) {
-            offset = truncationOffset;
-        }
-
-        int binary = ((hash[offset] & 0x7f) << 24) | ((hash[offset + 1] & 0xff) << 16)
-                | ((hash[offset + 2] & 0xff) << 8) | (hash[offset + 3] & 0xff);
-
-        int otp = binary % DIGITS_POWER[codeDigits];
+        long otp = OtpEngine.generate(
+                OtpEngine.mac(OtpEngine.HMAC_SHA1, secret), movingFactor, codeDigits, truncationOffset);
         if (addChecksum) {
             otp = (otp * 10) + calcChecksum(otp, codeDigits);
         }
-        result = Integer.toString(otp);
-        while (result.length() < digits) {
-            result = "0" + result;
-        }
-        return result;
+        return OtpEngine.format(otp, digits);
     }
 
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.password.onetimepwd.algorithm;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * RFC 4226 HOTP / RFC 6238 TOTP engine.<br>
+ * counters are long , Mac instances are kept per thread and algorithm ,
+ * no state is shared between threads .
+ *
+ * @author Crystal.Sea
+ *
+ */
+public final class OtpEngine {
+
+    public static final String HMAC_SHA1 = "HmacSHA1";
+
+    public static final String HMAC_SHA256 = "HmacSHA256";
+
+    public static final String HMAC_SHA512 = "HmacSHA512";
+
+    // 0 1 2 3 4 5 6 7 8 9 10
+    static final long[] DIGITS_POWER =
+            { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L, 10000000000L };
+
+    private static final ThreadLocal<Map<String, Mac>> macs = ThreadLocal.withInitial(HashMap::new);
+
+    private OtpEngine() {
+
+    }
+
+    /**
+     * Mac of this thread , not initialized
+     * @param crypto HmacSHA1 HmacSHA256 HmacSHA512
+     * @return
+     * @throws NoSuchAlgorithmException
+     */
+    public static Mac mac(String crypto) throws NoSuchAlgorithmException {
+        Map<String, Mac> threadMacs = macs.get();
+        Mac mac = threadMacs.get(crypto);
+        if (mac == null) {
+            try {
+                mac = Mac.getInstance(crypto);
+            } catch (NoSuchAlgorithmException nsae) {
+                if (!HMAC_SHA1.equalsIgnoreCase(crypto)) {
+                    throw nsae;
+                }
+                mac = Mac.getInstance("HMAC-SHA-1");
+            }
+            threadMacs.put(crypto, mac);
+        }
+        return mac;
+    }
+
+    /**
+     * thread Mac initialized with key
+     */
+    public static Mac mac(String crypto, byte[] key) throws NoSuchAlgorithmException, InvalidKeyException {
+        Mac mac = mac(crypto);
+        mac.init(new SecretKeySpec(key, "RAW"));
+        return mac;
+    }
+
+    public static byte[] hmac(String crypto, byte[] key, byte[] text) {
+        try {
+            return mac(crypto, key).doFinal(text);
+        } catch (GeneralSecurityException gse) {
+            throw new UndeclaredThrowableException(gse);
+        }
+    }
+
+    /**
+     * generate OTP value
+     * @param crypto HmacSHA1 HmacSHA256 HmacSHA512
+     * @param key shared secret
+     * @param counter time step or counter
+     * @param digits 1 - 10
+     * @return OTP value , format to digits with {@link #format(long, int)}
+     */
+    public static long generate(String crypto, byte[] key, long counter, int digits) {
+        try {
+            return generate(mac(crypto, key), counter, digits, -1);
+        } catch (GeneralSecurityException gse) {
+            throw new UndeclaredThrowableException(gse);
+        }
+    }
+
+    /**
+     * generate OTP value with initialized Mac , Mac is reset after
+     * @param truncationOffset 0 ... hash length - 5 , otherwise dynamic truncation
+     */
+    public static long generate(Mac mac, long counter, int digits, int truncationOffset) {
+        for (int i = 7; i >= 0; i--) {
+            mac.update((byte) (counter >>> (i * 8)));
+        }
+        byte[] hash = mac.doFinal();
+
+        // put selected bytes into result int
+        int offset = hash[hash.length - 1] & 0xf;
+        if ((0 <= truncationOffset) && (truncationOffset < (hash.length - 4))) {
+            offset = truncationOffset;
+        }
+
+        int binary = ((hash[offset] & 0x7f) << 24) | ((hash[offset + 1] & 0xff) << 16)
+                | ((hash[offset + 2] & 0xff) << 8) | (hash[offset + 3] & 0xff);
+
+        return binary % DIGITS_POWER[digits];
+    }
+
+    /**
+     * verify token in counter - window ... counter + window , nearest counter first
+     * @param crypto HmacSHA1 HmacSHA256 HmacSHA512
+     * @param key shared secret
+     * @param counter current time step or counter
+     * @param behind counters before current accepted
+     * @param ahead counters after current accepted
+     * @param token token from user
+     * @param digits 1 - 10
+     * @return matched counter , -1 when not matched
+     */
+    public static long verify(String crypto, byte[] key, long counter, int behind, int ahead, String token, int digits) {
+        long value = parse(token, digits);
+        if (value < 0) {
+            return -1;
+        }
+        try {
+            Mac mac = mac(crypto, key);
+            int window = Math.max(behind, ahead);
+            for (int i = 0; i <= window; i++) {
+                if (i <= behind && counter - i >= 0 && generate(mac, counter - i, digits, -1) == value) {
+                    return counter - i;
+                }
+                if (i > 0 && i <= ahead && generate(mac, counter + i, digits, -1) == value) {
+                    return counter + i;
+                }
+            }
+        } catch (GeneralSecurityException gse) {
+            throw new UndeclaredThrowableException(gse);
+        }
+        return -1;
+    }
+
+    /**
+     * left pad OTP value with 0 to digits
+     */
+    public static String format(long otp, int digits) {
+        char[] chars = new char[digits];
+        for (int i = digits - 1; i >= 0; i--) {
+            chars[i] = (char) ('0' + (otp % 10));
+            otp /= 10;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * parse token of digits , -1 when not numeric or the length is not digits
+     */
+    public static long parse(String token, int digits) {
+        if (token == null || token.length() != digits) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < digits; i++) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * HEX string to bytes , odd length is left padded with 0
+     */
+    public static byte[] hex(String hex) {
+        int length = hex.length();
+        int offset = length & 1;
+        byte[] bytes = new byte[(length + offset) / 2];
+        for (int i = 0; i < length; i++) {
+            int nibble = Character.digit(hex.charAt(i), 16);
+            if (nibble < 0) {
+                throw new IllegalArgumentException("illegal hex character " + hex.charAt(i));
+            }
+            int index = (i + offset) / 2;
+            bytes[index] = (byte) (((i + offset) & 1) == 0 ? (nibble << 4) : (bytes[index] | nibble));
+        }
+        return bytes;
+    }
+}
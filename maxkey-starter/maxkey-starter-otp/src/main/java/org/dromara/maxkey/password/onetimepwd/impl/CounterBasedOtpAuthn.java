@@ -17,11 +17,10 @@
 
 package org.dromara.maxkey.password.onetimepwd.impl;
 
-import org.apache.commons.codec.binary.Hex;
 import org.dromara.maxkey.crypto.Base32Utils;
 import org.dromara.maxkey.entity.idm.UserInfo;
 import org.dromara.maxkey.password.onetimepwd.AbstractOtpAuthn;
-import org.dromara.maxkey.password.onetimepwd.algorithm.TimeBasedOTP;
+import org.dromara.maxkey.password.onetimepwd.algorithm.OtpEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,38 +37,24 @@ public class CounterBasedOtpAuthn extends AbstractOtpAuthn {
         return true;
     }
 
+    /**
+     * SharedCounter is HEX , counters after SharedCounter up to window are accepted
+     */
     @Override
     public boolean validate(UserInfo userInfo, String token) {
-        _logger.debug("SharedCounter : " + userInfo.getSharedCounter());
+        _logger.debug("SharedCounter : {}" , userInfo.getSharedCounter());
         byte[] byteSharedSecret = Base32Utils.decode(userInfo.getSharedSecret());
-        String hexSharedSecret = Hex.encodeHexString(byteSharedSecret);
-        String counterBasedToken = "";
-        if (crypto.equalsIgnoreCase("HmacSHA1")) {
-            counterBasedToken = TimeBasedOTP.genOTP(
-                    hexSharedSecret, 
-                    userInfo.getSharedCounter(), 
-                    "" + digits
-                    );
-        } else if (crypto.equalsIgnoreCase("HmacSHA256")) {
-            counterBasedToken = TimeBasedOTP.genOTPHmacSHA256(
-                    hexSharedSecret, 
-                    userInfo.getSharedCounter(),
-                    "" + digits
-                    );
-        } else if (crypto.equalsIgnoreCase("HmacSHA512")) {
-            counterBasedToken = TimeBasedOTP.genOTPHmacSHA512(
-                    hexSharedSecret, 
-                    userInfo.getSharedCounter(),
-                    "" + digits
-                    );
-        }
-
-        _logger.debug("token : " + token);
-        _logger.debug("counterBasedToken : " + counterBasedToken);
-        if (token.equalsIgnoreCase(counterBasedToken)) {
-            return true;
-        }
-        return false;
+        long counter = OtpEngine.verify(
+                    crypto,
+                    byteSharedSecret,
+                    Long.parseUnsignedLong(userInfo.getSharedCounter(), 16),
+                    0,
+                    window,
+                    token,
+                    digits);
+        _logger.debug("token : {} , matched counter {}" , token , counter);
+        return counter >= 0 
+                && advanceCounter(userInfo, counter, Long.toHexString(counter + 1).toUpperCase());
     }
 
 }
@@ -44,25 +44,25 @@ public class HotpOtpAuthn extends AbstractOtpAuthn {
 
     @Override
     public boolean validate(UserInfo userInfo, String token) {
-        _logger.debug("SharedCounter : " + userInfo.getSharedCounter());
+        _logger.debug("SharedCounter : {}" , userInfo.getSharedCounter());
         byte[] byteSharedSecret = Base32Utils.decode(userInfo.getSharedSecret());
-        String hotpToken;
+        long sharedCounter = Long.parseLong(userInfo.getSharedCounter());
         try {
-            hotpToken = HOTP.generateOTP(
-                    byteSharedSecret, 
-                    Long.parseLong(userInfo.getSharedCounter()), 
-                    digits,
-                    addChecksum, truncation
-                );
-            _logger.debug("token : " + token);
-            _logger.debug("hotpToken : " + hotpToken);
-            if (token.equalsIgnoreCase(hotpToken)) {
-                return true;
+            //counters after SharedCounter up to window are accepted
+            for (long counter = sharedCounter; counter <= sharedCounter + window; counter++) {
+                String hotpToken = HOTP.generateOTP(
+                        byteSharedSecret, 
+                        counter, 
+                        digits,
+                        addChecksum, truncation
+                    );
+                if (token.equalsIgnoreCase(hotpToken)) {
+                    _logger.debug("token : {} , matched counter {}" , token , counter);
+                    return advanceCounter(userInfo, counter, String.valueOf(counter + 1));
+                }
             }
-        } catch (InvalidKeyException e) {
-            e.printStackTrace();
-        } catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
+        } catch (InvalidKeyException | NoSuchAlgorithmException e) {
+            _logger.error("validate HOTP error" , e);
         }
         return false;
     }
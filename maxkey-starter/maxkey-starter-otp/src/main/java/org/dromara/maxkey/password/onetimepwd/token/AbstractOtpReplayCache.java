@@ -0,0 +1,42 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+
+package org.dromara.maxkey.password.onetimepwd.token;
+
+/**
+ * used OTP , a token of user and time step or counter is accepted once .
+ */
+public abstract class AbstractOtpReplayCache {
+
+    /**
+     * keep used mark when validitySeconds is 0 or less
+     */
+    public static final int DEFAULT_VALIDITY_SECONDS = 300;
+
+    /**
+     * mark used
+     * @param key user and time step or counter
+     * @param validitySeconds keep used mark , DEFAULT_VALIDITY_SECONDS when 0 or less
+     * @return true first use , false replay
+     */
+    public abstract boolean markUsed(String key, int validitySeconds);
+
+    protected int validitySeconds(int validitySeconds) {
+        return validitySeconds <= 0 ? DEFAULT_VALIDITY_SECONDS : validitySeconds;
+    }
+
+}
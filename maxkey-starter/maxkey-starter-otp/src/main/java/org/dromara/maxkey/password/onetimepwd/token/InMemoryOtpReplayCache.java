@@ -0,0 +1,66 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+
+package org.dromara.maxkey.password.onetimepwd.token;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * used OTP of this node , each mark expires after its own validitySeconds
+ */
+public class InMemoryOtpReplayCache extends AbstractOtpReplayCache {
+
+    /**
+     * value is validitySeconds of the mark
+     */
+    protected static final Cache<String, Integer> usedStore = 
+            Caffeine.newBuilder()
+                .expireAfter(new ValidityExpiry())
+                .maximumSize(200000)
+                .build();
+
+    @Override
+    public boolean markUsed(String key, int validitySeconds) {
+        return usedStore.asMap().putIfAbsent(key, validitySeconds(validitySeconds)) == null;
+    }
+
+    static class ValidityExpiry implements Expiry<String, Integer> {
+
+        @Override
+        public long expireAfterCreate(String key, Integer validitySeconds, long currentTime) {
+            return TimeUnit.SECONDS.toNanos(validitySeconds);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Integer validitySeconds, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Integer validitySeconds, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    public InMemoryOtpReplayCache() {
+        
+    }
+}
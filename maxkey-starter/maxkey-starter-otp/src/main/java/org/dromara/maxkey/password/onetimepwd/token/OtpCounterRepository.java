@@ -0,0 +1,53 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+
+package org.dromara.maxkey.password.onetimepwd.token;
+
+import java.sql.Types;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * shared counter of counter based OTP in mxk_userinfo ,
+ * the counter only moves on from the value the token is validated with ,
+ * so a counter is accepted once by all nodes .
+ */
+public class OtpCounterRepository {
+
+    private static final String SHAREDCOUNTER_UPDATE_STATEMENT = 
+            "update mxk_userinfo set sharedcounter = ? where id = ? and sharedcounter = ?";
+
+    JdbcTemplate jdbcTemplate;
+
+    public OtpCounterRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * save the next counter
+     * @param userId
+     * @param sharedCounter counter the token is validated with
+     * @param nextCounter
+     * @return false when the counter is moved by other validate
+     */
+    public boolean advance(String userId, String sharedCounter, String nextCounter) {
+        return jdbcTemplate.update(SHAREDCOUNTER_UPDATE_STATEMENT,
+                new Object[] { nextCounter, userId, sharedCounter },
+                new int[] { Types.VARCHAR, Types.VARCHAR, Types.VARCHAR }) > 0;
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+
+package org.dromara.maxkey.password.onetimepwd.token;
+
+import org.dromara.maxkey.persistence.redis.RedisConnection;
+import org.dromara.maxkey.persistence.redis.RedisConnectionFactory;
+
+import redis.clients.jedis.params.SetParams;
+
+/**
+ * used OTP shared by nodes , SET NX with expire
+ */
+public class RedisOtpReplayCache extends AbstractOtpReplayCache {
+
+    public static final String PREFIX = "REDIS_OTP_USED_";
+
+    RedisConnectionFactory connectionFactory;
+
+    public RedisOtpReplayCache(RedisConnectionFactory connectionFactory) {
+        super();
+        this.connectionFactory = connectionFactory;
+    }
+
+    @Override
+    public boolean markUsed(String key, int validitySeconds) {
+        try (RedisConnection conn = connectionFactory.getConnection()) {
+            return conn.getConn().set(PREFIX + key, "1", 
+                    SetParams.setParams().nx().ex(validitySeconds(validitySeconds))) != null;
+        }
+    }
+
+}
@@ -47,19 +47,19 @@ public class RedisOtpTokenStore  extends AbstractOtpTokenStore {
         otp.setToken(token);
         otp.setReceiver(receiver);
         otp.setCreateTime(currentDateTime.toString("yyyy-MM-dd HH:mm:ss"));
-        RedisConnection conn = connectionFactory.getConnection();
-        conn.setexObject(PREFIX + otp.getId(), validitySeconds, otp);
-        conn.close();
+        try (RedisConnection conn = connectionFactory.getConnection()) {
+            conn.setexObject(PREFIX + otp.getId(), validitySeconds, otp);
+        }
     }
 
     @Override
     public boolean validate(UserInfo userInfo, String token, String type, int interval) {
-        RedisConnection conn = connectionFactory.getConnection();
-        OneTimePassword otp = (OneTimePassword)conn.getObject(
-                PREFIX + userInfo.getUsername() + "_" + type + "_" + token);
-//        conn.delete(PREFIX + userInfo.getUsername() + "_" + type + "_" + token);
-        conn.close();
-        return (otp != null) ;
+        try (RedisConnection conn = connectionFactory.getConnection()) {
+            OneTimePassword otp = (OneTimePassword)conn.getObject(
+                    PREFIX + userInfo.getUsername() + "_" + type + "_" + token);
+//            conn.delete(PREFIX + userInfo.getUsername() + "_" + type + "_" + token);
+            return (otp != null) ;
+        }
     }
 
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.maxkey.otp.algorithm;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.codec.binary.Hex;
+import org.dromara.maxkey.password.onetimepwd.algorithm.HOTP;
+import org.dromara.maxkey.password.onetimepwd.algorithm.OtpEngine;
+import org.dromara.maxkey.password.onetimepwd.algorithm.TimeBasedOTP;
+import org.dromara.maxkey.password.onetimepwd.token.InMemoryOtpReplayCache;
+import org.junit.Test;
+
+/**
+ * RFC 4226 and RFC 6238 test vectors , verifications per second
+ */
+public class OtpEngineTest {
+
+	static final byte[] SEED20 = "12345678901234567890".getBytes(StandardCharsets.US_ASCII);
+
+	static final byte[] SEED32 = "12345678901234567890123456789012".getBytes(StandardCharsets.US_ASCII);
+
+	static final byte[] SEED64 = "1234567890123456789012345678901234567890123456789012345678901234".getBytes(StandardCharsets.US_ASCII);
+
+	static final int COUNT = 200000;
+
+	@Test
+	public void rfc4226() throws Exception {
+		String[] expected = { "755224", "287082", "359152", "969429", "338314", "254676", "287922", "162583", "399871", "520489" };
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], OtpEngine.format(OtpEngine.generate(OtpEngine.HMAC_SHA1, SEED20, i, 6), 6));
+			assertEquals(expected[i], HOTP.generateOTP(SEED20, i, 6, false, -1));
+		}
+	}
+
+	@Test
+	public void rfc6238() {
+		//time 59 , step 1
+		assertEquals("94287082", OtpEngine.format(OtpEngine.generate(OtpEngine.HMAC_SHA1, SEED20, 1, 8), 8));
+		assertEquals("46119246", OtpEngine.format(OtpEngine.generate(OtpEngine.HMAC_SHA256, SEED32, 1, 8), 8));
+		assertEquals("90693936", OtpEngine.format(OtpEngine.generate(OtpEngine.HMAC_SHA512, SEED64, 1, 8), 8));
+		//time 1111111109
+		assertEquals("07081804", TimeBasedOTP.genOTP(Hex.encodeHexString(SEED20), "23523EC", "8"));
+		assertEquals("68084774", TimeBasedOTP.genOTPHmacSHA256(Hex.encodeHexString(SEED32), "23523EC", "8"));
+		assertEquals("25091201", TimeBasedOTP.genOTPHmacSHA512(Hex.encodeHexString(SEED64), "23523EC", "8"));
+	}
+
+	@Test
+	public void verifyWindow() {
+		long step = 1111111109L / 30;
+		String token = OtpEngine.format(OtpEngine.generate(OtpEngine.HMAC_SHA1, SEED20, step, 6), 6);
+		assertEquals(step, OtpEngine.verify(OtpEngine.HMAC_SHA1, SEED20, step, 1, 1, token, 6));
+		assertEquals(step, OtpEngine.verify(OtpEngine.HMAC_SHA1, SEED20, step + 1, 1, 1, token, 6));
+		assertEquals(step, OtpEngine.verify(OtpEngine.HMAC_SHA1, SEED20, step - 1, 1, 1, token, 6));
+		assertEquals(-1, OtpEngine.verify(OtpEngine.HMAC_SHA1, SEED20, step + 2, 1, 1, token, 6));
+		assertEquals(-1, OtpEngine.verify(OtpEngine.HMAC_SHA1, SEED20, step, 1, 1, "12a456", 6));
+
+		InMemoryOtpReplayCache replayCache = new InMemoryOtpReplayCache();
+		assertEquals(true, replayCache.markUsed("TOPT_test_" + step, 90));
+		assertEquals(false, replayCache.markUsed("TOPT_test_" + step, 90));
+		//counter marks are kept without expiry
+		assertEquals(true, replayCache.markUsed("HOTP_test_" + step, 0));
+		assertEquals(false, replayCache.markUsed("HOTP_test_" + step, 0));
+	}
+
+	@Test
+	public void verifyThroughput() throws Exception {
+		long step = System.currentTimeMillis() / 1000 / 30;
+		String token = OtpEngine.format(OtpEngine.generate(OtpEngine.HMAC_SHA1, SEED20, step - 1, 6), 6);
+		String hexSeed = Hex.encodeHexString(SEED20);
+		//warm up
+		for (int i = 0; i < COUNT / 10; i++) {
+			TimeBasedOTP.genOTP(hexSeed, Long.toHexString(step).toUpperCase(), "6");
+			OtpEngine.verify(OtpEngine.HMAC_SHA1, SEED20, step, 1, 1, token, 6);
+		}
+
+		//previous path , hex string key , counter and result string per verification
+		long startTime = System.nanoTime();
+		for (int i = 0; i < COUNT; i++) {
+			TimeBasedOTP.genOTP(hexSeed, Long.toHexString(step).toUpperCase(), "6").equals(token);
+		}
+		long stringTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+		//window 1 , matched at the previous step , 2 HMAC per verification
+		startTime = System.nanoTime();
+		for (int i = 0; i < COUNT; i++) {
+			OtpEngine.verify(OtpEngine.HMAC_SHA1, SEED20, step, 1, 1, token, 6);
+		}
+		long engineTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<>();
+		startTime = System.nanoTime();
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < COUNT; i++) {
+					OtpEngine.verify(OtpEngine.HMAC_SHA1, SEED20, step, 1, 1, token, 6);
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		long parallelTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+		executor.shutdown();
+
+		System.out.println("string generate : " + COUNT + " in " + stringTime + " ms , "
+				+ (COUNT * 1000L / Math.max(stringTime, 1)) + " ops/s");
+		System.out.println("engine verify : " + COUNT + " in " + engineTime + " ms , "
+				+ (COUNT * 1000L / Math.max(engineTime, 1)) + " verifications/s/core");
+		System.out.println("engine verify " + threads + " threads : " + (COUNT * threads) + " in " + parallelTime + " ms , "
+				+ (COUNT * 1000L / Math.max(parallelTime, 1)) + " verifications/s/core");
+	}
+
+}
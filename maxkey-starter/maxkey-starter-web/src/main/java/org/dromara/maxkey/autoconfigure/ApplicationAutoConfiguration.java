@@ -30,10 +30,16 @@ import org.dromara.maxkey.crypto.password.NoOpPasswordEncoder;
 import org.dromara.maxkey.crypto.password.PasswordReciprocal;
 import org.dromara.maxkey.crypto.password.SM3PasswordEncoder;
 import org.dromara.maxkey.crypto.password.StandardPasswordEncoder;
+import org.dromara.maxkey.persistence.cache.CacheInvalidationBus;
+import org.dromara.maxkey.persistence.cache.CacheRegistry;
 import org.dromara.maxkey.persistence.cache.InMemoryMomentaryService;
+import org.dromara.maxkey.persistence.cache.JdbcCacheInvalidationBus;
+import org.dromara.maxkey.persistence.cache.NoOpCacheInvalidationBus;
 import org.dromara.maxkey.persistence.cache.MomentaryService;
+import org.dromara.maxkey.persistence.cache.RedisCacheInvalidationBus;
 import org.dromara.maxkey.persistence.cache.RedisMomentaryService;
 import org.dromara.maxkey.persistence.redis.RedisConnectionFactory;
+import org.dromara.maxkey.persistence.redis.RedisNodeIdLease;
 import org.dromara.maxkey.persistence.repository.InstitutionsRepository;
 import org.dromara.maxkey.util.IdGenerator;
 import org.dromara.maxkey.util.SnowFlakeId;
@@ -43,6 +49,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
 import org.springframework.core.io.Resource;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
@@ -170,6 +177,31 @@ public class ApplicationAutoConfiguration {
         return idGenerator;
     }
 
+    /**
+     * SnowFlake node id leased from Redis , maxkey.id.lease=redis .
+     * every node gets its own datacenterId and machineId without configuration
+     * @return
+     */
+    @Bean(destroyMethod = "release")
+    RedisNodeIdLease idNodeIdLease(
+            IdGenerator idGenerator,
+            RedisConnectionFactory redisConnFactory,
+            @Value("${maxkey.id.lease:none}") String lease,
+            @Value("${maxkey.id.lease.ttl:60}") int ttlSeconds) {
+    	RedisNodeIdLease nodeIdLease = new RedisNodeIdLease(redisConnFactory, "snowflake", 1024, ttlSeconds);
+    	if(lease.equalsIgnoreCase("redis")) {
+    		nodeIdLease.acquire(nodeId -> {
+    			idGenerator.setDatacenterId(nodeId >> 5);
+    			idGenerator.setMachineId(nodeId & 31);
+    		});
+    		//no id after the lease expired , another node may lease the same node id
+    		idGenerator.getSnowFlakeId().setLeaseExpiry(nodeIdLease::getExpireTime);
+    		_logger.debug("SnowFlake datacenterId {} , machineId {}" , 
+    				idGenerator.getDatacenterId() , idGenerator.getMachineId());
+    	}
+    	return nodeIdLease;
+    }
+
 
     @Bean
     MomentaryService momentaryService(
@@ -183,5 +215,33 @@ public class ApplicationAutoConfiguration {
     	}
     	return momentaryService;
     }
+
+    /**
+     * cache invalidation bus , Redis pub/sub or polling mxk_cache_invalidation .
+     * maxkey.cache.invalidation.bus auto | redis | jdbc | none
+     * @return
+     */
+    @Bean(destroyMethod = "close")
+    CacheInvalidationBus cacheInvalidationBus(
+            RedisConnectionFactory redisConnFactory,
+            JdbcTemplate jdbcTemplate,
+            Environment environment,
+            @Value("${maxkey.server.persistence}") int persistence,
+            @Value("${maxkey.cache.invalidation.bus:auto}") String busType,
+            @Value("${maxkey.cache.invalidation.poll.interval:5000}") long pollInterval) {
+    	CacheRegistry.setPropertyResolver(environment);
+    	CacheInvalidationBus cacheInvalidationBus;
+    	if(busType.equalsIgnoreCase("redis") 
+    			|| (busType.equalsIgnoreCase("auto") && persistence == ConstsPersistence.REDIS)) {
+    		cacheInvalidationBus = new RedisCacheInvalidationBus(redisConnFactory);
+    	}else if(busType.equalsIgnoreCase("none")) {
+    		cacheInvalidationBus = new NoOpCacheInvalidationBus();
+    	}else {
+    		cacheInvalidationBus = new JdbcCacheInvalidationBus(jdbcTemplate,pollInterval);
+    	}
+    	_logger.debug("Cache Invalidation Bus {}" , cacheInvalidationBus.getClass().getSimpleName());
+    	CacheRegistry.setInvalidationBus(cacheInvalidationBus);
+    	return cacheInvalidationBus;
+    }
     
 }
@@ -22,20 +22,19 @@ import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 import javax.naming.directory.Attribute;
 import javax.naming.directory.SearchControls;
-import javax.naming.directory.SearchResult;
 
 import org.apache.commons.lang3.StringUtils;
 import org.dromara.maxkey.constants.ConstsStatus;
 import org.dromara.maxkey.crypto.DigestUtils;
-import org.dromara.maxkey.entity.SynchroRelated;
-import org.dromara.maxkey.entity.history.HistorySynchronizer;
 import org.dromara.maxkey.entity.idm.Organizations;
 import org.dromara.maxkey.entity.idm.UserInfo;
 import org.dromara.maxkey.ldap.ActiveDirectoryUtils;
+import org.dromara.maxkey.ldap.LdapPagedSearch;
 import org.dromara.maxkey.ldap.LdapUtils;
 import org.dromara.maxkey.ldap.constants.ActiveDirectoryUser;
 import org.dromara.maxkey.synchronizer.AbstractSynchronizerService;
 import org.dromara.maxkey.synchronizer.ISynchronizerService;
+import org.dromara.maxkey.synchronizer.UsersBatchWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -44,70 +43,69 @@ import org.springframework.stereotype.Service;
 public class ActiveDirectoryUsersService extends AbstractSynchronizerService    implements ISynchronizerService{
 	static final  Logger _logger = LoggerFactory.getLogger(ActiveDirectoryUsersService.class);
 
+	static final String WATERMARK_SEPARATOR = ":";
+
 	ActiveDirectoryUtils ldapUtils;
 	
 	public void sync() {
 		_logger.info("Sync ActiveDirectory Users...");
 		loadOrgsByInstId(this.synchronizer.getInstId(),Organizations.ROOT_ORG_ID);
-		try {
+		try (UsersBatchWriter batchWriter = new UsersBatchWriter(this, batchSize)){
+			//entries changed after highestCommittedUSN are read again next run ,
+			//the watermark is invocationId:usn as uSNChanged is local to one domain controller
+			String watermark = null;
+			String lastUsn = null;
+			if(incremental) {
+				String invocationId = LdapPagedSearch.invocationId(ldapUtils.getConnection());
+				String usn = invocationId == null ? null : LdapPagedSearch.highestCommittedUSN(ldapUtils.getConnection());
+				if(usn != null) {
+					watermark = invocationId + WATERMARK_SEPARATOR + usn;
+					lastUsn = lastUsn(synchronizer.getSyncWatermark(), invocationId);
+				}
+			}
 			SearchControls constraints = new SearchControls();
 			constraints.setSearchScope(ldapUtils.getSearchScope());
 			String filter = StringUtils.isNotBlank(this.getSynchronizer().getUserFilters())?
 								getSynchronizer().getUserFilters() : "(&(objectClass=User))";
-			NamingEnumeration<SearchResult> results = 
-					ldapUtils.getConnection().search(ldapUtils.getBaseDN(), filter, constraints);
-			
-			long recordCount = 0;
-			while (null != results && results.hasMoreElements()) {
-				Object obj = results.nextElement();
-				if (obj instanceof SearchResult) {
-					SearchResult sr = (SearchResult) obj;
-					if(sr.getNameInNamespace().contains("CN=Users,")
-					        ||sr.getNameInNamespace().contains("OU=Domain Controllers,")) {
-					    _logger.trace("Skip 'CN=Users' or 'OU=Domain Controllers' . ");
-					    continue;
-					}
-					_logger.debug("Sync User {} , name [{}] , NameInNamespace [{}]" , 
-						    		(++recordCount),sr.getName(),sr.getNameInNamespace());
-					
-					HashMap<String,Attribute> attributeMap = new HashMap<String,Attribute>();
-					NamingEnumeration<? extends Attribute>  attrs = sr.getAttributes().getAll();
-					while (null != attrs && attrs.hasMoreElements()) {
-						Attribute  objAttrs = attrs.nextElement();
-						_logger.trace("attribute {} : {}" ,
-												objAttrs.getID(), 
-												ActiveDirectoryUtils.getAttrStringValue(objAttrs)
-									);
-						attributeMap.put(objAttrs.getID().toLowerCase(), objAttrs);
-					}
-					
-					String originId = DigestUtils.md5B64(sr.getNameInNamespace());
-					
-					UserInfo userInfo =buildUserInfo(attributeMap,sr.getName(),sr.getNameInNamespace());
-					if(userInfo != null) {
-						userInfo.setPassword(userInfo.getUsername() + UserInfo.DEFAULT_PASSWORD_SUFFIX);
-						userInfoService.saveOrUpdate(userInfo);
-						_logger.info("userInfo " + userInfo);
-						
-						SynchroRelated synchroRelated = new SynchroRelated(
-								userInfo.getId(),
-								userInfo.getUsername(),
-								userInfo.getDisplayName(),
-								UserInfo.CLASS_TYPE,
-								synchronizer.getId(),
-								synchronizer.getName(),
-								originId,
-								userInfo.getDisplayName(),
-								"",
-								"",
-								synchronizer.getInstId());
-						
-						synchroRelatedService.updateSynchroRelated(
-								this.synchronizer,synchroRelated,UserInfo.CLASS_TYPE);
-					}
+			if(lastUsn != null) {
+				filter = LdapPagedSearch.incrementalFilter(
+						filter, LdapPagedSearch.USN_CHANGED, String.valueOf(Long.parseLong(lastUsn) + 1));
+			}
+			_logger.debug(" User filter {} ",filter);
+			LdapPagedSearch pagedSearch = new LdapPagedSearch(ldapUtils.getConnection(), pageSize);
+			long recordCount = pagedSearch.search(ldapUtils.getBaseDN(), filter, constraints, sr -> {
+				if(sr.getNameInNamespace().contains("CN=Users,")
+				        ||sr.getNameInNamespace().contains("OU=Domain Controllers,")) {
+				    _logger.trace("Skip 'CN=Users' or 'OU=Domain Controllers' . ");
+				    return;
+				}
+				_logger.debug("Sync User name [{}] , NameInNamespace [{}]" , sr.getName(),sr.getNameInNamespace());
+				
+				HashMap<String,Attribute> attributeMap = new HashMap<>();
+				NamingEnumeration<? extends Attribute>  attrs = sr.getAttributes().getAll();
+				while (null != attrs && attrs.hasMoreElements()) {
+					Attribute  objAttrs = attrs.nextElement();
+					_logger.trace("attribute {} : {}" ,
+											objAttrs.getID(), 
+											ActiveDirectoryUtils.getAttrStringValue(objAttrs)
+								);
+					attributeMap.put(objAttrs.getID().toLowerCase(), objAttrs);
 				}
+				
+				String originId = DigestUtils.md5B64(sr.getNameInNamespace());
+				
+				UserInfo userInfo =buildUserInfo(attributeMap,sr.getName(),sr.getNameInNamespace());
+				if(userInfo != null) {
+					userInfo.setPassword(userInfo.getUsername() + UserInfo.DEFAULT_PASSWORD_SUFFIX);
+					batchWriter.add(userInfo, originId);
+				}
+			});
+			batchWriter.flush();
+			_logger.info("Sync ActiveDirectory Users {} , pages {}" , recordCount , pagedSearch.getPages());
+			//failed users are read again next run
+			if(batchWriter.getFailed() == 0) {
+				updateSyncWatermark(watermark);
 			}
-
 			//ldapUtils.close();
 		} catch (NamingException e) {
 			_logger.error("NamingException " , e);
@@ -115,6 +113,18 @@ public class ActiveDirectoryUsersService extends AbstractSynchronizerService
 		
 	}
 
+	/**
+	 * @return usn of the last watermark , null when it is of another domain controller or not saved , full synchronization
+	 */
+	static String lastUsn(String lastWatermark, String invocationId) {
+		String prefix = invocationId + WATERMARK_SEPARATOR;
+		if(lastWatermark != null && lastWatermark.startsWith(prefix)) {
+			return lastWatermark.substring(prefix.length());
+		}
+		_logger.info("watermark {} is not of domain controller {} , full synchronization" , lastWatermark , invocationId);
+		return null;
+	}
+
 	public UserInfo buildUserInfo(HashMap<String,Attribute> attributeMap,String name,String nameInNamespace) {
 		
 	    UserInfo userInfo = new  UserInfo();
@@ -185,18 +195,6 @@ public class ActiveDirectoryUsersService extends AbstractSynchronizerService
 			userInfo.setTimeZone("Asia/Shanghai");
 			userInfo.setStatus(ConstsStatus.ACTIVE);
 			userInfo.setInstId(this.synchronizer.getInstId());
-
-		    HistorySynchronizer historySynchronizer =new HistorySynchronizer();
-            historySynchronizer.setId(historySynchronizer.generateId());
-            historySynchronizer.setSyncId(this.synchronizer.getId());
-            historySynchronizer.setSyncName(this.synchronizer.getName());
-            historySynchronizer.setObjectId(userInfo.getId());
-            historySynchronizer.setObjectName(userInfo.getUsername());
-            historySynchronizer.setObjectType(Organizations.class.getSimpleName());
-            historySynchronizer.setInstId(synchronizer.getInstId());
-            historySynchronizer.setResult("success");
-            this.historySynchronizerService.insert(historySynchronizer);
-
 		} catch (NamingException e) {
 			e.printStackTrace();
 		}
@@ -21,80 +21,226 @@ import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.dromara.maxkey.constants.ConstsStatus;
 import org.dromara.maxkey.entity.DbTableMetaData;
-import org.dromara.maxkey.entity.history.HistorySynchronizer;
+import org.dromara.maxkey.entity.SynchroRelated;
 import org.dromara.maxkey.entity.idm.UserInfo;
 import org.dromara.maxkey.synchronizer.AbstractSynchronizerService;
 import org.dromara.maxkey.synchronizer.ISynchronizerService;
+import org.dromara.maxkey.synchronizer.UsersBatchWriter;
 import org.dromara.maxkey.util.JdbcUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * users of the userFilters SQL .<br>
+ * the source is read with keyset pagination on the key column , rows are compared with the hash of 
+ * the mapped columns saved in originId3 of SynchroRelated , unchanged rows are skipped and changed rows 
+ * are written in batches .<br>
+ * with a watermark column , modified timestamp or increasing number , only the rows of which 
+ * watermark &gt;= the highest watermark of the last run are read .
+ */
 @Service
 public class JdbcUsersService extends AbstractSynchronizerService implements ISynchronizerService {
     static final  Logger _logger = LoggerFactory.getLogger(JdbcUsersService.class);
 
     static ArrayList<ColumnFieldMapper> mapperList = new ArrayList<>();
+    
+    static final String PAGE_ALIAS = "sync_users";
+    
+    //unique and ordered column of the source
+    @Value("${maxkey.synchronizer.jdbc.key.column:username}")
+    String keyColumn = "username";
+    
+    //modified timestamp or increasing number column of the source , empty read all rows
+    @Value("${maxkey.synchronizer.jdbc.watermark.column:}")
+    String watermarkColumn = "";
+    
+    @Value("${maxkey.synchronizer.jdbc.page.size:1000}")
+    int jdbcPageSize = 1000;
+    
+    @Value("${maxkey.synchronizer.jdbc.fetch.size:500}")
+    int fetchSize = 500;
 
     @Override
     public void sync() {
         _logger.info("Sync Jdbc Users...");
+        if (StringUtils.isBlank(synchronizer.getUserFilters())) {
+            return;
+        }
+        _logger.info("Sync User Filters {}", synchronizer.getUserFilters());
+        String key = keyColumn.toLowerCase();
+        String watermark = StringUtils.isBlank(watermarkColumn) ? null : watermarkColumn.toLowerCase();
+        String lowerBound = incremental && watermark != null ? synchronizer.getSyncWatermark() : null;
+        Object highestWatermark = null;
+        long readCount = 0;
+        long skipCount = 0;
         Connection conn = null;
-        Statement stmt = null;
-        ResultSet rs = null;
-
-        try {
-            if (StringUtils.isNotBlank(synchronizer.getUserFilters())) {
-                _logger.info("Sync User Filters {}", synchronizer.getUserFilters());
-                conn = JdbcUtils.connect(
-                        synchronizer.getProviderUrl(),
-                        synchronizer.getPrincipal(),
-                        synchronizer.getCredentials(),
-                        synchronizer.getDriverClass());
-
-                stmt = conn.createStatement();
-                rs = stmt.executeQuery(synchronizer.getUserFilters());
-                long insertCount = 0;
-                long updateCount = 0;
-                long readCount = 0;
-                while (rs.next()) {
-                    UserInfo user = buildUserInfo(rs);
-                    UserInfo queryUser = userInfoService.findByUsername(user.getUsername());
-                    readCount++;
-                    if (queryUser == null) {
-                        if (user.getPassword().indexOf("{") > -1 && user.getPassword().indexOf("}") > -1) {
-                            userInfoService.insert(user, false);
-                        } else {
-                            //passwordEncoder
-                            userInfoService.insert(user, true);
+        try (UsersBatchWriter batchWriter = new UsersBatchWriter(this, batchSize)) {
+            conn = JdbcUtils.connect(
+                    synchronizer.getProviderUrl(),
+                    synchronizer.getPrincipal(),
+                    synchronizer.getCredentials(),
+                    synchronizer.getDriverClass());
+            String lastKey = null;
+            int pageRows;
+            do {
+                pageRows = 0;
+                List<UserInfo> users = new ArrayList<>();
+                List<String> originIds = new ArrayList<>();
+                List<String> originHashs = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(pageSql(key, watermark, lowerBound, lastKey))) {
+                    pstmt.setFetchSize(fetchSize);
+                    pstmt.setMaxRows(jdbcPageSize);
+                    int parameterIndex = 1;
+                    if (lowerBound != null) {
+                        setWatermark(pstmt, parameterIndex++, lowerBound);
+                    }
+                    if (lastKey != null) {
+                        pstmt.setString(parameterIndex, lastKey);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        DbTableMetaData meta = JdbcUtils.getMetaData(rs);
+                        while (rs.next()) {
+                            pageRows++;
+                            lastKey = rs.getString(key);
+                            if (watermark != null) {
+                                highestWatermark = highest(highestWatermark, watermarkValue(rs, watermark));
+                            }
+                            users.add(buildUserInfo(rs, meta));
+                            originIds.add(lastKey);
+                            originHashs.add(rowHash(rs, meta));
                         }
-                        user.setBadPasswordCount(1);
-                        insertCount++;
+                    }
+                }
+                readCount += pageRows;
+                
+                //skip the rows not changed since the last run
+                Map<String, SynchroRelated> synchroRelateds = 
+                        synchroRelatedService.findByOriginIds(synchronizer, originIds, UserInfo.CLASS_TYPE);
+                for (int i = 0; i < users.size(); i++) {
+                    SynchroRelated synchroRelated = synchroRelateds.get(originIds.get(i));
+                    if (synchroRelated != null && originHashs.get(i).equals(synchroRelated.getOriginId3())) {
+                        skipCount++;
                     } else {
-                        //no need update password , set null
-                        user.setPassword(null);
-                        userInfoService.update(user);
-                        updateCount++;
+                        batchWriter.add(users.get(i), originIds.get(i), originHashs.get(i));
                     }
-                    _logger.trace("read Count {} , insert Count {} , updateCount {} ", readCount, insertCount, updateCount);
                 }
-                _logger.info("read Count {} , insert Count {} , updateCount {} ", readCount, insertCount, updateCount);
+                _logger.debug("read Count {} , skip Count {} , last key {}", readCount, skipCount, lastKey);
+            } while (pageRows == jdbcPageSize && lastKey != null);
+            
+            batchWriter.flush();
+            _logger.info("read Count {} , skip Count {} , write Count {} , failed Count {}", 
+                    readCount, skipCount, batchWriter.getSuccess(), batchWriter.getFailed());
+            if (highestWatermark != null && batchWriter.getFailed() == 0) {
+                updateSyncWatermark(watermarkString(highestWatermark));
             }
         } catch (Exception e) {
             _logger.error("Exception ", e);
         } finally {
-            JdbcUtils.release(conn, stmt, rs);
+            JdbcUtils.release(conn, null, null);
+        }
+    }
+    
+    /**
+     * select * from (userFilters) sync_users where watermark &gt;= ? and key &gt; ? order by key
+     */
+    String pageSql(String key, String watermark, String lowerBound, String lastKey) {
+        StringBuilder sql = new StringBuilder("select * from ( ")
+                .append(synchronizer.getUserFilters())
+                .append(" ) ").append(PAGE_ALIAS);
+        String conjunction = " where ";
+        if (lowerBound != null) {
+            sql.append(conjunction).append(PAGE_ALIAS).append(".").append(watermark).append(" >= ?");
+            conjunction = " and ";
+        }
+        if (lastKey != null) {
+            sql.append(conjunction).append(PAGE_ALIAS).append(".").append(key).append(" > ?");
         }
+        sql.append(" order by ").append(PAGE_ALIAS).append(".").append(key);
+        return sql.toString();
+    }
+    
+    /**
+     * number or timestamp of the watermark column
+     */
+    Comparable<?> watermarkValue(ResultSet rs, String watermark) throws SQLException {
+        Object value = rs.getObject(watermark);
+        if (value == null) {
+            return null;
+        } else if (value instanceof Number) {
+            return new BigDecimal(value.toString());
+        }
+        return rs.getTimestamp(watermark);
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    Object highest(Object highest, Comparable value) {
+        if (value == null) {
+            return highest;
+        }
+        return highest == null || value.compareTo(highest) > 0 ? value : highest;
+    }
+    
+    String watermarkString(Object watermark) {
+        return watermark instanceof BigDecimal number ? number.toPlainString() : watermark.toString();
+    }
+    
+    void setWatermark(PreparedStatement pstmt, int parameterIndex, String watermark) throws SQLException {
+        if (watermark.matches("-?\\d+(\\.\\d+)?")) {
+            pstmt.setBigDecimal(parameterIndex, new BigDecimal(watermark));
+        } else {
+            pstmt.setTimestamp(parameterIndex, Timestamp.valueOf(watermark));
+        }
+    }
+    
+    /**
+     * SHA-256 of the mapped columns and the password of the row
+     */
+    String rowHash(ResultSet rs, DbTableMetaData meta) throws SQLException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (ColumnFieldMapper mapper : mapperList) {
+                if (meta.getColumnsMap().containsKey(mapper.getColumn())) {
+                    updateDigest(digest, rs.getString(mapper.getColumn()));
+                }
+            }
+            if (meta.getColumnsMap().containsKey("password")) {
+                updateDigest(digest, rs.getString("password"));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    void updateDigest(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        //separator , null and empty are different
+        digest.update((byte) (value == null ? 0 : 1));
     }
 
     public UserInfo buildUserInfo(ResultSet rs) throws SQLException {
-        DbTableMetaData meta = JdbcUtils.getMetaData(rs);
+        return buildUserInfo(rs, JdbcUtils.getMetaData(rs));
+    }
+    
+    public UserInfo buildUserInfo(ResultSet rs, DbTableMetaData meta) throws SQLException {
         UserInfo user = new UserInfo();
         //basic
         for (ColumnFieldMapper mapper : mapperList) {
@@ -138,17 +284,7 @@ public class JdbcUsersService extends AbstractSynchronizerService implements ISy
             user.setPassword(user.getUsername() + "@M" + last4Char);
         }
 
-        HistorySynchronizer historySynchronizer = new HistorySynchronizer();
-        historySynchronizer.setId(historySynchronizer.generateId());
-        historySynchronizer.setSyncId(synchronizer.getId());
-        historySynchronizer.setSyncName(synchronizer.getName());
-        historySynchronizer.setObjectId(user.getId());
-        historySynchronizer.setObjectName(user.getUsername());
-        historySynchronizer.setObjectType(UserInfo.class.getSimpleName());
-        historySynchronizer.setInstId(synchronizer.getInstId());
-        historySynchronizer.setResult("success");
-        historySynchronizerService.insert(historySynchronizer);
-        _logger.debug("User {} ", user);
+        _logger.trace("User {} ", user);
 
         return user;
     }
@@ -22,18 +22,17 @@ import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 import javax.naming.directory.Attribute;
 import javax.naming.directory.SearchControls;
-import javax.naming.directory.SearchResult;
 
 import org.apache.commons.lang3.StringUtils;
 import org.dromara.maxkey.crypto.DigestUtils;
-import org.dromara.maxkey.entity.SynchroRelated;
-import org.dromara.maxkey.entity.history.HistorySynchronizer;
 import org.dromara.maxkey.entity.idm.Organizations;
 import org.dromara.maxkey.entity.idm.UserInfo;
+import org.dromara.maxkey.ldap.LdapPagedSearch;
 import org.dromara.maxkey.ldap.LdapUtils;
 import org.dromara.maxkey.ldap.constants.InetOrgPerson;
 import org.dromara.maxkey.synchronizer.AbstractSynchronizerService;
 import org.dromara.maxkey.synchronizer.ISynchronizerService;
+import org.dromara.maxkey.synchronizer.UsersBatchWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -47,59 +46,46 @@ public class LdapUsersService extends AbstractSynchronizerService  implements IS
 	public void sync() {
 		_logger.info("Sync Ldap Users ...");
 		loadOrgsByInstId(this.synchronizer.getInstId(),Organizations.ROOT_ORG_ID);
-		try {
+		//entries modified after the start of this run are read again next run , skew of server clocks allowed
+		String watermark = LdapPagedSearch.generalizedTime(System.currentTimeMillis() - CLOCK_SKEW);
+		try (UsersBatchWriter batchWriter = new UsersBatchWriter(this, batchSize)){
 			SearchControls constraints = new SearchControls();
 			constraints.setSearchScope(ldapUtils.getSearchScope());
 			String filter = StringUtils.isNotBlank(this.getSynchronizer().getUserFilters()) ? 
 								getSynchronizer().getUserFilters() : "(&(objectClass=inetOrgPerson))";
+			if(incremental) {
+				filter = LdapPagedSearch.incrementalFilter(
+						filter, LdapPagedSearch.MODIFY_TIMESTAMP, synchronizer.getSyncWatermark());
+			}
 			_logger.debug(" User filter {} ",filter);
-			NamingEnumeration<SearchResult> results = 
-					ldapUtils.getConnection().search(ldapUtils.getBaseDN(), filter, constraints);
-			
-			long recordCount = 0;
-			while (null != results && results.hasMoreElements()) {
-				Object obj = results.nextElement();
-				if (obj instanceof SearchResult) {
-					SearchResult sr = (SearchResult) obj;
-					_logger.debug("Sync User {} , name [{}] , NameInNamespace [{}]" , 
-				    				(++recordCount),sr.getName(),sr.getNameInNamespace());
-					
-					HashMap<String,Attribute> attributeMap = new HashMap<String,Attribute>();
-					NamingEnumeration<? extends Attribute>  attrs = sr.getAttributes().getAll();
-					while (null != attrs && attrs.hasMoreElements()) {
-						Attribute  objAttrs = attrs.nextElement();
-						_logger.trace("attribute {} : {}" ,
-											objAttrs.getID(), 
-											LdapUtils.getAttrStringValue(objAttrs)
-								);
-						attributeMap.put(objAttrs.getID(), objAttrs);
-					}
-					String originId = DigestUtils.md5B64(sr.getNameInNamespace());
-					UserInfo userInfo  = buildUserInfo(attributeMap,sr.getName(),sr.getNameInNamespace());
-					userInfo.setPassword(userInfo.getUsername() + UserInfo.DEFAULT_PASSWORD_SUFFIX);
-					userInfoService.saveOrUpdate(userInfo);
-					SynchroRelated synchroRelated = new SynchroRelated(
-							userInfo.getId(),
-							userInfo.getUsername(),
-							userInfo.getDisplayName(),
-							UserInfo.CLASS_TYPE,
-							synchronizer.getId(),
-							synchronizer.getName(),
-							originId,
-							userInfo.getDisplayName(),
-							"",
-							"",
-							synchronizer.getInstId());
-					
-					synchroRelatedService.updateSynchroRelated(
-							this.synchronizer,synchroRelated,UserInfo.CLASS_TYPE);
-					_logger.info("userInfo " + userInfo);
+			LdapPagedSearch pagedSearch = new LdapPagedSearch(ldapUtils.getConnection(), pageSize);
+			long recordCount = pagedSearch.search(ldapUtils.getBaseDN(), filter, constraints, sr -> {
+				_logger.debug("Sync User name [{}] , NameInNamespace [{}]" , sr.getName(),sr.getNameInNamespace());
+				
+				HashMap<String,Attribute> attributeMap = new HashMap<>();
+				NamingEnumeration<? extends Attribute>  attrs = sr.getAttributes().getAll();
+				while (null != attrs && attrs.hasMoreElements()) {
+					Attribute  objAttrs = attrs.nextElement();
+					_logger.trace("attribute {} : {}" ,
+										objAttrs.getID(), 
+										LdapUtils.getAttrStringValue(objAttrs)
+							);
+					attributeMap.put(objAttrs.getID(), objAttrs);
 				}
+				String originId = DigestUtils.md5B64(sr.getNameInNamespace());
+				UserInfo userInfo  = buildUserInfo(attributeMap,sr.getName(),sr.getNameInNamespace());
+				userInfo.setPassword(userInfo.getUsername() + UserInfo.DEFAULT_PASSWORD_SUFFIX);
+				batchWriter.add(userInfo, originId);
+			});
+			batchWriter.flush();
+			_logger.info("Sync Ldap Users {} , pages {}" , recordCount , pagedSearch.getPages());
+			//failed users are read again next run
+			if(incremental && batchWriter.getFailed() == 0) {
+				updateSyncWatermark(watermark);
 			}
-
 			//ldapUtils.close();
 		} catch (NamingException e) {
-			e.printStackTrace();
+			_logger.error("NamingException " , e);
 		}
 		
 	}
@@ -189,18 +175,6 @@ public class LdapUsersService extends AbstractSynchronizerService  implements IS
 			userInfo.setTimeZone("Asia/Shanghai");
 			userInfo.setStatus(1);
 			userInfo.setInstId(this.synchronizer.getInstId());
-
-            HistorySynchronizer historySynchronizer =new HistorySynchronizer();
-            historySynchronizer.setId(historySynchronizer.generateId());
-            historySynchronizer.setSyncId(this.synchronizer.getId());
-            historySynchronizer.setSyncName(this.synchronizer.getName());
-            historySynchronizer.setObjectId(userInfo.getId());
-            historySynchronizer.setObjectName(userInfo.getUsername());
-            historySynchronizer.setObjectType(Organizations.class.getSimpleName());
-            historySynchronizer.setInstId(synchronizer.getInstId());
-            historySynchronizer.setResult("success");
-            this.historySynchronizerService.insert(historySynchronizer);
-           
 		} catch (NamingException e) {
 			e.printStackTrace();
 		}
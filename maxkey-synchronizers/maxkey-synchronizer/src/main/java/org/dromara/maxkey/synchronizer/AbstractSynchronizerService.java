@@ -25,14 +25,18 @@ import org.dromara.maxkey.entity.SocialsAssociate;
 import org.dromara.maxkey.entity.SynchroRelated;
 import org.dromara.maxkey.entity.Synchronizers;
 import org.dromara.maxkey.entity.idm.Organizations;
+import org.dromara.maxkey.entity.idm.OrganizationsTree;
+import org.dromara.maxkey.ldap.LdapPagedSearch;
 import org.dromara.maxkey.persistence.service.HistorySynchronizerService;
 import org.dromara.maxkey.persistence.service.OrganizationsService;
 import org.dromara.maxkey.persistence.service.SocialsAssociatesService;
 import org.dromara.maxkey.persistence.service.SynchroRelatedService;
+import org.dromara.maxkey.persistence.service.SynchronizersService;
 import org.dromara.maxkey.persistence.service.UserInfoService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 public abstract class AbstractSynchronizerService {
     private static final Logger _logger = 
@@ -48,6 +52,20 @@ public abstract class AbstractSynchronizerService {
     protected SocialsAssociatesService socialsAssociatesService;
     @Autowired
     protected HistorySynchronizerService historySynchronizerService;
+    @Autowired
+    protected SynchronizersService synchronizersService;
+    
+    //clock skew between source and MaxKey allowed by incremental synchronization
+    protected static final long CLOCK_SKEW = 5 * 60 * 1000L;
+    
+    @Value("${maxkey.synchronizer.batch.size:500}")
+    protected int batchSize = UsersBatchWriter.DEFAULT_BATCH_SIZE;
+    
+    @Value("${maxkey.synchronizer.ldap.page.size:500}")
+    protected int pageSize = LdapPagedSearch.DEFAULT_PAGE_SIZE;
+    
+    @Value("${maxkey.synchronizer.incremental:true}")
+    protected boolean incremental = true;
     
     protected Synchronizers synchronizer;
     
@@ -57,31 +75,48 @@ public abstract class AbstractSynchronizerService {
     
     
     public HashMap<String,Organizations> loadOrgsByInstId(String instId,String rootOrgId) {
-        List<Organizations> orgsList = organizationsService.find("instid = '" + instId + "'");
+        OrganizationsTree orgsTree = new OrganizationsTree(organizationsService.findByInstId(instId));
         if(rootOrgId== null || rootOrgId.equals("")) {
         	rootOrgId="1";
         }
         
-        for(Organizations org : orgsList) {
-           if(org.getId().equals(rootOrgId) && rootOrgId.equals("1")) {
-               rootOrganization = org; 
-               rootOrganization.setNamePath("/"+rootOrganization.getOrgName());
-               rootOrganization.setCodePath("/1");
-               rootOrganization.setParentId("-1");
-               rootOrganization.setParentName("");
-           }else if(org.getId().equals(rootOrgId)){
-               rootOrganization = org; 
-           }
+        rootOrganization = orgsTree.get(rootOrgId);
+        if(rootOrganization == null) {
+        	_logger.warn("root organization {} of instId {} not found" , rootOrgId , instId);
+        	orgsNamePathMap =new HashMap<>();
+        	return orgsNamePathMap;
+        }
+        if(rootOrgId.equals("1")) {
+            rootOrganization.setNamePath("/"+rootOrganization.getOrgName());
+            rootOrganization.setCodePath("/1");
+            rootOrganization.setParentId("-1");
+            rootOrganization.setParentName("");
         }
         
-        orgsNamePathMap =new HashMap<>();
-        orgsNamePathMap.put(rootOrganization.getNamePath(), rootOrganization);
-        push(orgsNamePathMap,orgsList,rootOrganization);
+        //paths of all organizations in one traversal , changed paths written in one batch
+        List<Organizations> changedOrgs = orgsTree.buildPaths(rootOrganization, OrganizationsTree.SLASH_SEPARATED);
+        if(!changedOrgs.isEmpty()) {
+        	organizationsService.updateTreePathBatch(changedOrgs);
+        }
+        orgsNamePathMap = orgsTree.namePathMap();
         
+        _logger.debug("organizations {} , paths changed {}" , orgsTree.size() , changedOrgs.size());
         _logger.trace("orgsNamePathMap {}" , orgsNamePathMap);
         return orgsNamePathMap;
     }
     
+    /**
+     * save the watermark of this run , the next run reads the changes after it
+     * @param watermark
+     */
+    public void updateSyncWatermark(String watermark) {
+    	if(watermark != null) {
+    		synchronizer.setSyncWatermark(watermark);
+    		synchronizersService.updateSyncWatermark(synchronizer);
+    		_logger.debug("synchronizer {} watermark {}" , synchronizer.getId() , watermark);
+    	}
+    }
+    
     public void socialsAssociate(SynchroRelated synchroRelated,String provider) {
     	SocialsAssociate socialsAssociate =
     			socialsAssociatesService.findOne("instid = ? and userid = ? and socialuserid = ? and provider = ? ",
@@ -102,25 +137,6 @@ public abstract class AbstractSynchronizerService {
     		socialsAssociatesService.insert(socialsAssociate);
     	}
     }
-    public void push(HashMap<String,Organizations> orgsNamePathMap,
-                     List<Organizations> orgsList,
-                     Organizations parentOrg) {
-        for(Organizations org : orgsList) {
-            if(org.getParentId().equals(parentOrg.getId())) {
-                if(org.getNamePath() == null 
-                        || !org.getNamePath().equals(parentOrg.getNamePath()+"/"+org.getOrgName())) {
-                    org.setParentName(parentOrg.getOrgName());
-                    org.setNamePath(parentOrg.getNamePath()+"/"+org.getOrgName());
-                    org.setCodePath(parentOrg.getCodePath()+"/"+org.getId());
-                    organizationsService.update(org);
-                }
-                orgsNamePathMap.put(org.getNamePath(), org);
-                push(orgsNamePathMap,orgsList,org);
-            }
-        }
-        return;
-    }
-
     public OrganizationsService getOrganizationsService() {
         return organizationsService;
     }
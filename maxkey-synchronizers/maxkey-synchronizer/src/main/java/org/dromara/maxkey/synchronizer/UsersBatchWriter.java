@@ -0,0 +1,215 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.synchronizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dromara.maxkey.entity.SynchroRelated;
+import org.dromara.maxkey.entity.Synchronizers;
+import org.dromara.maxkey.entity.history.HistorySynchronizer;
+import org.dromara.maxkey.entity.idm.UserInfo;
+import org.dromara.maxkey.persistence.service.HistorySynchronizerService;
+import org.dromara.maxkey.persistence.service.SynchroRelatedService;
+import org.dromara.maxkey.persistence.service.UserInfoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * synchronized users are collected and written batchSize at a time ,
+ * users with JDBC batch upsert , synchro related rows with JDBC batch ,
+ * one HistorySynchronizer row of progress and throughput per batch and one summary row on close .<br>
+ * a failed batch is written again user by user , so one bad entry does not lose the batch .
+ */
+public class UsersBatchWriter implements AutoCloseable {
+	private static final Logger _logger = LoggerFactory.getLogger(UsersBatchWriter.class);
+
+	public static final int DEFAULT_BATCH_SIZE = 500;
+
+	Synchronizers synchronizer;
+
+	UserInfoService userInfoService;
+
+	SynchroRelatedService synchroRelatedService;
+
+	HistorySynchronizerService historySynchronizerService;
+
+	int batchSize;
+
+	List<UserInfo> userInfos;
+
+	List<String> originIds;
+
+	List<String> originHashs;
+
+	long startTime = System.currentTimeMillis();
+
+	long total;
+
+	long success;
+
+	long failed;
+
+	long batches;
+
+	public UsersBatchWriter(AbstractSynchronizerService synchronizerService, int batchSize) {
+		this.synchronizer = synchronizerService.getSynchronizer();
+		this.userInfoService = synchronizerService.getUserInfoService();
+		this.synchroRelatedService = synchronizerService.getSynchroRelatedService();
+		this.historySynchronizerService = synchronizerService.getHistorySynchronizerService();
+		this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+		this.userInfos = new ArrayList<>(this.batchSize);
+		this.originIds = new ArrayList<>(this.batchSize);
+		this.originHashs = new ArrayList<>(this.batchSize);
+	}
+
+	/**
+	 * add user , the batch is written when batchSize users are added
+	 * @param userInfo user
+	 * @param originId id of the user in the source
+	 */
+	public void add(UserInfo userInfo, String originId) {
+		add(userInfo, originId, "");
+	}
+
+	/**
+	 * add user with the hash of the source row , saved as originId3 of the synchro related row
+	 * @param userInfo user
+	 * @param originId id of the user in the source
+	 * @param originHash hash of the source row
+	 */
+	public void add(UserInfo userInfo, String originId, String originHash) {
+		userInfos.add(userInfo);
+		originIds.add(originId);
+		originHashs.add(originHash);
+		if (userInfos.size() >= batchSize) {
+			flush();
+		}
+	}
+
+	public void flush() {
+		if (userInfos.isEmpty()) {
+			return;
+		}
+		long batchStart = System.currentTimeMillis();
+		List<UserInfo> saved = new ArrayList<>(userInfos.size());
+		List<String> savedOriginIds = new ArrayList<>(userInfos.size());
+		List<String> savedOriginHashs = new ArrayList<>(userInfos.size());
+		//passwords are encoded by the batch , keep the plain passwords to save again
+		List<String> passwords = new ArrayList<>(userInfos.size());
+		for (UserInfo userInfo : userInfos) {
+			passwords.add(userInfo.getPassword());
+		}
+		try {
+			userInfoService.saveOrUpdateBatch(userInfos);
+			saved.addAll(userInfos);
+			savedOriginIds.addAll(originIds);
+			savedOriginHashs.addAll(originHashs);
+		} catch (Exception e) {
+			_logger.warn("batch of {} users error , save one by one", userInfos.size(), e);
+			for (int i = 0; i < userInfos.size(); i++) {
+				UserInfo userInfo = userInfos.get(i);
+				userInfo.setPassword(passwords.get(i));
+				try {
+					//saveOrUpdate logs and swallows insert errors , the batch path throws
+					userInfoService.saveOrUpdateBatch(List.of(userInfo));
+					saved.add(userInfo);
+					savedOriginIds.add(originIds.get(i));
+					savedOriginHashs.add(originHashs.get(i));
+				} catch (Exception ex) {
+					_logger.error("save user {} error", userInfo.getUsername(), ex);
+				}
+			}
+		}
+
+		List<SynchroRelated> synchroRelateds = new ArrayList<>(saved.size());
+		for (int i = 0; i < saved.size(); i++) {
+			UserInfo userInfo = saved.get(i);
+			synchroRelateds.add(new SynchroRelated(
+					userInfo.getId(),
+					userInfo.getUsername(),
+					userInfo.getDisplayName(),
+					UserInfo.CLASS_TYPE,
+					synchronizer.getId(),
+					synchronizer.getName(),
+					savedOriginIds.get(i),
+					userInfo.getDisplayName(),
+					"",
+					savedOriginHashs.get(i),
+					synchronizer.getInstId()));
+		}
+		synchroRelatedService.updateSynchroRelatedBatch(synchronizer, synchroRelateds, UserInfo.CLASS_TYPE);
+
+		batches++;
+		long from = total + 1;
+		total += userInfos.size();
+		success += saved.size();
+		failed += userInfos.size() - saved.size();
+		long millis = Math.max(System.currentTimeMillis() - batchStart, 1);
+		history("batch " + batches,
+				"users " + from + "-" + total,
+				String.format("success %d/%d %d/s", saved.size(), userInfos.size(), saved.size() * 1000L / millis));
+		_logger.info("batch {} , users {} - {} , success {} , {} ms", batches, from, total, saved.size(), millis);
+		userInfos.clear();
+		originIds.clear();
+		originHashs.clear();
+	}
+
+	/**
+	 * write the rest and the summary
+	 */
+	@Override
+	public void close() {
+		flush();
+		long millis = Math.max(System.currentTimeMillis() - startTime, 1);
+		history(synchronizer.getId(),
+				"users " + total,
+				String.format("%s %d/%d %d/s", failed == 0 ? "success" : "failed " + failed, success, total, total * 1000L / millis));
+		_logger.info("synchronized users {} , success {} , failed {} , batches {} , {} ms", total, success, failed, batches, millis);
+	}
+
+	void history(String objectId, String objectName, String result) {
+		HistorySynchronizer historySynchronizer = new HistorySynchronizer();
+		historySynchronizer.setId(historySynchronizer.generateId());
+		historySynchronizer.setSyncId(synchronizer.getId());
+		historySynchronizer.setSyncName(synchronizer.getName());
+		historySynchronizer.setObjectId(objectId);
+		historySynchronizer.setObjectName(objectName);
+		historySynchronizer.setObjectType(UserInfo.class.getSimpleName());
+		historySynchronizer.setInstId(synchronizer.getInstId());
+		historySynchronizer.setResult(result);
+		historySynchronizerService.insert(historySynchronizer);
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public long getSuccess() {
+		return success;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	public long getBatches() {
+		return batches;
+	}
+
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.web.apis.identity.scim;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.dromara.maxkey.entity.ImportResult;
+import org.dromara.maxkey.entity.idm.Groups;
+import org.dromara.maxkey.entity.idm.UserInfo;
+import org.dromara.maxkey.persistence.service.GroupsService;
+import org.dromara.maxkey.persistence.service.UserInfoService;
+import org.dromara.maxkey.web.apis.identity.scim.filter.ScimFilterException;
+import org.dromara.maxkey.web.apis.identity.scim.resources.ScimBulkOperation;
+import org.dromara.maxkey.web.apis.identity.scim.resources.ScimBulkRequest;
+import org.dromara.maxkey.web.apis.identity.scim.resources.ScimBulkResponse;
+import org.dromara.maxkey.web.apis.identity.scim.resources.ScimError;
+import org.dromara.maxkey.web.apis.identity.scim.resources.ScimGroup;
+import org.dromara.maxkey.web.apis.identity.scim.resources.ScimUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * SCIM 2.0 Bulk , https://tools.ietf.org/html/rfc7644#section-3.7
+ * <p>
+ * consecutive operations of the same method and resource are applied together ,
+ * users are created with the JDBC batch import , replaced by id with JDBC batch update ,
+ * users and groups are deleted with one statement , groups are created with batch insert .
+ * bulkId references in data are not resolved .
+ */
+@RestController
+@RequestMapping(value = "/api/idm/SCIM/v2/Bulk")
+public class ScimBulkController {
+	static final  Logger _logger = LoggerFactory.getLogger(ScimBulkController.class);
+
+	public static final int MAX_OPERATIONS = 1000;
+
+	public static final int MAX_PAYLOAD_SIZE = 1048576;
+
+	static final String USERS	= "/Users";
+
+	static final String GROUPS	= "/Groups";
+
+	//extension attributes are ignored as the single resource endpoints do
+	static final ObjectMapper RESOURCE_MAPPER = 
+			new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	@Autowired
+	UserInfoService userInfoService;
+
+	@Autowired
+	GroupsService groupsService;
+
+	@Autowired
+	ScimUserController scimUserController;
+
+	@Autowired
+	ScimGroupController scimGroupController;
+
+    /**
+     * the body is read with the MAX_PAYLOAD_SIZE limit before it is parsed , 
+     * chunked requests without Content-Length included
+     */
+    @RequestMapping(method = RequestMethod.POST)
+    public MappingJacksonValue bulk(HttpServletRequest request) throws IOException {
+    	if(request.getContentLengthLong() > MAX_PAYLOAD_SIZE) {
+    		throw tooLarge(request.getContentLengthLong());
+    	}
+    	byte[] body = request.getInputStream().readNBytes(MAX_PAYLOAD_SIZE + 1);
+    	if(body.length > MAX_PAYLOAD_SIZE) {
+    		throw tooLarge(body.length);
+    	}
+    	ScimBulkRequest bulkRequest;
+    	try {
+    		bulkRequest = RESOURCE_MAPPER.readValue(body, ScimBulkRequest.class);
+    	}catch(JsonProcessingException e) {
+    		throw new ScimFilterException(ScimFilterException.INVALID_SYNTAX, e.getOriginalMessage());
+    	}
+    	List<ScimBulkOperation> operations = bulkRequest.getOperations() == null ? 
+    			new ArrayList<ScimBulkOperation>() : bulkRequest.getOperations();
+    	_logger.debug("bulk operations {} , failOnErrors {}", operations.size() , bulkRequest.getFailOnErrors());
+    	if(operations.size() > MAX_OPERATIONS) {
+    		throw new ScimFilterException(ScimFilterException.TOO_MANY,
+    				"operations " + operations.size() + " exceeds " + MAX_OPERATIONS);
+    	}
+    	int failOnErrors = bulkRequest.getFailOnErrors() == null || bulkRequest.getFailOnErrors() <= 0 ?
+    			Integer.MAX_VALUE : bulkRequest.getFailOnErrors();
+    	int errors = 0;
+    	List<ScimBulkOperation> responses = new ArrayList<ScimBulkOperation>();
+    	int from = 0;
+    	while(from < operations.size() && errors < failOnErrors) {
+    		String batchKey = batchKey(operations.get(from));
+    		//a batch fails at most failOnErrors - errors times , 
+    		//so failOnErrors is reached at the last operation of the batch and no operation is applied after it
+    		int limit = from + Math.min(failOnErrors - errors, operations.size() - from);
+    		int to = from + 1;
+    		while(to < limit && batchKey.equals(batchKey(operations.get(to)))) {
+    			to++;
+    		}
+    		List<ScimBulkOperation> batch = operations.subList(from, to);
+    		apply(batchKey, batch);
+    		for(ScimBulkOperation operation : batch) {
+    			operation.setData(null);
+    			responses.add(operation);
+    			if(operation.getResponse() != null) {
+    				errors++;
+    			}
+    		}
+    		from = to;
+    	}
+    	for(ScimBulkOperation operation : operations.subList(from, operations.size())) {
+    		operation.setData(null);
+    		error(operation, HttpStatus.PRECONDITION_FAILED, null, "not processed , failOnErrors " + failOnErrors + " reached");
+    		responses.add(operation);
+    	}
+    	return new MappingJacksonValue(new ScimBulkResponse(responses));
+    }
+
+    static ScimFilterException tooLarge(long size) {
+    	return new ScimFilterException(ScimFilterException.TOO_MANY,
+    			"payload " + size + " exceeds " + MAX_PAYLOAD_SIZE);
+    }
+
+    /**
+     * @return METHOD /Users or /Groups
+     */
+    static String batchKey(ScimBulkOperation operation) {
+    	String path = StringUtils.defaultString(operation.getPath());
+    	String resource = isResource(path, USERS) ? USERS : (isResource(path, GROUPS) ? GROUPS : path);
+    	return StringUtils.defaultString(operation.getMethod()).toUpperCase(Locale.ROOT) + " " + resource;
+    }
+
+    static boolean isResource(String path, String resource) {
+    	return path.equals(resource) || path.startsWith(resource + "/");
+    }
+
+    void apply(String batchKey, List<ScimBulkOperation> batch) {
+    	try {
+	    	switch(batchKey) {
+	    		case "POST " + USERS	-> createUsers(batch);
+	    		case "PUT " + USERS		-> replaceUsers(batch);
+	    		case "DELETE " + USERS	-> deleteUsers(batch);
+	    		case "POST " + GROUPS	-> createGroups(batch);
+	    		case "PUT " + GROUPS	-> replaceGroups(batch);
+	    		case "DELETE " + GROUPS	-> deleteGroups(batch);
+	    		default -> {
+	    			for(ScimBulkOperation operation : batch) {
+	    				error(operation, HttpStatus.BAD_REQUEST, ScimFilterException.INVALID_SYNTAX, "operation " + batchKey + " is not supported");
+	    			}
+	    		}
+	    	}
+    	}catch(Exception e) {
+    		_logger.error("bulk {} error" , batchKey , e);
+    		for(ScimBulkOperation operation : batch) {
+    			if(operation.getStatus() == null) {
+    				error(operation, HttpStatus.INTERNAL_SERVER_ERROR, null, e.getMessage());
+    			}
+    		}
+    	}
+    }
+
+    void createUsers(List<ScimBulkOperation> batch) {
+    	List<UserInfo> userInfos = new ArrayList<UserInfo>();
+    	List<ScimBulkOperation> userOperations = new ArrayList<ScimBulkOperation>();
+    	for(ScimBulkOperation operation : batch) {
+    		UserInfo userInfo = userInfo(operation);
+    		if(userInfo != null) {
+    			userInfos.add(userInfo);
+    			userOperations.add(operation);
+    		}
+    	}
+    	if(!userInfos.isEmpty()) {
+    		written(userOperations, userInfos, userInfoService.importBatch(userInfos, false), HttpStatus.CREATED);
+    	}
+    }
+
+    /**
+     * users are replaced by the id of the path , 404 when the user not exists
+     */
+    void replaceUsers(List<ScimBulkOperation> batch) {
+    	List<String> ids = new ArrayList<String>();
+    	for(ScimBulkOperation operation : batch) {
+    		String id = resourceId(operation, USERS);
+    		if(StringUtils.isBlank(id)) {
+    			error(operation, HttpStatus.BAD_REQUEST, ScimFilterException.INVALID_PATH, "id is required");
+    		}else {
+    			ids.add(id);
+    		}
+    	}
+    	if(ids.isEmpty()) {
+    		return;
+    	}
+    	Map<String, UserInfo> loadUserInfos = userInfoService.findByIds(ScimRepository.DEFAULT_INST_ID, ids);
+    	List<UserInfo> userInfos = new ArrayList<UserInfo>();
+    	List<ScimBulkOperation> userOperations = new ArrayList<ScimBulkOperation>();
+    	Set<String> replacedIds = new HashSet<String>();
+    	for(ScimBulkOperation operation : batch) {
+    		if(operation.getStatus() != null) {
+    			continue;
+    		}
+    		String id = resourceId(operation, USERS);
+    		if(!loadUserInfos.containsKey(id)) {
+    			error(operation, HttpStatus.NOT_FOUND, null, "user " + id + " not found");
+    		}else if(!replacedIds.add(id)) {
+    			error(operation, HttpStatus.BAD_REQUEST, ScimFilterException.INVALID_VALUE, "user " + id + " is replaced more than once");
+    		}else {
+    			UserInfo userInfo = userInfo(operation);
+    			if(userInfo != null) {
+    				userInfo.setId(id);
+    				userInfos.add(userInfo);
+    				userOperations.add(operation);
+    			}
+    		}
+    	}
+    	if(!userInfos.isEmpty()) {
+    		written(userOperations, userInfos, userInfoService.updateBatch(userInfos), HttpStatus.OK);
+    	}
+    }
+
+    /**
+     * @return UserInfo of data , null when data is invalid and the operation is failed
+     */
+    UserInfo userInfo(ScimBulkOperation operation) {
+    	try {
+    		UserInfo userInfo = scimUserController.scimUser2UserInfo(
+    				data(operation, ScimUser.class));
+    		userInfo.setInstId(ScimRepository.DEFAULT_INST_ID);
+    		return userInfo;
+    	}catch(IllegalArgumentException e) {
+    		error(operation, HttpStatus.BAD_REQUEST, ScimFilterException.INVALID_VALUE, e.getMessage());
+    		return null;
+    	}
+    }
+
+    void written(List<ScimBulkOperation> userOperations, List<UserInfo> userInfos, ImportResult result, HttpStatus status) {
+    	Map<Integer, String> rowErrors = new HashMap<Integer, String>();
+    	for(ImportResult.RowError rowError : result.getErrors()) {
+    		rowErrors.put(rowError.getRow(), rowError.getMessage());
+    	}
+    	for(int row = 0 ; row < userOperations.size() ; row++) {
+    		ScimBulkOperation operation = userOperations.get(row);
+    		if(rowErrors.containsKey(row)) {
+    			error(operation, HttpStatus.BAD_REQUEST, ScimFilterException.INVALID_VALUE, rowErrors.get(row));
+    		}else {
+    			success(operation, status, USERS, userInfos.get(row).getId());
+    		}
+    	}
+    }
+
+    void deleteUsers(List<ScimBulkOperation> batch) {
+    	List<String> ids = deleteIds(batch, USERS);
+    	if(!ids.isEmpty()) {
+    		userInfoService.deleteBatch(ids);
+    	}
+    	deleted(batch);
+    }
+
+    void createGroups(List<ScimBulkOperation> batch) {
+    	List<Groups> groups = new ArrayList<Groups>();
+    	List<ScimBulkOperation> groupOperations = new ArrayList<ScimBulkOperation>();
+    	for(ScimBulkOperation operation : batch) {
+    		try {
+    			Groups group = scimGroupController.scimGroup2Role(
+    					data(operation, ScimGroup.class));
+    			group.setInstId(ScimRepository.DEFAULT_INST_ID);
+    			groups.add(group);
+    			groupOperations.add(operation);
+    		}catch(IllegalArgumentException e) {
+    			error(operation, HttpStatus.BAD_REQUEST, ScimFilterException.INVALID_VALUE, e.getMessage());
+    		}
+    	}
+    	if(groups.isEmpty()) {
+    		return;
+    	}
+    	groupsService.insertBatch(groups);
+    	for(int i = 0 ; i < groups.size() ; i++) {
+    		success(groupOperations.get(i), HttpStatus.CREATED, GROUPS, groups.get(i).getId());
+    	}
+    }
+
+    void replaceGroups(List<ScimBulkOperation> batch) {
+    	for(ScimBulkOperation operation : batch) {
+    		String id = resourceId(operation, GROUPS);
+    		if(StringUtils.isBlank(id)) {
+    			error(operation, HttpStatus.BAD_REQUEST, ScimFilterException.INVALID_PATH, "id is required");
+    			continue;
+    		}
+    		try {
+    			Groups group = scimGroupController.scimGroup2Role(
+    					data(operation, ScimGroup.class));
+    			group.setId(id);
+    			group.setInstId(ScimRepository.DEFAULT_INST_ID);
+    			if(groupsService.update(group)) {
+    				success(operation, HttpStatus.OK, GROUPS, id);
+    			}else {
+    				error(operation, HttpStatus.NOT_FOUND, null, "group " + id + " not found");
+    			}
+    		}catch(IllegalArgumentException e) {
+    			error(operation, HttpStatus.BAD_REQUEST, ScimFilterException.INVALID_VALUE, e.getMessage());
+    		}
+    	}
+    }
+
+    void deleteGroups(List<ScimBulkOperation> batch) {
+    	List<String> ids = deleteIds(batch, GROUPS);
+    	if(!ids.isEmpty()) {
+    		groupsService.deleteBatch(ids);
+    	}
+    	deleted(batch);
+    }
+
+    List<String> deleteIds(List<ScimBulkOperation> batch, String resource) {
+    	List<String> ids = new ArrayList<String>();
+    	for(ScimBulkOperation operation : batch) {
+    		String id = resourceId(operation, resource);
+    		if(StringUtils.isBlank(id)) {
+    			error(operation, HttpStatus.BAD_REQUEST, ScimFilterException.INVALID_PATH, "id is required");
+    		}else {
+    			ids.add(id);
+    			operation.setLocation(resource + "/" + id);
+    		}
+    	}
+    	return ids;
+    }
+
+    void deleted(List<ScimBulkOperation> batch) {
+    	for(ScimBulkOperation operation : batch) {
+    		if(operation.getStatus() == null) {
+    			operation.setStatus(String.valueOf(HttpStatus.NO_CONTENT.value()));
+    		}
+    	}
+    }
+
+    /**
+     * @throws IllegalArgumentException data is missing or invalid
+     */
+    static <T> T data(ScimBulkOperation operation, Class<T> resourceClass) {
+    	if(operation.getData() == null) {
+    		throw new IllegalArgumentException("data is required");
+    	}
+    	return RESOURCE_MAPPER.convertValue(operation.getData(), resourceClass);
+    }
+
+    /**
+     * @return id of /Users/{id} , null when not present
+     */
+    static String resourceId(ScimBulkOperation operation, String resource) {
+    	String path = operation.getPath();
+    	return path.length() > resource.length() + 1 ? path.substring(resource.length() + 1) : null;
+    }
+
+    static void success(ScimBulkOperation operation, HttpStatus status, String resource, String id) {
+    	operation.setLocation(resource + "/" + id);
+    	operation.setStatus(String.valueOf(status.value()));
+    }
+
+    static void error(ScimBulkOperation operation, HttpStatus status, String scimType, String detail) {
+    	operation.setStatus(String.valueOf(status.value()));
+    	operation.setResponse(new ScimError(status.value(), scimType, detail));
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.web.apis.identity.scim;
+
+import org.dromara.maxkey.web.apis.identity.scim.filter.ScimFilterException;
+import org.dromara.maxkey.web.apis.identity.scim.resources.ScimError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * SCIM errors of the SCIM controllers , before GlobalExceptionHandler
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RestControllerAdvice(basePackageClasses = ScimExceptionHandler.class)
+public class ScimExceptionHandler {
+	static final  Logger _logger = LoggerFactory.getLogger(ScimExceptionHandler.class);
+
+	@ExceptionHandler(ScimFilterException.class)
+	public ResponseEntity<ScimError> scimException(ScimFilterException e) {
+		_logger.debug("scim error {} , {}" , e.getScimType() , e.getMessage());
+		HttpStatus status = ScimFilterException.TOO_MANY.equals(e.getScimType()) ?
+				HttpStatus.PAYLOAD_TOO_LARGE : HttpStatus.BAD_REQUEST;
+		return ResponseEntity.status(status).body(new ScimError(status.value(), e.getScimType(), e.getMessage()));
+	}
+
+}
@@ -61,6 +61,9 @@ public class ScimGroupController {
 	@Autowired
 	GroupMemberService groupMemberService;
 	
+	@Autowired
+	ScimRepository scimRepository;
+	
     @RequestMapping(value = "/{id}", method = RequestMethod.GET)
     public MappingJacksonValue get(@PathVariable String id,
                                    @RequestParam(required = false) String attributes) {
@@ -115,11 +118,8 @@ public class ScimGroupController {
     public MappingJacksonValue searchWithPost(@ModelAttribute ScimParameters requestParameters) {
     	requestParameters.parse();
     	_logger.debug("requestParameters {} ",requestParameters);
-    	Groups queryModel = new Groups();
-    	queryModel.setPageSize(requestParameters.getCount());
-    	queryModel.calculate(requestParameters.getStartIndex()); 
-        
-        JpaPageResults<Groups> orgResults = groupsService.fetchPageResults(queryModel);
+        JpaPageResults<Groups> orgResults = 
+        		scimRepository.searchGroups(ScimRepository.DEFAULT_INST_ID, requestParameters);
         List<ScimGroup> resultList = new ArrayList<ScimGroup>();
         for(Groups group : orgResults.getRows()) {
         	resultList.add(group2ScimGroup(group));
@@ -128,7 +128,7 @@ public class ScimGroupController {
         		new ScimSearchResult<ScimGroup>(
         				resultList,
         				orgResults.getRecords(),
-        				queryModel.getPageSize(),
+        				requestParameters.getCount(),
         				requestParameters.getStartIndex());  
         return new MappingJacksonValue(scimSearchResult);
     }
@@ -0,0 +1,185 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.web.apis.identity.scim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dromara.maxkey.entity.idm.Groups;
+import org.dromara.maxkey.entity.idm.UserInfo;
+import org.dromara.maxkey.web.apis.identity.scim.filter.ScimFilter;
+import org.dromara.maxkey.web.apis.identity.scim.filter.ScimFilter.Column;
+import org.dromara.maxkey.web.apis.identity.scim.filter.ScimFilter.Type;
+import org.dromara.maxkey.web.apis.identity.scim.resources.ScimParameters;
+import org.dromara.mybatis.jpa.entity.JpaPageResults;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+/**
+ * SCIM search , filter and sortBy compiled to parameterized SQL , paged by the database ,
+ * and the groups of a page of users with one query per IN_CLAUSE_SIZE users .
+ */
+@Repository
+public class ScimRepository {
+	static final  Logger _logger = LoggerFactory.getLogger(ScimRepository.class);
+
+	/**
+	 * institution of the SCIM api , as the rest api
+	 */
+	public static final String DEFAULT_INST_ID = "1";
+
+	public static final int IN_CLAUSE_SIZE = 500;
+
+	static final String USER_SELECT_COLUMNS =
+			"id , username , usertype , displayname , nickname , formattedname , givenname , middlename , familyname , "
+			+ "honorificprefix , honorificsuffix , mobile , email , workemail , homeemail , workphonenumber , homephonenumber , "
+			+ "employeenumber , division , costcenter , organization , departmentid , department , jobtitle , "
+			+ "managerid , manager , timezone , locale , preferredlanguage , status , createddate , modifieddate";
+
+	static final String GROUP_SELECT_COLUMNS = "id , groupcode , groupname , createddate , modifieddate";
+
+	static final String GROUPS_BY_USERS_STATEMENT =
+			"select gm.memberid , g.id , g.groupname from mxk_group_member gm , mxk_groups g "
+			+ "where gm.instid = ? and g.instid = ? and gm.groupid = g.id and gm.type in ('USER','USER-DYNAMIC') and gm.memberid in (%s)";
+
+	/**
+	 * filter and sortBy attributes of User , lower case
+	 */
+	public static final Map<String, Column> USER_ATTRIBUTES = Map.ofEntries(
+			Map.entry("id", Column.of("id")),
+			Map.entry("externalid", Column.of("id")),
+			Map.entry("username", Column.of("username")),
+			Map.entry("displayname", Column.of("displayname")),
+			Map.entry("nickname", Column.of("nickname")),
+			Map.entry("name.formatted", Column.of("formattedname")),
+			Map.entry("name.familyname", Column.of("familyname")),
+			Map.entry("name.givenname", Column.of("givenname")),
+			Map.entry("name.middlename", Column.of("middlename")),
+			Map.entry("title", Column.of("jobtitle")),
+			Map.entry("usertype", Column.of("usertype")),
+			Map.entry("locale", Column.of("locale")),
+			Map.entry("timezone", Column.of("timezone")),
+			Map.entry("preferredlanguage", Column.of("preferredlanguage")),
+			Map.entry("active", Column.of("status", Type.STATUS)),
+			Map.entry("emails", Column.of("email")),
+			Map.entry("emails.value", Column.of("email")),
+			Map.entry("phonenumbers", Column.of("mobile")),
+			Map.entry("phonenumbers.value", Column.of("mobile")),
+			Map.entry("employeenumber", Column.of("employeenumber")),
+			Map.entry("costcenter", Column.of("costcenter")),
+			Map.entry("division", Column.of("division")),
+			Map.entry("department", Column.of("department")),
+			Map.entry("departmentid", Column.of("departmentid")),
+			Map.entry("manager.value", Column.of("managerid")),
+			Map.entry("meta.created", Column.of("createddate", Type.DATETIME)),
+			Map.entry("meta.lastmodified", Column.of("modifieddate", Type.DATETIME)));
+
+	/**
+	 * filter and sortBy attributes of Group , lower case
+	 */
+	public static final Map<String, Column> GROUP_ATTRIBUTES = Map.of(
+			"id", Column.of("id"),
+			"externalid", Column.of("id"),
+			"displayname", Column.of("groupname"),
+			"meta.created", Column.of("createddate", Type.DATETIME),
+			"meta.lastmodified", Column.of("modifieddate", Type.DATETIME));
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	public JpaPageResults<UserInfo> searchUsers(String instId, ScimParameters parameters) {
+		return search("mxk_userinfo", USER_SELECT_COLUMNS, USER_ATTRIBUTES,
+				instId, parameters, new BeanPropertyRowMapper<>(UserInfo.class));
+	}
+
+	public JpaPageResults<Groups> searchGroups(String instId, ScimParameters parameters) {
+		return search("mxk_groups", GROUP_SELECT_COLUMNS, GROUP_ATTRIBUTES,
+				instId, parameters, new BeanPropertyRowMapper<>(Groups.class));
+	}
+
+	/**
+	 * count and page of rows , limit ? offset ? of MySQL and PostgreSQL
+	 */
+	<T> JpaPageResults<T> search(String table, String columns, Map<String, Column> attributes,
+			String instId, ScimParameters parameters, RowMapper<T> rowMapper) {
+		ScimFilter filter = ScimFilter.parse(parameters.getFilter(), attributes);
+		String orderBy = ScimFilter.orderBy(parameters.getSortBy(), parameters.getSortOrder(), attributes);
+
+		StringBuilder where = new StringBuilder(" from ").append(table).append(" where instid = ?");
+		List<Object> args = new ArrayList<>();
+		args.add(instId);
+		if(filter != null) {
+			where.append(" and (").append(filter.getWhere()).append(")");
+			args.addAll(filter.getParameters());
+		}
+		_logger.debug("search {} where {} , args {}" , table , where , args);
+
+		JpaPageResults<T> results = new JpaPageResults<>();
+		Long records = jdbcTemplate.queryForObject("select count(*)" + where, Long.class, args.toArray());
+		results.setRecords(records);
+		if(records == null || records == 0 || parameters.getCount() <= 0) {
+			results.setRows(new ArrayList<>());
+			return results;
+		}
+		//id for stable paging
+		String select = "select " + columns + where + " order by " + (orderBy == null ? "id" : orderBy + " , id")
+				+ " limit ? offset ?";
+		args.add(parameters.getCount());
+		args.add(parameters.getStartIndex() - 1);
+		results.setRows(jdbcTemplate.query(select, rowMapper, args.toArray()));
+		return results;
+	}
+
+	/**
+	 * groups of users , IN_CLAUSE_SIZE users per query
+	 * @param instId institution
+	 * @param userIds users of page
+	 * @return user id to groups , users without group not included
+	 */
+	public Map<String, List<Groups>> queryGroupsByUserIds(String instId, List<String> userIds) {
+		Map<String, List<Groups>> userGroups = new HashMap<>();
+		for(int from = 0 ; from < userIds.size() ; from += IN_CLAUSE_SIZE) {
+			List<String> chunk = userIds.subList(from, Math.min(from + IN_CLAUSE_SIZE, userIds.size()));
+			List<Object> args = new ArrayList<>(chunk.size() + 2);
+			args.add(instId);
+			args.add(instId);
+			args.addAll(chunk);
+			String statement = String.format(GROUPS_BY_USERS_STATEMENT, String.join(",", Collections.nCopies(chunk.size(), "?")));
+			jdbcTemplate.query(statement, rs -> {
+					List<Groups> groups = userGroups.computeIfAbsent(rs.getString(1), k -> new ArrayList<>());
+					String groupId = rs.getString(2);
+					//member of the group and of the dynamic group
+					if(groups.stream().noneMatch(group -> group.getId().equals(groupId))) {
+						Groups group = new Groups(groupId);
+						group.setGroupName(rs.getString(3));
+						groups.add(group);
+					}
+				}, args.toArray());
+		}
+		return userGroups;
+	}
+
+}
@@ -44,7 +44,8 @@ public class ScimServiceProviderConfigController {
         public static final ServiceProviderConfig INSTANCE = new ServiceProviderConfig();
         public static final String SCHEMA = "urn:ietf:params:scim:schemas:core:2.0:ServiceProviderConfig";
         public final Supported patch = new Supported(false);
-        public final Supported bulk = new BulkSupported(false);
+        public final Supported bulk = new BulkSupported(true,
+                ScimBulkController.MAX_OPERATIONS, ScimBulkController.MAX_PAYLOAD_SIZE);
         public final Supported filter = new FilterSupported(true, MAX_RESULTS);
         public final Supported changePassword = new Supported(false);
         public final Supported sort = new Supported(true);
@@ -99,6 +100,12 @@ public class ScimServiceProviderConfigController {
                 this.maxPayloadSize = null;
             }
 
+            public BulkSupported(boolean b, Integer maxOperations, Integer maxPayloadSize) {
+                super(b);
+                this.maxOperations = maxOperations;
+                this.maxPayloadSize = maxPayloadSize;
+            }
+
         }
 
         @JsonInclude(JsonInclude.Include.NON_EMPTY)
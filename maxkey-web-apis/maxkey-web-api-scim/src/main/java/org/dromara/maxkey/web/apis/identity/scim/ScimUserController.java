@@ -19,7 +19,9 @@ package org.dromara.maxkey.web.apis.identity.scim;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.dromara.maxkey.constants.ConstsStatus;
@@ -74,6 +76,9 @@ public class ScimUserController {
 	@Autowired
 	GroupsService groupsService;
 	
+	@Autowired
+	ScimRepository scimRepository;
+	
     @RequestMapping(value = "/{id}", method = RequestMethod.GET)
     public MappingJacksonValue get(@PathVariable String id,
                                        @RequestParam(required = false) String attributes) {
@@ -120,25 +125,33 @@ public class ScimUserController {
     public MappingJacksonValue searchWithPost(@ModelAttribute ScimParameters requestParameters) {
     	requestParameters.parse();
     	_logger.debug("requestParameters {} ",requestParameters);
-    	UserInfo queryModel = new UserInfo();
-    	queryModel.setPageSize(requestParameters.getCount());
-    	queryModel.calculate(requestParameters.getStartIndex()); 
-        
-        JpaPageResults<UserInfo> orgResults = userInfoService.fetchPageResults(queryModel);
+        JpaPageResults<UserInfo> userResults = 
+        		scimRepository.searchUsers(ScimRepository.DEFAULT_INST_ID, requestParameters);
+        //groups of the page in one query
+        List<String> userIds = new ArrayList<String>();
+        for(UserInfo user : userResults.getRows()) {
+        	userIds.add(user.getId());
+        }
+        Map<String, List<Groups>> userGroups = 
+        		scimRepository.queryGroupsByUserIds(ScimRepository.DEFAULT_INST_ID, userIds);
         List<ScimUser> resultList = new ArrayList<ScimUser>();
-        for(UserInfo user : orgResults.getRows()) {
-        	resultList.add(userInfo2ScimUser(user));
+        for(UserInfo user : userResults.getRows()) {
+        	resultList.add(userInfo2ScimUser(user, userGroups.getOrDefault(user.getId(), Collections.emptyList())));
         }
         ScimSearchResult<ScimUser> scimSearchResult = 
         		new ScimSearchResult<ScimUser>(
         				resultList,
-        				orgResults.getRecords(),
-        				queryModel.getPageSize(),
+        				userResults.getRecords(),
+        				requestParameters.getCount(),
         				requestParameters.getStartIndex());  
         return new MappingJacksonValue(scimSearchResult);
     }
     
     public ScimUser userInfo2ScimUser(UserInfo userInfo) {
+    	return userInfo2ScimUser(userInfo, groupsService.queryByUserId(userInfo.getId()));
+    }
+    
+    public ScimUser userInfo2ScimUser(UserInfo userInfo, List<Groups> userGroups) {
     	ScimUser scimUser =new ScimUser();
     	scimUser.setId(userInfo.getId());
     	scimUser.setExternalId(userInfo.getId());
@@ -172,7 +185,7 @@ public class ScimUserController {
     	
     	List<String> groupsList=new  ArrayList<String>(); 
     	List<ScimGroupRef> groups = new  ArrayList<ScimGroupRef>(); 
-    	for(Groups group : groupsService.queryByUserId(userInfo.getId())){
+    	for(Groups group : userGroups){
     		groupsList.add(group.getId());
     		groups.add(new ScimGroupRef(group.getId(),group.getGroupName()));
     		
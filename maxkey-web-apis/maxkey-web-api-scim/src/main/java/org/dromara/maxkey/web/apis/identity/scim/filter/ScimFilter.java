@@ -0,0 +1,371 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.web.apis.identity.scim.filter;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.dromara.maxkey.constants.ConstsStatus;
+
+/**
+ * SCIM 2.0 filter , https://tools.ietf.org/html/rfc7644#section-3.4.2.2 ,
+ * compiled to a SQL where clause with ? parameters .<br>
+ * operators eq ne co sw ew gt ge lt le pr , and or not and grouping are supported ,
+ * complex attribute filters like emails[type eq "work"] are not .
+ * attributes are mapped to columns , attribute names are case insensitive ,
+ * other attributes are rejected as invalidFilter , so values never reach the SQL text .
+ */
+public final class ScimFilter {
+
+	/**
+	 * nesting of groups and not
+	 */
+	public static final int MAX_DEPTH = 16;
+
+	public enum Type {
+		STRING,
+		/**
+		 * active , true is status ACTIVE
+		 */
+		STATUS,
+		DATETIME
+	}
+
+	/**
+	 * column of an attribute
+	 */
+	public static final class Column {
+
+		final String name;
+
+		final Type type;
+
+		Column(String name, Type type) {
+			this.name = name;
+			this.type = type;
+		}
+
+		public static Column of(String name) {
+			return new Column(name, Type.STRING);
+		}
+
+		public static Column of(String name, Type type) {
+			return new Column(name, type);
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+
+	final String where;
+
+	final List<Object> parameters;
+
+	ScimFilter(String where, List<Object> parameters) {
+		this.where = where;
+		this.parameters = parameters;
+	}
+
+	/**
+	 * @param filter SCIM filter
+	 * @param columns lower case attribute name to column
+	 * @return ScimFilter , null when filter is empty
+	 * @throws ScimFilterException invalidFilter
+	 */
+	public static ScimFilter parse(String filter, Map<String, Column> columns) {
+		if(StringUtils.isBlank(filter)) {
+			return null;
+		}
+		Parser parser = new Parser(tokenize(filter), columns);
+		String where = parser.or(0);
+		if(parser.position < parser.tokens.size()) {
+			throw invalid("unexpected " + parser.tokens.get(parser.position).text);
+		}
+		return new ScimFilter(where, Collections.unmodifiableList(parser.parameters));
+	}
+
+	/**
+	 * @param sortBy attribute
+	 * @param sortOrder ascending or descending
+	 * @param columns lower case attribute name to column
+	 * @return column asc|desc , null when sortBy is empty
+	 * @throws ScimFilterException invalidFilter
+	 */
+	public static String orderBy(String sortBy, String sortOrder, Map<String, Column> columns) {
+		if(StringUtils.isBlank(sortBy)) {
+			return null;
+		}
+		Column column = column(sortBy, columns);
+		return column.name + ("descending".equalsIgnoreCase(sortOrder) ? " desc" : " asc");
+	}
+
+	public String getWhere() {
+		return where;
+	}
+
+	public List<Object> getParameters() {
+		return parameters;
+	}
+
+	@Override
+	public String toString() {
+		return "ScimFilter [where=" + where + ", parameters=" + parameters + "]";
+	}
+
+	static Column column(String attribute, Map<String, Column> columns) {
+		//urn:ietf:params:scim:schemas:core:2.0:User:userName
+		String name = attribute.substring(attribute.lastIndexOf(':') + 1).toLowerCase(Locale.ROOT);
+		Column column = columns.get(name);
+		if(column == null) {
+			throw invalid("attribute " + attribute + " is not supported");
+		}
+		return column;
+	}
+
+	static ScimFilterException invalid(String message) {
+		return new ScimFilterException(ScimFilterException.INVALID_FILTER, message);
+	}
+
+	enum Kind {WORD, STRING, OPEN, CLOSE}
+
+	static final class Token {
+
+		final Kind kind;
+
+		final String text;
+
+		Token(Kind kind, String text) {
+			this.kind = kind;
+			this.text = text;
+		}
+
+		boolean is(String keyword) {
+			return kind == Kind.WORD && text.equalsIgnoreCase(keyword);
+		}
+	}
+
+	static List<Token> tokenize(String filter) {
+		List<Token> tokens = new ArrayList<>();
+		int i = 0;
+		while(i < filter.length()) {
+			char c = filter.charAt(i);
+			if(Character.isWhitespace(c)) {
+				i++;
+			}else if(c == '(') {
+				tokens.add(new Token(Kind.OPEN, "("));
+				i++;
+			}else if(c == ')') {
+				tokens.add(new Token(Kind.CLOSE, ")"));
+				i++;
+			}else if(c == '[' || c == ']') {
+				throw invalid("complex attribute filter is not supported");
+			}else if(c == '"') {
+				StringBuilder value = new StringBuilder();
+				i++;
+				while(true) {
+					if(i >= filter.length()) {
+						throw invalid("unterminated string");
+					}
+					c = filter.charAt(i++);
+					if(c == '"') {
+						break;
+					}
+					if(c == '\\' && i < filter.length()) {
+						c = filter.charAt(i++);
+					}
+					value.append(c);
+				}
+				tokens.add(new Token(Kind.STRING, value.toString()));
+			}else {
+				int start = i;
+				while(i < filter.length() && !Character.isWhitespace(filter.charAt(i))
+						&& "()[]\"".indexOf(filter.charAt(i)) < 0) {
+					i++;
+				}
+				tokens.add(new Token(Kind.WORD, filter.substring(start, i)));
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * recursive descent , or has the lowest precedence , then and , then not and groups
+	 */
+	static final class Parser {
+
+		final List<Token> tokens;
+
+		final Map<String, Column> columns;
+
+		final List<Object> parameters = new ArrayList<>();
+
+		int position;
+
+		Parser(List<Token> tokens, Map<String, Column> columns) {
+			this.tokens = tokens;
+			this.columns = columns;
+		}
+
+		String or(int depth) {
+			String where = and(depth);
+			while(peek() != null && peek().is("or")) {
+				position++;
+				where = where + " or " + and(depth);
+			}
+			return where;
+		}
+
+		String and(int depth) {
+			String where = unary(depth);
+			while(peek() != null && peek().is("and")) {
+				position++;
+				where = where + " and " + unary(depth);
+			}
+			return where;
+		}
+
+		String unary(int depth) {
+			if(depth > MAX_DEPTH) {
+				throw invalid("filter is nested too deep");
+			}
+			Token token = next();
+			if(token.is("not")) {
+				expect(Kind.OPEN);
+				String where = or(depth + 1);
+				expect(Kind.CLOSE);
+				return "not (" + where + ")";
+			}
+			if(token.kind == Kind.OPEN) {
+				String where = or(depth + 1);
+				expect(Kind.CLOSE);
+				return "(" + where + ")";
+			}
+			if(token.kind != Kind.WORD) {
+				throw invalid("attribute expected , not " + token.text);
+			}
+			Column column = column(token.text, columns);
+			String operator = next().text.toLowerCase(Locale.ROOT);
+			if(operator.equals("pr")) {
+				return column.type == Type.STRING ?
+						"(" + column.name + " is not null and " + column.name + " <> '')" : column.name + " is not null";
+			}
+			return compare(column, operator, value(next()));
+		}
+
+		String compare(Column column, String operator, Object value) {
+			if(value == null) {
+				switch(operator) {
+					case "eq" : return column.name + " is null";
+					case "ne" : return column.name + " is not null";
+					default : throw invalid(operator + " null is not supported");
+				}
+			}
+			if(column.type == Type.STATUS) {
+				if(!(value instanceof Boolean active) || !(operator.equals("eq") || operator.equals("ne"))) {
+					throw invalid("boolean attribute supports eq and ne true or false");
+				}
+				parameters.add(ConstsStatus.ACTIVE);
+				return column.name + (active == operator.equals("eq") ? " = ?" : " <> ?");
+			}
+			Object parameter = column.type == Type.DATETIME ? timestamp(value) : value.toString();
+			switch(operator) {
+				case "eq" : return bind(column.name + " = ?", parameter);
+				case "ne" : return bind(column.name + " <> ?", parameter);
+				case "gt" : return bind(column.name + " > ?", parameter);
+				case "ge" : return bind(column.name + " >= ?", parameter);
+				case "lt" : return bind(column.name + " < ?", parameter);
+				case "le" : return bind(column.name + " <= ?", parameter);
+				case "co" : return like(column, "%" + escape(parameter) + "%");
+				case "sw" : return like(column, escape(parameter) + "%");
+				case "ew" : return like(column, "%" + escape(parameter));
+				default : throw invalid("operator " + operator + " is not supported");
+			}
+		}
+
+		String bind(String where, Object parameter) {
+			parameters.add(parameter);
+			return where;
+		}
+
+		String like(Column column, String pattern) {
+			if(column.type != Type.STRING) {
+				throw invalid("co sw ew supports string attribute only");
+			}
+			return bind(column.name + " like ? escape '!'", pattern);
+		}
+
+		static String escape(Object value) {
+			return value.toString().replace("!", "!!").replace("%", "!%").replace("_", "!_");
+		}
+
+		static Timestamp timestamp(Object value) {
+			try {
+				return Timestamp.from(OffsetDateTime.parse(value.toString()).toInstant());
+			}catch(DateTimeParseException e) {
+				throw invalid("invalid dateTime " + value);
+			}
+		}
+
+		static Object value(Token token) {
+			if(token.kind == Kind.STRING) {
+				return token.text;
+			}
+			if(token.kind != Kind.WORD) {
+				throw invalid("value expected , not " + token.text);
+			}
+			if(token.is("true") || token.is("false")) {
+				return Boolean.valueOf(token.text.toLowerCase(Locale.ROOT));
+			}
+			if(token.is("null")) {
+				return null;
+			}
+			try {
+				return new BigDecimal(token.text);
+			}catch(NumberFormatException e) {
+				throw invalid("invalid value " + token.text);
+			}
+		}
+
+		Token peek() {
+			return position < tokens.size() ? tokens.get(position) : null;
+		}
+
+		Token next() {
+			if(position >= tokens.size()) {
+				throw invalid("unexpected end of filter");
+			}
+			return tokens.get(position++);
+		}
+
+		void expect(Kind kind) {
+			if(next().kind != kind) {
+				throw invalid((kind == Kind.OPEN ? "(" : ")") + " expected");
+			}
+		}
+	}
+
+}
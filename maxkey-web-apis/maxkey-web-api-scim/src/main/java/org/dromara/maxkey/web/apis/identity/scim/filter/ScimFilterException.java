@@ -0,0 +1,48 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.web.apis.identity.scim.filter;
+
+/**
+ * SCIM request error , responded as 400 with the SCIM error scimType
+ */
+public class ScimFilterException extends IllegalArgumentException {
+
+	private static final long serialVersionUID = 4189437750129672533L;
+
+	public static final String INVALID_FILTER	= "invalidFilter";
+
+	public static final String INVALID_VALUE	= "invalidValue";
+
+	public static final String INVALID_PATH		= "invalidPath";
+
+	public static final String INVALID_SYNTAX	= "invalidSyntax";
+
+	public static final String TOO_MANY			= "tooMany";
+
+	final String scimType;
+
+	public ScimFilterException(String scimType, String message) {
+		super(message);
+		this.scimType = scimType;
+	}
+
+	public String getScimType() {
+		return scimType;
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+
+package org.dromara.maxkey.web.apis.identity.scim.resources;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * operation of bulk request and response , https://tools.ietf.org/html/rfc7644#section-3.7
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScimBulkOperation {
+
+    private String method;
+    private String bulkId;
+    private String version;
+    private String path;
+    private Map<String, Object> data;
+    private String location;
+    private String status;
+    private ScimError response;
+
+    public ScimBulkOperation() {
+    }
+
+    public String getMethod() {
+        return method;
+    }
+    public void setMethod(String method) {
+        this.method = method;
+    }
+    public String getBulkId() {
+        return bulkId;
+    }
+    public void setBulkId(String bulkId) {
+        this.bulkId = bulkId;
+    }
+    public String getVersion() {
+        return version;
+    }
+    public void setVersion(String version) {
+        this.version = version;
+    }
+    public String getPath() {
+        return path;
+    }
+    public void setPath(String path) {
+        this.path = path;
+    }
+    public Map<String, Object> getData() {
+        return data;
+    }
+    public void setData(Map<String, Object> data) {
+        this.data = data;
+    }
+    public String getLocation() {
+        return location;
+    }
+    public void setLocation(String location) {
+        this.location = location;
+    }
+    public String getStatus() {
+        return status;
+    }
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    public ScimError getResponse() {
+        return response;
+    }
+    public void setResponse(ScimError response) {
+        this.response = response;
+    }
+
+    @Override
+    public String toString() {
+        return "ScimBulkOperation [method=" + method + ", bulkId=" + bulkId + ", path=" + path + ", status=" + status + "]";
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+
+package org.dromara.maxkey.web.apis.identity.scim.resources;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ScimBulkResponse {
+
+    public static final String SCHEMA = "urn:ietf:params:scim:api:messages:2.0:BulkResponse";
+
+    private Set<String> schemas = new HashSet<>(Collections.singletonList(SCHEMA));
+
+    @JsonProperty("Operations")
+    private List<ScimBulkOperation> operations;
+
+    public ScimBulkResponse(List<ScimBulkOperation> operations) {
+        this.operations = operations;
+    }
+
+    public Set<String> getSchemas() {
+        return schemas;
+    }
+    @JsonProperty("Operations")
+    public List<ScimBulkOperation> getOperations() {
+        return operations;
+    }
+}
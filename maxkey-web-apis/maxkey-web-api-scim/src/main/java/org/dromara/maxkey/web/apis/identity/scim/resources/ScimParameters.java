@@ -22,7 +22,7 @@ import org.dromara.maxkey.web.apis.identity.scim.ScimServiceProviderConfigContro
 public class ScimParameters {
 	int startIndex = 1;
 	int count = ScimServiceProviderConfigController.MAX_RESULTS;
-	String ﬁlter;
+	String filter;
 	String sortBy;
 	String sortOrder = "ascending";
 	String attributes;
@@ -61,12 +61,12 @@ public class ScimParameters {
 		this.startIndex = startIndex;
 	}
 
-	public String getﬁlter() {
-		return ﬁlter;
+	public String getFilter() {
+		return filter;
 	}
 
-	public void setﬁlter(String ﬁlter) {
-		this.ﬁlter = ﬁlter;
+	public void setFilter(String filter) {
+		this.filter = filter;
 	}
 
 	public String getSortBy() {
@@ -95,7 +95,7 @@ public class ScimParameters {
 
 	@Override
 	public String toString() {
-		return "ScimParameters [count=" + count + ", startIndex=" + startIndex + ", ﬁlter=" + ﬁlter + ", sortBy="
+		return "ScimParameters [count=" + count + ", startIndex=" + startIndex + ", filter=" + filter + ", sortBy="
 				+ sortBy + ", sortOrder=" + sortOrder + ", attributes=" + attributes + "]";
 	}
 
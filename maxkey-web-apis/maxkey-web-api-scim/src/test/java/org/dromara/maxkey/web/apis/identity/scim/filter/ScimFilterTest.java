@@ -0,0 +1,86 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dromara.maxkey.web.apis.identity.scim.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+import org.dromara.maxkey.constants.ConstsStatus;
+import org.dromara.maxkey.web.apis.identity.scim.filter.ScimFilter.Column;
+import org.dromara.maxkey.web.apis.identity.scim.filter.ScimFilter.Type;
+import org.junit.Test;
+
+public class ScimFilterTest {
+
+	static final Map<String, Column> columns = Map.of(
+			"username", Column.of("username"),
+			"displayname", Column.of("displayname"),
+			"active", Column.of("status", Type.STATUS),
+			"meta.lastmodified", Column.of("modifieddate", Type.DATETIME));
+
+	@Test
+	public void parse() {
+		assertNull(ScimFilter.parse(" ", columns));
+
+		ScimFilter filter = ScimFilter.parse("userName eq \"bjensen\"", columns);
+		assertEquals("username = ?", filter.getWhere());
+		assertEquals(List.of("bjensen"), filter.getParameters());
+
+		filter = ScimFilter.parse(
+				"(urn:ietf:params:scim:schemas:core:2.0:User:userName sw \"J_\" or displayName pr) and not (active eq false)",
+				columns);
+		assertEquals("(username like ? escape '!' or (displayname is not null and displayname <> '')) and not (status <> ?)",
+				filter.getWhere());
+		assertEquals(List.of("J!_%", ConstsStatus.ACTIVE), filter.getParameters());
+
+		filter = ScimFilter.parse("meta.lastModified gt \"2011-05-13T04:42:34Z\"", columns);
+		assertEquals("modifieddate > ?", filter.getWhere());
+		assertEquals(Timestamp.from(java.time.Instant.parse("2011-05-13T04:42:34Z")), filter.getParameters().get(0));
+
+		//values are parameters only
+		filter = ScimFilter.parse("userName eq \"x' or '1'='1\"", columns);
+		assertEquals("username = ?", filter.getWhere());
+
+		assertEquals("modifieddate desc", ScimFilter.orderBy("meta.lastModified", "descending", columns));
+	}
+
+	@Test
+	public void invalid() {
+		for(String filter : new String[] {
+				"password eq \"x\"",
+				"emails[type eq \"work\"]",
+				"userName eq",
+				"userName eq \"x\" )",
+				"userName xx \"x\"",
+				"active gt true",
+				"meta.lastModified co \"2011\""}) {
+			try {
+				ScimFilter.parse(filter, columns);
+				fail(filter);
+			}catch(ScimFilterException e) {
+				assertEquals(ScimFilterException.INVALID_FILTER, e.getScimType());
+			}
+		}
+	}
+
+}
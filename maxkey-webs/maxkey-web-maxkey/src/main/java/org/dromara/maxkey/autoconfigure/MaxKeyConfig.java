@@ -36,6 +36,8 @@ import org.dromara.maxkey.password.onetimepwd.MailOtpAuthnService;
 import org.dromara.maxkey.password.onetimepwd.algorithm.OtpKeyUriFormat;
 import org.dromara.maxkey.password.onetimepwd.impl.MailOtpAuthn;
 import org.dromara.maxkey.password.onetimepwd.impl.TimeBasedOtpAuthn;
+import org.dromara.maxkey.password.onetimepwd.token.OtpCounterRepository;
+import org.dromara.maxkey.password.onetimepwd.token.RedisOtpReplayCache;
 import org.dromara.maxkey.password.onetimepwd.token.RedisOtpTokenStore;
 import org.dromara.maxkey.persistence.redis.RedisConnectionFactory;
 import org.dromara.maxkey.persistence.repository.LoginHistoryRepository;
@@ -126,8 +128,16 @@ public class MaxKeyConfig  {
                 @Value("${maxkey.otp.policy.digits:6}")
                 int digits,
                 @Value("${maxkey.otp.policy.period:30}")
-                int period) {
+                int period,
+                @Value("${maxkey.otp.policy.window:1}")
+                int window,
+                @Value("${maxkey.server.persistence}") int persistence,
+                RedisConnectionFactory redisConnFactory) {
 	    TimeBasedOtpAuthn tfaOtpAuthn = new TimeBasedOtpAuthn(digits , period);
+	    tfaOtpAuthn.setWindow(window);
+	    if (persistence == ConstsPersistence.REDIS) {
+	    	tfaOtpAuthn.setReplayCache(new RedisOtpReplayCache(redisConnFactory));
+	    }
 	    logger.debug("TimeBasedOtpAuthn inited.");
         return tfaOtpAuthn;
     }
@@ -139,14 +149,21 @@ public class MaxKeyConfig  {
                 int digits,
                 @Value("${maxkey.otp.policy.period:30}")
                 int period,
+                @Value("${maxkey.otp.policy.window:1}")
+                int window,
                 @Value("${maxkey.server.persistence}") int persistence,
-                RedisConnectionFactory redisConnFactory) {    
+                RedisConnectionFactory redisConnFactory,
+                JdbcTemplate jdbcTemplate) {    
         AbstractOtpAuthn tfaOtpAuthn  = new TimeBasedOtpAuthn(digits , period);
+        tfaOtpAuthn.setWindow(window);
+        //counter based OTP saves the next counter
+        tfaOtpAuthn.setCounterRepository(new OtpCounterRepository(jdbcTemplate));
         logger.debug("TimeBasedOtpAuthn inited.");
 
         if (persistence == ConstsPersistence.REDIS) {
             RedisOtpTokenStore redisOptTokenStore = new RedisOtpTokenStore(redisConnFactory);
             tfaOtpAuthn.setOptTokenStore(redisOptTokenStore);
+            tfaOtpAuthn.setReplayCache(new RedisOtpReplayCache(redisConnFactory));
         }
         
         tfaOtpAuthn.initPropertys();
@@ -327,7 +327,7 @@ public class LoginEntryPoint {
 		String code = credentialDto.getCode();
 		try {
 			//获取登录会话
-			Session session = AuthorizationUtils.getSession(sessionManager, jwtToken);
+			Session session = AuthorizationUtils.getSession(sessionManager, authTokenService, jwtToken);
 			if (Objects.isNull(session)) {
 				return new Message<>(Message.FAIL, "登录会话失效，请重新登录");
 			}
@@ -20,14 +20,21 @@ package org.dromara.maxkey.autoconfigure;
 import org.dromara.maxkey.authn.session.SessionManager;
 import org.dromara.maxkey.configuration.ApplicationConfig;
 import org.dromara.maxkey.listener.DynamicGroupsListenerAdapter;
+import org.dromara.maxkey.listener.HistoryRetentionListenerAdapter;
+import org.dromara.maxkey.listener.LoginRollupListenerAdapter;
 import org.dromara.maxkey.listener.ReorgDeptListenerAdapter;
 import org.dromara.maxkey.listener.SessionListenerAdapter;
+import org.dromara.maxkey.persistence.repository.HistoryRetentionRepository;
+import org.dromara.maxkey.persistence.repository.LoginRollupRepository;
 import org.dromara.maxkey.persistence.service.ConnectorsService;
 import org.dromara.maxkey.persistence.service.GroupsService;
 import org.dromara.maxkey.persistence.service.OrganizationsService;
+import org.dromara.maxkey.provision.ProvisionService;
 import org.dromara.maxkey.provision.thread.ProvisioningRunner;
 import org.dromara.maxkey.provision.thread.ProvisioningRunnerThread;
 import org.dromara.maxkey.schedule.ScheduleAdapterBuilder;
+import org.quartz.JobDataMap;
+import org.quartz.JobKey;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.slf4j.Logger;
@@ -69,6 +76,62 @@ public class MaxKeyMgtListenerConfig  {
     	return "reorgDeptListenerAdapter";
     }
 
+    @Bean
+    String loginRollupListenerAdapter(
+            Scheduler scheduler,
+            LoginRollupRepository loginRollupRepository,
+            @Value("${maxkey.report.rollup.cron:0 10 1 * * ?}") String cronSchedule) throws SchedulerException {
+    	JobDataMap jobDataMap = new JobDataMap();
+    	jobDataMap.put("loginRollupRepository",loginRollupRepository);
+    	new ScheduleAdapterBuilder()
+			.setScheduler(scheduler)
+			.setCron(cronSchedule)
+			.setJobClass(LoginRollupListenerAdapter.class)
+			.setJobDataMap(jobDataMap)
+			.build();
+    	//backfill the days not rolled up yet at startup , not wait for the cron
+    	String identity = LoginRollupListenerAdapter.class.getSimpleName();
+    	scheduler.triggerJob(JobKey.jobKey(identity, identity + "Group"), jobDataMap);
+        logger.debug("LoginRollup ListenerAdapter inited .");
+    	return "loginRollupListenerAdapter";
+    }
+
+    @Bean
+    HistoryRetentionRepository historyRetentionRepository(
+            JdbcTemplate jdbcTemplate,
+            @Value("${maxkey.history.retention.chunk:1000}") int chunkSize,
+            @Value("${maxkey.history.retention.maxchunks:500}") int maxChunks,
+            @Value("${maxkey.history.retention.archive.path:}") String archivePath,
+            @Value("${maxkey.history.retention.login.days:0}") int loginDays,
+            @Value("${maxkey.history.retention.connector.days:0}") int connectorDays,
+            @Value("${maxkey.history.retention.provisions.days:0}") int provisionsDays,
+            @Value("${maxkey.history.retention.synchronizer.days:0}") int synchronizerDays,
+            @Value("${maxkey.history.retention.systemlogs.days:0}") int systemLogsDays) {
+        return new HistoryRetentionRepository(jdbcTemplate, chunkSize, maxChunks, archivePath)
+                .addPolicy("mxk_history_login", "logintime", loginDays)
+                .addPolicy("mxk_history_login_apps", "logintime", loginDays)
+                .addPolicy("mxk_history_connector", "synctime", connectorDays)
+                //pending provisions are never purged
+                .addPolicy("mxk_history_provisions", "sendtime", provisionsDays, "connected <> 0")
+                .addPolicy("mxk_history_synchronizer", "synctime", synchronizerDays)
+                .addPolicy("mxk_history_system_logs", "executetime", systemLogsDays);
+    }
+
+    @Bean
+    String historyRetentionListenerAdapter(
+            Scheduler scheduler,
+            HistoryRetentionRepository historyRetentionRepository,
+            @Value("${maxkey.history.retention.cron:0 40 2 * * ?}") String cronSchedule) throws SchedulerException {
+    	new ScheduleAdapterBuilder()
+			.setScheduler(scheduler)
+			.setCron(cronSchedule)
+			.setJobClass(HistoryRetentionListenerAdapter.class)
+			.setJobData("historyRetentionRepository",historyRetentionRepository)
+			.build();
+        logger.debug("HistoryRetention ListenerAdapter inited .");
+    	return "historyRetentionListenerAdapter";
+    }
+
     @Bean
     String dynamicGroupsListenerAdapter(
             Scheduler scheduler,
@@ -86,20 +149,29 @@ public class MaxKeyMgtListenerConfig  {
         return "dynamicGroupsListenerAdapter";
     }
 
-    @Bean
-    String provisioningRunnerThread(
+    @Bean(destroyMethod = "shutdown")
+    ProvisioningRunnerThread provisioningRunnerThread(
             ConnectorsService connectorsService,
             JdbcTemplate jdbcTemplate,
-            ApplicationConfig applicationConfig
+            ApplicationConfig applicationConfig,
+            ProvisionService provisionService,
+            @Value("${maxkey.provision.dispatcher.poll.interval:60}") long pollInterval,
+            @Value("${maxkey.provision.dispatcher.inflight:4}") int maxInFlight,
+            @Value("${maxkey.provision.dispatcher.retries:3}") int maxRetries,
+            @Value("${maxkey.provision.dispatcher.backoff:1000}") long retryBackoff
     ) {
+    	ProvisioningRunner runner = new ProvisioningRunner(
+    			connectorsService,jdbcTemplate,maxInFlight,maxRetries,retryBackoff);
+    	ProvisioningRunnerThread runnerThread = new ProvisioningRunnerThread(runner,pollInterval * 1000);
         if(applicationConfig.isProvisionSupport()) {
-	    	ProvisioningRunner runner = new ProvisioningRunner(connectorsService,jdbcTemplate);
-	    	ProvisioningRunnerThread runnerThread = new ProvisioningRunnerThread(runner);
+	    	//wake up when messages are sent from this node
+	    	provisionService.getOutbox().setListener(count -> runnerThread.wakeup());
 	    	runnerThread.start();
 	        logger.debug("provisioning Runner Thread .");
         }else {
         	logger.debug("not need init provisioning Runner Thread .");
         }
-        return "provisioningRunnerThread";
+        //shutdown flushes the completed deliveries , not started thread is stopped at once
+        return runnerThread;
     }
 }
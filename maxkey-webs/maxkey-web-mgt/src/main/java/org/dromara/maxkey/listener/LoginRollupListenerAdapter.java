@@ -0,0 +1,66 @@
+/*
+ * Copyright [2024] [MaxKey of copyright http://www.maxkey.top]
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.maxkey.listener;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import org.dromara.maxkey.persistence.repository.LoginRollupRepository;
+import org.dromara.maxkey.persistence.service.ReportService;
+import org.dromara.maxkey.schedule.ScheduleAdapter;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * backfill the login rollups ,
+ * the closed days of the reports which are not backfilled yet , all of them at the first run , then yesterday .
+ */
+public class LoginRollupListenerAdapter extends ScheduleAdapter   implements Job , Serializable {
+	static final  Logger _logger = LoggerFactory.getLogger(LoginRollupListenerAdapter.class);
+	
+	private static final long serialVersionUID = -3914580312671207326L;
+	
+	transient LoginRollupRepository loginRollupRepository;
+
+	@Override
+	public void execute(JobExecutionContext context) throws JobExecutionException {
+		 if(jobStatus == JOBSTATUS.RUNNING) {return;}
+		 init(context);
+		 	
+		 _logger.debug("running ... " );
+        jobStatus = JOBSTATUS.RUNNING;
+        try {
+        	loginRollupRepository.backfillPending(LocalDate.now().minusDays(ReportService.REPORT_DAYS));
+            _logger.debug("finished  " );
+            jobStatus = JOBSTATUS.FINISHED;
+        }catch(Exception e) {
+            jobStatus = JOBSTATUS.ERROR;
+            _logger.error("Exception " ,e);
+        }
+		
+	}
+
+	 @Override
+	protected void init(JobExecutionContext context){
+		 super.init(context);
+    	if(loginRollupRepository == null) {
+    		loginRollupRepository = getParameter("loginRollupRepository",LoginRollupRepository.class);
+        }
+    }
+}
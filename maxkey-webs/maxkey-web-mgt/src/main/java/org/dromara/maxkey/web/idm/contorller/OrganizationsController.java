@@ -34,6 +34,7 @@ import org.dromara.maxkey.constants.ConstsActResult;
 import org.dromara.maxkey.entity.ExcelImport;
 import org.dromara.maxkey.entity.Message;
 import org.dromara.maxkey.entity.idm.Organizations;
+import org.dromara.maxkey.entity.idm.OrganizationsTree;
 import org.dromara.maxkey.entity.idm.UserInfo;
 import org.dromara.maxkey.persistence.service.HistorySystemLogsService;
 import org.dromara.maxkey.persistence.service.OrganizationsService;
@@ -159,6 +160,7 @@ public class OrganizationsController {
 				Query.builder().eq("instid", currentUser.getInstId()));
 		if (orgList != null) {
 			TreeAttributes treeAttributes = new TreeAttributes();
+			OrganizationsTree orgsTree = new OrganizationsTree(orgList);
 			int nodeCount = 0;
 			for (Organizations org : orgList) {
 				TreeNode treeNode = new TreeNode(org.getId(),org.getOrgName());
@@ -169,7 +171,7 @@ public class OrganizationsController {
 				treeNode.setParentTitle(org.getParentName());
 				treeNode.setParentCode(org.getParentCode());
 				treeNode.setAttrs(org);
-				treeNode.setLeaf(true);
+				treeNode.setLeaf(!orgsTree.hasChildren(org.getId()));
 				treeAttributes.addNode(treeNode);
 				nodeCount ++;
 				//root organization node,parentId is null or parentId = -1 or parentId = 0 or  id = instId or id = parentId 
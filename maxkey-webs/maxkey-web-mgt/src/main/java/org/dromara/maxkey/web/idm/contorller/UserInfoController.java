@@ -20,14 +20,10 @@ package org.dromara.maxkey.web.idm.contorller;
 import java.beans.PropertyEditorSupport;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeSet;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.ss.usermodel.Row;
@@ -40,6 +36,7 @@ import org.dromara.maxkey.constants.ConstsActResult;
 import org.dromara.maxkey.constants.ConstsPasswordSetType;
 import org.dromara.maxkey.entity.ChangePassword;
 import org.dromara.maxkey.entity.ExcelImport;
+import org.dromara.maxkey.entity.ImportResult;
 import org.dromara.maxkey.entity.Message;
 import org.dromara.maxkey.entity.idm.UserInfo;
 import org.dromara.maxkey.persistence.service.FileUploadService;
@@ -279,12 +276,13 @@ public class UserInfoController {
                         }
                     }
                 }
-                // 数据去重
                 if(!CollectionUtils.isEmpty(userInfoList)){
-                    userInfoList = userInfoList.stream().collect(Collectors.collectingAndThen(Collectors.toCollection(() -> new TreeSet<>(Comparator.comparing(o -> o.getUsername()))), ArrayList::new));
-                    if( userInfoService.insertBatch(userInfoList)) {
-                    	return new Message<UserInfo>(Message.SUCCESS);
-                    }
+                	//重复账号和已存在账号在结果中返回
+                	ImportResult importResult = userInfoService.importBatch(
+                			userInfoList, "true".equalsIgnoreCase(excelImportFile.getUpdateExist()));
+                	logger.debug("import {}",importResult);
+                    return new Message<ImportResult>(
+                    		importResult.isSuccess() ? Message.SUCCESS : Message.FAIL, importResult);
                 }
             } catch (IOException e) {
                 e.printStackTrace();
@@ -414,7 +412,6 @@ public class UserInfoController {
 		userInfo.setHomePhoneNumber(ExcelUtils.getValue(row, 45));
 		// 家庭邮箱
 		userInfo.setHomeEmail(ExcelUtils.getValue(row, 46));
-		userInfoService.passwordEncoder(userInfo);
         userInfo.setStatus(1);
         userInfo.setInstId(currentUser.getInstId());
         return userInfo;
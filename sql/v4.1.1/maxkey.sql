@@ -281,6 +281,23 @@ CREATE TABLE `mxk_apps_token_based_details` (
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
+--
+-- Table structure for table `mxk_cache_invalidation`
+--
+
+DROP TABLE IF EXISTS `mxk_cache_invalidation`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `mxk_cache_invalidation` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `message` varchar(500) NOT NULL,
+  `nodeid` varchar(50) NOT NULL,
+  `createdtime` datetime DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  KEY `idx_createdtime` (`createdtime`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `mxk_cnf_email_senders`
 --
@@ -512,7 +529,8 @@ CREATE TABLE `mxk_history_connector` (
   `INSTID` varchar(45) NOT NULL,
   `TOPIC` varchar(45) DEFAULT NULL,
   `ACTIONTYPE` varchar(45) DEFAULT NULL,
-  PRIMARY KEY (`ID`)
+  PRIMARY KEY (`ID`),
+  KEY `IDX_MXK_HISTORY_CONNECTOR_SYNCTIME` (`SYNCTIME`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -564,7 +582,8 @@ CREATE TABLE `mxk_history_login` (
   `LOGOUTTIME` datetime NOT NULL DEFAULT '1970-01-01 00:00:00' COMMENT 'LOGOUTTIME',
   `SESSIONSTATUS` int DEFAULT '1',
   `INSTID` varchar(45) DEFAULT NULL,
-  PRIMARY KEY (`ID`)
+  PRIMARY KEY (`ID`),
+  KEY `IDX_MXK_HISTORY_LOGIN_LOGINTIME` (`LOGINTIME`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3 COMMENT='history_login';
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -585,7 +604,8 @@ CREATE TABLE `mxk_history_login_apps` (
   `USERNAME` varchar(45) DEFAULT NULL COMMENT 'USERNAME',
   `DISPLAYNAME` varchar(45) DEFAULT NULL COMMENT 'DISPLAYNAME',
   `INSTID` varchar(45) NOT NULL,
-  PRIMARY KEY (`ID`)
+  PRIMARY KEY (`ID`),
+  KEY `IDX_MXK_HISTORY_LOGIN_APPS_LOGINTIME` (`LOGINTIME`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3 COMMENT='Sign On apps Records';
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -603,8 +623,11 @@ CREATE TABLE `mxk_history_provisions` (
   `content` longtext,
   `sendTime` datetime DEFAULT CURRENT_TIMESTAMP,
   `connected` tinyint DEFAULT NULL,
+  `failedConnectors` varchar(1000) DEFAULT NULL,
   `instId` int DEFAULT NULL,
-  PRIMARY KEY (`ID`)
+  PRIMARY KEY (`ID`),
+  KEY `IDX_MXK_HISTORY_PROVISIONS_SENDTIME` (`sendTime`),
+  KEY `IDX_MXK_HISTORY_PROVISIONS_PENDING` (`connected`,`sendTime`,`ID`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -625,7 +648,8 @@ CREATE TABLE `mxk_history_synchronizer` (
   `SYNCTIME` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'SYNCTIME',
   `RESULT` varchar(45) DEFAULT NULL,
   `INSTID` varchar(45) NOT NULL,
-  PRIMARY KEY (`ID`)
+  PRIMARY KEY (`ID`),
+  KEY `IDX_MXK_HISTORY_SYNCHRONIZER_SYNCTIME` (`SYNCTIME`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3 COMMENT='synchronizer logs';
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -647,7 +671,8 @@ CREATE TABLE `mxk_history_system_logs` (
   `DISPLAYNAME` varchar(45) DEFAULT NULL COMMENT 'CODE',
   `EXECUTETIME` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'CREATEDDATE',
   `INSTID` varchar(45) NOT NULL,
-  PRIMARY KEY (`ID`)
+  PRIMARY KEY (`ID`),
+  KEY `IDX_MXK_HISTORY_SYSTEM_LOGS_EXECUTETIME` (`EXECUTETIME`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3 COMMENT='USER OPERATE LOGS';
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -865,6 +890,55 @@ CREATE TABLE `mxk_remember_me` (
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
+--
+-- Table structure for table `mxk_report_login_backfill`
+--
+
+DROP TABLE IF EXISTS `mxk_report_login_backfill`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `mxk_report_login_backfill` (
+  `rollupday` date NOT NULL,
+  `backfilltime` datetime NOT NULL,
+  PRIMARY KEY (`rollupday`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3 COMMENT='login rollup days rebuilt from history';
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `mxk_report_login_day`
+--
+
+DROP TABLE IF EXISTS `mxk_report_login_day`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `mxk_report_login_day` (
+  `instid` varchar(45) NOT NULL,
+  `rollupday` date NOT NULL,
+  `dimension` varchar(20) NOT NULL COMMENT 'browser or app',
+  `dimensionvalue` varchar(200) NOT NULL,
+  `reportcount` bigint NOT NULL DEFAULT '0',
+  PRIMARY KEY (`instid`,`rollupday`,`dimension`,`dimensionvalue`),
+  KEY `idx_rollupday` (`rollupday`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3 COMMENT='login rollup per day';
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `mxk_report_login_hour`
+--
+
+DROP TABLE IF EXISTS `mxk_report_login_hour`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `mxk_report_login_hour` (
+  `instid` varchar(45) NOT NULL,
+  `rollupday` date NOT NULL,
+  `rolluphour` int NOT NULL,
+  `reportcount` bigint NOT NULL DEFAULT '0',
+  PRIMARY KEY (`instid`,`rollupday`,`rolluphour`),
+  KEY `idx_rollupday` (`rollupday`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb3 COMMENT='login rollup per hour';
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `mxk_resources`
 --
@@ -1049,6 +1123,7 @@ CREATE TABLE `mxk_synchronizers` (
   `truststore` varchar(45) DEFAULT NULL,
   `truststorepassword` varchar(45) DEFAULT NULL,
   `SYNCSTARTTIME` int DEFAULT '0' COMMENT '同步时间范围（单位天）',
+  `SYNCWATERMARK` varchar(200) DEFAULT NULL COMMENT '增量同步水位',
   `STATUS` varchar(45) DEFAULT NULL,
   `CREATEDBY` varchar(45) DEFAULT NULL,
   `CREATEDDATE` datetime DEFAULT CURRENT_TIMESTAMP,